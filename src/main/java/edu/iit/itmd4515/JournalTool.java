@@ -0,0 +1,76 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.service.JournalRecord;
+import edu.iit.itmd4515.service.LoanJournal;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line reader for the loan journal written by LoanJournalService.
+ * Usage: {@code JournalTool <directory> [fromSequence] [--verify]}.
+ * Prints the records from the given sequence number as CSV, or with
+ * {@code --verify} only checks the CRC chain and reports the record count.
+ * Exits with status 1 if the journal is damaged.
+ */
+public class JournalTool {
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JournalTool <directory> [fromSequence] [--verify]");
+            System.exit(2);
+        }
+        Path directory = Paths.get(args[0]);
+        long fromSequence = 1;
+        boolean verify = false;
+        for (int i = 1; i < args.length; i++) {
+            if ("--verify".equals(args[i])) {
+                verify = true;
+            } else {
+                fromSequence = Long.parseLong(args[i]);
+            }
+        }
+        
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        long started = System.nanoTime();
+        long count;
+        try {
+            if (verify) {
+                count = LoanJournal.replay(directory, fromSequence, record -> { });
+            } else {
+                out.write("sequence,timestamp,operation,loan_id,book_id,borrower_id,library_id,due_date,return_date,fine_amount");
+                out.newLine();
+                count = LoanJournal.replay(directory, fromSequence, record -> write(out, record));
+            }
+        } catch (IOException e) {
+            out.flush();
+            System.err.println("Journal verification failed: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        out.flush();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.err.printf("%d records in %.3f s (%.0f records/s)%n", count, seconds, count / Math.max(seconds, 1e-9));
+    }
+    
+    private static void write(BufferedWriter out, JournalRecord record) {
+        try {
+            out.write(record.getSequence() + "," + record.getTimestamp() + "," + record.getOperation() + ","
+                    + value(record.getLoanId()) + "," + value(record.getBookId()) + ","
+                    + value(record.getBorrowerId()) + "," + value(record.getLibraryId()) + ","
+                    + value(record.getDueDate()) + "," + value(record.getReturnDate()) + ","
+                    + value(record.getFineAmount()));
+            out.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static String value(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
\ No newline at end of file
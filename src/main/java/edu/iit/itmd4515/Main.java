@@ -26,14 +26,19 @@ public class Main {
             emf = Persistence.createEntityManagerFactory("itmd4515StandalonePU");
             em = emf.createEntityManager();
             
-            // Create and demonstrate services
+            // Create and demonstrate services in one resource-local transaction
+            em.getTransaction().begin();
             demonstrateServices(em);
+            em.getTransaction().commit();
             
             LOG.info("EJB Lab 6 - Service Layer Demo completed successfully!");
             
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error during demo", e);
         } finally {
+            if (em != null && em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
             if (em != null) {
                 em.close();
             }
@@ -47,23 +52,43 @@ public class Main {
         LOG.info("=== DEMONSTRATING EJB SERVICE LAYER ===");
         
         // Create services with injected EntityManager
+        LoanCounterService loanCounterService = new LoanCounterService();
+        loanCounterService.em = em;
+        loanCounterService.init();
+        
+        DomainEventBus eventBus = new DomainEventBus();
+        
+        LoanDueDateService loanDueDateService = new LoanDueDateService();
+        loanDueDateService.em = em;
+        loanDueDateService.eventBus = eventBus;
+        loanDueDateService.init();
+        
         BookService bookService = new BookService();
         bookService.em = em;
+        bookService.eventBus = eventBus;
         
         BorrowerService borrowerService = new BorrowerService();
         borrowerService.em = em;
+        borrowerService.loanCounterService = loanCounterService;
+        borrowerService.loanDueDateService = loanDueDateService;
+        borrowerService.eventBus = eventBus;
         
         LibraryService libraryService = new LibraryService();
         libraryService.em = em;
+        libraryService.loanCounterService = loanCounterService;
         
         BookLoanService bookLoanService = new BookLoanService();
         bookLoanService.em = em;
+        bookLoanService.loanCounterService = loanCounterService;
+        bookLoanService.loanDueDateService = loanDueDateService;
+        bookLoanService.eventBus = eventBus;
         
         PublisherService publisherService = new PublisherService();
         publisherService.em = em;
         
         LibrarianService librarianService = new LibrarianService();
         librarianService.em = em;
+        librarianService.loanCounterService = loanCounterService;
         
         UserService userService = new UserService();
         userService.em = em;
@@ -122,11 +147,9 @@ public class Main {
         
         // Demonstrate library statistics
         LOG.info("\n--- Library Statistics ---");
-        libraryService.findAll().forEach(library -> {
-            long activeLoans = libraryService.countActiveLoans(library.getId());
-            long totalLoans = libraryService.countTotalLoans(library.getId());
-            LOG.log(Level.INFO, "{0}: {1} active loans, {2} total loans", 
-                   new Object[]{library.getName(), activeLoans, totalLoans});
+        libraryService.statistics(null, null).forEach(stats -> {
+            LOG.log(Level.INFO, "{0}: {1} active loans, {2} total loans, {3} overdue", 
+                   new Object[]{stats.getLibraryName(), stats.getActiveLoans(), stats.getTotalLoans(), stats.getOverdueLoans()});
         });
         
         LOG.info("\n=== SERVICE LAYER DEMONSTRATION COMPLETE ===");
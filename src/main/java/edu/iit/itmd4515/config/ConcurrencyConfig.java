@@ -0,0 +1,31 @@
+package edu.iit.itmd4515.config;
+
+import jakarta.enterprise.concurrent.ManagedExecutorDefinition;
+
+@ManagedExecutorDefinition(
+    name = "java:app/concurrent/ReportingExecutor",
+    maxAsync = 4,
+    hungTaskThreshold = 120000
+)
+@ManagedExecutorDefinition(
+    name = "java:app/concurrent/DeskExecutor",
+    maxAsync = 16,
+    hungTaskThreshold = 30000
+)
+@ManagedExecutorDefinition(
+    name = "java:app/concurrent/ImportExecutor",
+    maxAsync = 4,
+    hungTaskThreshold = 300000
+)
+@ManagedExecutorDefinition(
+    name = "java:app/concurrent/EventExecutor",
+    maxAsync = 4,
+    hungTaskThreshold = 60000
+)
+@ManagedExecutorDefinition(
+    name = "java:app/concurrent/IndexExecutor",
+    maxAsync = 4,
+    hungTaskThreshold = 600000
+)
+public class ConcurrencyConfig {
+}
\ No newline at end of file
@@ -13,7 +13,9 @@ import jakarta.annotation.sql.DataSourceDefinition;
     properties = {
         "zeroDateTimeBehavior=CONVERT_TO_NULL",
         "serverTimezone=America/Chicago",
-        "useSSL=false"
+        "useSSL=false",
+        "rewriteBatchedStatements=true",
+        "useCursorFetch=true"
     }
 )
 public class DataSourceConfig {
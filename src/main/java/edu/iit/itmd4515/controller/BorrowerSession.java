@@ -0,0 +1,56 @@
+package edu.iit.itmd4515.controller;
+
+import edu.iit.itmd4515.service.BookLoanService;
+import jakarta.ejb.EJB;
+import jakarta.enterprise.context.SessionScoped;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Session scoped holder for the borrower linked to the logged-in user.
+ * The borrower ID is resolved once per session so pages showing the
+ * user's loans only need to query the loans themselves.
+ * 
+ * @author Lab 9 - JSF Data Tables
+ */
+@SessionScoped
+public class BorrowerSession implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private static final Logger LOG = Logger.getLogger(BorrowerSession.class.getName());
+    
+    @EJB
+    private BookLoanService bookLoanService;
+    
+    private String username;
+    
+    private Long borrowerId;
+    
+    /**
+     * Get the borrower ID for a user, resolving it on first use.
+     * @param currentUsername the logged-in username
+     * @return the borrower ID or null if the user has no borrower
+     */
+    public Long getBorrowerId(String currentUsername) {
+        if (currentUsername == null) {
+            return null;
+        }
+        if (!Objects.equals(username, currentUsername)) {
+            LOG.log(Level.INFO, "Resolving borrower for user: {0}", currentUsername);
+            borrowerId = bookLoanService.findBorrowerIdByUsername(currentUsername);
+            username = currentUsername;
+        }
+        return borrowerId;
+    }
+    
+    /**
+     * Forget the cached borrower, e.g. after the user account was relinked.
+     */
+    public void clear() {
+        username = null;
+        borrowerId = null;
+    }
+}
\ No newline at end of file
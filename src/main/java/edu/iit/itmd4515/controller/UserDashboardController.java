@@ -0,0 +1,54 @@
+package edu.iit.itmd4515.controller;
+
+import edu.iit.itmd4515.domain.BookLoan;
+import edu.iit.itmd4515.service.BookLoanService;
+import jakarta.ejb.EJB;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JSF Backing Bean for the user dashboard.
+ * Loads the logged-in user's active loans once per request so the
+ * data table does not re-run the query for every evaluation.
+ * 
+ * @author Lab 9 - JSF Data Tables
+ */
+@Named("userDashboardController")
+@RequestScoped
+public class UserDashboardController {
+    
+    private static final Logger LOG = Logger.getLogger(UserDashboardController.class.getName());
+    
+    @EJB
+    private BookLoanService bookLoanService;
+    
+    @Inject
+    private BorrowerSession borrowerSession;
+    
+    @Inject
+    private LoginController loginController;
+    
+    private List<BookLoan> activeLoans;
+    
+    /**
+     * Get the active loans of the logged-in user.
+     * @return list of active loans, empty if the user has no borrower
+     */
+    public List<BookLoan> getActiveLoans() {
+        if (activeLoans == null) {
+            Long borrowerId = borrowerSession.getBorrowerId(loginController.getCurrentUsername());
+            if (borrowerId == null) {
+                activeLoans = Collections.emptyList();
+            } else {
+                LOG.log(Level.INFO, "Loading active loans for borrower ID: {0}", borrowerId);
+                activeLoans = bookLoanService.findActiveLoansByBorrower(borrowerId);
+            }
+        }
+        return activeLoans;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+package edu.iit.itmd4515.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A returned loan moved out of book_loans by the loan archival job.
+ * Rows keep the ID they had in book_loans and are written only by the
+ * archival job's INSERT ... SELECT, so the entity has no setters.
+ * The join columns have no foreign key constraints, so deleting a book,
+ * borrower, library or librarian is never blocked by its archived loans;
+ * those loans then drop out of the joined history queries, as current
+ * loans are deleted along with their owner.
+ */
+@Entity
+@Table(name = "book_loans_archive", indexes = {
+    @Index(name = "idx_book_loans_archive_borrower", columnList = "borrower_id"),
+    @Index(name = "idx_book_loans_archive_book", columnList = "book_id"),
+    @Index(name = "idx_book_loans_archive_library_date", columnList = "library_id, loan_date"),
+    @Index(name = "idx_book_loans_archive_loan_date", columnList = "loan_date"),
+    @Index(name = "idx_book_loans_archive_return_date", columnList = "return_date")
+})
+@NamedQuery(name = "ArchivedLoan.findAll", query = "SELECT al FROM ArchivedLoan al")
+public class ArchivedLoan {
+    
+    @Id
+    private Long id;
+    
+    @NotNull(message = "Loan date is required")
+    @Column(name = "loan_date", nullable = false)
+    private LocalDate loanDate;
+    
+    @NotNull(message = "Due date is required")
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+    
+    @NotNull(message = "Return date is required")
+    @Column(name = "return_date", nullable = false)
+    private LocalDate returnDate;
+    
+    @NotBlank(message = "Borrower name is required")
+    @Size(max = 100, message = "Borrower name must not exceed 100 characters")
+    @Column(name = "borrower_name", nullable = false, length = 100)
+    private String borrowerName;
+    
+    @Size(max = 100, message = "Borrower email must not exceed 100 characters")
+    @Column(name = "borrower_email", length = 100)
+    private String borrowerEmail;
+    
+    @Size(max = 20, message = "Phone number must not exceed 20 characters")
+    @Column(name = "borrower_phone", length = 20)
+    private String borrowerPhone;
+    
+    @Column(name = "fine_amount")
+    private Double fineAmount;
+    
+    @Size(max = 500, message = "Notes must not exceed 500 characters")
+    @Column(length = 500)
+    private String notes;
+    
+    @NotNull(message = "Archive time is required")
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+    
+    // Relationships
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Book book;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "library_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Library library;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "borrower_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Borrower borrower;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "processed_by_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Librarian processedBy;
+    
+    // Constructors
+    public ArchivedLoan() {
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public LocalDate getLoanDate() {
+        return loanDate;
+    }
+    
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+    
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+    
+    public String getBorrowerName() {
+        return borrowerName;
+    }
+    
+    public String getBorrowerEmail() {
+        return borrowerEmail;
+    }
+    
+    public String getBorrowerPhone() {
+        return borrowerPhone;
+    }
+    
+    public Double getFineAmount() {
+        return fineAmount;
+    }
+    
+    public String getNotes() {
+        return notes;
+    }
+    
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+    
+    public Book getBook() {
+        return book;
+    }
+    
+    public Library getLibrary() {
+        return library;
+    }
+    
+    public Borrower getBorrower() {
+        return borrower;
+    }
+    
+    public Librarian getProcessedBy() {
+        return processedBy;
+    }
+    
+    // equals and hashCode based on id, which archived loans keep from book_loans
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ArchivedLoan that = (ArchivedLoan) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+    
+    @Override
+    public String toString() {
+        return "ArchivedLoan{" +
+                "id=" + id +
+                ", loanDate=" + loanDate +
+                ", dueDate=" + dueDate +
+                ", returnDate=" + returnDate +
+                ", borrowerName='" + borrowerName + '\'' +
+                ", fineAmount=" + fineAmount +
+                ", archivedAt=" + archivedAt +
+                '}';
+    }
+}
\ No newline at end of file
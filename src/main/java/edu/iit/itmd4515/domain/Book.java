@@ -3,12 +3,16 @@ package edu.iit.itmd4515.domain;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+    @Index(name = "idx_books_publisher_feed_sync", columnList = "publisher_id, feed_sync_id")
+})
 @NamedQuery(name = "Book.findAll", query = "SELECT b FROM Book b")
 @NamedQuery(name = "Book.findByIsbn", query = "SELECT b FROM Book b WHERE b.isbn = :isbn")
 public class Book {
@@ -17,6 +21,12 @@ public class Book {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @Version
+    private Long version;
+    
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
+    
     @NotBlank(message = "Title is required")
     @Size(max = 200, message = "Title must not exceed 200 characters")
     @Column(nullable = false, length = 200)
@@ -53,6 +63,18 @@ public class Book {
     @Column(name = "due_date")
     private LocalDate dueDate;
     
+    // Publisher feed sync state
+    @Size(max = 64, message = "Content hash must not exceed 64 characters")
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    @NotNull(message = "Withdrawn status is required")
+    @Column(nullable = false)
+    private Boolean withdrawn = false;
+    
+    @Column(name = "feed_sync_id")
+    private Long feedSyncId;
+    
     // Relationships
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "publisher_id")
@@ -87,6 +109,14 @@ public class Book {
         }
     }
     
+    // Lifecycle callbacks
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        // HTTP dates carry whole seconds only
+        lastModified = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -96,6 +126,22 @@ public class Book {
         this.id = id;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+    
+    public void setLastModified(LocalDateTime lastModified) {
+        this.lastModified = lastModified;
+    }
+    
     public String getTitle() {
         return title;
     }
@@ -160,6 +206,34 @@ public class Book {
         this.dueDate = dueDate;
     }
     
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+    
+    public Boolean getWithdrawn() {
+        return withdrawn;
+    }
+    
+    public void setWithdrawn(Boolean withdrawn) {
+        this.withdrawn = withdrawn;
+    }
+    
+    /**
+     * Get the ID of the last publisher feed sync that listed this title.
+     * @return the sync ID, or null if never synced from a feed
+     */
+    public Long getFeedSyncId() {
+        return feedSyncId;
+    }
+    
+    public void setFeedSyncId(Long feedSyncId) {
+        this.feedSyncId = feedSyncId;
+    }
+    
     public Publisher getPublisher() {
         return publisher;
     }
@@ -6,7 +6,11 @@ import java.time.LocalDate;
 import java.util.Objects;
 
 @Entity
-@Table(name = "book_loans")
+@Table(name = "book_loans", indexes = {
+    @Index(name = "idx_book_loans_borrower_active", columnList = "borrower_id, return_date, due_date"),
+    @Index(name = "idx_book_loans_overdue", columnList = "return_date, due_date"),
+    @Index(name = "idx_book_loans_loan_date", columnList = "loan_date")
+})
 @NamedQuery(name = "BookLoan.findAll", query = "SELECT bl FROM BookLoan bl")
 @NamedQuery(name = "BookLoan.findActiveLoans", query = "SELECT bl FROM BookLoan bl WHERE bl.returnDate IS NULL")
 public class BookLoan {
@@ -15,6 +19,9 @@ public class BookLoan {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @Version
+    private Long version;
+    
     @NotNull(message = "Loan date is required")
     @Column(name = "loan_date", nullable = false)
     private LocalDate loanDate;
@@ -98,10 +105,16 @@ public class BookLoan {
     }
     
     public void returnBook() {
-        this.returnDate = LocalDate.now();
-        if (isOverdue()) {
-            this.fineAmount = getDaysOverdue() * 1.0; // $1 per day
+        returnBook(LocalDate.now());
+    }
+    
+    public void returnBook(LocalDate date) {
+        long daysLate = date.toEpochDay() - dueDate.toEpochDay();
+        if (daysLate > 0) {
+            // Library fine policy, or $1 per day when the loan has no library
+            this.fineAmount = library != null ? library.calculateFine(daysLate) : daysLate * 1.0;
         }
+        this.returnDate = date;
     }
     
     // Getters and Setters
@@ -113,6 +126,14 @@ public class BookLoan {
         this.id = id;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public LocalDate getLoanDate() {
         return loanDate;
     }
@@ -0,0 +1,99 @@
+package edu.iit.itmd4515.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * HyperLogLog sketch of the distinct borrowers of one library on one day,
+ * serialized compactly. Sketches of any days and libraries merge into the
+ * number of distinct borrowers over them without reading book_loans.
+ * The row of library 0 holds no borrowers; its date is how far the seed from
+ * the loan history got.
+ */
+@Entity
+@Table(name = "borrower_sketches", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_borrower_sketches", columnNames = {"stat_date", "library_id"})
+})
+@NamedQuery(name = "BorrowerSketch.findAll", query = "SELECT s FROM BorrowerSketch s")
+@NamedQuery(name = "BorrowerSketch.findByDateAndLibrary",
+            query = "SELECT s FROM BorrowerSketch s WHERE s.statDate = :statDate AND s.libraryId = :libraryId")
+public class BorrowerSketch {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Date is required")
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    @NotNull(message = "Library ID is required")
+    @Column(name = "library_id", nullable = false)
+    private Long libraryId;
+    
+    @NotNull(message = "Sketch is required")
+    @Lob
+    @Column(nullable = false)
+    private byte[] sketch;
+    
+    // Constructors
+    public BorrowerSketch() {
+    }
+    
+    public BorrowerSketch(LocalDate statDate, Long libraryId, byte[] sketch) {
+        this.statDate = statDate;
+        this.libraryId = libraryId;
+        this.sketch = sketch;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+    
+    public void setStatDate(LocalDate statDate) {
+        this.statDate = statDate;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public byte[] getSketch() {
+        return sketch;
+    }
+    
+    public void setSketch(byte[] sketch) {
+        this.sketch = sketch;
+    }
+    
+    // equals and hashCode based on statDate and libraryId
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BorrowerSketch that = (BorrowerSketch) o;
+        return Objects.equals(statDate, that.statDate) &&
+               Objects.equals(libraryId, that.libraryId);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(statDate, libraryId);
+    }
+    
+    @Override
+    public String toString() {
+        return "BorrowerSketch{" +
+                "statDate=" + statDate +
+                ", libraryId=" + libraryId +
+                ", bytes=" + (sketch == null ? 0 : sketch.length) +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package edu.iit.itmd4515.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "change_log", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_change_log_seq", columnNames = {"seq"})
+})
+@NamedQuery(name = "ChangeLogEntry.findAll", query = "SELECT c FROM ChangeLogEntry c")
+@NamedQuery(name = "ChangeLogEntry.findSince",
+        query = "SELECT c FROM ChangeLogEntry c WHERE c.seq > :since ORDER BY c.seq")
+@NamedQuery(name = "ChangeLogEntry.findSinceByTypes",
+        query = "SELECT c FROM ChangeLogEntry c WHERE c.seq > :since AND c.entityType IN :types ORDER BY c.seq")
+public class ChangeLogEntry {
+    
+    /**
+     * The kind of write recorded.
+     */
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * Position in the change feed, assigned once the writing transaction has committed.
+     */
+    private Long seq;
+    
+    @NotBlank(message = "Entity type is required")
+    @Size(max = 50, message = "Entity type must not exceed 50 characters")
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private String entityType;
+    
+    @NotNull(message = "Entity ID is required")
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    @NotNull(message = "Operation is required")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Operation operation;
+    
+    @NotNull(message = "Change time is required")
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+    
+    // Constructors
+    public ChangeLogEntry() {
+    }
+    
+    public ChangeLogEntry(String entityType, Long entityId, Operation operation, LocalDateTime changedAt) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.changedAt = changedAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getSeq() {
+        return seq;
+    }
+    
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+    
+    public String getEntityType() {
+        return entityType;
+    }
+    
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+    
+    public Long getEntityId() {
+        return entityId;
+    }
+    
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+    
+    public Operation getOperation() {
+        return operation;
+    }
+    
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+    
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+    
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+    
+    // equals and hashCode based on entityType, entityId, operation and changedAt
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChangeLogEntry that = (ChangeLogEntry) o;
+        return Objects.equals(entityType, that.entityType) && Objects.equals(entityId, that.entityId)
+                && operation == that.operation && Objects.equals(changedAt, that.changedAt);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(entityType, entityId, operation, changedAt);
+    }
+    
+    @Override
+    public String toString() {
+        return "ChangeLogEntry{" +
+                "seq=" + seq +
+                ", entityType='" + entityType + '\'' +
+                ", entityId=" + entityId +
+                ", operation=" + operation +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package edu.iit.itmd4515.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Circulation totals of one day for one library and publisher.
+ * A library or publisher ID of 0 stands for all of them, so every day has a
+ * row per library and publisher pair, per library, per publisher and one
+ * overall, and each dashboard query reads exactly the rows it reports.
+ * Books without a publisher only count towards the library and overall rows.
+ */
+@Entity
+@Table(name = "circulation_daily", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_circulation_daily", columnNames = {"stat_date", "library_id", "publisher_id"})
+}, indexes = {
+    @Index(name = "idx_circulation_daily_library", columnList = "library_id, publisher_id, stat_date"),
+    @Index(name = "idx_circulation_daily_publisher", columnList = "publisher_id, library_id, stat_date")
+})
+@NamedQuery(name = "CirculationDaily.findAll", query = "SELECT c FROM CirculationDaily c")
+public class CirculationDaily {
+    
+    /**
+     * Library or publisher ID of the rows totalling all libraries or publishers.
+     */
+    public static final long ALL = 0L;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Date is required")
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    @NotNull(message = "Library ID is required")
+    @Column(name = "library_id", nullable = false)
+    private Long libraryId;
+    
+    @NotNull(message = "Publisher ID is required")
+    @Column(name = "publisher_id", nullable = false)
+    private Long publisherId;
+    
+    @Column(nullable = false)
+    private long checkouts;
+    
+    @Column(name = "returned_loans", nullable = false)
+    private long returnedLoans;
+    
+    @Column(name = "overdue_returns", nullable = false)
+    private long overdueReturns;
+    
+    @Column(name = "fine_revenue", nullable = false)
+    private double fineRevenue;
+    
+    // Constructors
+    public CirculationDaily() {
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public Long getPublisherId() {
+        return publisherId;
+    }
+    
+    public long getCheckouts() {
+        return checkouts;
+    }
+    
+    public long getReturnedLoans() {
+        return returnedLoans;
+    }
+    
+    public long getOverdueReturns() {
+        return overdueReturns;
+    }
+    
+    public double getFineRevenue() {
+        return fineRevenue;
+    }
+    
+    // equals and hashCode based on statDate, libraryId and publisherId
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CirculationDaily that = (CirculationDaily) o;
+        return Objects.equals(statDate, that.statDate) &&
+               Objects.equals(libraryId, that.libraryId) &&
+               Objects.equals(publisherId, that.publisherId);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(statDate, libraryId, publisherId);
+    }
+    
+    @Override
+    public String toString() {
+        return "CirculationDaily{" +
+                "statDate=" + statDate +
+                ", libraryId=" + libraryId +
+                ", publisherId=" + publisherId +
+                ", checkouts=" + checkouts +
+                ", returnedLoans=" + returnedLoans +
+                ", overdueReturns=" + overdueReturns +
+                ", fineRevenue=" + fineRevenue +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package edu.iit.itmd4515.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "fine_accrual_runs")
+@NamedQuery(name = "FineAccrualRun.findAll", query = "SELECT r FROM FineAccrualRun r")
+@NamedQuery(name = "FineAccrualRun.findRecent", query = "SELECT r FROM FineAccrualRun r ORDER BY r.startedAt DESC")
+public class FineAccrualRun {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Accrual date is required")
+    @Column(name = "accrual_date", nullable = false)
+    private LocalDate accrualDate;
+    
+    @NotNull(message = "Start time is required")
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @Min(value = 0, message = "Rows updated must be non-negative")
+    @Column(name = "rows_updated", nullable = false)
+    private long rowsUpdated;
+    
+    @Min(value = 0, message = "Chunks must be non-negative")
+    @Column(nullable = false)
+    private int chunks;
+    
+    @Size(max = 500, message = "Error must not exceed 500 characters")
+    @Column(length = 500)
+    private String error;
+    
+    // Constructors
+    public FineAccrualRun() {
+    }
+    
+    public FineAccrualRun(LocalDate accrualDate, LocalDateTime startedAt) {
+        this.accrualDate = accrualDate;
+        this.startedAt = startedAt;
+    }
+    
+    // Business methods
+    public Long getDurationMillis() {
+        if (finishedAt == null) {
+            return null;
+        }
+        return Duration.between(startedAt, finishedAt).toMillis();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public LocalDate getAccrualDate() {
+        return accrualDate;
+    }
+    
+    public void setAccrualDate(LocalDate accrualDate) {
+        this.accrualDate = accrualDate;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getRowsUpdated() {
+        return rowsUpdated;
+    }
+    
+    public void setRowsUpdated(long rowsUpdated) {
+        this.rowsUpdated = rowsUpdated;
+    }
+    
+    public int getChunks() {
+        return chunks;
+    }
+    
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    // equals and hashCode based on accrualDate and startedAt
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FineAccrualRun that = (FineAccrualRun) o;
+        return Objects.equals(accrualDate, that.accrualDate) && Objects.equals(startedAt, that.startedAt);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(accrualDate, startedAt);
+    }
+    
+    @Override
+    public String toString() {
+        return "FineAccrualRun{" +
+                "id=" + id +
+                ", accrualDate=" + accrualDate +
+                ", startedAt=" + startedAt +
+                ", finishedAt=" + finishedAt +
+                ", rowsUpdated=" + rowsUpdated +
+                ", chunks=" + chunks +
+                '}';
+    }
+}
\ No newline at end of file
@@ -2,7 +2,9 @@ package edu.iit.itmd4515.domain;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -16,6 +18,12 @@ public class Library {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @Version
+    private Long version;
+    
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
+    
     @NotBlank(message = "Library name is required")
     @Size(max = 100, message = "Library name must not exceed 100 characters")
     @Column(nullable = false, unique = true, length = 100)
@@ -69,6 +77,23 @@ public class Library {
     @Column(nullable = false)
     private Boolean active = true;
     
+    // Fine policy for overdue loans
+    @NotNull(message = "Fine rate per day is required")
+    @DecimalMin(value = "0.0", message = "Fine rate per day must be non-negative")
+    @Digits(integer = 4, fraction = 2, message = "Fine rate per day must have at most 4 integer digits and 2 fraction digits")
+    @Column(name = "fine_rate_per_day", nullable = false)
+    private Double fineRatePerDay = 1.0;
+    
+    @NotNull(message = "Fine grace days is required")
+    @Min(value = 0, message = "Fine grace days must be non-negative")
+    @Column(name = "fine_grace_days", nullable = false)
+    private Integer fineGraceDays = 0;
+    
+    @DecimalMin(value = "0.0", message = "Fine cap must be non-negative")
+    @Digits(integer = 6, fraction = 2, message = "Fine cap must have at most 6 integer digits and 2 fraction digits")
+    @Column(name = "fine_cap")
+    private Double fineCap;
+    
     // Relationships
     @OneToMany(mappedBy = "library", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<BookLoan> bookLoans = new ArrayList<>();
@@ -104,6 +129,33 @@ public class Library {
         }
     }
     
+    // Business methods
+    /**
+     * Calculate the fine for a loan under this library's fine policy.
+     * Must stay in line with the SQL used by FineAccrualService.
+     * @param daysOverdue days past the due date
+     * @return fine amount, rounded to cents and limited by the cap if one is set
+     */
+    public double calculateFine(long daysOverdue) {
+        long chargeableDays = daysOverdue - (fineGraceDays == null ? 0 : fineGraceDays);
+        if (chargeableDays <= 0) {
+            return 0.0;
+        }
+        double fine = chargeableDays * (fineRatePerDay == null ? 1.0 : fineRatePerDay);
+        if (fineCap != null) {
+            fine = Math.min(fine, fineCap);
+        }
+        return Math.round(fine * 100) / 100.0;
+    }
+    
+    // Lifecycle callbacks
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        // HTTP dates carry whole seconds only
+        lastModified = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -113,6 +165,22 @@ public class Library {
         this.id = id;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+    
+    public void setLastModified(LocalDateTime lastModified) {
+        this.lastModified = lastModified;
+    }
+    
     public String getName() {
         return name;
     }
@@ -201,6 +269,30 @@ public class Library {
         this.active = active;
     }
     
+    public Double getFineRatePerDay() {
+        return fineRatePerDay;
+    }
+    
+    public void setFineRatePerDay(Double fineRatePerDay) {
+        this.fineRatePerDay = fineRatePerDay;
+    }
+    
+    public Integer getFineGraceDays() {
+        return fineGraceDays;
+    }
+    
+    public void setFineGraceDays(Integer fineGraceDays) {
+        this.fineGraceDays = fineGraceDays;
+    }
+    
+    public Double getFineCap() {
+        return fineCap;
+    }
+    
+    public void setFineCap(Double fineCap) {
+        this.fineCap = fineCap;
+    }
+    
     public List<BookLoan> getBookLoans() {
         return bookLoans;
     }
@@ -0,0 +1,119 @@
+package edu.iit.itmd4515.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.util.Objects;
+
+@Entity
+@Table(name = "loan_counters", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_loan_counters_scope_owner", columnNames = {"scope", "owner_id"})
+})
+@NamedQuery(name = "LoanCounter.findAll", query = "SELECT c FROM LoanCounter c")
+public class LoanCounter {
+    
+    /**
+     * The kind of entity a counter belongs to.
+     */
+    public enum Scope {
+        LIBRARY,
+        BORROWER,
+        LIBRARIAN
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Scope is required")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Scope scope;
+    
+    @NotNull(message = "Owner ID is required")
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+    
+    @Min(value = 0, message = "Active loans must be non-negative")
+    @Column(name = "active_loans", nullable = false)
+    private long activeLoans;
+    
+    @Min(value = 0, message = "Total loans must be non-negative")
+    @Column(name = "total_loans", nullable = false)
+    private long totalLoans;
+    
+    // Constructors
+    public LoanCounter() {
+    }
+    
+    public LoanCounter(Scope scope, Long ownerId, long activeLoans, long totalLoans) {
+        this.scope = scope;
+        this.ownerId = ownerId;
+        this.activeLoans = activeLoans;
+        this.totalLoans = totalLoans;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Scope getScope() {
+        return scope;
+    }
+    
+    public void setScope(Scope scope) {
+        this.scope = scope;
+    }
+    
+    public Long getOwnerId() {
+        return ownerId;
+    }
+    
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+    
+    public long getActiveLoans() {
+        return activeLoans;
+    }
+    
+    public void setActiveLoans(long activeLoans) {
+        this.activeLoans = activeLoans;
+    }
+    
+    public long getTotalLoans() {
+        return totalLoans;
+    }
+    
+    public void setTotalLoans(long totalLoans) {
+        this.totalLoans = totalLoans;
+    }
+    
+    // equals and hashCode based on scope and owner
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LoanCounter that = (LoanCounter) o;
+        return scope == that.scope && Objects.equals(ownerId, that.ownerId);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(scope, ownerId);
+    }
+    
+    @Override
+    public String toString() {
+        return "LoanCounter{" +
+                "scope=" + scope +
+                ", ownerId=" + ownerId +
+                ", activeLoans=" + activeLoans +
+                ", totalLoans=" + totalLoans +
+                '}';
+    }
+}
\ No newline at end of file
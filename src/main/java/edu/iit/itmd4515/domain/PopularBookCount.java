@@ -0,0 +1,113 @@
+package edu.iit.itmd4515.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One counter of a day's popular-books sketch, persisted so the leaderboard
+ * survives a restart. Counts are Space-Saving estimates: the book was lent
+ * between loans - maxError and loans times that day in that library.
+ * A library ID of 0 stands for the sketch over all libraries.
+ */
+@Entity
+@Table(name = "popular_book_counts", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_popular_book_counts", columnNames = {"stat_date", "library_id", "book_id"})
+})
+@NamedQuery(name = "PopularBookCount.findAll", query = "SELECT p FROM PopularBookCount p")
+@NamedQuery(name = "PopularBookCount.findByDate",
+            query = "SELECT p FROM PopularBookCount p WHERE p.statDate = :statDate")
+public class PopularBookCount {
+    
+    /**
+     * Library ID of the counts over all libraries.
+     */
+    public static final long ALL = 0L;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Date is required")
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    @NotNull(message = "Library ID is required")
+    @Column(name = "library_id", nullable = false)
+    private Long libraryId;
+    
+    @NotNull(message = "Book ID is required")
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+    
+    @Column(nullable = false)
+    private long loans;
+    
+    @Column(name = "max_error", nullable = false)
+    private long maxError;
+    
+    // Constructors
+    public PopularBookCount() {
+    }
+    
+    public PopularBookCount(LocalDate statDate, Long libraryId, Long bookId, long loans, long maxError) {
+        this.statDate = statDate;
+        this.libraryId = libraryId;
+        this.bookId = bookId;
+        this.loans = loans;
+        this.maxError = maxError;
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public long getLoans() {
+        return loans;
+    }
+    
+    public long getMaxError() {
+        return maxError;
+    }
+    
+    // equals and hashCode based on statDate, libraryId and bookId
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PopularBookCount that = (PopularBookCount) o;
+        return Objects.equals(statDate, that.statDate) &&
+               Objects.equals(libraryId, that.libraryId) &&
+               Objects.equals(bookId, that.bookId);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(statDate, libraryId, bookId);
+    }
+    
+    @Override
+    public String toString() {
+        return "PopularBookCount{" +
+                "statDate=" + statDate +
+                ", libraryId=" + libraryId +
+                ", bookId=" + bookId +
+                ", loans=" + loans +
+                ", maxError=" + maxError +
+                '}';
+    }
+}
\ No newline at end of file
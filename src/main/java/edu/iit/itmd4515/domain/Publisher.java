@@ -3,6 +3,8 @@ package edu.iit.itmd4515.domain;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -16,6 +18,12 @@ public class Publisher {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @Version
+    private Long version;
+    
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
+    
     @NotBlank(message = "Publisher name is required")
     @Size(max = 100, message = "Publisher name must not exceed 100 characters")
     @Column(nullable = false, unique = true, length = 100)
@@ -88,6 +96,14 @@ public class Publisher {
         }
     }
     
+    // Lifecycle callbacks
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        // HTTP dates carry whole seconds only
+        lastModified = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -97,6 +113,22 @@ public class Publisher {
         this.id = id;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+    
+    public void setLastModified(LocalDateTime lastModified) {
+        this.lastModified = lastModified;
+    }
+    
     public String getName() {
         return name;
     }
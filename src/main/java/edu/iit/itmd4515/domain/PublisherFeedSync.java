@@ -0,0 +1,216 @@
+package edu.iit.itmd4515.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "publisher_feed_syncs")
+@NamedQuery(name = "PublisherFeedSync.findAll", query = "SELECT s FROM PublisherFeedSync s")
+@NamedQuery(name = "PublisherFeedSync.findRecentByPublisher",
+        query = "SELECT s FROM PublisherFeedSync s WHERE s.publisherId = :publisherId ORDER BY s.startedAt DESC")
+public class PublisherFeedSync {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Publisher ID is required")
+    @Column(name = "publisher_id", nullable = false)
+    private Long publisherId;
+    
+    @NotBlank(message = "Format is required")
+    @Size(max = 10, message = "Format must not exceed 10 characters")
+    @Column(nullable = false, length = 10)
+    private String format;
+    
+    @NotNull(message = "Start time is required")
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @Min(value = 0, message = "Titles received must be non-negative")
+    @Column(nullable = false)
+    private long received;
+    
+    @Min(value = 0, message = "Titles inserted must be non-negative")
+    @Column(nullable = false)
+    private long inserted;
+    
+    @Min(value = 0, message = "Titles updated must be non-negative")
+    @Column(nullable = false)
+    private long updated;
+    
+    @Min(value = 0, message = "Titles unchanged must be non-negative")
+    @Column(nullable = false)
+    private long unchanged;
+    
+    @Min(value = 0, message = "Titles rejected must be non-negative")
+    @Column(nullable = false)
+    private long rejected;
+    
+    @Min(value = 0, message = "Titles withdrawn must be non-negative")
+    @Column(nullable = false)
+    private long withdrawn;
+    
+    @Min(value = 0, message = "Chunks must be non-negative")
+    @Column(nullable = false)
+    private int chunks;
+    
+    @Size(max = 500, message = "Error must not exceed 500 characters")
+    @Column(length = 500)
+    private String error;
+    
+    // Constructors
+    public PublisherFeedSync() {
+    }
+    
+    public PublisherFeedSync(Long publisherId, String format, LocalDateTime startedAt) {
+        this.publisherId = publisherId;
+        this.format = format;
+        this.startedAt = startedAt;
+    }
+    
+    // Business methods
+    public Long getDurationMillis() {
+        if (finishedAt == null) {
+            return null;
+        }
+        return Duration.between(startedAt, finishedAt).toMillis();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getPublisherId() {
+        return publisherId;
+    }
+    
+    public void setPublisherId(Long publisherId) {
+        this.publisherId = publisherId;
+    }
+    
+    public String getFormat() {
+        return format;
+    }
+    
+    public void setFormat(String format) {
+        this.format = format;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getReceived() {
+        return received;
+    }
+    
+    public void setReceived(long received) {
+        this.received = received;
+    }
+    
+    public long getInserted() {
+        return inserted;
+    }
+    
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+    
+    public long getUpdated() {
+        return updated;
+    }
+    
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+    
+    public long getUnchanged() {
+        return unchanged;
+    }
+    
+    public void setUnchanged(long unchanged) {
+        this.unchanged = unchanged;
+    }
+    
+    public long getRejected() {
+        return rejected;
+    }
+    
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+    
+    public long getWithdrawn() {
+        return withdrawn;
+    }
+    
+    public void setWithdrawn(long withdrawn) {
+        this.withdrawn = withdrawn;
+    }
+    
+    public int getChunks() {
+        return chunks;
+    }
+    
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    // equals and hashCode based on publisherId and startedAt
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PublisherFeedSync that = (PublisherFeedSync) o;
+        return Objects.equals(publisherId, that.publisherId) && Objects.equals(startedAt, that.startedAt);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(publisherId, startedAt);
+    }
+    
+    @Override
+    public String toString() {
+        return "PublisherFeedSync{" +
+                "id=" + id +
+                ", publisherId=" + publisherId +
+                ", received=" + received +
+                ", inserted=" + inserted +
+                ", updated=" + updated +
+                ", withdrawn=" + withdrawn +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package edu.iit.itmd4515.rest;
+
+import edu.iit.itmd4515.service.CirculationRollupJob;
+import edu.iit.itmd4515.service.CirculationRollupService;
+import edu.iit.itmd4515.service.CirculationRollupService.Breakdown;
+import edu.iit.itmd4515.service.CirculationRollupService.Granularity;
+import edu.iit.itmd4515.service.CirculationStats;
+import edu.iit.itmd4515.service.LoanAnalyticsService;
+import edu.iit.itmd4515.service.LoanQuery;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * REST resource for management analytics.
+ * Circulation reports read the circulation_daily rollup, never book_loans, so
+ * their cost depends on the number of periods requested and not on the loan
+ * history. Ad-hoc loan queries scan the in-memory columns of LoanAnalyticsService.
+ */
+@Path("/analytics")
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
+@Consumes(MediaType.APPLICATION_JSON)
+public class AnalyticsResource {
+    
+    private static final Logger LOG = Logger.getLogger(AnalyticsResource.class.getName());
+    
+    @EJB
+    private CirculationRollupService circulationRollupService;
+    
+    @EJB
+    private CirculationRollupJob circulationRollupJob;
+    
+    @EJB
+    private LoanAnalyticsService loanAnalyticsService;
+    
+    /**
+     * Get checkouts, returns, overdue return rate and fine revenue per period.
+     * Library and publisher IDs of 0 in the result mean all libraries or publishers.
+     * @param granularity day (default) or month
+     * @param from Optional first day, default 30 days or 12 months before to
+     * @param to Optional last day, default today
+     * @param library Optional library ID
+     * @param publisher Optional publisher ID
+     * @param by Optional library or publisher to report each one separately
+     * @return Rows ordered by period, library and publisher
+     */
+    @GET
+    @Path("/circulation")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getCirculation(@QueryParam("granularity") String granularity,
+                                   @QueryParam("from") String from,
+                                   @QueryParam("to") String to,
+                                   @QueryParam("library") Long library,
+                                   @QueryParam("publisher") Long publisher,
+                                   @QueryParam("by") String by) {
+        LOG.log(Level.INFO, "Getting {0} circulation from {1} to {2}", new Object[]{granularity, from, to});
+        try {
+            Granularity periods = Granularity.parse(granularity);
+            Breakdown breakdown = Breakdown.parse(by);
+            LocalDate toDate = QueryParams.parseDate("to", to);
+            if (toDate == null) {
+                toDate = LocalDate.now();
+            }
+            LocalDate fromDate = QueryParams.parseDate("from", from);
+            if (fromDate == null) {
+                fromDate = periods == Granularity.MONTH
+                        ? toDate.withDayOfMonth(1).minusMonths(11) : toDate.minusDays(29);
+            }
+            List<CirculationStats> stats = circulationRollupService.findCirculation(
+                    periods, fromDate, toDate, library, publisher, breakdown);
+            return Response.ok(stats).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting circulation analytics", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving circulation analytics: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Rebuild the circulation rollup from the loan history.
+     * @param from Optional first day, default the earliest loan
+     * @param to Optional last day, default today
+     * @return The number of rollup rows written
+     */
+    @POST
+    @Path("/circulation/backfill")
+    @RolesAllowed("ADMIN")
+    public Response backfillCirculation(@QueryParam("from") String from, @QueryParam("to") String to) {
+        LOG.log(Level.INFO, "Backfilling circulation rollup from {0} to {1}", new Object[]{from, to});
+        try {
+            LocalDate fromDate = QueryParams.parseDate("from", from);
+            LocalDate toDate = QueryParams.parseDate("to", to);
+            long rows = circulationRollupJob.backfill(fromDate, toDate == null ? LocalDate.now() : toDate);
+            return Response.ok(Map.of("rows", rows)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error backfilling circulation rollup", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error backfilling circulation rollup: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Run an ad-hoc aggregate query over the whole loan history, archived loans included,
+     * e.g. {@code ?groupBy=publisher,quarter&measure=duration} for the average loan
+     * duration by publisher by quarter.
+     * @param groupBy Optional up to two of library, publisher, year, quarter and month, comma separated
+     * @param measure Optional loans (default), duration, days_late or fine
+     * @param from Optional earliest loan date
+     * @param to Optional latest loan date
+     * @param library Optional library ID
+     * @param publisher Optional publisher name
+     * @param status Optional active or returned
+     * @return One group per combination of dimension values
+     */
+    @GET
+    @Path("/loans")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response queryLoans(@QueryParam("groupBy") String groupBy,
+                               @QueryParam("measure") String measure,
+                               @QueryParam("from") String from,
+                               @QueryParam("to") String to,
+                               @QueryParam("library") Long library,
+                               @QueryParam("publisher") String publisher,
+                               @QueryParam("status") String status) {
+        LOG.log(Level.INFO, "Querying loans by {0} measuring {1}", new Object[]{groupBy, measure});
+        try {
+            LoanQuery query = new LoanQuery();
+            query.setGroupBy(LoanQuery.Dimension.parseList(groupBy));
+            query.setMeasure(LoanQuery.Measure.parse(measure));
+            query.setStatus(LoanQuery.Status.parse(status));
+            query.setFrom(QueryParams.parseDate("from", from));
+            query.setTo(QueryParams.parseDate("to", to));
+            query.setLibraryId(library);
+            query.setPublisher(publisher == null || publisher.isBlank() ? null : publisher.trim());
+            return Response.ok(loanAnalyticsService.query(query)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, 30)
+                    .entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error querying loan analytics", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving loan analytics: " + e.getMessage()).build();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package edu.iit.itmd4515.rest;
+
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Helpers for resuming suspended requests from a bulkhead.
+ */
+final class AsyncResponses {
+    
+    private static final Logger LOG = Logger.getLogger(AsyncResponses.class.getName());
+    
+    /**
+     * Time after which a suspended request is answered with 503.
+     */
+    static final long TIMEOUT_SECONDS = 60;
+    
+    private AsyncResponses() {
+    }
+    
+    /**
+     * Resume a suspended request with the response the stage completes with.
+     * A full bulkhead or a timeout answers 503 Service Unavailable with Retry-After.
+     * @param asyncResponse the suspended request
+     * @param stage the response being computed
+     */
+    static void resume(AsyncResponse asyncResponse, CompletionStage<Response> stage) {
+        asyncResponse.setTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        asyncResponse.setTimeoutHandler(timedOut -> timedOut.resume(unavailable("Request timed out")));
+        stage.whenComplete((response, error) -> {
+            if (error == null) {
+                asyncResponse.resume(response);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                LOG.log(Level.WARNING, "Request rejected: {0}", cause.getMessage());
+                asyncResponse.resume(unavailable("Server busy, please retry"));
+            } else {
+                LOG.log(Level.SEVERE, "Error in asynchronous request", cause);
+                asyncResponse.resume(Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error processing request: " + cause.getMessage()).build());
+            }
+        });
+    }
+    
+    private static Response unavailable(String message) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, 1)
+                .entity(message).build();
+    }
+}
\ No newline at end of file
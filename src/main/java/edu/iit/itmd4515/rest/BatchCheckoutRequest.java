@@ -0,0 +1,75 @@
+package edu.iit.itmd4515.rest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request body for checking out several scanned books to one borrower.
+ */
+public class BatchCheckoutRequest {
+    
+    private Long borrowerId;
+    
+    private Long libraryId;
+    
+    private Long librarianId;
+    
+    private LocalDate dueDate;
+    
+    private List<String> isbns = new ArrayList<>();
+    
+    public BatchCheckoutRequest() {
+    }
+    
+    public Long getBorrowerId() {
+        return borrowerId;
+    }
+    
+    public void setBorrowerId(Long borrowerId) {
+        this.borrowerId = borrowerId;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public void setLibraryId(Long libraryId) {
+        this.libraryId = libraryId;
+    }
+    
+    public Long getLibrarianId() {
+        return librarianId;
+    }
+    
+    public void setLibrarianId(Long librarianId) {
+        this.librarianId = librarianId;
+    }
+    
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+    
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDate = dueDate;
+    }
+    
+    public List<String> getIsbns() {
+        return isbns;
+    }
+    
+    public void setIsbns(List<String> isbns) {
+        this.isbns = isbns;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchCheckoutRequest{" +
+                "borrowerId=" + borrowerId +
+                ", libraryId=" + libraryId +
+                ", librarianId=" + librarianId +
+                ", dueDate=" + dueDate +
+                ", isbns=" + (isbns == null ? 0 : isbns.size()) +
+                '}';
+    }
+}
\ No newline at end of file
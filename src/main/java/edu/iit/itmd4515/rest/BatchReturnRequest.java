@@ -0,0 +1,30 @@
+package edu.iit.itmd4515.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request body for returning several loans at once.
+ */
+public class BatchReturnRequest {
+    
+    private List<Long> loanIds = new ArrayList<>();
+    
+    public BatchReturnRequest() {
+    }
+    
+    public List<Long> getLoanIds() {
+        return loanIds;
+    }
+    
+    public void setLoanIds(List<Long> loanIds) {
+        this.loanIds = loanIds;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchReturnRequest{" +
+                "loanIds=" + loanIds +
+                '}';
+    }
+}
\ No newline at end of file
@@ -1,13 +1,37 @@
 package edu.iit.itmd4515.rest;
 
 import edu.iit.itmd4515.domain.BookLoan;
+import edu.iit.itmd4515.service.BatchItemResult;
+import edu.iit.itmd4515.service.BatchResult;
 import edu.iit.itmd4515.service.BookLoanService;
+import edu.iit.itmd4515.service.Bulkheads;
+import edu.iit.itmd4515.service.CheckoutException;
+import edu.iit.itmd4515.service.CheckoutService;
+import edu.iit.itmd4515.service.DropBoxJob;
+import edu.iit.itmd4515.service.DropBoxService;
+import edu.iit.itmd4515.service.LoanArchiveJob;
+import edu.iit.itmd4515.service.LoanExportService;
+import edu.iit.itmd4515.service.LoanHistoryPage;
+import edu.iit.itmd4515.service.RetryOnConflictInterceptor;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.ejb.EJB;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,7 +40,7 @@ import java.util.logging.Logger;
  * Provides CRUD operations for BookLoan entities through RESTful web services.
  */
 @Path("/loans")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
 @Consumes(MediaType.APPLICATION_JSON)
 public class BookLoanResource {
     
@@ -25,41 +49,86 @@ public class BookLoanResource {
     @EJB
     private BookLoanService bookLoanService;
     
+    @EJB
+    private CheckoutService checkoutService;
+    
+    @EJB
+    private DropBoxService dropBoxService;
+    
+    @EJB
+    private LoanExportService loanExportService;
+    
+    @EJB
+    private LoanArchiveJob loanArchiveJob;
+    
+    @EJB
+    private Bulkheads bulkheads;
+    
     /**
-     * Get all book loans.
-     * @return List of all book loans
+     * Get all book loans, or only the loans with the given IDs.
+     * @param ids optional loan IDs to fetch in one batch
+     * @param fields optional comma separated fields to return instead of the full loans
+     * @param asyncResponse Resumed with list of all book loans, or the requested loans and the IDs that were not found
      */
     @GET
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response getAllBookLoans() {
+    public void getAllBookLoans(@QueryParam("ids") List<String> ids, @QueryParam("fields") String fields, @Suspended AsyncResponse asyncResponse) {
         LOG.log(Level.INFO, "Getting all book loans");
-        try {
-            List<BookLoan> loans = bookLoanService.findAll();
-            return Response.ok(loans).build();
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error getting all book loans", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Error retrieving book loans: " + e.getMessage()).build();
-        }
+        AsyncResponses.resume(asyncResponse, bulkheads.reporting().submit(() -> {
+            try {
+                List<String> fieldList = QueryParams.parseFields(fields);
+                if (ids != null && !ids.isEmpty()) {
+                    List<Long> idList = QueryParams.parseIds(ids);
+                    if (fieldList != null) {
+                        return Response.ok(bookLoanService.findFieldsByIds(idList, fieldList)).build();
+                    }
+                    BatchResult<BookLoan> result = bookLoanService.findByIds(idList);
+                    return Response.ok(result).build();
+                }
+                if (fieldList != null) {
+                    return Response.ok(bookLoanService.findFields(fieldList)).build();
+                }
+                List<BookLoan> loans = bookLoanService.findAll();
+                return Response.ok(loans).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error getting all book loans", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error retrieving book loans: " + e.getMessage()).build();
+            }
+        }));
     }
     
     /**
      * Get a book loan by ID.
      * @param id Book loan ID
+     * @param fields optional comma separated fields to return instead of the full loan
      * @return Book loan entity
      */
     @GET
     @Path("/{id}")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response getBookLoanById(@PathParam("id") Long id) {
+    public Response getBookLoanById(@PathParam("id") Long id, @QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting book loan by ID: {0}", id);
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (fieldList != null) {
+                Map<String, Object> projection = bookLoanService.findFieldsById(id, fieldList);
+                if (projection == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Book loan not found with ID: " + id).build();
+                }
+                return Response.ok(projection).build();
+            }
             BookLoan loan = bookLoanService.findById(id);
             if (loan == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Book loan not found with ID: " + id).build();
             }
             return Response.ok(loan).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting book loan by ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -69,44 +138,49 @@ public class BookLoanResource {
     
     /**
      * Get active book loans.
-     * @return List of active book loans
+     * @param asyncResponse Resumed with list of active book loans
      */
     @GET
     @Path("/active")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response getActiveBookLoans() {
+    public void getActiveBookLoans(@Suspended AsyncResponse asyncResponse) {
         LOG.log(Level.INFO, "Getting active book loans");
-        try {
-            List<BookLoan> loans = bookLoanService.findActiveLoans();
-            return Response.ok(loans).build();
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error getting active book loans", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Error retrieving active book loans: " + e.getMessage()).build();
-        }
+        AsyncResponses.resume(asyncResponse, bulkheads.reporting().submit(() -> {
+            try {
+                List<BookLoan> loans = bookLoanService.findActiveLoans();
+                return Response.ok(loans).build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error getting active book loans", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error retrieving active book loans: " + e.getMessage()).build();
+            }
+        }));
     }
     
     /**
      * Get overdue book loans.
-     * @return List of overdue book loans
+     * @param asyncResponse Resumed with list of overdue book loans
      */
     @GET
     @Path("/overdue")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response getOverdueBookLoans() {
+    public void getOverdueBookLoans(@Suspended AsyncResponse asyncResponse) {
         LOG.log(Level.INFO, "Getting overdue book loans");
-        try {
-            List<BookLoan> loans = bookLoanService.findOverdueLoans();
-            return Response.ok(loans).build();
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error getting overdue book loans", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Error retrieving overdue book loans: " + e.getMessage()).build();
-        }
+        AsyncResponses.resume(asyncResponse, bulkheads.reporting().submit(() -> {
+            try {
+                List<BookLoan> loans = bookLoanService.findOverdueLoans();
+                return Response.ok(loans).build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error getting overdue book loans", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error retrieving overdue book loans: " + e.getMessage()).build();
+            }
+        }));
     }
     
     /**
      * Create a new book loan.
+     * An active loan is refused with 409 Conflict if its book is already out.
      * @param loan Book loan entity to create
      * @return Created book loan entity
      */
@@ -117,6 +191,10 @@ public class BookLoanResource {
         try {
             BookLoan createdLoan = bookLoanService.create(loan);
             return Response.status(Response.Status.CREATED).entity(createdLoan).build();
+        } catch (CheckoutException e) {
+            Response.Status status = e.getReason() == CheckoutException.Reason.BOOK_NOT_FOUND
+                    ? Response.Status.NOT_FOUND : Response.Status.CONFLICT;
+            return Response.status(status).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error creating book loan", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -124,6 +202,310 @@ public class BookLoanResource {
         }
     }
     
+    /**
+     * Check a book out atomically.
+     * Exactly one of several concurrent checkouts of the same book succeeds;
+     * the others get 409 Conflict.
+     * @param request Book, borrower, library, optional librarian and optional due date
+     * @param asyncResponse Resumed with created book loan entity
+     */
+    @POST
+    @Path("/checkout")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public void checkout(CheckoutRequest request, @Suspended AsyncResponse asyncResponse) {
+        LOG.log(Level.INFO, "Checking out: {0}", request);
+        AsyncResponses.resume(asyncResponse, bulkheads.desk().submit(() -> {
+            try {
+                if (request == null || request.getBookId() == null || request.getBorrowerId() == null
+                        || request.getLibraryId() == null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity("bookId, borrowerId and libraryId are required").build();
+                }
+                if (request.getDueDate() != null && !request.getDueDate().isAfter(LocalDate.now())) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity("Due date must be in the future").build();
+                }
+                BookLoan loan = checkoutService.checkout(request.getBookId(), request.getBorrowerId(),
+                        request.getLibraryId(), request.getLibrarianId(), request.getDueDate());
+                return Response.status(Response.Status.CREATED).entity(loan).build();
+            } catch (CheckoutException e) {
+                switch (e.getReason()) {
+                    case BOOK_NOT_FOUND:
+                    case BORROWER_NOT_FOUND:
+                    case LIBRARY_NOT_FOUND:
+                        return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+                    default:
+                        return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+                }
+            } catch (Exception e) {
+                if (RetryOnConflictInterceptor.isConflict(e)) {
+                    return Response.status(Response.Status.CONFLICT)
+                            .entity("Checkout conflicted with concurrent updates, please retry").build();
+                }
+                LOG.log(Level.SEVERE, "Error checking out: " + request, e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error checking out book: " + e.getMessage()).build();
+            }
+        }));
+    }
+    
+    /**
+     * Check out several scanned books to one borrower in a single transaction.
+     * @param request Borrower, library, optional librarian, optional due date and the scanned ISBNs
+     * @return Per-item results in scan order
+     */
+    @POST
+    @Path("/batch")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response checkoutBatch(BatchCheckoutRequest request) {
+        LOG.log(Level.INFO, "Batch checkout: {0}", request);
+        try {
+            if (request == null || request.getBorrowerId() == null || request.getLibraryId() == null
+                    || request.getIsbns() == null || request.getIsbns().isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("borrowerId, libraryId and isbns are required").build();
+            }
+            if (request.getIsbns().size() > CheckoutService.MAX_BATCH_ITEMS) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("At most " + CheckoutService.MAX_BATCH_ITEMS + " items may be checked out at once").build();
+            }
+            if (request.getDueDate() != null && !request.getDueDate().isAfter(LocalDate.now())) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Due date must be in the future").build();
+            }
+            List<BatchItemResult> results = checkoutService.checkoutBatch(request.getBorrowerId(),
+                    request.getLibraryId(), request.getLibrarianId(), request.getDueDate(), request.getIsbns());
+            return Response.ok(results).build();
+        } catch (CheckoutException e) {
+            if (e.getReason() == CheckoutException.Reason.MEMBERSHIP_INACTIVE) {
+                return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+            }
+            return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Batch checkout conflicted with concurrent updates, please retry").build();
+            }
+            LOG.log(Level.SEVERE, "Error in batch checkout: " + request, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error checking out books: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Return several loans in a single transaction.
+     * @param request The loan IDs to return
+     * @return Per-item results in request order
+     */
+    @PUT
+    @Path("/return/batch")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response returnBatch(BatchReturnRequest request) {
+        LOG.log(Level.INFO, "Batch return: {0}", request);
+        try {
+            if (request == null || request.getLoanIds() == null || request.getLoanIds().isEmpty()
+                    || request.getLoanIds().contains(null)) {
+                return Response.status(Response.Status.BAD_REQUEST).entity("loanIds are required").build();
+            }
+            if (request.getLoanIds().size() > CheckoutService.MAX_BATCH_ITEMS) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("At most " + CheckoutService.MAX_BATCH_ITEMS + " loans may be returned at once").build();
+            }
+            List<BatchItemResult> results = checkoutService.returnBatch(request.getLoanIds());
+            return Response.ok(results).build();
+        } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Batch return conflicted with concurrent updates, please retry").build();
+            }
+            LOG.log(Level.SEVERE, "Error in batch return: " + request, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error returning books: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Ingest drop-box returns scanned in bulk, one ISBN per line.
+     * Scans are applied in chunks as the body is read; progress can be polled
+     * under the job ID while the upload runs.
+     * @param jobId Optional client-chosen job ID for progress polling
+     * @param returnedOn Optional drop-off date used for fines, defaults to today
+     * @param scans Newline-delimited ISBNs
+     * @return Summary with counts and the unmatched scans
+     */
+    @POST
+    @Path("/dropbox")
+    @Consumes(MediaType.TEXT_PLAIN)
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response ingestDropBox(@QueryParam("jobId") String jobId,
+                                  @QueryParam("returnedOn") String returnedOn,
+                                  InputStream scans) {
+        LOG.log(Level.INFO, "Ingesting drop-box returns, job ID: {0}", jobId);
+        try {
+            LocalDate returnDate = QueryParams.parseDate("returnedOn", returnedOn);
+            if (returnDate == null) {
+                returnDate = LocalDate.now();
+            }
+            if (returnDate.isAfter(LocalDate.now())) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Return date must not be in the future").build();
+            }
+            DropBoxJob job = dropBoxService.ingest(jobId,
+                    new InputStreamReader(scans, StandardCharsets.UTF_8), returnDate);
+            if (job.getStatus() == DropBoxJob.Status.FAILED) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(job).build();
+            }
+            return Response.ok(job).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error ingesting drop-box returns, job ID: " + jobId, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error ingesting drop-box returns: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Get the progress of a drop-box ingestion.
+     * @param jobId Job ID
+     * @return Job progress
+     */
+    @GET
+    @Path("/dropbox/{jobId}")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getDropBoxJob(@PathParam("jobId") String jobId) {
+        LOG.log(Level.INFO, "Getting drop-box job: {0}", jobId);
+        try {
+            DropBoxJob job = dropBoxService.findJob(jobId);
+            if (job == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Drop-box job not found with ID: " + jobId).build();
+            }
+            return Response.ok(job).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting drop-box job: " + jobId, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error getting drop-box job: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Export the loan history joined with book, borrower and library, streamed
+     * row by row from a database cursor. Rows come in ascending loan ID order, so
+     * an interrupted export resumes by passing the last loanId received as after,
+     * with the same filters.
+     * @param format ndjson (default) or csv
+     * @param from Optional earliest loan date, inclusive
+     * @param to Optional latest loan date, inclusive
+     * @param libraryId Optional library ID
+     * @param after Optional loan ID to resume after
+     * @return Streamed export
+     */
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response exportLoans(@QueryParam("format") String format,
+                                @QueryParam("from") String from,
+                                @QueryParam("to") String to,
+                                @QueryParam("libraryId") Long libraryId,
+                                @QueryParam("after") Long after) {
+        LOG.log(Level.INFO, "Exporting loans as {0} after ID {1}", new Object[]{format, after});
+        try {
+            LoanExportWriter.Format exportFormat = LoanExportWriter.Format.parse(format);
+            LocalDate fromDate = QueryParams.parseDate("from", from);
+            LocalDate toDate = QueryParams.parseDate("to", to);
+            if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("from must not be after to").build();
+            }
+            StreamingOutput stream = output -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+                LoanExportWriter rows = new LoanExportWriter(exportFormat, writer);
+                try {
+                    rows.writeHeader();
+                    loanExportService.export(fromDate, toDate, libraryId, after, rows);
+                    writer.flush();
+                } catch (UncheckedIOException e) {
+                    // Client went away; the rows it received tell it where to resume
+                    LOG.log(Level.WARNING, "Loan export aborted: {0}", e.getCause().getMessage());
+                    throw e.getCause();
+                }
+            };
+            return Response.ok(stream, exportFormat.getMediaType())
+                    .header("Content-Disposition", "attachment; filename=\"loans."
+                            + exportFormat.name().toLowerCase(Locale.ROOT) + "\"")
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error exporting loans", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error exporting loans: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Get one page of the loan history, newest first, including loans moved to the archive.
+     * Pass the returned next value as before to get the following page.
+     * @param borrowerId Optional borrower ID
+     * @param bookId Optional book ID
+     * @param libraryId Optional library ID
+     * @param before Optional loan ID to continue before
+     * @param limit Maximum number of loans, 1 to 1000 (default 100)
+     * @param asyncResponse Resumed with the page of loans
+     */
+    @GET
+    @Path("/history")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public void getLoanHistory(@QueryParam("borrowerId") Long borrowerId,
+                               @QueryParam("bookId") Long bookId,
+                               @QueryParam("libraryId") Long libraryId,
+                               @QueryParam("before") Long before,
+                               @QueryParam("limit") @DefaultValue("100") int limit,
+                               @Suspended AsyncResponse asyncResponse) {
+        LOG.log(Level.INFO, "Getting loan history before ID {0}", before);
+        if (limit < 1 || limit > 1000) {
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be between 1 and 1000").build());
+            return;
+        }
+        AsyncResponses.resume(asyncResponse, bulkheads.reporting().submit(() -> {
+            try {
+                LoanHistoryPage page = loanExportService.findHistory(borrowerId, bookId, libraryId, before, limit);
+                return Response.ok(page).build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error getting loan history", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error retrieving loan history: " + e.getMessage()).build();
+            }
+        }));
+    }
+    
+    /**
+     * Archive the loans returned more than the given number of days ago now.
+     * @param retentionDays Days a returned loan stays in book_loans, at least 1
+     * @return The number of loans archived
+     */
+    @POST
+    @Path("/archive")
+    @RolesAllowed("ADMIN")
+    public Response archiveLoans(@QueryParam("retentionDays") @DefaultValue("365") int retentionDays) {
+        LOG.log(Level.INFO, "Archiving loans returned more than {0} days ago on request", retentionDays);
+        if (retentionDays < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("retentionDays must be at least 1").build();
+        }
+        try {
+            long archived = loanArchiveJob.archive(LocalDate.now().minusDays(retentionDays));
+            return Response.ok(Map.of("archived", archived)).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error archiving loans", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error archiving loans: " + e.getMessage()).build();
+        }
+    }
+    
     /**
      * Update an existing book loan.
      * @param id Book loan ID
@@ -151,10 +533,18 @@ public class BookLoanResource {
             existingLoan.setBorrowerPhone(loan.getBorrowerPhone());
             existingLoan.setFineAmount(loan.getFineAmount());
             existingLoan.setNotes(loan.getNotes());
+            if (loan.getVersion() != null) {
+                // Optimistic lock check against the version the client read
+                existingLoan.setVersion(loan.getVersion());
+            }
             
             BookLoan updatedLoan = bookLoanService.update(existingLoan);
             return Response.ok(updatedLoan).build();
         } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Book loan was modified concurrently, reload and retry: " + id).build();
+            }
             LOG.log(Level.SEVERE, "Error updating book loan with ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Error updating book loan: " + e.getMessage()).build();
@@ -164,29 +554,31 @@ public class BookLoanResource {
     /**
      * Return a book (update return date).
      * @param id Book loan ID
-     * @return Updated book loan entity
+     * @param asyncResponse Resumed with updated book loan entity
      */
     @PUT
     @Path("/{id}/return")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response returnBook(@PathParam("id") Long id) {
+    public void returnBook(@PathParam("id") Long id, @Suspended AsyncResponse asyncResponse) {
         LOG.log(Level.INFO, "Returning book with loan ID: {0}", id);
-        try {
-            BookLoan loan = bookLoanService.findById(id);
-            if (loan == null) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity("Book loan not found with ID: " + id).build();
+        AsyncResponses.resume(asyncResponse, bulkheads.desk().submit(() -> {
+            try {
+                BookLoan loan = bookLoanService.findById(id);
+                if (loan == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Book loan not found with ID: " + id).build();
+                }
+                
+                // Process book return
+                loan.returnBook();
+                BookLoan updatedLoan = bookLoanService.update(loan);
+                return Response.ok(updatedLoan).build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error returning book with loan ID: " + id, e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error returning book: " + e.getMessage()).build();
             }
-            
-            // Process book return
-            loan.returnBook();
-            BookLoan updatedLoan = bookLoanService.update(loan);
-            return Response.ok(updatedLoan).build();
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error returning book with loan ID: " + id, e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Error returning book: " + e.getMessage()).build();
-        }
+        }));
     }
     
     /**
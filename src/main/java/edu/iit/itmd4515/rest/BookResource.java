@@ -1,14 +1,25 @@
 package edu.iit.itmd4515.rest;
 
 import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.service.BatchResult;
 import edu.iit.itmd4515.service.BookService;
+import edu.iit.itmd4515.service.CatalogImportJob;
+import edu.iit.itmd4515.service.CatalogImportService;
+import edu.iit.itmd4515.service.EntityVersion;
+import edu.iit.itmd4515.service.RecommendationService;
+import edu.iit.itmd4515.service.RetryOnConflictInterceptor;
 import jakarta.annotation.security.PermitAll;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.ejb.EJB;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,7 +28,7 @@ import java.util.logging.Logger;
  * Provides CRUD operations for Book entities through RESTful web services.
  */
 @Path("/books")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
 @Consumes(MediaType.APPLICATION_JSON)
 public class BookResource {
     
@@ -26,17 +37,39 @@ public class BookResource {
     @EJB
     private BookService bookService;
     
+    @EJB
+    private CatalogImportService catalogImportService;
+    
+    @EJB
+    private RecommendationService recommendationService;
+    
     /**
-     * Get all books.
-     * @return List of all books
+     * Get all books, or only the books with the given IDs.
+     * @param ids optional book IDs to fetch in one batch
+     * @param fields optional comma separated fields to return instead of the full books
+     * @return List of all books, or the requested books and the IDs that were not found
      */
     @GET
     @PermitAll
-    public Response getAllBooks() {
+    public Response getAllBooks(@QueryParam("ids") List<String> ids, @QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting all books");
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (ids != null && !ids.isEmpty()) {
+                List<Long> idList = QueryParams.parseIds(ids);
+                if (fieldList != null) {
+                    return Response.ok(bookService.findFieldsByIds(idList, fieldList)).build();
+                }
+                BatchResult<Book> result = bookService.findByIds(idList);
+                return Response.ok(result).build();
+            }
+            if (fieldList != null) {
+                return Response.ok(bookService.findFields(fieldList)).build();
+            }
             List<Book> books = bookService.findAll();
             return Response.ok(books).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting all books", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -46,21 +79,48 @@ public class BookResource {
     
     /**
      * Get a book by ID.
+     * Answers 304 Not Modified from a version lookup when If-None-Match or
+     * If-Modified-Since still match, without loading the book.
      * @param id Book ID
-     * @return Book entity
+     * @param fields optional comma separated fields to return instead of the full book
+     * @param request The request carrying the conditional headers
+     * @return Book entity with ETag and Last-Modified
      */
     @GET
     @Path("/{id}")
     @PermitAll
-    public Response getBookById(@PathParam("id") Long id) {
+    public Response getBookById(@PathParam("id") Long id, @QueryParam("fields") String fields,
+                                @Context Request request) {
         LOG.log(Level.INFO, "Getting book by ID: {0}", id);
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            EntityVersion version = bookService.findVersion(id);
+            if (version == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Book not found with ID: " + id).build();
+            }
+            Response.ResponseBuilder notModified = Preconditions.evaluate(request, version, fieldList);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            if (fieldList != null) {
+                Map<String, Object> projection = bookService.findFieldsById(id, fieldList);
+                if (projection == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Book not found with ID: " + id).build();
+                }
+                return Preconditions.validators(Response.ok(projection), request, version.getVersion(),
+                        version.getLastModified(), fieldList).build();
+            }
             Book book = bookService.findById(id);
             if (book == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Book not found with ID: " + id).build();
             }
-            return Response.ok(book).build();
+            return Preconditions.validators(Response.ok(book), request, book.getVersion(),
+                    book.getLastModified()).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting book by ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -68,6 +128,34 @@ public class BookResource {
         }
     }
     
+    /**
+     * Get the books most often borrowed by the borrowers of a book.
+     * @param id The book ID
+     * @param limit Optional maximum number of books, default 10
+     * @return Related book IDs with scores, most related first; empty if the book was never borrowed
+     */
+    @GET
+    @Path("/{id}/related")
+    @PermitAll
+    public Response getRelatedBooks(@PathParam("id") Long id, @QueryParam("limit") @DefaultValue("10") int limit) {
+        LOG.log(Level.INFO, "Getting books related to book {0}", id);
+        if (limit < 1 || limit > 1000) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be between 1 and 1000").build();
+        }
+        try {
+            return Response.ok(recommendationService.findRelated(id, limit)).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, 30)
+                    .entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting books related to book: " + id, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving related books: " + e.getMessage()).build();
+        }
+    }
+    
     /**
      * Create a new book.
      * @param book Book entity to create
@@ -90,18 +178,86 @@ public class BookResource {
         }
     }
     
+    /**
+     * Import a whole catalog file in bulk. Rows are validated and de-duplicated
+     * on ISBN, valid rows are inserted in batches, and the rest are listed in the
+     * job's rejections. Progress can be polled under the job ID while the upload runs.
+     * @param format csv (header line with title, author, isbn and optional
+     *               publicationDate, pageCount, price columns) or marc (ISO 2709)
+     * @param jobId Optional client-chosen job ID for progress polling
+     * @param file The catalog file
+     * @return Summary with counts and the rejected rows
+     */
+    @POST
+    @Path("/import")
+    @Consumes({"text/csv", "application/marc", MediaType.APPLICATION_OCTET_STREAM})
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response importCatalog(@QueryParam("format") String format,
+                                  @QueryParam("jobId") String jobId,
+                                  InputStream file) {
+        LOG.log(Level.INFO, "Importing {0} catalog, job ID: {1}", new Object[]{format, jobId});
+        try {
+            CatalogImportJob job = catalogImportService.importCatalog(jobId, format, file);
+            if (job.getStatus() == CatalogImportJob.Status.FAILED) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(job).build();
+            }
+            return Response.ok(job).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error importing catalog, job ID: " + jobId, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error importing catalog: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Get the progress of a catalog import.
+     * @param jobId Job ID
+     * @return Job progress
+     */
+    @GET
+    @Path("/import/{jobId}")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getCatalogImportJob(@PathParam("jobId") String jobId) {
+        LOG.log(Level.INFO, "Getting catalog import job: {0}", jobId);
+        try {
+            CatalogImportJob job = catalogImportService.findJob(jobId);
+            if (job == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Catalog import job not found with ID: " + jobId).build();
+            }
+            return Response.ok(job).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting catalog import job: " + jobId, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error getting catalog import job: " + e.getMessage()).build();
+        }
+    }
+    
     /**
      * Update an existing book.
+     * An If-Match header that no longer matches the current ETag answers 412 Precondition Failed.
      * @param id Book ID
-     * @param book Updated book entity
-     * @return Updated book entity
+     * @param book Updated book data
+     * @param request The request carrying the conditional headers
+     * @return Updated book entity with its new ETag
      */
     @PUT
     @Path("/{id}")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response updateBook(@PathParam("id") Long id, Book book) {
+    public Response updateBook(@PathParam("id") Long id, Book book, @Context Request request) {
         LOG.log(Level.INFO, "Updating book with ID: {0}", id);
         try {
+            EntityVersion version = bookService.findVersion(id);
+            if (version == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Book not found with ID: " + id).build();
+            }
+            Response.ResponseBuilder failed = Preconditions.evaluate(request, version);
+            if (failed != null) {
+                return failed.build();
+            }
             Book existingBook = bookService.findById(id);
             if (existingBook == null) {
                 return Response.status(Response.Status.NOT_FOUND)
@@ -116,10 +272,17 @@ public class BookResource {
             existingBook.setPageCount(book.getPageCount());
             existingBook.setPrice(book.getPrice());
             existingBook.setIsAvailable(book.getIsAvailable());
+            // Optimistic lock check against the version the client read, or the one If-Match was checked against
+            existingBook.setVersion(book.getVersion() != null ? book.getVersion() : version.getVersion());
             
-            Book updatedBook = bookService.update(existingBook);
-            return Response.ok(updatedBook).build();
+            Book updated = bookService.update(existingBook);
+            return Preconditions.validators(Response.ok(updated), request, updated.getVersion(),
+                    updated.getLastModified()).build();
         } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Book was modified concurrently, reload and retry: " + id).build();
+            }
             LOG.log(Level.SEVERE, "Error updating book with ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Error updating book: " + e.getMessage()).build();
@@ -128,24 +291,40 @@ public class BookResource {
     
     /**
      * Delete a book by ID.
+     * An If-Match header that no longer matches the current ETag answers 412 Precondition Failed.
      * @param id Book ID
+     * @param request The request carrying the conditional headers
      * @return Response indicating success or failure
      */
     @DELETE
     @Path("/{id}")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response deleteBook(@PathParam("id") Long id) {
+    public Response deleteBook(@PathParam("id") Long id, @Context Request request) {
         LOG.log(Level.INFO, "Deleting book with ID: {0}", id);
         try {
+            EntityVersion version = bookService.findVersion(id);
+            if (version == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Book not found with ID: " + id).build();
+            }
+            Response.ResponseBuilder failed = Preconditions.evaluate(request, version);
+            if (failed != null) {
+                return failed.build();
+            }
+            
             Book book = bookService.findById(id);
             if (book == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Book not found with ID: " + id).build();
             }
-            
+            book.setVersion(version.getVersion());
             bookService.delete(book);
             return Response.noContent().build();
         } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Book was modified concurrently, reload and retry: " + id).build();
+            }
             LOG.log(Level.SEVERE, "Error deleting book with ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Error deleting book: " + e.getMessage()).build();
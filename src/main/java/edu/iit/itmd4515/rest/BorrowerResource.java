@@ -1,24 +1,34 @@
 package edu.iit.itmd4515.rest;
 
 import edu.iit.itmd4515.domain.Borrower;
+import edu.iit.itmd4515.service.BatchResult;
 import edu.iit.itmd4515.service.BorrowerService;
+import edu.iit.itmd4515.service.Bulkheads;
+import edu.iit.itmd4515.service.RecommendationService;
+import edu.iit.itmd4515.service.RetryOnConflictInterceptor;
 import jakarta.annotation.security.PermitAll;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.ejb.EJB;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -28,7 +38,7 @@ import java.util.logging.Logger;
  * Provides CRUD operations for borrower management.
  */
 @Path("/borrowers")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
 @Consumes(MediaType.APPLICATION_JSON)
 public class BorrowerResource {
     
@@ -37,20 +47,42 @@ public class BorrowerResource {
     @EJB
     private BorrowerService borrowerService;
     
+    @EJB
+    private Bulkheads bulkheads;
+    
+    @EJB
+    private RecommendationService recommendationService;
+    
     @Context
     private UriInfo uriInfo;
     
     /**
-     * Get all borrowers.
-     * @return List of all borrowers
+     * Get all borrowers, or only the borrowers with the given IDs.
+     * @param ids optional borrower IDs to fetch in one batch
+     * @param fields optional comma separated fields to return instead of the full borrowers
+     * @return List of all borrowers, or the requested borrowers and the IDs that were not found
      */
     @GET
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response getAllBorrowers() {
+    public Response getAllBorrowers(@QueryParam("ids") List<String> ids, @QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting all borrowers");
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (ids != null && !ids.isEmpty()) {
+                List<Long> idList = QueryParams.parseIds(ids);
+                if (fieldList != null) {
+                    return Response.ok(borrowerService.findFieldsByIds(idList, fieldList)).build();
+                }
+                BatchResult<Borrower> result = borrowerService.findByIds(idList);
+                return Response.ok(result).build();
+            }
+            if (fieldList != null) {
+                return Response.ok(borrowerService.findFields(fieldList)).build();
+            }
             List<Borrower> borrowers = borrowerService.findAll();
             return Response.ok(borrowers).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting all borrowers", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -61,14 +93,24 @@ public class BorrowerResource {
     /**
      * Get borrower by ID.
      * @param id The borrower ID
+     * @param fields optional comma separated fields to return instead of the full borrower
      * @return The borrower with the specified ID
      */
     @GET
     @Path("/{id}")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response getBorrowerById(@PathParam("id") Long id) {
+    public Response getBorrowerById(@PathParam("id") Long id, @QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting borrower by ID: {0}", id);
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (fieldList != null) {
+                Map<String, Object> projection = borrowerService.findFieldsById(id, fieldList);
+                if (projection == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Borrower not found with ID: " + id).build();
+                }
+                return Response.ok(projection).build();
+            }
             Optional<Borrower> borrowerOpt = Optional.ofNullable(borrowerService.findById(id));
             
             if (borrowerOpt.isPresent()) {
@@ -77,6 +119,8 @@ public class BorrowerResource {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Borrower not found with ID: " + id).build();
             }
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting borrower by ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -84,6 +128,34 @@ public class BorrowerResource {
         }
     }
     
+    /**
+     * Recommend books for a borrower from what borrowers of the same books also borrowed.
+     * @param id The borrower ID
+     * @param limit Optional maximum number of books, default 10
+     * @return Recommended book IDs with scores, best first; empty if the borrower never borrowed
+     */
+    @GET
+    @Path("/{id}/recommendations")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getRecommendations(@PathParam("id") Long id, @QueryParam("limit") @DefaultValue("10") int limit) {
+        LOG.log(Level.INFO, "Getting recommendations for borrower {0}", id);
+        if (limit < 1 || limit > 1000) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be between 1 and 1000").build();
+        }
+        try {
+            return Response.ok(recommendationService.findRecommendations(id, limit)).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, 30)
+                    .entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting recommendations for borrower: " + id, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving recommendations: " + e.getMessage()).build();
+        }
+    }
+    
     /**
      * Create a new borrower.
      * @param borrower The borrower to create
@@ -120,6 +192,10 @@ public class BorrowerResource {
             
             if (existingBorrowerOpt.isPresent()) {
                 borrower.setId(id); // Ensure the ID matches the path parameter
+                if (borrower.getVersion() == null) {
+                    // No version sent by the client, so skip the optimistic lock check
+                    borrower.setVersion(existingBorrowerOpt.get().getVersion());
+                }
                 borrowerService.update(borrower);
                 return Response.ok(borrower).build();
             } else {
@@ -127,6 +203,10 @@ public class BorrowerResource {
                         .entity("Borrower not found with ID: " + id).build();
             }
         } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Borrower was modified concurrently, reload and retry: " + id).build();
+            }
             LOG.log(Level.SEVERE, "Error updating borrower with ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Error updating borrower: " + e.getMessage()).build();
@@ -226,20 +306,22 @@ public class BorrowerResource {
     
     /**
      * Get borrowers with overdue books.
-     * @return List of borrowers with overdue books
+     * @param asyncResponse Resumed with list of borrowers with overdue books
      */
     @GET
     @Path("/overdue")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response findBorrowersWithOverdueBooks() {
+    public void findBorrowersWithOverdueBooks(@Suspended AsyncResponse asyncResponse) {
         LOG.log(Level.INFO, "Getting borrowers with overdue books");
-        try {
-            List<Borrower> borrowers = borrowerService.findBorrowersWithOverdueBooks();
-            return Response.ok(borrowers).build();
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Error getting borrowers with overdue books", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Error retrieving borrowers with overdue books: " + e.getMessage()).build();
-        }
+        AsyncResponses.resume(asyncResponse, bulkheads.reporting().submit(() -> {
+            try {
+                List<Borrower> borrowers = borrowerService.findBorrowersWithOverdueBooks();
+                return Response.ok(borrowers).build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error getting borrowers with overdue books", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error retrieving borrowers with overdue books: " + e.getMessage()).build();
+            }
+        }));
     }
 }
\ No newline at end of file
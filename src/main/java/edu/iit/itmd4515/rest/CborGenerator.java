@@ -0,0 +1,394 @@
+package edu.iit.itmd4515.rest;
+
+import jakarta.json.JsonArray;
+import jakarta.json.JsonException;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonGenerationException;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonParser;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * JSON-P generator writing CBOR (RFC 8949) instead of JSON text.
+ * Objects and arrays are written with indefinite lengths so the output can be
+ * streamed, integers take the smallest encoding that holds them, and floating
+ * point numbers are written as single precision when that is exact and double
+ * otherwise. A BigDecimal that no double holds exactly, such as a price, is
+ * written as a decimal fraction so it keeps every digit it has in JSON.
+ */
+public class CborGenerator implements JsonGenerator {
+    
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_BYTES = 2;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_TAG = 6;
+    
+    private static final int START_ARRAY = 0x9f;
+    private static final int START_MAP = 0xbf;
+    private static final int BREAK = 0xff;
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int FLOAT32 = 0xfa;
+    private static final int FLOAT64 = 0xfb;
+    
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL_FRACTION = 4;
+    
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+    
+    private final OutputStream out;
+    
+    private final byte[] buffer = new byte[8192];
+    
+    private int position;
+    
+    private int depth;
+    
+    public CborGenerator(OutputStream out) {
+        this.out = out;
+    }
+    
+    /**
+     * Copy every event of a JSON parser into a generator.
+     * @param parser the source of events
+     * @param generator the destination
+     */
+    public static void copy(JsonParser parser, JsonGenerator generator) {
+        while (parser.hasNext()) {
+            switch (parser.next()) {
+                case START_OBJECT:
+                    generator.writeStartObject();
+                    break;
+                case START_ARRAY:
+                    generator.writeStartArray();
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    generator.writeEnd();
+                    break;
+                case KEY_NAME:
+                    generator.writeKey(parser.getString());
+                    break;
+                case VALUE_STRING:
+                    generator.write(parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    if (parser.isIntegralNumber()) {
+                        generator.write(parser.getBigDecimal().toBigIntegerExact());
+                    } else {
+                        generator.write(parser.getBigDecimal());
+                    }
+                    break;
+                case VALUE_TRUE:
+                    generator.write(true);
+                    break;
+                case VALUE_FALSE:
+                    generator.write(false);
+                    break;
+                case VALUE_NULL:
+                    generator.writeNull();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+    
+    @Override
+    public JsonGenerator writeStartObject() {
+        depth++;
+        writeByte(START_MAP);
+        return this;
+    }
+    
+    @Override
+    public JsonGenerator writeStartObject(String name) {
+        return writeKey(name).writeStartObject();
+    }
+    
+    @Override
+    public JsonGenerator writeKey(String name) {
+        writeText(name);
+        return this;
+    }
+    
+    @Override
+    public JsonGenerator writeStartArray() {
+        depth++;
+        writeByte(START_ARRAY);
+        return this;
+    }
+    
+    @Override
+    public JsonGenerator writeStartArray(String name) {
+        return writeKey(name).writeStartArray();
+    }
+    
+    @Override
+    public JsonGenerator write(String name, JsonValue value) {
+        return writeKey(name).write(value);
+    }
+    
+    @Override
+    public JsonGenerator write(String name, String value) {
+        return writeKey(name).write(value);
+    }
+    
+    @Override
+    public JsonGenerator write(String name, BigInteger value) {
+        return writeKey(name).write(value);
+    }
+    
+    @Override
+    public JsonGenerator write(String name, BigDecimal value) {
+        return writeKey(name).write(value);
+    }
+    
+    @Override
+    public JsonGenerator write(String name, int value) {
+        return writeKey(name).write(value);
+    }
+    
+    @Override
+    public JsonGenerator write(String name, long value) {
+        return writeKey(name).write(value);
+    }
+    
+    @Override
+    public JsonGenerator write(String name, double value) {
+        return writeKey(name).write(value);
+    }
+    
+    @Override
+    public JsonGenerator write(String name, boolean value) {
+        return writeKey(name).write(value);
+    }
+    
+    @Override
+    public JsonGenerator writeNull(String name) {
+        return writeKey(name).writeNull();
+    }
+    
+    @Override
+    public JsonGenerator writeEnd() {
+        if (depth == 0) {
+            throw new JsonGenerationException("writeEnd() without an open object or array");
+        }
+        depth--;
+        writeByte(BREAK);
+        return this;
+    }
+    
+    @Override
+    public JsonGenerator write(JsonValue value) {
+        switch (value.getValueType()) {
+            case OBJECT:
+                writeStartObject();
+                for (Map.Entry<String, JsonValue> entry : ((JsonObject) value).entrySet()) {
+                    write(entry.getKey(), entry.getValue());
+                }
+                return writeEnd();
+            case ARRAY:
+                writeStartArray();
+                for (JsonValue item : (JsonArray) value) {
+                    write(item);
+                }
+                return writeEnd();
+            case STRING:
+                return write(((JsonString) value).getString());
+            case NUMBER:
+                JsonNumber number = (JsonNumber) value;
+                return number.isIntegral() ? write(number.bigIntegerValue()) : write(number.bigDecimalValue());
+            case TRUE:
+                return write(true);
+            case FALSE:
+                return write(false);
+            default:
+                return writeNull();
+        }
+    }
+    
+    @Override
+    public JsonGenerator write(String value) {
+        writeText(value);
+        return this;
+    }
+    
+    @Override
+    public JsonGenerator write(BigDecimal value) {
+        double approximation = value.doubleValue();
+        if (!Double.isInfinite(approximation) && new BigDecimal(approximation).compareTo(value) == 0) {
+            return write(approximation);
+        }
+        // Tag 4: [exponent, mantissa] standing for mantissa * 10^exponent
+        writeHeader(MAJOR_TAG, TAG_DECIMAL_FRACTION);
+        writeHeader(MAJOR_ARRAY, 2);
+        write(-(long) value.scale());
+        return write(value.unscaledValue());
+    }
+    
+    @Override
+    public JsonGenerator write(BigInteger value) {
+        if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+            return write(value.longValue());
+        }
+        // Tags 2 and 3: big-endian magnitude, negative values stored as -1 - n
+        boolean negative = value.signum() < 0;
+        byte[] magnitude = (negative ? value.negate().subtract(BigInteger.ONE) : value).toByteArray();
+        int offset = magnitude[0] == 0 ? 1 : 0;
+        writeHeader(MAJOR_TAG, negative ? TAG_NEGATIVE_BIGNUM : TAG_POSITIVE_BIGNUM);
+        writeHeader(MAJOR_BYTES, magnitude.length - offset);
+        writeBytes(magnitude, offset, magnitude.length - offset);
+        return this;
+    }
+    
+    @Override
+    public JsonGenerator write(int value) {
+        return write((long) value);
+    }
+    
+    @Override
+    public JsonGenerator write(long value) {
+        if (value >= 0) {
+            writeHeader(MAJOR_UNSIGNED, value);
+        } else {
+            writeHeader(MAJOR_NEGATIVE, -1 - value);
+        }
+        return this;
+    }
+    
+    @Override
+    public JsonGenerator write(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new NumberFormatException("JSON numbers cannot be NaN or infinite: " + value);
+        }
+        float single = (float) value;
+        if (single == value) {
+            writeByte(FLOAT32);
+            writeInt(Float.floatToIntBits(single));
+        } else {
+            writeByte(FLOAT64);
+            long bits = Double.doubleToLongBits(value);
+            writeInt((int) (bits >>> 32));
+            writeInt((int) bits);
+        }
+        return this;
+    }
+    
+    @Override
+    public JsonGenerator write(boolean value) {
+        writeByte(value ? TRUE : FALSE);
+        return this;
+    }
+    
+    @Override
+    public JsonGenerator writeNull() {
+        writeByte(NULL);
+        return this;
+    }
+    
+    @Override
+    public void close() {
+        if (depth != 0) {
+            throw new JsonGenerationException("Generator closed with " + depth + " unclosed objects or arrays");
+        }
+        flush();
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new JsonException("Error closing CBOR output", e);
+        }
+    }
+    
+    @Override
+    public void flush() {
+        drain();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonException("Error flushing CBOR output", e);
+        }
+    }
+    
+    private void writeText(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeHeader(MAJOR_TEXT, utf8.length);
+        writeBytes(utf8, 0, utf8.length);
+    }
+    
+    private void writeHeader(int major, long value) {
+        int type = major << 5;
+        if (value < 24) {
+            writeByte(type | (int) value);
+        } else if (value <= 0xffL) {
+            writeByte(type | 24);
+            writeByte((int) value);
+        } else if (value <= 0xffffL) {
+            writeByte(type | 25);
+            writeByte((int) (value >>> 8));
+            writeByte((int) value);
+        } else if (value <= 0xffffffffL) {
+            writeByte(type | 26);
+            writeInt((int) value);
+        } else {
+            writeByte(type | 27);
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+    }
+    
+    private void writeInt(int value) {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+    
+    private void writeByte(int value) {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) value;
+    }
+    
+    private void writeBytes(byte[] bytes, int offset, int length) {
+        if (length > buffer.length - position) {
+            drain();
+            if (length > buffer.length) {
+                try {
+                    out.write(bytes, offset, length);
+                } catch (IOException e) {
+                    throw new JsonException("Error writing CBOR output", e);
+                }
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+    
+    private void drain() {
+        if (position == 0) {
+            return;
+        }
+        try {
+            out.write(buffer, 0, position);
+        } catch (IOException e) {
+            throw new JsonException("Error writing CBOR output", e);
+        }
+        position = 0;
+    }
+}
\ No newline at end of file
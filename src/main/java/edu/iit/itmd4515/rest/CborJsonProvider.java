@@ -0,0 +1,202 @@
+package edu.iit.itmd4515.rest;
+
+import jakarta.json.JsonArray;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonBuilderFactory;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonReaderFactory;
+import jakarta.json.JsonString;
+import jakarta.json.JsonWriter;
+import jakarta.json.JsonWriterFactory;
+import jakarta.json.spi.JsonProvider;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParserFactory;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * JSON-P provider whose generators write CBOR to byte streams. Handing it to
+ * a JSON-B builder makes {@code toJson(entity, stream)} emit CBOR directly,
+ * so entities are never written as JSON text first. Everything except byte
+ * stream generators is delegated to the platform's JSON-P provider.
+ */
+final class CborJsonProvider extends JsonProvider {
+    
+    // Looked up on first use, as writing CBOR never needs it
+    private volatile JsonProvider delegate;
+    
+    private final JsonGeneratorFactory generatorFactory = new JsonGeneratorFactory() {
+        @Override
+        public JsonGenerator createGenerator(Writer writer) {
+            throw new UnsupportedOperationException("CBOR is binary and can only be written to a byte stream");
+        }
+        
+        @Override
+        public JsonGenerator createGenerator(OutputStream out) {
+            return new CborGenerator(out);
+        }
+        
+        @Override
+        public JsonGenerator createGenerator(OutputStream out, Charset charset) {
+            // CBOR text strings are always UTF-8
+            return new CborGenerator(out);
+        }
+        
+        @Override
+        public Map<String, ?> getConfigInUse() {
+            return Collections.emptyMap();
+        }
+    };
+    
+    @Override
+    public JsonGenerator createGenerator(Writer writer) {
+        return generatorFactory.createGenerator(writer);
+    }
+    
+    @Override
+    public JsonGenerator createGenerator(OutputStream out) {
+        return generatorFactory.createGenerator(out);
+    }
+    
+    @Override
+    public JsonGeneratorFactory createGeneratorFactory(Map<String, ?> config) {
+        return generatorFactory;
+    }
+    
+    @Override
+    public JsonParser createParser(Reader reader) {
+        return delegate().createParser(reader);
+    }
+    
+    @Override
+    public JsonParser createParser(InputStream in) {
+        return delegate().createParser(in);
+    }
+    
+    @Override
+    public JsonParserFactory createParserFactory(Map<String, ?> config) {
+        return delegate().createParserFactory(config);
+    }
+    
+    @Override
+    public JsonReader createReader(Reader reader) {
+        return delegate().createReader(reader);
+    }
+    
+    @Override
+    public JsonReader createReader(InputStream in) {
+        return delegate().createReader(in);
+    }
+    
+    @Override
+    public JsonWriter createWriter(Writer writer) {
+        return delegate().createWriter(writer);
+    }
+    
+    @Override
+    public JsonWriter createWriter(OutputStream out) {
+        return delegate().createWriter(out);
+    }
+    
+    @Override
+    public JsonWriterFactory createWriterFactory(Map<String, ?> config) {
+        return delegate().createWriterFactory(config);
+    }
+    
+    @Override
+    public JsonReaderFactory createReaderFactory(Map<String, ?> config) {
+        return delegate().createReaderFactory(config);
+    }
+    
+    @Override
+    public JsonObjectBuilder createObjectBuilder() {
+        return delegate().createObjectBuilder();
+    }
+    
+    @Override
+    public JsonArrayBuilder createArrayBuilder() {
+        return delegate().createArrayBuilder();
+    }
+    
+    @Override
+    public JsonBuilderFactory createBuilderFactory(Map<String, ?> config) {
+        return delegate().createBuilderFactory(config);
+    }
+    
+    @Override
+    public JsonObjectBuilder createObjectBuilder(Map<String, ?> map) {
+        return delegate().createObjectBuilder(map);
+    }
+    
+    @Override
+    public JsonObjectBuilder createObjectBuilder(JsonObject object) {
+        return delegate().createObjectBuilder(object);
+    }
+    
+    @Override
+    public JsonArrayBuilder createArrayBuilder(Collection<?> collection) {
+        return delegate().createArrayBuilder(collection);
+    }
+    
+    @Override
+    public JsonArrayBuilder createArrayBuilder(JsonArray array) {
+        return delegate().createArrayBuilder(array);
+    }
+    
+    @Override
+    public JsonString createValue(String value) {
+        return delegate().createValue(value);
+    }
+    
+    @Override
+    public JsonNumber createValue(int value) {
+        return delegate().createValue(value);
+    }
+    
+    @Override
+    public JsonNumber createValue(long value) {
+        return delegate().createValue(value);
+    }
+    
+    @Override
+    public JsonNumber createValue(double value) {
+        return delegate().createValue(value);
+    }
+    
+    @Override
+    public JsonNumber createValue(BigDecimal value) {
+        return delegate().createValue(value);
+    }
+    
+    @Override
+    public JsonNumber createValue(BigInteger value) {
+        return delegate().createValue(value);
+    }
+    
+    @Override
+    public JsonNumber createValue(Number value) {
+        return delegate().createValue(value);
+    }
+    
+    private JsonProvider delegate() {
+        JsonProvider provider = delegate;
+        if (provider == null) {
+            provider = JsonProvider.provider();
+            delegate = provider;
+        }
+        return provider;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package edu.iit.itmd4515.rest;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.Providers;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Writes any entity the JSON provider can write as CBOR (application/cbor).
+ * The entity is bound by JSON-B with the default configuration the runtime's
+ * JSON provider also uses, so both representations carry the same fields and
+ * formats. JSON-B is given {@link CborJsonProvider}, so its events go straight
+ * into a {@link CborGenerator} on the response stream without JSON text in between.
+ */
+@Provider
+@Produces(CborMessageBodyWriter.APPLICATION_CBOR)
+public class CborMessageBodyWriter implements MessageBodyWriter<Object> {
+    
+    public static final String APPLICATION_CBOR = "application/cbor";
+    
+    public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+    
+    @Context
+    private Providers providers;
+    
+    private volatile Jsonb jsonb;
+    
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return APPLICATION_CBOR_TYPE.isCompatible(mediaType)
+                && (type == String.class || jsonWriter(type, genericType, annotations) != null);
+    }
+    
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        if (entity instanceof String) {
+            // Plain messages such as errors become a CBOR text string
+            new CborGenerator(entityStream).write((String) entity).flush();
+            return;
+        }
+        // JSON-B closes its generator when done, but the response stream belongs to the runtime
+        jsonb().toJson(entity, genericType, new FilterOutputStream(entityStream) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+            
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+    
+    private Jsonb jsonb() {
+        Jsonb binding = jsonb;
+        if (binding == null) {
+            synchronized (this) {
+                binding = jsonb;
+                if (binding == null) {
+                    binding = JsonbBuilder.newBuilder().withProvider(new CborJsonProvider()).build();
+                    jsonb = binding;
+                }
+            }
+        }
+        return binding;
+    }
+    
+    private MessageBodyWriter<?> jsonWriter(Class<?> type, Type genericType, Annotation[] annotations) {
+        return providers.getMessageBodyWriter(type, genericType, annotations, MediaType.APPLICATION_JSON_TYPE);
+    }
+}
\ No newline at end of file
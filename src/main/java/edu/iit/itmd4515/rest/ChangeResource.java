@@ -0,0 +1,89 @@
+package edu.iit.itmd4515.rest;
+
+import edu.iit.itmd4515.service.ChangeFeedPage;
+import edu.iit.itmd4515.service.ChangeLogService;
+import edu.iit.itmd4515.service.ChangeSequencer;
+import edu.iit.itmd4515.service.ChangeTokenExpiredException;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * REST resource for the change feed used by clients that keep a local copy.
+ * A client takes the current token, loads its data once and from then on only
+ * asks for the inserts, updates and deletes after its last token. Changes carry the
+ * entity type and ID; the changed entities are fetched with the batch
+ * {@code ?ids=} lookups of their collections.
+ */
+@Path("/changes")
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
+@Consumes(MediaType.APPLICATION_JSON)
+public class ChangeResource {
+    
+    private static final Logger LOG = Logger.getLogger(ChangeResource.class.getName());
+    
+    @EJB
+    private ChangeLogService changeLogService;
+    
+    @EJB
+    private ChangeSequencer changeSequencer;
+    
+    /**
+     * Get the changes after a token, oldest first.
+     * @param since token of the last change seen, default 0 for the start of the feed
+     * @param limit maximum number of changes, default 100
+     * @param types comma-separated entity names to include, such as {@code Book,BookLoan}
+     * @return Page of changes with the token to continue from, or 410 if the token has expired
+     */
+    @GET
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getChanges(@QueryParam("since") @DefaultValue("0") long since,
+                               @QueryParam("limit") @DefaultValue("100") int limit,
+                               @QueryParam("types") String types) {
+        LOG.log(Level.INFO, "Getting {0} changes since: {1}", new Object[]{limit, since});
+        try {
+            if (since < 0) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("since must not be negative").build();
+            }
+            if (limit < 1 || limit > 1000) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("limit must be between 1 and 1000").build();
+            }
+            changeSequencer.sequence();
+            ChangeFeedPage page = changeLogService.findSince(since, limit, QueryParams.parseFields(types));
+            return Response.ok(page).build();
+        } catch (ChangeTokenExpiredException e) {
+            return Response.status(Response.Status.GONE)
+                    .entity(e.getMessage() + "; reload and continue from GET /changes/token").build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting changes", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving changes: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Get the token of the current state, taken before a full load to follow the feed afterwards.
+     * @return The current token
+     */
+    @GET
+    @Path("/token")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getCurrentToken() {
+        LOG.log(Level.INFO, "Getting current change token");
+        try {
+            changeSequencer.sequence();
+            return Response.ok(Map.of("token", changeLogService.findLastSequence())).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting current change token", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving change token: " + e.getMessage()).build();
+        }
+    }
+}
\ No newline at end of file
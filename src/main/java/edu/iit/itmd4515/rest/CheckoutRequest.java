@@ -0,0 +1,73 @@
+package edu.iit.itmd4515.rest;
+
+import java.time.LocalDate;
+
+/**
+ * Request body for an atomic checkout.
+ */
+public class CheckoutRequest {
+    
+    private Long bookId;
+    
+    private Long borrowerId;
+    
+    private Long libraryId;
+    
+    private Long librarianId;
+    
+    private LocalDate dueDate;
+    
+    public CheckoutRequest() {
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+    
+    public Long getBorrowerId() {
+        return borrowerId;
+    }
+    
+    public void setBorrowerId(Long borrowerId) {
+        this.borrowerId = borrowerId;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public void setLibraryId(Long libraryId) {
+        this.libraryId = libraryId;
+    }
+    
+    public Long getLibrarianId() {
+        return librarianId;
+    }
+    
+    public void setLibrarianId(Long librarianId) {
+        this.librarianId = librarianId;
+    }
+    
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+    
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDate = dueDate;
+    }
+    
+    @Override
+    public String toString() {
+        return "CheckoutRequest{" +
+                "bookId=" + bookId +
+                ", borrowerId=" + borrowerId +
+                ", libraryId=" + libraryId +
+                ", librarianId=" + librarianId +
+                ", dueDate=" + dueDate +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package edu.iit.itmd4515.rest;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses response bodies of every resource with gzip or deflate,
+ * whichever the client's Accept-Encoding prefers. {@link RepresentationFilter}
+ * adds the matching Vary header and ETag suffix.
+ */
+@Provider
+public class CompressionInterceptor implements WriterInterceptor {
+    
+    public static final String GZIP = "gzip";
+    
+    public static final String DEFLATE = "deflate";
+    
+    private static final int BUFFER_SIZE = 8192;
+    
+    @Context
+    private HttpHeaders requestHeaders;
+    
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        String encoding = negotiate(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+        
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        Deflater deflater = GZIP.equals(encoding) ? null : new Deflater();
+        DeflaterOutputStream compressed = deflater == null
+                ? new GZIPOutputStream(context.getOutputStream(), BUFFER_SIZE)
+                : new DeflaterOutputStream(context.getOutputStream(), deflater, BUFFER_SIZE);
+        context.setOutputStream(compressed);
+        try {
+            context.proceed();
+            // Finish the compressed stream but leave closing the container's stream to the runtime
+            compressed.finish();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+    
+    /**
+     * Pick the response encoding from an Accept-Encoding header.
+     * Prefers gzip over deflate when both have the same quality; q=0 refuses an encoding.
+     * @param acceptEncoding the header value, may be null
+     * @return gzip, deflate, or null to send the body uncompressed
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (GZIP.equals(coding) || "x-gzip".equals(coding)) {
+                gzip = Math.max(gzip, quality);
+            } else if (DEFLATE.equals(coding)) {
+                deflate = Math.max(deflate, quality);
+            } else if ("*".equals(coding)) {
+                wildcard = quality;
+            }
+        }
+        if (gzip < 0) {
+            gzip = wildcard;
+        }
+        if (deflate < 0) {
+            deflate = wildcard;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+}
\ No newline at end of file
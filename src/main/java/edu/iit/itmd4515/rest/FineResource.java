@@ -0,0 +1,75 @@
+package edu.iit.itmd4515.rest;
+
+import edu.iit.itmd4515.domain.FineAccrualRun;
+import edu.iit.itmd4515.service.FineAccrualJob;
+import edu.iit.itmd4515.service.FineAccrualService;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * REST resource for overdue fine accrual.
+ * Lists recorded accrual runs and lets administrators trigger a run outside the nightly schedule.
+ */
+@Path("/fines")
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
+@Consumes(MediaType.APPLICATION_JSON)
+public class FineResource {
+    
+    private static final Logger LOG = Logger.getLogger(FineResource.class.getName());
+    
+    @EJB
+    private FineAccrualService fineAccrualService;
+    
+    @EJB
+    private FineAccrualJob fineAccrualJob;
+    
+    /**
+     * Get the most recent fine accrual runs.
+     * @param limit maximum number of runs, default 20
+     * @return List of runs, newest first
+     */
+    @GET
+    @Path("/runs")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getRuns(@QueryParam("limit") @DefaultValue("20") int limit) {
+        LOG.log(Level.INFO, "Getting {0} fine accrual runs", limit);
+        try {
+            if (limit < 1 || limit > 1000) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("limit must be between 1 and 1000").build();
+            }
+            List<FineAccrualRun> runs = fineAccrualService.findRecentRuns(limit);
+            return Response.ok(runs).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting fine accrual runs", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving fine accrual runs: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Accrue fines for all overdue loans now.
+     * @return The recorded run
+     */
+    @POST
+    @Path("/accrue")
+    @RolesAllowed("ADMIN")
+    public Response accrueFines() {
+        LOG.log(Level.INFO, "Running fine accrual on request");
+        try {
+            FineAccrualRun run = fineAccrualJob.accrueFines(LocalDate.now());
+            return Response.ok(run).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error running fine accrual", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error running fine accrual: " + e.getMessage()).build();
+        }
+    }
+}
\ No newline at end of file
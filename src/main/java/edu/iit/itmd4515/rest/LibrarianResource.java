@@ -12,12 +12,14 @@ import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -27,7 +29,7 @@ import java.util.logging.Logger;
  * Provides CRUD operations for librarian management.
  */
 @Path("/librarians")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
 @Consumes(MediaType.APPLICATION_JSON)
 public class LibrarianResource {
     
@@ -41,15 +43,22 @@ public class LibrarianResource {
     
     /**
      * Get all librarians.
+     * @param fields optional comma separated fields to return instead of the full librarians
      * @return List of all librarians
      */
     @GET
     @RolesAllowed("ADMIN")
-    public Response getAllLibrarians() {
+    public Response getAllLibrarians(@QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting all librarians");
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (fieldList != null) {
+                return Response.ok(librarianService.findFields(fieldList)).build();
+            }
             List<Librarian> librarians = librarianService.findAll();
             return Response.ok(librarians).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting all librarians", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -60,14 +69,24 @@ public class LibrarianResource {
     /**
      * Get librarian by ID.
      * @param id The librarian ID
+     * @param fields optional comma separated fields to return instead of the full librarian
      * @return The librarian with the specified ID
      */
     @GET
     @Path("/{id}")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response getLibrarianById(@PathParam("id") Long id) {
+    public Response getLibrarianById(@PathParam("id") Long id, @QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting librarian by ID: {0}", id);
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (fieldList != null) {
+                Map<String, Object> projection = librarianService.findFieldsById(id, fieldList);
+                if (projection == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Librarian not found with ID: " + id).build();
+                }
+                return Response.ok(projection).build();
+            }
             Optional<Librarian> librarianOpt = Optional.ofNullable(librarianService.findById(id));
             
             if (librarianOpt.isPresent()) {
@@ -76,6 +95,8 @@ public class LibrarianResource {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Librarian not found with ID: " + id).build();
             }
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting librarian by ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
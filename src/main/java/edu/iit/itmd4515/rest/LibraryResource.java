@@ -1,24 +1,41 @@
 package edu.iit.itmd4515.rest;
 
 import edu.iit.itmd4515.domain.Library;
+import edu.iit.itmd4515.domain.LoanCounter;
+import edu.iit.itmd4515.service.BatchResult;
+import edu.iit.itmd4515.service.BorrowerSketchService;
+import edu.iit.itmd4515.service.Bulkheads;
+import edu.iit.itmd4515.service.DistinctBorrowers;
+import edu.iit.itmd4515.service.EntityVersion;
 import edu.iit.itmd4515.service.LibraryService;
+import edu.iit.itmd4515.service.LibraryStatistics;
+import edu.iit.itmd4515.service.LoanCounterService;
+import edu.iit.itmd4515.service.PopularBook;
+import edu.iit.itmd4515.service.PopularBooksJob;
+import edu.iit.itmd4515.service.RetryOnConflictInterceptor;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.ejb.EJB;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import java.net.URI;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,7 +44,7 @@ import java.util.logging.Logger;
  * Provides CRUD operations for library branch management.
  */
 @Path("/libraries")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
 @Consumes(MediaType.APPLICATION_JSON)
 public class LibraryResource {
     
@@ -36,20 +53,48 @@ public class LibraryResource {
     @EJB
     private LibraryService libraryService;
     
+    @EJB
+    private LoanCounterService loanCounterService;
+    
+    @EJB
+    private Bulkheads bulkheads;
+    
+    @EJB
+    private PopularBooksJob popularBooksJob;
+    
+    @EJB
+    private BorrowerSketchService borrowerSketchService;
+    
     @Context
     private UriInfo uriInfo;
     
     /**
-     * Get all libraries.
-     * @return List of all libraries
+     * Get all libraries, or only the libraries with the given IDs.
+     * @param ids optional library IDs to fetch in one batch
+     * @param fields optional comma separated fields to return instead of the full libraries
+     * @return List of all libraries, or the requested libraries and the IDs that were not found
      */
     @GET
     @RolesAllowed("ADMIN")
-    public Response getAllLibraries() {
+    public Response getAllLibraries(@QueryParam("ids") List<String> ids, @QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting all libraries");
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (ids != null && !ids.isEmpty()) {
+                List<Long> idList = QueryParams.parseIds(ids);
+                if (fieldList != null) {
+                    return Response.ok(libraryService.findFieldsByIds(idList, fieldList)).build();
+                }
+                BatchResult<Library> result = libraryService.findByIds(idList);
+                return Response.ok(result).build();
+            }
+            if (fieldList != null) {
+                return Response.ok(libraryService.findFields(fieldList)).build();
+            }
             List<Library> libraries = libraryService.findAll();
             return Response.ok(libraries).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting all libraries", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -58,24 +103,49 @@ public class LibraryResource {
     }
     
     /**
-     * Get library by ID.
-     * @param id The library ID
-     * @return The library with the specified ID
+     * Get a library by ID.
+     * Answers 304 Not Modified from a version lookup when If-None-Match or
+     * If-Modified-Since still match, without loading the library.
+     * @param id Library ID
+     * @param fields optional comma separated fields to return instead of the full library
+     * @param request The request carrying the conditional headers
+     * @return Library entity with ETag and Last-Modified
      */
     @GET
     @Path("/{id}")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response getLibraryById(@PathParam("id") Long id) {
+    public Response getLibraryById(@PathParam("id") Long id, @QueryParam("fields") String fields,
+                                   @Context Request request) {
         LOG.log(Level.INFO, "Getting library by ID: {0}", id);
         try {
-            Optional<Library> libraryOpt = Optional.ofNullable(libraryService.findById(id));
-            
-            if (libraryOpt.isPresent()) {
-                return Response.ok(libraryOpt.get()).build();
-            } else {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            EntityVersion version = libraryService.findVersion(id);
+            if (version == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Library not found with ID: " + id).build();
             }
+            Response.ResponseBuilder notModified = Preconditions.evaluate(request, version, fieldList);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            if (fieldList != null) {
+                Map<String, Object> projection = libraryService.findFieldsById(id, fieldList);
+                if (projection == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Library not found with ID: " + id).build();
+                }
+                return Preconditions.validators(Response.ok(projection), request, version.getVersion(),
+                        version.getLastModified(), fieldList).build();
+            }
+            Library library = libraryService.findById(id);
+            if (library == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Library not found with ID: " + id).build();
+            }
+            return Preconditions.validators(Response.ok(library), request, library.getVersion(),
+                    library.getLastModified()).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting library by ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -105,27 +175,40 @@ public class LibraryResource {
     
     /**
      * Update an existing library.
-     * @param id The library ID
-     * @param library The updated library data
-     * @return Response with the updated library
+     * An If-Match header that no longer matches the current ETag answers 412 Precondition Failed.
+     * @param id Library ID
+     * @param library Updated library data
+     * @param request The request carrying the conditional headers
+     * @return Updated library entity with its new ETag
      */
     @PUT
     @Path("/{id}")
     @RolesAllowed("ADMIN")
-    public Response updateLibrary(@PathParam("id") Long id, Library library) {
+    public Response updateLibrary(@PathParam("id") Long id, Library library, @Context Request request) {
         LOG.log(Level.INFO, "Updating library with ID: {0}", id);
         try {
-            Optional<Library> existingLibraryOpt = Optional.ofNullable(libraryService.findById(id));
-            
-            if (existingLibraryOpt.isPresent()) {
-                library.setId(id); // Ensure the ID matches the path parameter
-                libraryService.update(library);
-                return Response.ok(library).build();
-            } else {
+            EntityVersion version = libraryService.findVersion(id);
+            if (version == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Library not found with ID: " + id).build();
             }
+            Response.ResponseBuilder failed = Preconditions.evaluate(request, version);
+            if (failed != null) {
+                return failed.build();
+            }
+            library.setId(id); // Ensure the ID matches the path parameter
+            if (library.getVersion() == null) {
+                // Optimistic lock check against the version If-Match was checked against
+                library.setVersion(version.getVersion());
+            }
+            Library updated = libraryService.update(library);
+            return Preconditions.validators(Response.ok(updated), request, updated.getVersion(),
+                    updated.getLastModified()).build();
         } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Library was modified concurrently, reload and retry: " + id).build();
+            }
             LOG.log(Level.SEVERE, "Error updating library with ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Error updating library: " + e.getMessage()).build();
@@ -134,25 +217,40 @@ public class LibraryResource {
     
     /**
      * Delete a library by ID.
-     * @param id The library ID
-     * @return Response confirming deletion
+     * An If-Match header that no longer matches the current ETag answers 412 Precondition Failed.
+     * @param id Library ID
+     * @param request The request carrying the conditional headers
+     * @return Response indicating success or failure
      */
     @DELETE
     @Path("/{id}")
     @RolesAllowed("ADMIN")
-    public Response deleteLibrary(@PathParam("id") Long id) {
+    public Response deleteLibrary(@PathParam("id") Long id, @Context Request request) {
         LOG.log(Level.INFO, "Deleting library with ID: {0}", id);
         try {
-            Optional<Library> existingLibraryOpt = Optional.ofNullable(libraryService.findById(id));
+            EntityVersion version = libraryService.findVersion(id);
+            if (version == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Library not found with ID: " + id).build();
+            }
+            Response.ResponseBuilder failed = Preconditions.evaluate(request, version);
+            if (failed != null) {
+                return failed.build();
+            }
             
-            if (existingLibraryOpt.isPresent()) {
-                libraryService.delete(existingLibraryOpt.get());
-                return Response.noContent().build();
-            } else {
+            Library library = libraryService.findById(id);
+            if (library == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Library not found with ID: " + id).build();
             }
+            library.setVersion(version.getVersion());
+            libraryService.delete(library);
+            return Response.noContent().build();
         } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Library was modified concurrently, reload and retry: " + id).build();
+            }
             LOG.log(Level.SEVERE, "Error deleting library with ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Error deleting library: " + e.getMessage()).build();
@@ -218,4 +316,181 @@ public class LibraryResource {
                     .entity("Error searching libraries: " + e.getMessage()).build();
         }
     }
+    
+    /**
+     * Get active and total loan counts for every library.
+     * Served from the incrementally maintained loan counters.
+     * @return List of library loan counters
+     */
+    @GET
+    @Path("/stats")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getLoanStats() {
+        LOG.log(Level.INFO, "Getting library loan stats");
+        try {
+            List<LoanCounter> counters = loanCounterService.getCounters(LoanCounter.Scope.LIBRARY);
+            return Response.ok(counters).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting library loan stats", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving library loan stats: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Recompute all loan counters from the loan table.
+     * @return List of library loan counters after the rebuild
+     */
+    @POST
+    @Path("/stats/rebuild")
+    @RolesAllowed("ADMIN")
+    public Response rebuildLoanStats() {
+        LOG.log(Level.INFO, "Rebuilding library loan stats");
+        try {
+            loanCounterService.rebuild();
+            return Response.ok(loanCounterService.getCounters(LoanCounter.Scope.LIBRARY)).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error rebuilding library loan stats", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error rebuilding library loan stats: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Get loan statistics for every library, computed with a single query.
+     * @param from optional earliest loan date (yyyy-MM-dd)
+     * @param to optional latest loan date (yyyy-MM-dd)
+     * @param asyncResponse Resumed with list of per-library statistics
+     */
+    @GET
+    @Path("/statistics")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public void getStatistics(@QueryParam("from") String from, @QueryParam("to") String to, @Suspended AsyncResponse asyncResponse) {
+        LOG.log(Level.INFO, "Getting library statistics from {0} to {1}", new Object[]{from, to});
+        AsyncResponses.resume(asyncResponse, bulkheads.reporting().submit(() -> {
+            try {
+                List<LibraryStatistics> statistics = libraryService.statistics(
+                        QueryParams.parseDate("from", from), QueryParams.parseDate("to", to));
+                return Response.ok(statistics).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error getting library statistics", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error retrieving library statistics: " + e.getMessage()).build();
+            }
+        }));
+    }
+    
+    /**
+     * Get the estimated number of distinct borrowers of a library, per period of a date range.
+     * @param id The library ID
+     * @param from First loan date (yyyy-MM-dd)
+     * @param to Last loan date (yyyy-MM-dd), at most 366 days after from
+     * @param period Optional day, week, month or total, default total
+     * @param error Optional relative standard error, at least 0.0082, default 0.01
+     * @param asyncResponse Resumed with the distinct borrowers of each period
+     */
+    @GET
+    @Path("/{id}/statistics/borrowers")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public void getDistinctBorrowers(@PathParam("id") Long id,
+                                     @QueryParam("from") String from, @QueryParam("to") String to,
+                                     @QueryParam("period") String period,
+                                     @QueryParam("error") @DefaultValue("0.01") double error,
+                                     @Suspended AsyncResponse asyncResponse) {
+        LOG.log(Level.INFO, "Getting distinct borrowers of library {0} from {1} to {2}", new Object[]{id, from, to});
+        distinctBorrowers(id, from, to, period, error, asyncResponse);
+    }
+    
+    /**
+     * Get the estimated number of distinct borrowers of all libraries, per period of a date range.
+     * A borrower of several libraries counts once.
+     * @param from First loan date (yyyy-MM-dd)
+     * @param to Last loan date (yyyy-MM-dd), at most 366 days after from
+     * @param period Optional day, week, month or total, default total
+     * @param error Optional relative standard error, at least 0.0082, default 0.01
+     * @param asyncResponse Resumed with the distinct borrowers of each period
+     */
+    @GET
+    @Path("/statistics/borrowers")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public void getDistinctBorrowersOverall(@QueryParam("from") String from, @QueryParam("to") String to,
+                                            @QueryParam("period") String period,
+                                            @QueryParam("error") @DefaultValue("0.01") double error,
+                                            @Suspended AsyncResponse asyncResponse) {
+        LOG.log(Level.INFO, "Getting distinct borrowers from {0} to {1}", new Object[]{from, to});
+        distinctBorrowers(null, from, to, period, error, asyncResponse);
+    }
+    
+    private void distinctBorrowers(Long libraryId, String from, String to, String period, double error,
+                                   AsyncResponse asyncResponse) {
+        AsyncResponses.resume(asyncResponse, bulkheads.reporting().submit(() -> {
+            try {
+                List<DistinctBorrowers> borrowers = borrowerSketchService.distinctBorrowers(libraryId,
+                        QueryParams.parseDate("from", from), QueryParams.parseDate("to", to),
+                        DistinctBorrowers.Period.parse(period), error);
+                return Response.ok(borrowers).build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error getting distinct borrowers", e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error retrieving distinct borrowers: " + e.getMessage()).build();
+            }
+        }));
+    }
+    
+    /**
+     * Get the most borrowed books of a library over the last days.
+     * @param id The library ID
+     * @param days Optional window length in days, 1 to 365, default 30
+     * @param limit Optional maximum number of books, default 10
+     * @return Book IDs with estimated loan counts, most borrowed first
+     */
+    @GET
+    @Path("/{id}/popular")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getPopularBooks(@PathParam("id") Long id,
+                                    @QueryParam("days") @DefaultValue("30") int days,
+                                    @QueryParam("limit") @DefaultValue("10") int limit) {
+        LOG.log(Level.INFO, "Getting popular books of library {0} over {1} days", new Object[]{id, days});
+        return popular(id, days, limit);
+    }
+    
+    /**
+     * Get the most borrowed books of all libraries over the last days.
+     * @param days Optional window length in days, 1 to 365, default 30
+     * @param limit Optional maximum number of books, default 10
+     * @return Book IDs with estimated loan counts, most borrowed first
+     */
+    @GET
+    @Path("/popular")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getPopularBooksOverall(@QueryParam("days") @DefaultValue("30") int days,
+                                           @QueryParam("limit") @DefaultValue("10") int limit) {
+        LOG.log(Level.INFO, "Getting popular books over {0} days", days);
+        return popular(null, days, limit);
+    }
+    
+    private Response popular(Long libraryId, int days, int limit) {
+        if (limit < 1 || limit > 1000) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be between 1 and 1000").build();
+        }
+        try {
+            List<PopularBook> books = popularBooksJob.findPopular(libraryId, days, limit);
+            return Response.ok(books).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, 30)
+                    .entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting popular books", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving popular books: " + e.getMessage()).build();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+package edu.iit.itmd4515.rest;
+
+import edu.iit.itmd4515.service.LoanExportRow;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Writes exported loans one line per row, as NDJSON objects or RFC 4180 CSV records.
+ * Values are escaped by hand so each row goes straight to the writer without
+ * building an intermediate document.
+ */
+final class LoanExportWriter implements Consumer<LoanExportRow> {
+    
+    /**
+     * Export formats and their media types.
+     */
+    enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+        
+        private final String mediaType;
+        
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+        
+        String getMediaType() {
+            return mediaType;
+        }
+        
+        /**
+         * Parse a format parameter, defaulting to NDJSON.
+         * @param value the raw parameter value, may be null or blank
+         * @return the format
+         * @throws IllegalArgumentException if the format is unknown
+         */
+        static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid format: " + value + ", expected ndjson or csv");
+            }
+        }
+    }
+    
+    private static final String[] COLUMNS = {
+        "loanId", "loanDate", "dueDate", "returnDate", "fineAmount", "bookId", "isbn", "title",
+        "borrowerId", "borrowerName", "borrowerEmail", "libraryId", "libraryName"
+    };
+    
+    private final Format format;
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(256);
+    
+    LoanExportWriter(Format format, Writer out) {
+        this.format = format;
+        this.out = out;
+    }
+    
+    /**
+     * Write the CSV header line; NDJSON has none.
+     * @throws IOException if writing fails
+     */
+    void writeHeader() throws IOException {
+        if (format == Format.CSV) {
+            out.write(String.join(",", COLUMNS));
+            out.write("\r\n");
+        }
+    }
+    
+    @Override
+    public void accept(LoanExportRow row) {
+        Object[] values = {
+            row.getLoanId(), row.getLoanDate(), row.getDueDate(), row.getReturnDate(), row.getFineAmount(),
+            row.getBookId(), row.getIsbn(), row.getTitle(),
+            row.getBorrowerId(), row.getBorrowerName(), row.getBorrowerEmail(),
+            row.getLibraryId(), row.getLibraryName()
+        };
+        line.setLength(0);
+        if (format == Format.CSV) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendCsv(line, values[i]);
+            }
+            line.append("\r\n");
+        } else {
+            line.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append('"').append(COLUMNS[i]).append("\":");
+                appendJson(line, values[i]);
+            }
+            line.append("}\n");
+        }
+        try {
+            out.append(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void appendCsv(StringBuilder sb, Object value) {
+        if (value == null) {
+            return;
+        }
+        String s = value.toString();
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            sb.append(s);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+    
+    private static void appendJson(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        if (value instanceof Number) {
+            sb.append(value);
+            return;
+        }
+        String s = value.toString();
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package edu.iit.itmd4515.rest;
+
+import edu.iit.itmd4515.service.BulkheadStats;
+import edu.iit.itmd4515.service.Bulkheads;
+import edu.iit.itmd4515.service.DomainEventBus;
+import edu.iit.itmd4515.service.EventSubscriptionStats;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * REST resource exposing runtime metrics.
+ */
+@Path("/metrics")
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
+public class MetricsResource {
+    
+    private static final Logger LOG = Logger.getLogger(MetricsResource.class.getName());
+    
+    @EJB
+    private Bulkheads bulkheads;
+    
+    @EJB
+    private DomainEventBus domainEventBus;
+    
+    /**
+     * Get the queue depth, activity and rejections of each executor bulkhead.
+     * @return List of per-pool metrics
+     */
+    @GET
+    @Path("/executors")
+    @RolesAllowed("ADMIN")
+    public Response getExecutorMetrics() {
+        LOG.log(Level.INFO, "Getting executor metrics");
+        try {
+            List<BulkheadStats> stats = bulkheads.getStats();
+            return Response.ok(stats).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting executor metrics", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving executor metrics: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Get the lag, deliveries, retries and failures of each domain event subscriber.
+     * @return List of per-subscriber metrics
+     */
+    @GET
+    @Path("/events")
+    @RolesAllowed("ADMIN")
+    public Response getEventMetrics() {
+        LOG.log(Level.INFO, "Getting event subscriber metrics");
+        try {
+            List<EventSubscriptionStats> stats = domainEventBus.getStats();
+            return Response.ok(stats).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting event subscriber metrics", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving event subscriber metrics: " + e.getMessage()).build();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package edu.iit.itmd4515.rest;
+
+import edu.iit.itmd4515.service.EntityVersion;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Variant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * HTTP conditional request helpers for versioned catalog resources.
+ * The strong ETag is the entity's optimistic lock version and Last-Modified
+ * its lastModified timestamp, so preconditions can be checked from a version
+ * lookup before the entity itself is loaded.
+ * JSON and CBOR bodies of one version differ byte for byte, so the CBOR tag
+ * carries a "+cbor" suffix and the response is sent as the media type its tag
+ * names. {@link RepresentationFilter} does the same for the content coding.
+ */
+final class Preconditions {
+    
+    static final String CBOR_SUFFIX = "+cbor";
+    
+    // In the order of the resources' @Produces, so ties go the same way as the runtime's choice
+    private static final List<Variant> VARIANTS = Variant.mediaTypes(
+            MediaType.APPLICATION_JSON_TYPE, CborMessageBodyWriter.APPLICATION_CBOR_TYPE).build();
+    
+    private Preconditions() {
+    }
+    
+    /**
+     * Evaluate If-Match, If-None-Match, If-Modified-Since and If-Unmodified-Since.
+     * @param request the current request
+     * @param version the current version of the resource
+     * @return a 304 or 412 response builder carrying the validators, or null if the request should proceed
+     */
+    static Response.ResponseBuilder evaluate(Request request, EntityVersion version) {
+        return evaluate(request, version, null);
+    }
+    
+    /**
+     * Evaluate the conditional headers against one sparse fieldset of the resource.
+     * @param request the current request
+     * @param version the current version of the resource
+     * @param fields the requested fields, or null for the full representation
+     * @return a 304 or 412 response builder carrying the validators, or null if the request should proceed
+     */
+    static Response.ResponseBuilder evaluate(Request request, EntityVersion version, List<String> fields) {
+        MediaType mediaType = mediaType(request);
+        EntityTag tag = entityTag(version.getVersion(), fields, mediaType);
+        Date lastModified = toDate(version.getLastModified());
+        Response.ResponseBuilder builder = lastModified == null
+                ? request.evaluatePreconditions(tag)
+                : request.evaluatePreconditions(lastModified, tag);
+        return builder == null ? null : validators(builder, mediaType, version.getVersion(),
+                version.getLastModified(), fields);
+    }
+    
+    /**
+     * Add ETag, Last-Modified and a revalidate-always Cache-Control to a response.
+     * @param builder the response builder
+     * @param request the current request, whose Accept header picks the media type
+     * @param version the entity version
+     * @param lastModified the entity's last modification time, may be null
+     * @return the builder
+     */
+    static Response.ResponseBuilder validators(Response.ResponseBuilder builder, Request request, Long version,
+                                               LocalDateTime lastModified) {
+        return validators(builder, request, version, lastModified, null);
+    }
+    
+    /**
+     * Add the validators of one sparse fieldset to a response.
+     * @param builder the response builder
+     * @param request the current request, whose Accept header picks the media type
+     * @param version the entity version
+     * @param lastModified the entity's last modification time, may be null
+     * @param fields the requested fields, or null for the full representation
+     * @return the builder
+     */
+    static Response.ResponseBuilder validators(Response.ResponseBuilder builder, Request request, Long version,
+                                               LocalDateTime lastModified, List<String> fields) {
+        return validators(builder, mediaType(request), version, lastModified, fields);
+    }
+    
+    private static Response.ResponseBuilder validators(Response.ResponseBuilder builder, MediaType mediaType,
+                                                       Long version, LocalDateTime lastModified, List<String> fields) {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        cacheControl.setNoTransform(false);
+        // Pinning the type keeps the body in the representation the tag names
+        builder.type(mediaType).tag(entityTag(version, fields, mediaType)).cacheControl(cacheControl);
+        Date date = toDate(lastModified);
+        if (date != null) {
+            builder.lastModified(date);
+        }
+        return builder;
+    }
+    
+    /**
+     * Build the strong tag of one representation of a version.
+     * @param version the entity version
+     * @param fields the requested fields, or null for the full representation
+     * @param mediaType JSON or CBOR
+     * @return the tag
+     */
+    static EntityTag entityTag(Long version, List<String> fields, MediaType mediaType) {
+        // Each fieldset and media type is its own representation and needs its own strong tag
+        StringBuilder value = new StringBuilder(String.valueOf(version == null ? 0L : version));
+        if (fields != null) {
+            value.append(';').append(String.join(",", fields));
+        }
+        if (CborMessageBodyWriter.APPLICATION_CBOR_TYPE.isCompatible(mediaType)) {
+            value.append(CBOR_SUFFIX);
+        }
+        return new EntityTag(value.toString());
+    }
+    
+    private static MediaType mediaType(Request request) {
+        Variant variant = request.selectVariant(VARIANTS);
+        return variant == null ? MediaType.APPLICATION_JSON_TYPE : variant.getMediaType();
+    }
+    
+    private static Date toDate(LocalDateTime dateTime) {
+        return dateTime == null ? null : Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
\ No newline at end of file
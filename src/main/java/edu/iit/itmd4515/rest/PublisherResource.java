@@ -1,25 +1,34 @@
 package edu.iit.itmd4515.rest;
 
 import edu.iit.itmd4515.domain.Publisher;
+import edu.iit.itmd4515.domain.PublisherFeedSync;
+import edu.iit.itmd4515.service.EntityVersion;
+import edu.iit.itmd4515.service.PublisherFeedJob;
+import edu.iit.itmd4515.service.PublisherFeedService;
 import edu.iit.itmd4515.service.PublisherService;
+import edu.iit.itmd4515.service.RetryOnConflictInterceptor;
 import jakarta.annotation.security.PermitAll;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.ejb.EJB;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,7 +37,7 @@ import java.util.logging.Logger;
  * Provides CRUD operations for publisher management.
  */
 @Path("/publishers")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
 @Consumes(MediaType.APPLICATION_JSON)
 public class PublisherResource {
     
@@ -37,20 +46,33 @@ public class PublisherResource {
     @EJB
     private PublisherService publisherService;
     
+    @EJB
+    private PublisherFeedService publisherFeedService;
+    
+    @EJB
+    private PublisherFeedJob publisherFeedJob;
+    
     @Context
     private UriInfo uriInfo;
     
     /**
      * Get all publishers.
+     * @param fields optional comma separated fields to return instead of the full publishers
      * @return List of all publishers
      */
     @GET
     @PermitAll
-    public Response getAllPublishers() {
+    public Response getAllPublishers(@QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting all publishers");
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (fieldList != null) {
+                return Response.ok(publisherService.findFields(fieldList)).build();
+            }
             List<Publisher> publishers = publisherService.findAll();
             return Response.ok(publishers).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting all publishers", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -59,24 +81,49 @@ public class PublisherResource {
     }
     
     /**
-     * Get publisher by ID.
-     * @param id The publisher ID
-     * @return The publisher with the specified ID
+     * Get a publisher by ID.
+     * Answers 304 Not Modified from a version lookup when If-None-Match or
+     * If-Modified-Since still match, without loading the publisher.
+     * @param id Publisher ID
+     * @param fields optional comma separated fields to return instead of the full publisher
+     * @param request The request carrying the conditional headers
+     * @return Publisher entity with ETag and Last-Modified
      */
     @GET
     @Path("/{id}")
     @PermitAll
-    public Response getPublisherById(@PathParam("id") Long id) {
+    public Response getPublisherById(@PathParam("id") Long id, @QueryParam("fields") String fields,
+                                     @Context Request request) {
         LOG.log(Level.INFO, "Getting publisher by ID: {0}", id);
         try {
-            Optional<Publisher> publisherOpt = Optional.ofNullable(publisherService.findById(id));
-            
-            if (publisherOpt.isPresent()) {
-                return Response.ok(publisherOpt.get()).build();
-            } else {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            EntityVersion version = publisherService.findVersion(id);
+            if (version == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Publisher not found with ID: " + id).build();
+            }
+            Response.ResponseBuilder notModified = Preconditions.evaluate(request, version, fieldList);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            if (fieldList != null) {
+                Map<String, Object> projection = publisherService.findFieldsById(id, fieldList);
+                if (projection == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Publisher not found with ID: " + id).build();
+                }
+                return Preconditions.validators(Response.ok(projection), request, version.getVersion(),
+                        version.getLastModified(), fieldList).build();
+            }
+            Publisher publisher = publisherService.findById(id);
+            if (publisher == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Publisher not found with ID: " + id).build();
             }
+            return Preconditions.validators(Response.ok(publisher), request, publisher.getVersion(),
+                    publisher.getLastModified()).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting publisher by ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -104,29 +151,100 @@ public class PublisherResource {
         }
     }
     
+    /**
+     * Synchronize a publisher's titles with its full weekly catalog feed.
+     * New and changed titles are written, unchanged ones are left alone and
+     * titles missing from the feed are marked withdrawn.
+     * @param id Publisher ID
+     * @param format csv or marc
+     * @param feed The feed file
+     * @return The recorded sync
+     */
+    @POST
+    @Path("/{id}/feed")
+    @Consumes({"text/csv", "application/marc", MediaType.APPLICATION_OCTET_STREAM})
+    @RolesAllowed("ADMIN")
+    public Response syncFeed(@PathParam("id") Long id, @QueryParam("format") String format, InputStream feed) {
+        LOG.log(Level.INFO, "Syncing {0} feed of publisher ID: {1}", new Object[]{format, id});
+        try {
+            PublisherFeedSync sync = publisherFeedJob.sync(id, format, feed);
+            if (sync.getError() != null) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(sync).build();
+            }
+            return Response.ok(sync).build();
+        } catch (IllegalArgumentException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith("Publisher not found")) {
+                return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+            }
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error syncing feed of publisher ID: " + id, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error syncing publisher feed: " + e.getMessage()).build();
+        }
+    }
+    
+    /**
+     * Get the most recent feed syncs of a publisher.
+     * @param id Publisher ID
+     * @param limit maximum number of syncs, default 20
+     * @return List of syncs, newest first
+     */
+    @GET
+    @Path("/{id}/feed/syncs")
+    @RolesAllowed({"ADMIN", "LIBRARIAN"})
+    public Response getFeedSyncs(@PathParam("id") Long id, @QueryParam("limit") @DefaultValue("20") int limit) {
+        LOG.log(Level.INFO, "Getting {0} feed syncs of publisher ID: {1}", new Object[]{limit, id});
+        try {
+            if (limit < 1 || limit > 1000) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("limit must be between 1 and 1000").build();
+            }
+            List<PublisherFeedSync> syncs = publisherFeedService.findRecentSyncs(id, limit);
+            return Response.ok(syncs).build();
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error getting feed syncs of publisher ID: " + id, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error retrieving publisher feed syncs: " + e.getMessage()).build();
+        }
+    }
+    
     /**
      * Update an existing publisher.
-     * @param id The publisher ID
-     * @param publisher The updated publisher data
-     * @return Response with the updated publisher
+     * An If-Match header that no longer matches the current ETag answers 412 Precondition Failed.
+     * @param id Publisher ID
+     * @param publisher Updated publisher data
+     * @param request The request carrying the conditional headers
+     * @return Updated publisher entity with its new ETag
      */
     @PUT
     @Path("/{id}")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response updatePublisher(@PathParam("id") Long id, Publisher publisher) {
+    public Response updatePublisher(@PathParam("id") Long id, Publisher publisher, @Context Request request) {
         LOG.log(Level.INFO, "Updating publisher with ID: {0}", id);
         try {
-            Optional<Publisher> existingPublisherOpt = Optional.ofNullable(publisherService.findById(id));
-            
-            if (existingPublisherOpt.isPresent()) {
-                publisher.setId(id); // Ensure the ID matches the path parameter
-                publisherService.update(publisher);
-                return Response.ok(publisher).build();
-            } else {
+            EntityVersion version = publisherService.findVersion(id);
+            if (version == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Publisher not found with ID: " + id).build();
             }
+            Response.ResponseBuilder failed = Preconditions.evaluate(request, version);
+            if (failed != null) {
+                return failed.build();
+            }
+            publisher.setId(id); // Ensure the ID matches the path parameter
+            if (publisher.getVersion() == null) {
+                // Optimistic lock check against the version If-Match was checked against
+                publisher.setVersion(version.getVersion());
+            }
+            Publisher updated = publisherService.update(publisher);
+            return Preconditions.validators(Response.ok(updated), request, updated.getVersion(),
+                    updated.getLastModified()).build();
         } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Publisher was modified concurrently, reload and retry: " + id).build();
+            }
             LOG.log(Level.SEVERE, "Error updating publisher with ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Error updating publisher: " + e.getMessage()).build();
@@ -135,25 +253,40 @@ public class PublisherResource {
     
     /**
      * Delete a publisher by ID.
-     * @param id The publisher ID
-     * @return Response confirming deletion
+     * An If-Match header that no longer matches the current ETag answers 412 Precondition Failed.
+     * @param id Publisher ID
+     * @param request The request carrying the conditional headers
+     * @return Response indicating success or failure
      */
     @DELETE
     @Path("/{id}")
     @RolesAllowed({"ADMIN", "LIBRARIAN"})
-    public Response deletePublisher(@PathParam("id") Long id) {
+    public Response deletePublisher(@PathParam("id") Long id, @Context Request request) {
         LOG.log(Level.INFO, "Deleting publisher with ID: {0}", id);
         try {
-            Optional<Publisher> existingPublisherOpt = Optional.ofNullable(publisherService.findById(id));
+            EntityVersion version = publisherService.findVersion(id);
+            if (version == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Publisher not found with ID: " + id).build();
+            }
+            Response.ResponseBuilder failed = Preconditions.evaluate(request, version);
+            if (failed != null) {
+                return failed.build();
+            }
             
-            if (existingPublisherOpt.isPresent()) {
-                publisherService.delete(existingPublisherOpt.get());
-                return Response.noContent().build();
-            } else {
+            Publisher publisher = publisherService.findById(id);
+            if (publisher == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("Publisher not found with ID: " + id).build();
             }
+            publisher.setVersion(version.getVersion());
+            publisherService.delete(publisher);
+            return Response.noContent().build();
         } catch (Exception e) {
+            if (RetryOnConflictInterceptor.isConflict(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Publisher was modified concurrently, reload and retry: " + id).build();
+            }
             LOG.log(Level.SEVERE, "Error deleting publisher with ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Error deleting publisher: " + e.getMessage()).build();
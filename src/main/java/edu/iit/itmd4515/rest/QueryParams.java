@@ -0,0 +1,87 @@
+package edu.iit.itmd4515.rest;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parsing helpers for query parameters shared by the REST resources.
+ */
+final class QueryParams {
+    
+    /**
+     * Maximum number of IDs accepted by a single batch lookup.
+     */
+    static final int MAX_BATCH_IDS = 1000;
+    
+    private QueryParams() {
+    }
+    
+    /**
+     * Parse an ID list given either as repeated parameters ({@code ?ids=1&ids=2})
+     * or as a comma separated value ({@code ?ids=1,2}).
+     * @param values the raw parameter values
+     * @return the parsed IDs in request order
+     * @throws IllegalArgumentException if a value is not a number or too many IDs are given
+     */
+    static List<Long> parseIds(List<String> values) {
+        List<Long> ids = new ArrayList<>();
+        for (String value : values) {
+            for (String token : value.split(",")) {
+                String trimmed = token.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                try {
+                    ids.add(Long.valueOf(trimmed));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid ID: " + trimmed);
+                }
+            }
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_IDS + " IDs may be requested at once");
+        }
+        return ids;
+    }
+    
+    /**
+     * Parse an optional ISO-8601 date parameter such as {@code 2024-01-31}.
+     * @param name the parameter name, used in the error message
+     * @param value the raw parameter value, may be null or blank
+     * @return the parsed date, or null if the parameter was not given
+     * @throws IllegalArgumentException if the value is not a valid date
+     */
+    static LocalDate parseDate(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + " date: " + value);
+        }
+    }
+    
+    /**
+     * Parse a sparse fieldset such as {@code ?fields=id,title,isAvailable}.
+     * @param value the raw parameter value, may be null or blank
+     * @return the distinct field names in request order, or null if the parameter was not given
+     */
+    static List<String> parseFields(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        for (String token : value.split(",")) {
+            String trimmed = token.trim();
+            if (!trimmed.isEmpty()) {
+                fields.add(trimmed);
+            }
+        }
+        return fields.isEmpty() ? null : new ArrayList<>(fields);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package edu.iit.itmd4515.rest;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps caches apart from the representations that {@link CborMessageBodyWriter}
+ * and {@link CompressionInterceptor} negotiate. Every response varies on Accept
+ * and Accept-Encoding. The strong ETag of a body that will be compressed gets
+ * a "-gzip" or "-deflate" suffix, as the compressed bytes differ from the plain
+ * ones. Those suffixes are taken off If-Match and If-None-Match again before
+ * {@link Preconditions} compares them, since the coding does not change the
+ * version they name.
+ */
+@Provider
+public class RepresentationFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    
+    private static final Pattern CODING_SUFFIX = Pattern.compile(
+            "-(" + CompressionInterceptor.GZIP + "|" + CompressionInterceptor.DEFLATE + ")\"");
+    
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        MultivaluedMap<String, String> headers = requestContext.getHeaders();
+        for (String name : List.of(HttpHeaders.IF_MATCH, HttpHeaders.IF_NONE_MATCH)) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                values.replaceAll(RepresentationFilter::stripCoding);
+            }
+        }
+    }
+    
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        EntityTag tag = responseContext.getEntityTag();
+        if (tag == null || tag.isWeak() || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return;
+        }
+        // A 304 stands for the body that would have been sent, so it carries the same tag
+        boolean body = responseContext.hasEntity()
+                || responseContext.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode();
+        String encoding = CompressionInterceptor.negotiate(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (body && encoding != null) {
+            headers.putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue() + "-" + encoding));
+        }
+    }
+    
+    /**
+     * Remove content coding suffixes from the tags of an If-Match or If-None-Match header.
+     * @param header the header value
+     * @return the header with every tag naming the uncompressed representation
+     */
+    static String stripCoding(String header) {
+        return CODING_SUFFIX.matcher(header).replaceAll("\"");
+    }
+}
\ No newline at end of file
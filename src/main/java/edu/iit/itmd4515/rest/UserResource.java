@@ -8,6 +8,7 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,7 +17,7 @@ import java.util.logging.Logger;
  * Provides CRUD operations for User entities through RESTful web services.
  */
 @Path("/users")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, CborMessageBodyWriter.APPLICATION_CBOR})
 @Consumes(MediaType.APPLICATION_JSON)
 @RolesAllowed("ADMIN")
 public class UserResource {
@@ -28,14 +29,21 @@ public class UserResource {
     
     /**
      * Get all users.
+     * @param fields optional comma separated fields to return instead of the full users
      * @return List of all users
      */
     @GET
-    public Response getAllUsers() {
+    public Response getAllUsers(@QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting all users");
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (fieldList != null) {
+                return Response.ok(userService.findFields(fieldList)).build();
+            }
             List<User> users = userService.findAll();
             return Response.ok(users).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting all users", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -46,19 +54,31 @@ public class UserResource {
     /**
      * Get a user by ID.
      * @param id User ID
+     * @param fields optional comma separated fields to return instead of the full user
      * @return User entity
      */
     @GET
     @Path("/{id}")
-    public Response getUserById(@PathParam("id") Long id) {
+    public Response getUserById(@PathParam("id") Long id, @QueryParam("fields") String fields) {
         LOG.log(Level.INFO, "Getting user by ID: {0}", id);
         try {
+            List<String> fieldList = QueryParams.parseFields(fields);
+            if (fieldList != null) {
+                Map<String, Object> projection = userService.findFieldsById(id, fieldList);
+                if (projection == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("User not found with ID: " + id).build();
+                }
+                return Response.ok(projection).build();
+            }
             User user = userService.findById(id);
             if (user == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("User not found with ID: " + id).build();
             }
             return Response.ok(user).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error getting user by ID: " + id, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
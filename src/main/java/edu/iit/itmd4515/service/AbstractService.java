@@ -1,9 +1,30 @@
 package edu.iit.itmd4515.service;
 
+import edu.iit.itmd4515.domain.ChangeLogEntry;
+import jakarta.annotation.Resource;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.InvocationContext;
+import jakarta.json.bind.annotation.JsonbTransient;
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.Query;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import jakarta.transaction.Transactional;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,9 +37,20 @@ public abstract class AbstractService<T> {
     
     private static final Logger LOG = Logger.getLogger(AbstractService.class.getName());
     
+    /**
+     * Maximum number of IDs bound into a single IN clause.
+     */
+    protected static final int IN_CLAUSE_CHUNK_SIZE = 500;
+    
+    // Key of the current transaction's pending change log entries
+    private static final Object PENDING_CHANGES = new Object();
+    
     @PersistenceContext(unitName = "itmd4515PU")
     public EntityManager em;
     
+    @Resource
+    public TransactionSynchronizationRegistry txRegistry;
+    
     private final Class<T> entityClass;
     
     public AbstractService(Class<T> entityClass) {
@@ -34,6 +66,9 @@ public abstract class AbstractService<T> {
     public T create(T entity) {
         LOG.log(Level.INFO, "Creating entity: {0}", entity);
         em.persist(entity);
+        if (isChangeLogged()) {
+            logChange(entityClass, entity, null, ChangeLogEntry.Operation.INSERT);
+        }
         return entity;
     }
     
@@ -47,6 +82,176 @@ public abstract class AbstractService<T> {
         return em.find(entityClass, id);
     }
     
+    /**
+     * Read the version and last modification time of an entity with a single primary key lookup.
+     * Only valid for entities mapping version and lastModified attributes.
+     * @param id the entity ID
+     * @return the version, or null if no entity has the ID
+     */
+    public EntityVersion findVersion(Long id) {
+        LOG.log(Level.INFO, "Finding version of {0} ID: {1}", new Object[]{entityClass.getSimpleName(), id});
+        List<Object[]> rows = em.createQuery(
+                "SELECT e.version, e.lastModified FROM " + entityClass.getSimpleName() + " e WHERE e.id = :id",
+                Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        return new EntityVersion((Long) rows.get(0)[0], (LocalDateTime) rows.get(0)[1]);
+    }
+    
+    /**
+     * Find several entities by their IDs.
+     * Entities held by the shared cache are served from it without a query;
+     * the rest, including those only in the persistence context, are loaded
+     * with chunked IN queries.
+     * @param ids the entity IDs, in the order the caller wants them back
+     * @return the found entities in request order and the IDs that were not found
+     */
+    public BatchResult<T> findByIds(Collection<Long> ids) {
+        LOG.log(Level.INFO, "Finding {0} entities of type {1} by ID", 
+                new Object[]{ids.size(), entityClass.getSimpleName()});
+        Set<Long> requested = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                requested.add(id);
+            }
+        }
+        
+        Map<Long, T> found = new HashMap<>();
+        List<Long> toQuery = new ArrayList<>();
+        Cache cache = em.getEntityManagerFactory().getCache();
+        for (Long id : requested) {
+            if (cache.contains(entityClass, id)) {
+                T entity = em.find(entityClass, id);
+                if (entity != null) {
+                    found.put(id, entity);
+                    continue;
+                }
+            }
+            toQuery.add(id);
+        }
+        
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e WHERE e.id IN :ids";
+        for (int from = 0; from < toQuery.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = toQuery.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, toQuery.size()));
+            for (T entity : em.createQuery(jpql, entityClass).setParameter("ids", chunk).getResultList()) {
+                found.put((Long) util.getIdentifier(entity), entity);
+            }
+        }
+        
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            T entity = found.get(id);
+            if (entity != null) {
+                items.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(items, missing);
+    }
+    
+    /**
+     * Load only the requested attributes of all entities.
+     * Fields become a JPQL projection, so no other column is read and no association is loaded.
+     * @param fields basic attribute names, in the order they should appear
+     * @return one map of field name to value per entity
+     * @throws IllegalArgumentException if a field is not a basic, serialized attribute
+     */
+    public List<Map<String, Object>> findFields(List<String> fields) {
+        LOG.log(Level.INFO, "Finding fields {0} of all {1}", new Object[]{fields, entityClass.getSimpleName()});
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Object[] row : em.createQuery(projection(fields), Object[].class).getResultList()) {
+            items.add(toFieldMap(fields, row));
+        }
+        return items;
+    }
+    
+    /**
+     * Load only the requested attributes of several entities.
+     * @param ids the entity IDs, in the order the caller wants them back
+     * @param fields basic attribute names
+     * @return the projections in request order and the IDs that were not found
+     * @throws IllegalArgumentException if a field is not a basic, serialized attribute
+     */
+    public BatchResult<Map<String, Object>> findFieldsByIds(Collection<Long> ids, List<String> fields) {
+        LOG.log(Level.INFO, "Finding fields {0} of {1} entities of type {2}",
+                new Object[]{fields, ids.size(), entityClass.getSimpleName()});
+        String jpql = projection(fields) + " WHERE e.id IN :ids";
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        requested.remove(null);
+        Map<Long, Map<String, Object>> found = new HashMap<>();
+        for (int from = 0; from < requested.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = requested.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, requested.size()));
+            for (Object[] row : em.createQuery(jpql, Object[].class).setParameter("ids", chunk).getResultList()) {
+                found.put((Long) row[0], toFieldMap(fields, row));
+            }
+        }
+        
+        List<Map<String, Object>> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            Map<String, Object> item = found.get(id);
+            if (item != null) {
+                items.add(item);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(items, missing);
+    }
+    
+    /**
+     * Load only the requested attributes of one entity.
+     * @param id the entity ID
+     * @param fields basic attribute names
+     * @return map of field name to value, or null if no entity has the ID
+     * @throws IllegalArgumentException if a field is not a basic, serialized attribute
+     */
+    public Map<String, Object> findFieldsById(Long id, List<String> fields) {
+        LOG.log(Level.INFO, "Finding fields {0} of {1} ID: {2}", new Object[]{fields, entityClass.getSimpleName(), id});
+        List<Object[]> rows = em.createQuery(projection(fields) + " WHERE e.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        return rows.isEmpty() ? null : toFieldMap(fields, rows.get(0));
+    }
+    
+    /**
+     * Build a projection selecting the ID followed by the requested fields.
+     * Only basic attributes are accepted, and fields the JSON binding skips stay hidden.
+     */
+    private String projection(List<String> fields) {
+        EntityType<T> type = em.getMetamodel().entity(entityClass);
+        StringBuilder jpql = new StringBuilder("SELECT e.id");
+        for (String field : fields) {
+            Attribute<? super T, ?> attribute;
+            try {
+                attribute = type.getAttribute(field);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            Member member = attribute.getJavaMember();
+            if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC
+                    || (member instanceof Field && ((Field) member).isAnnotationPresent(JsonbTransient.class))) {
+                throw new IllegalArgumentException("Field cannot be selected: " + field);
+            }
+            jpql.append(", e.").append(field);
+        }
+        return jpql.append(" FROM ").append(entityClass.getSimpleName()).append(" e").toString();
+    }
+    
+    private static Map<String, Object> toFieldMap(List<String> fields, Object[] row) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            item.put(fields.get(i), row[i + 1]);
+        }
+        return item;
+    }
+    
     /**
      * Find all entities of this type.
      * @return list of all entities
@@ -65,7 +270,17 @@ public abstract class AbstractService<T> {
     @Transactional
     public T update(T entity) {
         LOG.log(Level.INFO, "Updating entity: {0}", entity);
-        return em.merge(entity);
+        T merged = em.merge(entity);
+        if (isChangeLogged()) {
+            Long id = identifier(merged);
+            if (id == null) {
+                // Merging a new entity inserts it
+                logChange(entityClass, merged, null, ChangeLogEntry.Operation.INSERT);
+            } else {
+                logChange(entityClass, null, id, ChangeLogEntry.Operation.UPDATE);
+            }
+        }
+        return merged;
     }
     
     /**
@@ -75,7 +290,160 @@ public abstract class AbstractService<T> {
     @Transactional
     public void delete(T entity) {
         LOG.log(Level.INFO, "Deleting entity: {0}", entity);
-        em.remove(em.merge(entity));
+        T merged = em.merge(entity);
+        em.remove(merged);
+        if (isChangeLogged()) {
+            logChange(entityClass, null, identifier(merged), ChangeLogEntry.Operation.DELETE);
+        }
+    }
+    
+    /**
+     * Whether create, update and delete record their writes in the change log.
+     * Services of entities published in the change feed override this.
+     * @return true to record changes
+     */
+    protected boolean isChangeLogged() {
+        return false;
+    }
+    
+    /**
+     * Record a change of one entity in the change log, in the current transaction.
+     * @param type the changed entity class
+     * @param id the entity ID
+     * @param operation the kind of write
+     */
+    protected void recordChange(Class<?> type, Long id, ChangeLogEntry.Operation operation) {
+        logChange(type, null, id, operation);
+    }
+    
+    /**
+     * Record changes of several entities in the change log, in the current transaction.
+     * @param type the changed entity class
+     * @param operation the kind of write
+     * @param ids the entity IDs
+     */
+    protected void recordChanges(Class<?> type, ChangeLogEntry.Operation operation, Collection<Long> ids) {
+        for (Long id : ids) {
+            logChange(type, null, id, operation);
+        }
+    }
+    
+    /**
+     * Queue a change log entry until the business method returns. All entries
+     * queued by it are then written together, in the order they were made, so
+     * a new entity's ID is known without flushing on every create. Without a
+     * JTA transaction the entry is written at once.
+     */
+    private void logChange(Class<?> type, Object entity, Long id, ChangeLogEntry.Operation operation) {
+        PendingChange change = new PendingChange(type, entity, id, operation);
+        if (txRegistry == null || txRegistry.getTransactionKey() == null) {
+            writeChanges(List.of(change));
+            return;
+        }
+        List<PendingChange> pending = pendingChanges();
+        if (pending == null) {
+            pending = new ArrayList<>();
+            txRegistry.putResource(PENDING_CHANGES, pending);
+        }
+        pending.add(change);
+    }
+    
+    /**
+     * Write the change log entries a business method queued before it returns,
+     * still inside its transaction. Writing them here rather than from a
+     * transaction synchronization keeps them clear of the persistence
+     * provider's own commit processing, whose order relative to ours is not defined.
+     * Nested business methods each write their own entries on return, which keeps the order.
+     * @param context the invocation
+     * @return the business method's result
+     * @throws Exception whatever the business method throws, in which case nothing is written
+     */
+    @AroundInvoke
+    protected Object writePendingChanges(InvocationContext context) throws Exception {
+        Object result = context.proceed();
+        List<PendingChange> pending = pendingChanges();
+        if (pending != null && !pending.isEmpty()) {
+            writeChanges(pending);
+            pending.clear();
+        }
+        return result;
+    }
+    
+    private List<PendingChange> pendingChanges() {
+        if (txRegistry == null || txRegistry.getTransactionKey() == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        List<PendingChange> pending = (List<PendingChange>) txRegistry.getResource(PENDING_CHANGES);
+        return pending;
+    }
+    
+    /**
+     * Write change log entries with one multi-row INSERT per 500 entries.
+     * Consecutive entries of one type and operation share a statement, and the
+     * database clock stamps them, as it does for entries recorded by query.
+     */
+    private void writeChanges(List<PendingChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (PendingChange change : changes) {
+            if (change.id == null && identifier(change.entity) == null) {
+                // The ID of a new entity is only assigned once its insert is flushed
+                em.flush();
+                break;
+            }
+        }
+        int from = 0;
+        while (from < changes.size()) {
+            PendingChange first = changes.get(from);
+            int to = from + 1;
+            while (to < changes.size() && to - from < IN_CLAUSE_CHUNK_SIZE
+                    && changes.get(to).type == first.type && changes.get(to).operation == first.operation) {
+                to++;
+            }
+            StringBuilder sql = new StringBuilder(
+                    "INSERT INTO change_log (entity_type, entity_id, operation, changed_at) VALUES ");
+            for (int i = from; i < to; i++) {
+                sql.append(i == from ? "" : ", ").append("(?, ?, ?, CURRENT_TIMESTAMP)");
+            }
+            Query insert = em.createNativeQuery(sql.toString());
+            int p = 1;
+            for (PendingChange change : changes.subList(from, to)) {
+                insert.setParameter(p++, change.type.getSimpleName());
+                insert.setParameter(p++, change.id != null ? change.id : identifier(change.entity));
+                insert.setParameter(p++, change.operation.name());
+            }
+            insert.executeUpdate();
+            from = to;
+        }
+    }
+    
+    /**
+     * Record a change for every ID a native query returns, in the current transaction,
+     * without loading the IDs into memory. Changes queued earlier in the transaction
+     * are written first, so the change log keeps the order of the writes.
+     * @param type the changed entity class
+     * @param operation the kind of write
+     * @param idQuery native SELECT returning the changed IDs in a column named id
+     * @param parameters positional parameters of the query
+     * @return number of changes recorded
+     */
+    protected int recordChanges(Class<?> type, ChangeLogEntry.Operation operation, String idQuery, Object... parameters) {
+        List<PendingChange> pending = pendingChanges();
+        if (pending != null) {
+            writeChanges(pending);
+            pending.clear();
+        }
+        Query insert = em.createNativeQuery(ChangeLogService.recordSql(type.getSimpleName(), operation, idQuery));
+        for (int i = 0; i < parameters.length; i++) {
+            insert.setParameter(i + 1, parameters[i]);
+        }
+        return insert.executeUpdate();
+    }
+    
+    private Long identifier(Object entity) {
+        return (Long) em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
     }
     
     /**
@@ -87,4 +455,22 @@ public abstract class AbstractService<T> {
         return em.createQuery("SELECT COUNT(e) FROM " + entityClass.getSimpleName() + " e", Long.class)
                 .getSingleResult();
     }
+    
+    /**
+     * Change log entry waiting for its transaction to complete.
+     */
+    private static final class PendingChange {
+        private final Class<?> type;
+        // New entities are kept until their ID is assigned
+        private final Object entity;
+        private final Long id;
+        private final ChangeLogEntry.Operation operation;
+        
+        private PendingChange(Class<?> type, Object entity, Long id, ChangeLogEntry.Operation operation) {
+            this.type = type;
+            this.entity = entity;
+            this.id = id;
+            this.operation = operation;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs in-memory side effects only once the surrounding JTA transaction
+ * has committed, so rolled back work never leaks into caches or counters.
+ */
+final class AfterCommit {
+    
+    private static final Logger LOG = Logger.getLogger(AfterCommit.class.getName());
+    
+    private AfterCommit() {
+    }
+    
+    /**
+     * Run an action after the current transaction commits.
+     * Outside a JTA transaction (e.g. standalone execution) the action runs immediately.
+     * @param registry the transaction synchronization registry, may be null
+     * @param action the action to run
+     */
+    static void run(TransactionSynchronizationRegistry registry, Runnable action) {
+        if (registry == null || registry.getTransactionKey() == null) {
+            action.run();
+            return;
+        }
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    LOG.log(Level.SEVERE, "Error running after-commit action", e);
+                }
+            }
+        });
+    }
+}
\ No newline at end of file
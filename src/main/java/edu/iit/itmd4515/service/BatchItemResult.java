@@ -0,0 +1,86 @@
+package edu.iit.itmd4515.service;
+
+/**
+ * Outcome of one item of a batch checkout or return.
+ */
+public class BatchItemResult {
+    
+    /**
+     * What happened to the item.
+     */
+    public enum Status {
+        CHECKED_OUT,
+        RETURNED,
+        NOT_FOUND,
+        UNAVAILABLE,
+        ALREADY_RETURNED,
+        DUPLICATE
+    }
+    
+    private String item;
+    
+    private Status status;
+    
+    private Long loanId;
+    
+    private Double fineAmount;
+    
+    public BatchItemResult() {
+    }
+    
+    public BatchItemResult(String item, Status status, Long loanId, Double fineAmount) {
+        this.item = item;
+        this.status = status;
+        this.loanId = loanId;
+        this.fineAmount = fineAmount;
+    }
+    
+    public static BatchItemResult of(String item, Status status) {
+        return new BatchItemResult(item, status, null, null);
+    }
+    
+    public boolean isSuccess() {
+        return status == Status.CHECKED_OUT || status == Status.RETURNED;
+    }
+    
+    public String getItem() {
+        return item;
+    }
+    
+    public void setItem(String item) {
+        this.item = item;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public Long getLoanId() {
+        return loanId;
+    }
+    
+    public void setLoanId(Long loanId) {
+        this.loanId = loanId;
+    }
+    
+    public Double getFineAmount() {
+        return fineAmount;
+    }
+    
+    public void setFineAmount(Double fineAmount) {
+        this.fineAmount = fineAmount;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchItemResult{" +
+                "item='" + item + '\'' +
+                ", status=" + status +
+                ", loanId=" + loanId +
+                '}';
+    }
+}
\ No newline at end of file
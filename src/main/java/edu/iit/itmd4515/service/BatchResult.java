@@ -0,0 +1,48 @@
+package edu.iit.itmd4515.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a batch lookup by ID.
+ * Holds the entities that were found, in the order they were requested,
+ * and the requested IDs that did not match any entity.
+ */
+public class BatchResult<T> {
+    
+    private List<T> items = new ArrayList<>();
+    
+    private List<Long> missing = new ArrayList<>();
+    
+    public BatchResult() {
+    }
+    
+    public BatchResult(List<T> items, List<Long> missing) {
+        this.items = items;
+        this.missing = missing;
+    }
+    
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+    
+    public List<Long> getMissing() {
+        return missing;
+    }
+    
+    public void setMissing(List<Long> missing) {
+        this.missing = missing;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "items=" + items.size() +
+                ", missing=" + missing +
+                '}';
+    }
+}
\ No newline at end of file
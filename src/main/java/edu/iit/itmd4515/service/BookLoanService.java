@@ -1,26 +1,61 @@
 package edu.iit.itmd4515.service;
 
+import edu.iit.itmd4515.domain.Book;
 import edu.iit.itmd4515.domain.BookLoan;
+import edu.iit.itmd4515.domain.Borrower;
+import edu.iit.itmd4515.domain.ChangeLogEntry;
+import edu.iit.itmd4515.domain.Librarian;
+import edu.iit.itmd4515.domain.Library;
 import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.TypedQuery;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Stateless EJB service for BookLoan entity operations.
  * Provides CRUD operations and business logic for BookLoan management.
+ * Loan lifecycle and availability changes are announced on the {@link DomainEventBus}.
  */
 @Stateless
 public class BookLoanService extends AbstractService<BookLoan> {
     
     private static final Logger LOG = Logger.getLogger(BookLoanService.class.getName());
     
+    @Inject
+    public LoanCounterService loanCounterService;
+    
+    @Inject
+    public LoanDueDateService loanDueDateService;
+    
+    @Inject
+    public DomainEventBus eventBus;
+    
     public BookLoanService() {
         super(BookLoan.class);
     }
     
+    /**
+     * Loan changes are published in the change feed.
+     */
+    @Override
+    protected boolean isChangeLogged() {
+        return true;
+    }
+    
     /**
      * Find active loans (not returned).
      * @return list of active loans
@@ -33,14 +68,21 @@ public class BookLoanService extends AbstractService<BookLoan> {
     
     /**
      * Find overdue loans.
+     * The overdue IDs come from the in-memory due date wheel, so only the overdue loans are loaded.
+     * The wheel is updated asynchronously, so each loaded loan is checked again and
+     * loans returned or extended since are left out.
      * @return list of overdue loans
      */
     public List<BookLoan> findOverdueLoans() {
         LOG.log(Level.INFO, "Finding overdue loans");
-        TypedQuery<BookLoan> query = em.createQuery(
-            "SELECT bl FROM BookLoan bl WHERE bl.returnDate IS NULL AND bl.dueDate < :today", BookLoan.class);
-        query.setParameter("today", LocalDate.now());
-        return query.getResultList();
+        LocalDate today = LocalDate.now();
+        List<BookLoan> overdue = new ArrayList<>();
+        for (BookLoan loan : findByIds(loanDueDateService.getOverdueLoanIds()).getItems()) {
+            if (loan.getReturnDate() == null && loan.getDueDate() != null && loan.getDueDate().isBefore(today)) {
+                overdue.add(loan);
+            }
+        }
+        return overdue;
     }
     
     /**
@@ -55,6 +97,51 @@ public class BookLoanService extends AbstractService<BookLoan> {
         return query.getResultList();
     }
     
+    /**
+     * Find the active loans of the borrower linked to a user account.
+     * Resolves username, borrower and loans in a single join query.
+     * @param username the username of the logged-in user
+     * @return list of active loans for the user's borrower, soonest due first
+     */
+    public List<BookLoan> findActiveLoansByUser(String username) {
+        LOG.log(Level.INFO, "Finding active loans by username: {0}", username);
+        TypedQuery<BookLoan> query = em.createQuery(
+            "SELECT bl FROM BookLoan bl JOIN FETCH bl.book, User u " +
+            "WHERE u.username = :username AND u.borrower = bl.borrower AND bl.returnDate IS NULL " +
+            "ORDER BY bl.dueDate", BookLoan.class);
+        query.setParameter("username", username);
+        return query.getResultList();
+    }
+    
+    /**
+     * Find the active loans of a borrower.
+     * @param borrowerId the borrower ID
+     * @return list of active loans for the borrower, soonest due first
+     */
+    public List<BookLoan> findActiveLoansByBorrower(Long borrowerId) {
+        LOG.log(Level.INFO, "Finding active loans by borrower ID: {0}", borrowerId);
+        TypedQuery<BookLoan> query = em.createQuery(
+            "SELECT bl FROM BookLoan bl JOIN FETCH bl.book " +
+            "WHERE bl.borrower.id = :borrowerId AND bl.returnDate IS NULL " +
+            "ORDER BY bl.dueDate", BookLoan.class);
+        query.setParameter("borrowerId", borrowerId);
+        return query.getResultList();
+    }
+    
+    /**
+     * Find the ID of the borrower linked to a user account.
+     * @param username the username
+     * @return the borrower ID or null if the user has no borrower
+     */
+    public Long findBorrowerIdByUsername(String username) {
+        LOG.log(Level.INFO, "Finding borrower ID by username: {0}", username);
+        List<Long> results = em.createQuery(
+            "SELECT u.borrower.id FROM User u WHERE u.username = :username", Long.class)
+            .setParameter("username", username)
+            .getResultList();
+        return results.isEmpty() ? null : results.get(0);
+    }
+    
     /**
      * Find loans by book.
      * @param bookId the book ID
@@ -81,16 +168,382 @@ public class BookLoanService extends AbstractService<BookLoan> {
     
     /**
      * Process a book return.
-     * @param loanId the loan ID
+     * The fine is calculated under the library's fine policy when the loan
+     * goes from active to returned.
+     * @param loan the loan to update
      * @return the updated loan
      */
     @Override
     public BookLoan update(BookLoan loan) {
         LOG.log(Level.INFO, "Processing book return for loan ID: {0}", loan.getId());
-        if (loan.getReturnDate() == null) {
+        Object[] prior = findCounterState(loan.getId());
+        if (prior == null || prior[3] == null) {
+            LocalDate returnDate = loan.getReturnDate() == null ? LocalDate.now() : loan.getReturnDate();
+            if (loan.getLibrary() != null && loan.getLibrary().getId() != null) {
+                loan.setLibrary(em.find(Library.class, loan.getLibrary().getId()));
+            }
+            loan.returnBook(returnDate);
+        } else if (loan.getReturnDate() == null) {
             loan.setReturnDate(LocalDate.now());
         }
-        // The overdue status is calculated by the entity's isOverdue() method
-        return super.update(loan);
+        BookLoan updated = super.update(loan);
+        if (prior != null) {
+            Long libraryId = updated.getLibrary() == null ? null : updated.getLibrary().getId();
+            Long borrowerId = updated.getBorrower() == null ? null : updated.getBorrower().getId();
+            Long librarianId = updated.getProcessedBy() == null ? null : updated.getProcessedBy().getId();
+            boolean wasActive = prior[3] == null;
+            boolean active = updated.getReturnDate() == null;
+            if (Objects.equals(prior[0], libraryId) && Objects.equals(prior[1], borrowerId)
+                    && Objects.equals(prior[2], librarianId)) {
+                if (wasActive && !active) {
+                    loanCounterService.recordLoanReturned(libraryId, borrowerId, librarianId);
+                }
+            } else {
+                loanCounterService.recordLoanDeleted((Long) prior[0], (Long) prior[1], (Long) prior[2], wasActive);
+                loanCounterService.recordLoanCreated(libraryId, borrowerId, librarianId, active);
+            }
+        }
+        if (prior != null && prior[3] == null && updated.getReturnDate() != null) {
+            releaseBook((Long) prior[4]);
+            eventBus.publish(new DomainEvent.LoanReturned(updated));
+        } else {
+            eventBus.publish(new DomainEvent.LoanUpdated(updated, prior == null ? null : (LocalDate) prior[5],
+                    prior == null ? null : (LocalDate) prior[3]));
+        }
+        return updated;
+    }
+    
+    /**
+     * Create a new loan and count it against its library, borrower and librarian.
+     * An active loan takes its book out with the same conditional claim as
+     * {@link #checkout}, so a book that is already out is never lent again.
+     * @param loan the loan to create
+     * @return the created loan
+     * @throws CheckoutException if the loan is active and its book is missing or out
+     */
+    @Override
+    public BookLoan create(BookLoan loan) {
+        LOG.log(Level.INFO, "Creating loan: {0}", loan);
+        if (loan.getReturnDate() == null && loan.getBook() != null && loan.getBook().getId() != null) {
+            // The claim is a bulk UPDATE, so pending changes go first and the managed book is reloaded after
+            em.flush();
+            claimBook(loan.getBook().getId(), loan.getDueDate());
+            if (em.contains(loan.getBook())) {
+                em.refresh(loan.getBook());
+            }
+        }
+        return insert(loan);
+    }
+    
+    /**
+     * Insert a loan whose book has been claimed, count it and announce it.
+     * @param loan the loan to insert
+     * @return the inserted loan
+     */
+    private BookLoan insert(BookLoan loan) {
+        BookLoan created = super.create(loan);
+        loanCounterService.recordLoanCreated(
+            created.getLibrary() == null ? null : created.getLibrary().getId(),
+            created.getBorrower() == null ? null : created.getBorrower().getId(),
+            created.getProcessedBy() == null ? null : created.getProcessedBy().getId(),
+            created.getReturnDate() == null);
+        // The ID is only assigned once the insert is flushed
+        em.flush();
+        eventBus.publish(new DomainEvent.LoanCreated(created));
+        return created;
+    }
+    
+    /**
+     * Delete a loan and remove it from the loan counters.
+     * @param loan the loan to delete
+     */
+    @Override
+    public void delete(BookLoan loan) {
+        LOG.log(Level.INFO, "Deleting loan ID: {0}", loan.getId());
+        Object[] prior = findCounterState(loan.getId());
+        super.delete(loan);
+        if (prior != null) {
+            loanCounterService.recordLoanDeleted((Long) prior[0], (Long) prior[1], (Long) prior[2], prior[3] == null);
+        }
+        eventBus.publish(new DomainEvent.LoanDeleted(loan));
+    }
+    
+    /**
+     * Check a book out atomically.
+     * The book is claimed with a conditional UPDATE, so of several desks checking out
+     * the same copy exactly one wins without holding any lock beyond that row update.
+     * The borrower's version is bumped, so concurrent checkouts for one borrower
+     * conflict and are retried by the caller instead of both passing the membership check.
+     * @param bookId the book ID
+     * @param borrowerId the borrower ID
+     * @param libraryId the library ID
+     * @param librarianId the processing librarian ID, may be null
+     * @param dueDate the due date
+     * @return the created loan
+     * @throws CheckoutException if an entity is missing, the book is out or the membership is inactive
+     */
+    public BookLoan checkout(Long bookId, Long borrowerId, Long libraryId, Long librarianId, LocalDate dueDate) {
+        LOG.log(Level.INFO, "Checking out book ID {0} to borrower ID {1}", new Object[]{bookId, borrowerId});
+        Borrower borrower = findCheckoutBorrower(borrowerId);
+        Library library = findCheckoutLibrary(libraryId);
+        claimBook(bookId, dueDate);
+        
+        BookLoan loan = new BookLoan(LocalDate.now(), dueDate, borrower);
+        loan.setBook(em.getReference(Book.class, bookId));
+        loan.setLibrary(library);
+        if (librarianId != null) {
+            loan.setProcessedBy(em.getReference(Librarian.class, librarianId));
+        }
+        return insert(loan);
+    }
+    
+    /**
+     * Mark an available book as out with a conditional UPDATE.
+     * Titles withdrawn by their publisher cannot be claimed.
+     * @param bookId the book ID
+     * @param dueDate the due date
+     * @throws CheckoutException if the book is missing, already out or withdrawn
+     */
+    private void claimBook(Long bookId, LocalDate dueDate) {
+        int claimed = em.createQuery(
+            "UPDATE Book b SET b.isAvailable = false, b.dueDate = :dueDate, b.version = b.version + 1, " +
+            "b.lastModified = CURRENT_TIMESTAMP " +
+            "WHERE b.id = :bookId AND b.isAvailable = true AND b.withdrawn = false")
+            .setParameter("dueDate", dueDate)
+            .setParameter("bookId", bookId)
+            .executeUpdate();
+        if (claimed == 0) {
+            Book book = em.find(Book.class, bookId);
+            if (book == null) {
+                throw new CheckoutException(CheckoutException.Reason.BOOK_NOT_FOUND, "Book not found with ID: " + bookId);
+            }
+            if (Boolean.TRUE.equals(book.getWithdrawn())) {
+                throw new CheckoutException(CheckoutException.Reason.BOOK_UNAVAILABLE, "Book has been withdrawn: " + bookId);
+            }
+            throw new CheckoutException(CheckoutException.Reason.BOOK_UNAVAILABLE, "Book is not available for loan: " + bookId);
+        }
+        recordChange(Book.class, bookId, ChangeLogEntry.Operation.UPDATE);
+        eventBus.publish(new DomainEvent.BookUpdated(bookId, false));
+    }
+    
+    /**
+     * Check out several books for one borrower in a single transaction.
+     * All books are loaded and checked with one IN query per 500 ISBNs. The book
+     * updates, which carry optimistic version checks, and the loan inserts are
+     * flushed together, so the database sees one round trip per patron rather than per item.
+     * A book taken by another desk in the meantime fails the flush with an
+     * optimistic lock error; the caller retries and the item then reports UNAVAILABLE.
+     * @param borrowerId the borrower ID
+     * @param libraryId the library ID
+     * @param librarianId the processing librarian ID, may be null
+     * @param dueDate the due date for all loans
+     * @param isbns the scanned ISBNs
+     * @return one result per scanned ISBN, in scan order
+     * @throws CheckoutException if the borrower or library is missing or the membership is inactive
+     */
+    public List<BatchItemResult> checkoutBatch(Long borrowerId, Long libraryId, Long librarianId,
+                                               LocalDate dueDate, List<String> isbns) {
+        LOG.log(Level.INFO, "Batch checkout of {0} items to borrower ID {1}", new Object[]{isbns.size(), borrowerId});
+        Borrower borrower = findCheckoutBorrower(borrowerId);
+        Library library = findCheckoutLibrary(libraryId);
+        Librarian librarian = librarianId == null ? null : em.getReference(Librarian.class, librarianId);
+        
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(isbns));
+        Map<String, Book> books = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<String> chunk = distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinct.size()));
+            for (Book book : em.createQuery("SELECT b FROM Book b WHERE b.isbn IN :isbns", Book.class)
+                    .setParameter("isbns", chunk).getResultList()) {
+                books.put(book.getIsbn(), book);
+            }
+        }
+        
+        List<BatchItemResult> results = new ArrayList<>(isbns.size());
+        Map<BatchItemResult, BookLoan> created = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        LocalDate today = LocalDate.now();
+        for (String isbn : isbns) {
+            Book book = books.get(isbn);
+            if (!seen.add(isbn)) {
+                results.add(BatchItemResult.of(isbn, BatchItemResult.Status.DUPLICATE));
+            } else if (book == null) {
+                results.add(BatchItemResult.of(isbn, BatchItemResult.Status.NOT_FOUND));
+            } else if (!Boolean.TRUE.equals(book.getIsAvailable()) || Boolean.TRUE.equals(book.getWithdrawn())) {
+                results.add(BatchItemResult.of(isbn, BatchItemResult.Status.UNAVAILABLE));
+            } else {
+                book.loanBook(dueDate);
+                BookLoan loan = new BookLoan(today, dueDate, borrower);
+                loan.setBook(book);
+                loan.setLibrary(library);
+                loan.setProcessedBy(librarian);
+                em.persist(loan);
+                BatchItemResult result = BatchItemResult.of(isbn, BatchItemResult.Status.CHECKED_OUT);
+                results.add(result);
+                created.put(result, loan);
+            }
+        }
+        
+        em.flush();
+        List<Long> loanIds = new ArrayList<>(created.size());
+        List<Long> bookIds = new ArrayList<>(created.size());
+        List<DomainEvent> events = new ArrayList<>(created.size() * 2);
+        created.forEach((result, loan) -> {
+            result.setLoanId(loan.getId());
+            loanIds.add(loan.getId());
+            bookIds.add(loan.getBook().getId());
+            events.add(new DomainEvent.LoanCreated(loan));
+            events.add(new DomainEvent.BookUpdated(loan.getBook().getId(), false));
+        });
+        recordChanges(BookLoan.class, ChangeLogEntry.Operation.INSERT, loanIds);
+        recordChanges(Book.class, ChangeLogEntry.Operation.UPDATE, bookIds);
+        eventBus.publishAll(events);
+        loanCounterService.recordLoansCreated(libraryId, borrowerId, librarianId, created.size());
+        return results;
+    }
+    
+    /**
+     * Return several loans in a single transaction.
+     * The loans, their books and libraries are loaded with one fetch-join query per
+     * 500 IDs. Fines follow each library's fine policy.
+     * @param loanIds the loan IDs
+     * @return one result per loan ID, in request order
+     */
+    public List<BatchItemResult> returnBatch(List<Long> loanIds) {
+        LOG.log(Level.INFO, "Batch return of {0} loans", loanIds.size());
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(loanIds));
+        Map<String, BookLoan> loans = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinct.size()));
+            for (BookLoan loan : em.createQuery(
+                    "SELECT bl FROM BookLoan bl JOIN FETCH bl.book JOIN FETCH bl.library JOIN FETCH bl.borrower " +
+                    "LEFT JOIN FETCH bl.processedBy WHERE bl.id IN :ids", BookLoan.class)
+                    .setParameter("ids", chunk).getResultList()) {
+                loans.put(String.valueOf(loan.getId()), loan);
+            }
+        }
+        List<String> items = new ArrayList<>(loanIds.size());
+        loanIds.forEach(id -> items.add(String.valueOf(id)));
+        return applyReturns(items, loans, LocalDate.now());
+    }
+    
+    /**
+     * Return the active loans of scanned books in a single transaction.
+     * Scans are resolved to active loans with one fetch-join query per 500 ISBNs.
+     * @param isbns the scanned ISBNs
+     * @param returnDate the date the books were returned, used for fines
+     * @return one result per scan, in scan order; NOT_FOUND means no active loan for the ISBN
+     */
+    public List<BatchItemResult> returnByIsbns(List<String> isbns, LocalDate returnDate) {
+        LOG.log(Level.INFO, "Returning {0} scanned books", isbns.size());
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(isbns));
+        Map<String, BookLoan> loans = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<String> chunk = distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinct.size()));
+            for (BookLoan loan : em.createQuery(
+                    "SELECT bl FROM BookLoan bl JOIN FETCH bl.book b JOIN FETCH bl.library JOIN FETCH bl.borrower " +
+                    "LEFT JOIN FETCH bl.processedBy WHERE b.isbn IN :isbns AND bl.returnDate IS NULL", BookLoan.class)
+                    .setParameter("isbns", chunk).getResultList()) {
+                loans.put(loan.getBook().getIsbn(), loan);
+            }
+        }
+        return applyReturns(isbns, loans, returnDate);
+    }
+    
+    /**
+     * Return loaded loans, free their books and update counters in one flush.
+     * @param items the requested items in order
+     * @param loans the loans found, keyed by item
+     * @param returnDate the return date
+     * @return one result per item
+     */
+    private List<BatchItemResult> applyReturns(List<String> items, Map<String, BookLoan> loans, LocalDate returnDate) {
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        Map<List<Long>, Integer> returnedByOwner = new HashMap<>();
+        List<Long> loanIds = new ArrayList<>();
+        List<Long> bookIds = new ArrayList<>();
+        List<DomainEvent> events = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String item : items) {
+            BookLoan loan = loans.get(item);
+            if (!seen.add(item)) {
+                results.add(BatchItemResult.of(item, BatchItemResult.Status.DUPLICATE));
+            } else if (loan == null) {
+                results.add(BatchItemResult.of(item, BatchItemResult.Status.NOT_FOUND));
+            } else if (loan.getReturnDate() != null) {
+                results.add(BatchItemResult.of(item, BatchItemResult.Status.ALREADY_RETURNED));
+            } else {
+                loan.returnBook(returnDate);
+                loan.getBook().returnBook();
+                List<Long> owner = Arrays.asList(loan.getLibrary().getId(), loan.getBorrower().getId(),
+                        loan.getProcessedBy() == null ? null : loan.getProcessedBy().getId());
+                returnedByOwner.merge(owner, 1, Integer::sum);
+                loanIds.add(loan.getId());
+                bookIds.add(loan.getBook().getId());
+                events.add(new DomainEvent.LoanReturned(loan));
+                events.add(new DomainEvent.BookUpdated(loan.getBook().getId(), true));
+                results.add(new BatchItemResult(item, BatchItemResult.Status.RETURNED, loan.getId(), loan.getFineAmount()));
+            }
+        }
+        
+        em.flush();
+        recordChanges(BookLoan.class, ChangeLogEntry.Operation.UPDATE, loanIds);
+        recordChanges(Book.class, ChangeLogEntry.Operation.UPDATE, bookIds);
+        eventBus.publishAll(events);
+        returnedByOwner.forEach((owner, count) ->
+            loanCounterService.recordLoansReturned(owner.get(0), owner.get(1), owner.get(2), count));
+        return results;
+    }
+    
+    private Borrower findCheckoutBorrower(Long borrowerId) {
+        // Bumping the borrower's version serializes concurrent checkouts for one borrower
+        Borrower borrower = em.find(Borrower.class, borrowerId, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        if (borrower == null) {
+            throw new CheckoutException(CheckoutException.Reason.BORROWER_NOT_FOUND, "Borrower not found with ID: " + borrowerId);
+        }
+        if (!Boolean.TRUE.equals(borrower.getMembershipActive())) {
+            throw new CheckoutException(CheckoutException.Reason.MEMBERSHIP_INACTIVE, "Borrower membership is not active: " + borrowerId);
+        }
+        return borrower;
+    }
+    
+    private Library findCheckoutLibrary(Long libraryId) {
+        Library library = em.find(Library.class, libraryId);
+        if (library == null) {
+            throw new CheckoutException(CheckoutException.Reason.LIBRARY_NOT_FOUND, "Library not found with ID: " + libraryId);
+        }
+        return library;
+    }
+    
+    /**
+     * Make a returned book available for checkout again.
+     * @param bookId the book ID
+     */
+    private void releaseBook(Long bookId) {
+        em.createQuery(
+            "UPDATE Book b SET b.isAvailable = true, b.dueDate = NULL, b.version = b.version + 1, " +
+            "b.lastModified = CURRENT_TIMESTAMP WHERE b.id = :bookId")
+            .setParameter("bookId", bookId)
+            .executeUpdate();
+        recordChange(Book.class, bookId, ChangeLogEntry.Operation.UPDATE);
+        eventBus.publish(new DomainEvent.BookUpdated(bookId, true));
+    }
+    
+    /**
+     * Read the stored owners and return date of a loan, as counted by the loan counters.
+     * Changes already made to a managed loan are not flushed first, so the row read is the one counted.
+     * @param loanId the loan ID
+     * @return library ID, borrower ID, librarian ID, return date, book ID and loan date, or null if not stored
+     */
+    private Object[] findCounterState(Long loanId) {
+        if (loanId == null) {
+            return null;
+        }
+        List<Object[]> rows = em.createQuery(
+            "SELECT bl.library.id, bl.borrower.id, p.id, bl.returnDate, bl.book.id, bl.loanDate FROM BookLoan bl " +
+            "LEFT JOIN bl.processedBy p WHERE bl.id = :id", Object[].class)
+            .setParameter("id", loanId)
+            .setFlushMode(FlushModeType.COMMIT)
+            .getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package edu.iit.itmd4515.service;
 
 import edu.iit.itmd4515.domain.Book;
 import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
 import jakarta.persistence.TypedQuery;
 import java.util.List;
 import java.util.logging.Level;
@@ -10,24 +11,49 @@ import java.util.logging.Logger;
 /**
  * Stateless EJB service for Book entity operations.
  * Provides CRUD operations and business logic for Book management.
+ * Book updates are announced on the {@link DomainEventBus}.
  */
 @Stateless
 public class BookService extends AbstractService<Book> {
     
     private static final Logger LOG = Logger.getLogger(BookService.class.getName());
     
+    @Inject
+    public DomainEventBus eventBus;
+    
     public BookService() {
         super(Book.class);
     }
     
+    /**
+     * Book changes are published in the change feed.
+     */
+    @Override
+    protected boolean isChangeLogged() {
+        return true;
+    }
+    
+    /**
+     * Update a book and announce the change once it commits.
+     * @param book the book to update
+     * @return the updated book
+     */
+    @Override
+    public Book update(Book book) {
+        LOG.log(Level.INFO, "Updating book ID: {0}", book.getId());
+        Book updated = super.update(book);
+        eventBus.publish(new DomainEvent.BookUpdated(updated.getId(), updated.getIsAvailable()));
+        return updated;
+    }
+    
     /**
      * Find books by title.
      * @param title the title to search for
-     * @return list of matching books
+     * @return list of matching books, without titles withdrawn by their publisher
      */
     public List<Book> findByTitle(String title) {
         LOG.log(Level.INFO, "Finding books by title: {0}", title);
-        TypedQuery<Book> query = em.createQuery("SELECT b FROM Book b WHERE b.title LIKE :title", Book.class);
+        TypedQuery<Book> query = em.createQuery("SELECT b FROM Book b WHERE b.title LIKE :title AND b.withdrawn = false", Book.class);
         query.setParameter("title", "%" + title + "%");
         return query.getResultList();
     }
@@ -35,11 +61,11 @@ public class BookService extends AbstractService<Book> {
     /**
      * Find books by author name.
      * @param authorName the author name to search for
-     * @return list of matching books
+     * @return list of matching books, without titles withdrawn by their publisher
      */
     public List<Book> findByAuthor(String authorName) {
         LOG.log(Level.INFO, "Finding books by author: {0}", authorName);
-        TypedQuery<Book> query = em.createQuery("SELECT b FROM Book b WHERE b.author LIKE :author", Book.class);
+        TypedQuery<Book> query = em.createQuery("SELECT b FROM Book b WHERE b.author LIKE :author AND b.withdrawn = false", Book.class);
         query.setParameter("author", "%" + authorName + "%");
         return query.getResultList();
     }
@@ -58,12 +84,12 @@ public class BookService extends AbstractService<Book> {
     }
     
     /**
-     * Find available books.
+     * Find available books. Titles withdrawn by their publisher are left out.
      * @return list of available books
      */
     public List<Book> findAvailableBooks() {
         LOG.log(Level.INFO, "Finding available books");
-        TypedQuery<Book> query = em.createQuery("SELECT b FROM Book b WHERE b.isAvailable = true", Book.class);
+        TypedQuery<Book> query = em.createQuery("SELECT b FROM Book b WHERE b.isAvailable = true AND b.withdrawn = false", Book.class);
         return query.getResultList();
     }
     
@@ -1,8 +1,12 @@
 package edu.iit.itmd4515.service;
 
 import edu.iit.itmd4515.domain.Borrower;
+import edu.iit.itmd4515.domain.LoanCounter.Scope;
 import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
 import jakarta.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -10,16 +14,53 @@ import java.util.logging.Logger;
 /**
  * Stateless EJB service for Borrower entity operations.
  * Provides CRUD operations and business logic for Borrower management.
+ * Deactivated memberships are announced on the {@link DomainEventBus}.
  */
 @Stateless
 public class BorrowerService extends AbstractService<Borrower> {
     
     private static final Logger LOG = Logger.getLogger(BorrowerService.class.getName());
     
+    @Inject
+    public LoanCounterService loanCounterService;
+    
+    @Inject
+    public LoanDueDateService loanDueDateService;
+    
+    @Inject
+    public DomainEventBus eventBus;
+    
     public BorrowerService() {
         super(Borrower.class);
     }
     
+    /**
+     * Borrower changes are published in the change feed.
+     */
+    @Override
+    protected boolean isChangeLogged() {
+        return true;
+    }
+    
+    /**
+     * Update a borrower, announcing a membership that goes from active to inactive.
+     * @param borrower the borrower to update
+     * @return the updated borrower
+     */
+    @Override
+    public Borrower update(Borrower borrower) {
+        LOG.log(Level.INFO, "Updating borrower ID: {0}", borrower.getId());
+        List<Boolean> prior = borrower.getId() == null ? List.of() : em.createQuery(
+            "SELECT b.membershipActive FROM Borrower b WHERE b.id = :id", Boolean.class)
+            .setParameter("id", borrower.getId())
+            .getResultList();
+        Borrower updated = super.update(borrower);
+        if (!prior.isEmpty() && Boolean.TRUE.equals(prior.get(0)) && !Boolean.TRUE.equals(updated.getMembershipActive())) {
+            eventBus.publish(new DomainEvent.BorrowerDeactivated(updated.getId()));
+        }
+        return updated;
+    }
+    
     /**
      * Find borrowers by last name.
      * @param lastName the last name to search for
@@ -57,13 +98,25 @@ public class BorrowerService extends AbstractService<Borrower> {
     
     /**
      * Find borrowers with overdue books.
+     * Uses the same in-memory due date wheel as BookLoanService.findOverdueLoans,
+     * so both agree on what is overdue. The wheel is updated asynchronously, so the
+     * candidates are checked against book_loans and those whose loans were returned
+     * or extended since are left out.
      * @return list of borrowers with overdue books
      */
     public List<Borrower> findBorrowersWithOverdueBooks() {
         LOG.log(Level.INFO, "Finding borrowers with overdue books");
-        TypedQuery<Borrower> query = em.createQuery(
-            "SELECT DISTINCT b FROM Borrower b JOIN b.bookLoans bl WHERE bl.returnDate IS NULL AND bl.dueDate < CURRENT_DATE", Borrower.class);
-        return query.getResultList();
+        List<Long> candidates = loanDueDateService.getOverdueBorrowerIds();
+        List<Long> overdue = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            overdue.addAll(em.createQuery(
+                "SELECT DISTINCT bl.borrower.id FROM BookLoan bl WHERE bl.borrower.id IN :ids " +
+                "AND bl.returnDate IS NULL AND bl.dueDate < :today", Long.class)
+                .setParameter("ids", candidates.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, candidates.size())))
+                .setParameter("today", LocalDate.now())
+                .getResultList());
+        }
+        return findByIds(overdue).getItems();
     }
     
     /**
@@ -73,9 +126,6 @@ public class BorrowerService extends AbstractService<Borrower> {
      */
     public long countActiveLoans(Long borrowerId) {
         LOG.log(Level.INFO, "Counting active loans for borrower ID: {0}", borrowerId);
-        TypedQuery<Long> query = em.createQuery(
-            "SELECT COUNT(bl) FROM BookLoan bl WHERE bl.borrower.id = :borrowerId AND bl.returnDate IS NULL", Long.class);
-        query.setParameter("borrowerId", borrowerId);
-        return query.getSingleResult();
+        return loanCounterService.getActiveLoans(Scope.BORROWER, borrowerId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.BorrowerSketch;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+
+/**
+ * Stateless EJB persisting the daily distinct-borrower sketches of every
+ * library in borrower_sketches and answering distinct-borrower counts from them.
+ */
+@Stateless
+public class BorrowerSketchService extends AbstractService<BorrowerSketch> {
+    
+    private static final Logger LOG = Logger.getLogger(BorrowerSketchService.class.getName());
+    
+    /**
+     * Precision of the stored sketches, for a standard error of about 0.8%.
+     */
+    public static final int PRECISION = 14;
+    
+    /**
+     * Longest date range of one count, in days.
+     */
+    public static final int MAX_RANGE_DAYS = 366;
+    
+    /**
+     * Library ID of the row whose date records how far the seed from the loan history got.
+     * Identity IDs start at 1, so no library has it.
+     */
+    public static final long SEED_MARKER_LIBRARY_ID = 0L;
+    
+    // Distinct borrowers of one day per library, from both loan tables
+    private static final String DAY_BORROWERS_SQL =
+        "SELECT library_id, borrower_id FROM book_loans WHERE loan_date = ?1 " +
+        "UNION SELECT library_id, borrower_id FROM book_loans_archive WHERE loan_date = ?1";
+    
+    public BorrowerSketchService() {
+        super(BorrowerSketch.class);
+    }
+    
+    /**
+     * Merge borrowers into the stored sketch of a library and day, in its own transaction.
+     * Merging is idempotent, so merging the same borrowers again after a failure is harmless.
+     * @param day the loan date
+     * @param libraryId the library ID
+     * @param sketch the borrowers to add
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void merge(LocalDate day, Long libraryId, HyperLogLog sketch) {
+        LOG.log(Level.FINE, "Merging borrower sketch of library {0} on {1}", new Object[]{libraryId, day});
+        List<BorrowerSketch> stored = em.createNamedQuery("BorrowerSketch.findByDateAndLibrary", BorrowerSketch.class)
+            .setParameter("statDate", day)
+            .setParameter("libraryId", libraryId)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .getResultList();
+        if (stored.isEmpty()) {
+            em.persist(new BorrowerSketch(day, libraryId, sketch.toBytes()));
+        } else {
+            HyperLogLog merged = HyperLogLog.fromBytes(stored.get(0).getSketch());
+            merged.merge(sketch);
+            stored.get(0).setSketch(merged.toBytes());
+        }
+    }
+    
+    /**
+     * Find the last day seeded from the loan history.
+     * @return the day, or null if seeding never finished a day
+     */
+    public LocalDate findSeededThrough() {
+        LOG.log(Level.INFO, "Finding last seeded borrower sketch day");
+        List<LocalDate> days = em.createQuery(
+            "SELECT s.statDate FROM BorrowerSketch s WHERE s.libraryId = :libraryId", LocalDate.class)
+            .setParameter("libraryId", SEED_MARKER_LIBRARY_ID)
+            .getResultList();
+        return days.isEmpty() ? null : days.get(0);
+    }
+    
+    /**
+     * Record the last day whose sketches have been seeded, in its own transaction.
+     * Moving it back makes the next seed read the later days again.
+     * @param day the loan date
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void markSeeded(LocalDate day) {
+        LOG.log(Level.FINE, "Marking borrower sketches seeded through {0}", day);
+        List<BorrowerSketch> marker = em.createQuery(
+            "SELECT s FROM BorrowerSketch s WHERE s.libraryId = :libraryId", BorrowerSketch.class)
+            .setParameter("libraryId", SEED_MARKER_LIBRARY_ID)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .getResultList();
+        if (marker.isEmpty()) {
+            em.persist(new BorrowerSketch(day, SEED_MARKER_LIBRARY_ID, new HyperLogLog(PRECISION).toBytes()));
+        } else {
+            marker.get(0).setStatDate(day);
+        }
+    }
+    
+    /**
+     * Find the distinct borrowers of one day per library, for seeding the sketches.
+     * @param day the loan date
+     * @return rows of library ID and borrower ID
+     */
+    public List<Object[]> findBorrowers(LocalDate day) {
+        LOG.log(Level.FINE, "Finding borrowers of {0}", day);
+        List<Object[]> rows = new ArrayList<>();
+        for (Object row : em.createNativeQuery(DAY_BORROWERS_SQL)
+                .setParameter(1, day)
+                .getResultList()) {
+            rows.add((Object[]) row);
+        }
+        return rows;
+    }
+    
+    /**
+     * Estimate the distinct borrowers of each period of a date range by merging
+     * the stored day sketches, folded down to the precision the error allows.
+     * Loans of the last minute may not be stored yet.
+     * @param libraryId the library ID, or null for all libraries together
+     * @param from first day of the range
+     * @param to last day of the range
+     * @param period length of the periods the range is split into
+     * @param error wanted relative standard error, such as 0.02 for 2%
+     * @return one count per period, oldest first, including periods without loans
+     * @throws IllegalArgumentException if the range or error is invalid
+     */
+    public List<DistinctBorrowers> distinctBorrowers(Long libraryId, LocalDate from, LocalDate to,
+                                                     DistinctBorrowers.Period period, double error) {
+        LOG.log(Level.INFO, "Estimating distinct borrowers of library {0} from {1} to {2} by {3}",
+                new Object[]{libraryId, from, to, period});
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("from and to must be at most " + MAX_RANGE_DAYS + " days apart");
+        }
+        int precision = HyperLogLog.precisionFor(error, PRECISION);
+        
+        TypedQuery<BorrowerSketch> query = em.createQuery(
+            "SELECT s FROM BorrowerSketch s WHERE s.statDate BETWEEN :from AND :to" +
+            (libraryId == null ? " AND s.libraryId <> :libraryId" : " AND s.libraryId = :libraryId"),
+            BorrowerSketch.class)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .setParameter("libraryId", libraryId == null ? SEED_MARKER_LIBRARY_ID : libraryId)
+            .setHint(QueryHints.READ_ONLY, HintValues.TRUE);
+        Map<LocalDate, HyperLogLog> periods = new HashMap<>();
+        for (BorrowerSketch stored : query.getResultList()) {
+            periods.computeIfAbsent(period.start(stored.getStatDate(), from), start -> new HyperLogLog(precision))
+                .merge(HyperLogLog.fromBytes(stored.getSketch()));
+        }
+        
+        List<DistinctBorrowers> counts = new ArrayList<>();
+        for (LocalDate start = period.start(from, from); !start.isAfter(to); start = period.next(start)) {
+            HyperLogLog sketch = periods.get(start);
+            LocalDate end = period.next(start).minusDays(1);
+            counts.add(new DistinctBorrowers(start.isBefore(from) ? from : start, end.isAfter(to) ? to : end,
+                    sketch == null ? 0 : sketch.estimate(), HyperLogLog.standardError(precision)));
+        }
+        return counts;
+    }
+}
\ No newline at end of file
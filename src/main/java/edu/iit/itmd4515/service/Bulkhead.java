@@ -0,0 +1,129 @@
+package edu.iit.itmd4515.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded entry into an executor for one class of traffic.
+ * At most maxConcurrent tasks run and at most maxQueued wait; anything beyond
+ * that is rejected immediately instead of queueing behind a spike, so one
+ * class of traffic cannot take threads or queue slots from another.
+ */
+public class Bulkhead {
+    
+    private final String name;
+    
+    private final Executor executor;
+    
+    private final int maxConcurrent;
+    
+    private final int maxQueued;
+    
+    private final Semaphore running;
+    
+    private final Semaphore admitted;
+    
+    private final AtomicInteger queued = new AtomicInteger();
+    
+    private final AtomicInteger active = new AtomicInteger();
+    
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    
+    private final LongAdder completed = new LongAdder();
+    
+    private final LongAdder failed = new LongAdder();
+    
+    private final LongAdder rejected = new LongAdder();
+    
+    private final LongAdder queueNanos = new LongAdder();
+    
+    /**
+     * Create a bulkhead.
+     * @param name the pool name reported in metrics
+     * @param executor the executor running the tasks, or null to run them on the caller
+     * @param maxConcurrent maximum number of tasks running at once
+     * @param maxQueued maximum number of tasks waiting to run
+     */
+    public Bulkhead(String name, Executor executor, int maxConcurrent, int maxQueued) {
+        if (maxConcurrent < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("Invalid bulkhead size for " + name);
+        }
+        this.name = name;
+        this.executor = executor;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.running = new Semaphore(maxConcurrent);
+        this.admitted = new Semaphore(maxConcurrent + maxQueued);
+    }
+    
+    /**
+     * Run a task inside the bulkhead.
+     * @param task the task
+     * @param <T> the result type
+     * @return the task's result; completes exceptionally with
+     *         {@link RejectedExecutionException} if the bulkhead is full
+     */
+    public <T> CompletionStage<T> submit(Supplier<T> task) {
+        if (!admitted.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                new RejectedExecutionException("Bulkhead " + name + " is full"));
+        }
+        peakQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+        long enqueuedAt = System.nanoTime();
+        Supplier<T> guarded = () -> {
+            running.acquireUninterruptibly();
+            queued.decrementAndGet();
+            queueNanos.add(System.nanoTime() - enqueuedAt);
+            active.incrementAndGet();
+            try {
+                T result = task.get();
+                completed.increment();
+                return result;
+            } catch (RuntimeException e) {
+                failed.increment();
+                throw e;
+            } finally {
+                active.decrementAndGet();
+                running.release();
+                admitted.release();
+            }
+        };
+        if (executor == null) {
+            try {
+                return CompletableFuture.completedFuture(guarded.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        try {
+            return CompletableFuture.supplyAsync(guarded, executor);
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            admitted.release();
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Take a snapshot of the bulkhead's gauges and counters.
+     * @return the current statistics
+     */
+    public BulkheadStats getStats() {
+        long done = completed.sum() + failed.sum();
+        return new BulkheadStats(name, maxConcurrent, maxQueued, active.get(), queued.get(), peakQueued.get(),
+                completed.sum(), failed.sum(), rejected.sum(),
+                done == 0 ? 0.0 : queueNanos.sum() / 1_000_000.0 / done);
+    }
+    
+    public String getName() {
+        return name;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package edu.iit.itmd4515.service;
+
+/**
+ * Point-in-time metrics of one {@link Bulkhead}.
+ */
+public class BulkheadStats {
+    
+    private String name;
+    
+    private int maxConcurrent;
+    
+    private int maxQueued;
+    
+    private int active;
+    
+    private int queueDepth;
+    
+    private int peakQueueDepth;
+    
+    private long completed;
+    
+    private long failed;
+    
+    private long rejected;
+    
+    private double averageQueueMillis;
+    
+    public BulkheadStats() {
+    }
+    
+    public BulkheadStats(String name, int maxConcurrent, int maxQueued, int active, int queueDepth,
+                         int peakQueueDepth, long completed, long failed, long rejected, double averageQueueMillis) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.active = active;
+        this.queueDepth = queueDepth;
+        this.peakQueueDepth = peakQueueDepth;
+        this.completed = completed;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.averageQueueMillis = averageQueueMillis;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+    
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+    
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+    
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+    
+    public int getActive() {
+        return active;
+    }
+    
+    public void setActive(int active) {
+        this.active = active;
+    }
+    
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+    
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+    
+    public int getPeakQueueDepth() {
+        return peakQueueDepth;
+    }
+    
+    public void setPeakQueueDepth(int peakQueueDepth) {
+        this.peakQueueDepth = peakQueueDepth;
+    }
+    
+    public long getCompleted() {
+        return completed;
+    }
+    
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+    
+    public long getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+    
+    public long getRejected() {
+        return rejected;
+    }
+    
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+    
+    public double getAverageQueueMillis() {
+        return averageQueueMillis;
+    }
+    
+    public void setAverageQueueMillis(double averageQueueMillis) {
+        this.averageQueueMillis = averageQueueMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "BulkheadStats{" +
+                "name='" + name + '\'' +
+                ", active=" + active +
+                ", queueDepth=" + queueDepth +
+                ", rejected=" + rejected +
+                '}';
+    }
+}
\ No newline at end of file
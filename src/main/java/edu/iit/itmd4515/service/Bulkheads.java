@@ -0,0 +1,88 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup Singleton EJB owning the bulkheads of the asynchronous REST endpoints.
+ * Reporting and desk traffic run on separate managed executors (see
+ * ConcurrencyConfig), each behind its own {@link Bulkhead}, so a burst of
+ * reports fills only the reporting queue and never delays a checkout.
+ * Sizes are read from system properties such as
+ * {@code itmd4515.bulkhead.reporting.maxConcurrent}.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class Bulkheads {
+    
+    private static final Logger LOG = Logger.getLogger(Bulkheads.class.getName());
+    
+    /**
+     * Prefix of the system properties sizing the bulkheads.
+     */
+    public static final String PROPERTY_PREFIX = "itmd4515.bulkhead.";
+    
+    public static final String REPORTING = "reporting";
+    
+    public static final String DESK = "desk";
+    
+    @Resource(lookup = "java:app/concurrent/ReportingExecutor")
+    public ManagedExecutorService reportingExecutor;
+    
+    @Resource(lookup = "java:app/concurrent/DeskExecutor")
+    public ManagedExecutorService deskExecutor;
+    
+    private Bulkhead reporting;
+    
+    private Bulkhead desk;
+    
+    /**
+     * Create the bulkheads; maxConcurrent should not exceed the executor's maxAsync.
+     */
+    @PostConstruct
+    public void init() {
+        reporting = create(REPORTING, reportingExecutor, 4, 32);
+        desk = create(DESK, deskExecutor, 16, 256);
+    }
+    
+    /**
+     * Get the bulkhead for long-running report and listing endpoints.
+     * @return the reporting bulkhead
+     */
+    public Bulkhead reporting() {
+        return reporting;
+    }
+    
+    /**
+     * Get the bulkhead for latency-sensitive circulation desk endpoints.
+     * @return the desk bulkhead
+     */
+    public Bulkhead desk() {
+        return desk;
+    }
+    
+    /**
+     * Get the current metrics of every bulkhead.
+     * @return one entry per bulkhead
+     */
+    public List<BulkheadStats> getStats() {
+        LOG.log(Level.INFO, "Getting bulkhead statistics");
+        return List.of(reporting.getStats(), desk.getStats());
+    }
+    
+    private static Bulkhead create(String name, ManagedExecutorService executor, int maxConcurrent, int maxQueued) {
+        int concurrent = Integer.getInteger(PROPERTY_PREFIX + name + ".maxConcurrent", maxConcurrent);
+        int queued = Integer.getInteger(PROPERTY_PREFIX + name + ".maxQueued", maxQueued);
+        LOG.log(Level.INFO, "Bulkhead {0}: {1} concurrent, {2} queued", new Object[]{name, concurrent, queued});
+        return new Bulkhead(name, executor, concurrent, queued);
+    }
+}
\ No newline at end of file
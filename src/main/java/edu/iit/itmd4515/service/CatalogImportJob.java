@@ -0,0 +1,221 @@
+package edu.iit.itmd4515.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress and rejected-rows report of one bulk catalog import.
+ * Counters are updated by the import workers and read by progress polls,
+ * so all accessors are synchronized.
+ */
+public class CatalogImportJob {
+    
+    /**
+     * Maximum number of rejected rows kept for the report.
+     */
+    public static final int MAX_REJECTIONS_REPORTED = 10000;
+    
+    /**
+     * State of the import.
+     */
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+    
+    /**
+     * One row that was not imported and why.
+     */
+    public static class Rejection {
+        
+        private final long record;
+        
+        private final String isbn;
+        
+        private final List<String> reasons;
+        
+        public Rejection(long record, String isbn, List<String> reasons) {
+            this.record = record;
+            this.isbn = isbn;
+            this.reasons = reasons;
+        }
+        
+        /**
+         * Get the position of the row in the file, starting at 1.
+         * @return the record number
+         */
+        public long getRecord() {
+            return record;
+        }
+        
+        public String getIsbn() {
+            return isbn;
+        }
+        
+        public List<String> getReasons() {
+            return reasons;
+        }
+    }
+    
+    private final String jobId;
+    
+    private final String format;
+    
+    private final LocalDateTime startedAt;
+    
+    private LocalDateTime finishedAt;
+    
+    private Status status = Status.RUNNING;
+    
+    private long read;
+    
+    private long imported;
+    
+    private long invalid;
+    
+    private long duplicates;
+    
+    private long existing;
+    
+    private long chunks;
+    
+    private final List<Rejection> rejections = new ArrayList<>();
+    
+    private String error;
+    
+    public CatalogImportJob(String jobId, String format) {
+        this.jobId = jobId;
+        this.format = format;
+        this.startedAt = LocalDateTime.now();
+    }
+    
+    // Business methods
+    
+    /**
+     * Record that the reader has handed a chunk of records to the workers.
+     * @param records number of records in the chunk
+     */
+    public synchronized void recordRead(int records) {
+        read += records;
+    }
+    
+    /**
+     * Record the outcome of one written chunk.
+     * @param inserted number of books inserted
+     * @param invalidRows rows failing conversion, validation or the insert
+     * @param duplicateRows rows whose ISBN appeared earlier in the file
+     * @param existingRows rows whose ISBN is already in the catalog
+     */
+    public synchronized void recordChunk(int inserted, List<Rejection> invalidRows,
+                                         List<Rejection> duplicateRows, List<Rejection> existingRows) {
+        chunks++;
+        imported += inserted;
+        invalid += invalidRows.size();
+        duplicates += duplicateRows.size();
+        existing += existingRows.size();
+        addRejections(invalidRows);
+        addRejections(duplicateRows);
+        addRejections(existingRows);
+    }
+    
+    public synchronized void complete() {
+        status = Status.COMPLETED;
+        finishedAt = LocalDateTime.now();
+    }
+    
+    public synchronized void fail(String error) {
+        status = Status.FAILED;
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Get the throughput so far.
+     * @return records read per second
+     */
+    public synchronized double getRecordsPerSecond() {
+        long millis = Duration.between(startedAt, finishedAt == null ? LocalDateTime.now() : finishedAt).toMillis();
+        return millis == 0 ? read : read * 1000.0 / millis;
+    }
+    
+    private void addRejections(List<Rejection> rows) {
+        for (Rejection row : rows) {
+            if (rejections.size() >= MAX_REJECTIONS_REPORTED) {
+                return;
+            }
+            rejections.add(row);
+        }
+    }
+    
+    // Getters
+    
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public String getFormat() {
+        return format;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public synchronized LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public synchronized Status getStatus() {
+        return status;
+    }
+    
+    public synchronized long getRead() {
+        return read;
+    }
+    
+    public synchronized long getImported() {
+        return imported;
+    }
+    
+    public synchronized long getInvalid() {
+        return invalid;
+    }
+    
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+    
+    public synchronized long getExisting() {
+        return existing;
+    }
+    
+    public synchronized long getChunks() {
+        return chunks;
+    }
+    
+    /**
+     * Get the rejected rows in the order their chunks finished, capped at {@link #MAX_REJECTIONS_REPORTED}.
+     * @return rejected rows
+     */
+    public synchronized List<Rejection> getRejections() {
+        return new ArrayList<>(rejections);
+    }
+    
+    public synchronized String getError() {
+        return error;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "CatalogImportJob{" +
+                "jobId='" + jobId + '\'' +
+                ", status=" + status +
+                ", read=" + read +
+                ", imported=" + imported +
+                ", rejected=" + (invalid + duplicates + existing) +
+                '}';
+    }
+}
\ No newline at end of file
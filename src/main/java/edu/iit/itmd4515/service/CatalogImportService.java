@@ -0,0 +1,379 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.domain.ChangeLogEntry;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+
+/**
+ * Singleton EJB importing whole catalogs from CSV or MARC files.
+ * The file is parsed as a stream on the calling thread and cut into chunks.
+ * ISBNs repeated in the file are spotted by the reader, so the first row with
+ * an ISBN always wins however the chunks are scheduled. Each chunk is
+ * converted and validated with the shared {@link Validator} by a worker on the
+ * import executor, then inserted with one JDBC batch in its own local transaction. At most two chunks per worker
+ * are in flight; when they are all taken the reader waits, which slows the
+ * upload down to the speed of the database instead of buffering the file.
+ * Books go straight to the books table because IDENTITY keys keep
+ * EclipseLink from batching inserts.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class CatalogImportService {
+    
+    private static final Logger LOG = Logger.getLogger(CatalogImportService.class.getName());
+    
+    /**
+     * Number of records validated and inserted per batch.
+     */
+    public static final int CHUNK_SIZE = 1000;
+    
+    /**
+     * Number of finished jobs kept for progress queries.
+     */
+    public static final int MAX_FINISHED_JOBS = 50;
+    
+    /**
+     * System property setting the number of import workers.
+     */
+    public static final String WORKERS_PROPERTY = "itmd4515.import.workers";
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO books (title, author, isbn, publication_date, page_count, price, is_available, withdrawn, " +
+        "version, last_modified) VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?)";
+    
+    @Resource(lookup = "java:app/jdbc/itmd4515DS")
+    public DataSource dataSource;
+    
+    @Resource
+    public Validator validator;
+    
+    @Resource(lookup = "java:app/concurrent/ImportExecutor")
+    public ManagedExecutorService executor;
+    
+    private final Map<String, CatalogImportJob> jobs = new ConcurrentHashMap<>();
+    
+    /**
+     * Import a catalog file. Invalid rows, rows repeating an ISBN of an earlier
+     * row in the file and ISBNs already in the catalog are rejected and
+     * reported; the other rows are imported.
+     * A failed chunk stops the import; chunks written before it stay committed.
+     * @param jobId the job ID to report progress under, or null to generate one
+     * @param format csv or marc
+     * @param in the file contents
+     * @return the finished job
+     * @throws IllegalArgumentException if the format is unknown, the CSV header is unusable or the job ID is taken
+     * @throws IOException if the CSV header cannot be read
+     */
+    public CatalogImportJob importCatalog(String jobId, String format, InputStream in) throws IOException {
+        String normalized = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        CatalogReader reader = CatalogReader.open(normalized, in);
+        CatalogImportJob job = new CatalogImportJob(jobId == null || jobId.isBlank() ? UUID.randomUUID().toString() : jobId,
+                normalized);
+        if (jobs.putIfAbsent(job.getJobId(), job) != null) {
+            throw new IllegalArgumentException("Catalog import job already exists: " + job.getJobId());
+        }
+        LOG.log(Level.INFO, "Starting catalog import {0} from {1}", new Object[]{job.getJobId(), normalized});
+        
+        int workers = Math.max(1, Integer.getInteger(WORKERS_PROPERTY, 4));
+        Semaphore permits = new Semaphore(workers * 2);
+        Set<String> seen = new HashSet<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        try {
+            try {
+                List<CatalogRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+                Set<Long> repeated = new HashSet<>();
+                CatalogRecord record;
+                while (failure.get() == null && (record = reader.next()) != null) {
+                    chunk.add(record);
+                    String isbn = record.getNormalizedIsbn();
+                    if (isbn != null && !isbn.isEmpty() && !seen.add(isbn)) {
+                        repeated.add(record.getNumber());
+                    }
+                    if (chunk.size() == CHUNK_SIZE) {
+                        submit(job, chunk, repeated, permits, failure);
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                        repeated = new HashSet<>();
+                    }
+                }
+                if (!chunk.isEmpty() && failure.get() == null) {
+                    submit(job, chunk, repeated, permits, failure);
+                }
+            } finally {
+                // Holding every permit means every submitted chunk has finished
+                acquire(permits, workers * 2);
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            job.complete();
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.SEVERE, "Catalog import " + job.getJobId() + " failed", e);
+            job.fail(e.getMessage());
+        } finally {
+            evictFinishedJobs();
+        }
+        LOG.log(Level.INFO, "Catalog import {0} finished: {1} read, {2} imported ({3} records/s)",
+                new Object[]{job.getJobId(), job.getRead(), job.getImported(), Math.round(job.getRecordsPerSecond())});
+        return job;
+    }
+    
+    /**
+     * Get the progress of a running or recently finished import.
+     * @param jobId the job ID
+     * @return the job, or null if unknown
+     */
+    public CatalogImportJob findJob(String jobId) {
+        LOG.log(Level.INFO, "Finding catalog import job: {0}", jobId);
+        return jobs.get(jobId);
+    }
+    
+    /**
+     * Hand a chunk to a worker, waiting for a free slot first.
+     * Runs the chunk on the calling thread when no executor is available.
+     * @param repeated numbers of the chunk's records whose ISBN appeared earlier in the file
+     */
+    private void submit(CatalogImportJob job, List<CatalogRecord> chunk, Set<Long> repeated,
+                        Semaphore permits, AtomicReference<RuntimeException> failure) {
+        acquire(permits, 1);
+        job.recordRead(chunk.size());
+        Runnable task = () -> {
+            try {
+                writeChunk(job, chunk, repeated);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                permits.release();
+            }
+        };
+        if (executor == null) {
+            task.run();
+            return;
+        }
+        try {
+            executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    private void writeChunk(CatalogImportJob job, List<CatalogRecord> chunk, Set<Long> repeated) {
+        List<CatalogImportJob.Rejection> invalid = new ArrayList<>();
+        List<CatalogImportJob.Rejection> duplicates = new ArrayList<>();
+        List<CatalogImportJob.Rejection> existing = new ArrayList<>();
+        List<CatalogRecord> records = new ArrayList<>(chunk.size());
+        List<Book> books = new ArrayList<>(chunk.size());
+        for (CatalogRecord record : chunk) {
+            Book book;
+            try {
+                book = record.toBook();
+            } catch (IllegalArgumentException e) {
+                invalid.add(new CatalogImportJob.Rejection(record.getNumber(), record.getIsbn(), List.of(e.getMessage())));
+                continue;
+            }
+            Set<ConstraintViolation<Book>> violations = validator.validate(book);
+            if (!violations.isEmpty()) {
+                List<String> reasons = violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.toList());
+                invalid.add(new CatalogImportJob.Rejection(record.getNumber(), book.getIsbn(), reasons));
+                continue;
+            }
+            if (repeated.contains(record.getNumber())) {
+                duplicates.add(new CatalogImportJob.Rejection(record.getNumber(), book.getIsbn(),
+                        List.of("Duplicate ISBN in file")));
+                continue;
+            }
+            records.add(record);
+            books.add(book);
+        }
+        
+        int inserted = 0;
+        if (!books.isEmpty()) {
+            try (Connection connection = dataSource.getConnection()) {
+                Set<String> found = findExistingIsbns(connection, books);
+                List<CatalogRecord> newRecords = new ArrayList<>(books.size());
+                List<Book> newBooks = new ArrayList<>(books.size());
+                for (int i = 0; i < books.size(); i++) {
+                    Book book = books.get(i);
+                    if (found.contains(book.getIsbn())) {
+                        existing.add(new CatalogImportJob.Rejection(records.get(i).getNumber(), book.getIsbn(),
+                                List.of("ISBN already in catalog")));
+                    } else {
+                        newRecords.add(records.get(i));
+                        newBooks.add(book);
+                    }
+                }
+                inserted = insert(connection, newRecords, newBooks, invalid);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Error writing catalog import chunk: " + e.getMessage(), e);
+            }
+        }
+        job.recordChunk(inserted, invalid, duplicates, existing);
+    }
+    
+    private Set<String> findExistingIsbns(Connection connection, List<Book> books) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(books.size(), "?"));
+        Set<String> found = new HashSet<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT isbn FROM books WHERE isbn IN (" + placeholders + ")")) {
+            for (int i = 0; i < books.size(); i++) {
+                select.setString(i + 1, books.get(i).getIsbn());
+            }
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    found.add(rs.getString(1));
+                }
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Insert the books as one JDBC batch in one transaction, together with their
+     * change log entries. If the batch fails, for example because another session
+     * added one of the ISBNs meanwhile, it is rolled back and the books are
+     * inserted one per transaction so only the bad rows are rejected.
+     * @return the number of books inserted
+     */
+    private int insert(Connection connection, List<CatalogRecord> records, List<Book> books,
+                       List<CatalogImportJob.Rejection> invalid) throws SQLException {
+        if (books.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        boolean autoCommit = connection.getAutoCommit();
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            connection.setAutoCommit(false);
+            try {
+                for (Book book : books) {
+                    bind(insert, book, now);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                recordInserted(connection, books);
+                connection.commit();
+                return books.size();
+            } catch (BatchUpdateException e) {
+                connection.rollback();
+                LOG.log(Level.WARNING, "Catalog import batch failed, retrying row by row: {0}", e.getMessage());
+            }
+            int inserted = 0;
+            for (int i = 0; i < books.size(); i++) {
+                try {
+                    bind(insert, books.get(i), now);
+                    insert.executeUpdate();
+                    recordInserted(connection, books.subList(i, i + 1));
+                    connection.commit();
+                    inserted++;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    invalid.add(new CatalogImportJob.Rejection(records.get(i).getNumber(), books.get(i).getIsbn(),
+                            List.of(e.getMessage())));
+                }
+            }
+            return inserted;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+    
+    /**
+     * Record the inserted books in the change log, in the inserting transaction.
+     */
+    private void recordInserted(Connection connection, List<Book> books) throws SQLException {
+        String sql = ChangeLogService.recordSql(Book.class.getSimpleName(), ChangeLogEntry.Operation.INSERT,
+                "SELECT id FROM books WHERE isbn IN (" + String.join(", ", Collections.nCopies(books.size(), "?")) + ")");
+        try (PreparedStatement record = connection.prepareStatement(sql)) {
+            for (int i = 0; i < books.size(); i++) {
+                record.setString(i + 1, books.get(i).getIsbn());
+            }
+            record.executeUpdate();
+        }
+    }
+    
+    private void bind(PreparedStatement insert, Book book, LocalDateTime now) throws SQLException {
+        insert.setString(1, book.getTitle());
+        insert.setString(2, book.getAuthor());
+        insert.setString(3, book.getIsbn());
+        if (book.getPublicationDate() != null) {
+            insert.setObject(4, book.getPublicationDate());
+        } else {
+            insert.setNull(4, Types.DATE);
+        }
+        if (book.getPageCount() != null) {
+            insert.setInt(5, book.getPageCount());
+        } else {
+            insert.setNull(5, Types.INTEGER);
+        }
+        if (book.getPrice() != null) {
+            insert.setDouble(6, book.getPrice());
+        } else {
+            insert.setNull(6, Types.DOUBLE);
+        }
+        insert.setBoolean(7, book.getIsAvailable());
+        // EclipseLink starts numeric versions at 1
+        insert.setLong(8, 1L);
+        insert.setObject(9, now);
+    }
+    
+    private void acquire(Semaphore permits, int count) {
+        try {
+            permits.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing catalog", e);
+        }
+    }
+    
+    private void evictFinishedJobs() {
+        List<CatalogImportJob> finished = new ArrayList<>();
+        for (CatalogImportJob job : jobs.values()) {
+            if (job.getStatus() != CatalogImportJob.Status.RUNNING) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() > MAX_FINISHED_JOBS) {
+            finished.sort((a, b) -> a.getFinishedAt().compareTo(b.getFinishedAt()));
+            for (CatalogImportJob job : finished.subList(0, finished.size() - MAX_FINISHED_JOBS)) {
+                jobs.remove(job.getJobId());
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package edu.iit.itmd4515.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader of catalog records from an import file.
+ * Implementations hold at most one record in memory at a time.
+ */
+public interface CatalogReader {
+    
+    /**
+     * Read the next record.
+     * @return the record, or null at the end of the file
+     * @throws IOException if the file cannot be read or is malformed beyond recovery
+     */
+    CatalogRecord next() throws IOException;
+    
+    /**
+     * Open a reader for a file format.
+     * @param format csv (UTF-8 text) or marc, lowercase
+     * @param in the file contents
+     * @return the reader
+     * @throws IOException if the CSV header cannot be read
+     * @throws IllegalArgumentException if the format is unknown or the CSV header is unusable
+     */
+    static CatalogReader open(String format, InputStream in) throws IOException {
+        switch (format) {
+            case "csv":
+                return new CsvCatalogReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            case "marc":
+                return new MarcCatalogReader(in);
+            default:
+                throw new IllegalArgumentException("Invalid format: " + format + ", expected csv or marc");
+        }
+    }
+}
\ No newline at end of file
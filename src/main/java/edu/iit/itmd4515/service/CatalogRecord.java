@@ -0,0 +1,119 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.Book;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * One title read from an import file, with its values still as text.
+ * Conversion to a {@link Book} is left to the import workers so that it runs
+ * in parallel with validation rather than on the reading thread.
+ */
+public class CatalogRecord {
+    
+    private final long number;
+    private final String title;
+    private final String author;
+    private final String isbn;
+    private final String publicationDate;
+    private final String pageCount;
+    private final String price;
+    
+    public CatalogRecord(long number, String title, String author, String isbn,
+                         String publicationDate, String pageCount, String price) {
+        this.number = number;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.publicationDate = publicationDate;
+        this.pageCount = pageCount;
+        this.price = price;
+    }
+    
+    // Business methods
+    
+    /**
+     * Convert to an available book. Hyphens and spaces in the ISBN are dropped,
+     * a bare year is taken as January 1st and a leading currency sign on the price is ignored.
+     * @return the unvalidated book
+     * @throws IllegalArgumentException if a date or number cannot be parsed
+     */
+    public Book toBook() {
+        Book book = new Book(trim(title), trim(author), getNormalizedIsbn());
+        book.setIsAvailable(true);
+        String date = trim(publicationDate);
+        if (date != null) {
+            try {
+                book.setPublicationDate(date.length() == 4 ? LocalDate.of(Integer.parseInt(date), 1, 1) : LocalDate.parse(date));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid publicationDate: " + date);
+            }
+        }
+        String pages = trim(pageCount);
+        if (pages != null) {
+            try {
+                book.setPageCount(Integer.valueOf(pages));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid pageCount: " + pages);
+            }
+        }
+        String amount = trim(price);
+        if (amount != null) {
+            try {
+                book.setPrice(Double.valueOf(amount.replaceFirst("^[^0-9.]+", "")));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid price: " + amount);
+            }
+        }
+        return book;
+    }
+    
+    private static String trim(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+    
+    // Getters
+    
+    /**
+     * Get the position of the record in the file, starting at 1.
+     * @return the record number
+     */
+    public long getNumber() {
+        return number;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public String getAuthor() {
+        return author;
+    }
+    
+    public String getIsbn() {
+        return isbn;
+    }
+    
+    /**
+     * @return the ISBN without hyphens and spaces, or null if the record has none
+     */
+    public String getNormalizedIsbn() {
+        return isbn == null ? null : isbn.replace("-", "").replace(" ", "");
+    }
+    
+    public String getPublicationDate() {
+        return publicationDate;
+    }
+    
+    public String getPageCount() {
+        return pageCount;
+    }
+    
+    public String getPrice() {
+        return price;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.ChangeLogEntry;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the change feed.
+ * Changes are in sequence order; {@code next} is the token to pass as
+ * {@code since} on the following request.
+ */
+public class ChangeFeedPage {
+    
+    private List<ChangeLogEntry> changes = new ArrayList<>();
+    
+    private long next;
+    
+    private boolean hasMore;
+    
+    public ChangeFeedPage() {
+    }
+    
+    public ChangeFeedPage(List<ChangeLogEntry> changes, long next, boolean hasMore) {
+        this.changes = changes;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+    
+    public List<ChangeLogEntry> getChanges() {
+        return changes;
+    }
+    
+    public void setChanges(List<ChangeLogEntry> changes) {
+        this.changes = changes;
+    }
+    
+    public long getNext() {
+        return next;
+    }
+    
+    public void setNext(long next) {
+        this.next = next;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,182 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.ChangeLogEntry;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stateless EJB service for the change_log outbox behind the change feed.
+ * Writers add entries in their own transaction without a sequence number.
+ * ChangeSequencer later numbers the committed entries in ID order, so a
+ * transaction that commits late still gets a sequence number above everything
+ * a client has already read, and a client resuming from a token never skips a change.
+ */
+@Stateless
+public class ChangeLogService extends AbstractService<ChangeLogEntry> {
+    
+    private static final Logger LOG = Logger.getLogger(ChangeLogService.class.getName());
+    
+    /**
+     * Maximum number of entries numbered in one transaction.
+     */
+    public static final int SEQUENCE_BATCH_SIZE = 10000;
+    
+    /**
+     * Maximum number of entries purged in one transaction.
+     */
+    public static final int PURGE_BATCH_SIZE = 10000;
+    
+    // Plain reads take no locks, so writers keep inserting while entries are numbered or purged
+    private static final String UNNUMBERED_SQL =
+        "SELECT id FROM change_log WHERE seq IS NULL ORDER BY id LIMIT ?1";
+    
+    // The newest entry is always kept so the oldest readable token stays known
+    private static final String EXPIRED_SQL =
+        "SELECT id FROM change_log WHERE seq < ?1 AND changed_at < CURRENT_TIMESTAMP - INTERVAL ?2 DAY " +
+        "ORDER BY seq LIMIT ?3";
+    
+    public ChangeLogService() {
+        super(ChangeLogEntry.class);
+    }
+    
+    /**
+     * Build a native INSERT recording one change per ID returned by a query.
+     * @param entityType the entity name recorded
+     * @param operation the operation recorded
+     * @param idQuery native SELECT returning the changed IDs in a column named id
+     * @return the INSERT ... SELECT statement, taking the parameters of the ID query
+     */
+    public static String recordSql(String entityType, ChangeLogEntry.Operation operation, String idQuery) {
+        return "INSERT INTO change_log (entity_type, entity_id, operation, changed_at) SELECT '" + entityType +
+            "', changed.id, '" + operation.name() + "', CURRENT_TIMESTAMP FROM (" + idQuery + ") changed";
+    }
+    
+    /**
+     * Number the oldest committed entries that have no sequence number yet.
+     * The entries are found with a plain read and then updated by primary key,
+     * so only their own rows are locked and concurrent inserts never wait.
+     * Callers number one batch at a time, as ChangeSequencer does.
+     * @return number of entries numbered
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int assignSequence() {
+        LOG.log(Level.FINE, "Assigning change log sequence numbers");
+        List<Long> ids = findIds(em.createNativeQuery(UNNUMBERED_SQL)
+            .setParameter(1, SEQUENCE_BATCH_SIZE));
+        long next = findLastSequence();
+        int numbered = 0;
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size()));
+            StringBuilder sql = new StringBuilder("UPDATE change_log SET seq = CASE id");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(" WHEN ? THEN ?");
+            }
+            sql.append(" END WHERE seq IS NULL AND id IN (")
+                .append(String.join(", ", Collections.nCopies(chunk.size(), "?"))).append(")");
+            Query update = em.createNativeQuery(sql.toString());
+            int p = 1;
+            for (Long id : chunk) {
+                update.setParameter(p++, id);
+                update.setParameter(p++, ++next);
+            }
+            for (Long id : chunk) {
+                update.setParameter(p++, id);
+            }
+            numbered += update.executeUpdate();
+        }
+        return numbered;
+    }
+    
+    /**
+     * Find the highest assigned sequence number, which is the token of the current state.
+     * @return the sequence number, or 0 if nothing has been numbered
+     */
+    public long findLastSequence() {
+        LOG.log(Level.FINE, "Finding last change log sequence number");
+        return em.createQuery("SELECT COALESCE(MAX(c.seq), 0) FROM ChangeLogEntry c", Long.class)
+            .getSingleResult();
+    }
+    
+    /**
+     * Find the changes after a token.
+     * @param since the token of the last change the client has seen, 0 for the start
+     * @param limit maximum number of changes to return
+     * @param types entity names to include, or null for all
+     * @return the changes in sequence order and the token to continue from
+     * @throws ChangeTokenExpiredException if changes after the token have been purged
+     */
+    public ChangeFeedPage findSince(long since, int limit, Collection<String> types) {
+        LOG.log(Level.INFO, "Finding {0} changes since: {1}", new Object[]{limit, since});
+        Long first = em.createQuery("SELECT MIN(c.seq) FROM ChangeLogEntry c", Long.class).getSingleResult();
+        if (first != null && since < first - 1) {
+            throw new ChangeTokenExpiredException("Change token has expired: " + since);
+        }
+        // Read before the changes, so the page never claims changes it did not look at
+        long last = findLastSequence();
+        
+        TypedQuery<ChangeLogEntry> query;
+        if (types == null || types.isEmpty()) {
+            query = em.createNamedQuery("ChangeLogEntry.findSince", ChangeLogEntry.class);
+        } else {
+            query = em.createNamedQuery("ChangeLogEntry.findSinceByTypes", ChangeLogEntry.class)
+                .setParameter("types", new ArrayList<>(types));
+        }
+        List<ChangeLogEntry> changes = new ArrayList<>(query
+            .setParameter("since", since)
+            .setMaxResults(limit + 1)
+            .getResultList());
+        
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        if (!hasMore) {
+            // Entries skipped by the type filter are covered by the token as well
+            next = Math.max(next, last);
+        }
+        return new ChangeFeedPage(changes, next, hasMore);
+    }
+    
+    /**
+     * Delete numbered entries older than the retention period, keeping the newest entry.
+     * Age is measured on the database clock that stamped the entries.
+     * @param retentionDays entries changed more than this many days ago are deleted
+     * @return number of entries found to delete, at most {@link #PURGE_BATCH_SIZE}
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int purgeChunk(int retentionDays) {
+        LOG.log(Level.FINE, "Purging change log entries older than {0} days", retentionDays);
+        List<Long> ids = findIds(em.createNativeQuery(EXPIRED_SQL)
+            .setParameter(1, findLastSequence())
+            .setParameter(2, retentionDays)
+            .setParameter(3, PURGE_BATCH_SIZE));
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size()));
+            Query delete = em.createNativeQuery("DELETE FROM change_log WHERE id IN (" +
+                String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")");
+            for (int i = 0; i < chunk.size(); i++) {
+                delete.setParameter(i + 1, chunk.get(i));
+            }
+            delete.executeUpdate();
+        }
+        return ids.size();
+    }
+    
+    private static List<Long> findIds(Query query) {
+        List<Long> ids = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            ids.add(((Number) row).longValue());
+        }
+        return ids;
+    }
+}
\ No newline at end of file
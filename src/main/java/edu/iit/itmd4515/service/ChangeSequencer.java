@@ -0,0 +1,83 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Singleton EJB numbering committed change log entries and purging old ones.
+ * Entries are numbered every few seconds and before every change feed read.
+ * The singleton's write lock makes numbering strictly sequential, so sequence
+ * numbers only ever grow in the order entries became visible. Only one
+ * instance of the application may number entries; a second one would fail
+ * on the unique sequence number and leave its batch to the next run.
+ */
+@Singleton
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class ChangeSequencer {
+    
+    private static final Logger LOG = Logger.getLogger(ChangeSequencer.class.getName());
+    
+    /**
+     * System property setting how many days of changes are kept.
+     */
+    public static final String RETENTION_DAYS_PROPERTY = "itmd4515.changes.retentionDays";
+    
+    @EJB
+    public ChangeLogService changeLogService;
+    
+    /**
+     * Number new entries every five seconds.
+     */
+    @Schedule(hour = "*", minute = "*", second = "*/5", persistent = false)
+    public void sequencePeriodically() {
+        sequence();
+    }
+    
+    /**
+     * Number all committed entries that have no sequence number yet.
+     * @return number of entries numbered
+     */
+    public int sequence() {
+        int total = 0;
+        int numbered;
+        do {
+            numbered = changeLogService.assignSequence();
+            total += numbered;
+        } while (numbered == ChangeLogService.SEQUENCE_BATCH_SIZE);
+        if (total > 0) {
+            LOG.log(Level.FINE, "Numbered {0} change log entries", total);
+        }
+        return total;
+    }
+    
+    /**
+     * Purge changes past the retention period every night.
+     */
+    @Schedule(hour = "3", minute = "30", persistent = false)
+    public void purgeNightly() {
+        purge(Math.max(1, Integer.getInteger(RETENTION_DAYS_PROPERTY, 30)));
+    }
+    
+    /**
+     * Purge numbered changes older than the retention period, one chunk per transaction.
+     * Clients holding a token from before the oldest kept change must resynchronize.
+     * @param retentionDays changes older than this many days are purged
+     * @return number of changes purged
+     */
+    public int purge(int retentionDays) {
+        LOG.log(Level.INFO, "Purging changes older than {0} days", retentionDays);
+        int total = 0;
+        int purged;
+        do {
+            purged = changeLogService.purgeChunk(retentionDays);
+            total += purged;
+        } while (purged == ChangeLogService.PURGE_BATCH_SIZE);
+        LOG.log(Level.INFO, "Purged {0} changes", total);
+        return total;
+    }
+}
\ No newline at end of file
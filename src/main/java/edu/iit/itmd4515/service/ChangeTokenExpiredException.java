@@ -0,0 +1,18 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.ejb.ApplicationException;
+
+/**
+ * Thrown when a change feed token points before the oldest retained change.
+ * Changes after the token have been purged, so the client has to reload its
+ * data and continue from the current token.
+ */
+@ApplicationException
+public class ChangeTokenExpiredException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public ChangeTokenExpiredException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
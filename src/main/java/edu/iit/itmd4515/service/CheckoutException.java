@@ -0,0 +1,36 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.ejb.ApplicationException;
+
+/**
+ * Thrown when a checkout cannot be completed for a business reason.
+ * Being an application exception, it reaches the caller unwrapped and
+ * rolls back the checkout transaction.
+ */
+@ApplicationException(rollback = true)
+public class CheckoutException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * Why the checkout was refused.
+     */
+    public enum Reason {
+        BOOK_NOT_FOUND,
+        BORROWER_NOT_FOUND,
+        LIBRARY_NOT_FOUND,
+        BOOK_UNAVAILABLE,
+        MEMBERSHIP_INACTIVE
+    }
+    
+    private final Reason reason;
+    
+    public CheckoutException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+    
+    public Reason getReason() {
+        return reason;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.BookLoan;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stateless EJB running checkouts with bounded retries.
+ * Runs outside a transaction so that each attempt of
+ * {@link BookLoanService#checkout} commits or rolls back on its own
+ * before {@link RetryOnConflict} tries again.
+ */
+@Stateless
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class CheckoutService {
+    
+    private static final Logger LOG = Logger.getLogger(CheckoutService.class.getName());
+    
+    /**
+     * Default loan period when no due date is given.
+     */
+    public static final int DEFAULT_LOAN_DAYS = 14;
+    
+    /**
+     * Maximum number of items in one batch checkout or return.
+     */
+    public static final int MAX_BATCH_ITEMS = 100;
+    
+    @EJB
+    public BookLoanService bookLoanService;
+    
+    /**
+     * Check a book out, retrying on optimistic locking conflicts.
+     * @param bookId the book ID
+     * @param borrowerId the borrower ID
+     * @param libraryId the library ID
+     * @param librarianId the processing librarian ID, may be null
+     * @param dueDate the due date, or null for the default loan period
+     * @return the created loan
+     * @throws CheckoutException if the checkout is refused
+     */
+    @RetryOnConflict
+    public BookLoan checkout(Long bookId, Long borrowerId, Long libraryId, Long librarianId, LocalDate dueDate) {
+        LOG.log(Level.INFO, "Checkout of book ID {0} for borrower ID {1}", new Object[]{bookId, borrowerId});
+        if (bookId == null || borrowerId == null || libraryId == null) {
+            throw new IllegalArgumentException("bookId, borrowerId and libraryId are required");
+        }
+        LocalDate due = dueDate == null ? LocalDate.now().plusDays(DEFAULT_LOAN_DAYS) : dueDate;
+        if (!due.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Due date must be in the future");
+        }
+        return bookLoanService.checkout(bookId, borrowerId, libraryId, librarianId, due);
+    }
+    
+    /**
+     * Check out several books for one borrower in one transaction, retrying on conflicts.
+     * @param borrowerId the borrower ID
+     * @param libraryId the library ID
+     * @param librarianId the processing librarian ID, may be null
+     * @param dueDate the due date, or null for the default loan period
+     * @param isbns the scanned ISBNs
+     * @return one result per scanned ISBN
+     * @throws CheckoutException if the borrower or library is missing or the membership is inactive
+     */
+    @RetryOnConflict
+    public List<BatchItemResult> checkoutBatch(Long borrowerId, Long libraryId, Long librarianId,
+                                               LocalDate dueDate, List<String> isbns) {
+        LOG.log(Level.INFO, "Batch checkout of {0} items for borrower ID {1}", new Object[]{isbns.size(), borrowerId});
+        LocalDate due = dueDate == null ? LocalDate.now().plusDays(DEFAULT_LOAN_DAYS) : dueDate;
+        return bookLoanService.checkoutBatch(borrowerId, libraryId, librarianId, due, isbns);
+    }
+    
+    /**
+     * Return several loans in one transaction, retrying on conflicts.
+     * @param loanIds the loan IDs
+     * @return one result per loan ID
+     */
+    @RetryOnConflict
+    public List<BatchItemResult> returnBatch(List<Long> loanIds) {
+        LOG.log(Level.INFO, "Batch return of {0} loans", loanIds.size());
+        return bookLoanService.returnBatch(loanIds);
+    }
+    
+    /**
+     * Return the active loans of scanned books in one transaction, retrying on conflicts.
+     * @param isbns the scanned ISBNs
+     * @param returnDate the date the books were returned
+     * @return one result per scan
+     */
+    @RetryOnConflict
+    public List<BatchItemResult> returnScanned(List<String> isbns, LocalDate returnDate) {
+        LOG.log(Level.INFO, "Returning {0} scanned books", isbns.size());
+        return bookLoanService.returnByIsbns(isbns, returnDate);
+    }
+}
\ No newline at end of file
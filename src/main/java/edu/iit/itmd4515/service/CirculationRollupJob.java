@@ -0,0 +1,168 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.inject.Inject;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup Singleton EJB keeping the circulation rollup current.
+ * Loan events on the {@link DomainEventBus} mark the days they touch as dirty,
+ * and every ten seconds the dirty days are rebuilt by CirculationRollupService,
+ * so the rollup trails the loans by seconds and never scans more than the days
+ * that changed. Every night the last {@code itmd4515.rollups.reconcileDays} days
+ * (default 7) are rebuilt as well, covering events lost in a restart. History is loaded with {@link #backfill}.
+ * The singleton's write lock keeps rebuilds from running concurrently.
+ */
+@Singleton
+@Startup
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class CirculationRollupJob {
+    
+    private static final Logger LOG = Logger.getLogger(CirculationRollupJob.class.getName());
+    
+    /**
+     * System property setting how many recent days are rebuilt every night.
+     */
+    public static final String RECONCILE_DAYS_PROPERTY = "itmd4515.rollups.reconcileDays";
+    
+    @EJB
+    public CirculationRollupService circulationRollupService;
+    
+    @Inject
+    public DomainEventBus eventBus;
+    
+    private final NavigableSet<LocalDate> dirtyDays = new ConcurrentSkipListSet<>();
+    
+    /**
+     * Subscribe to the loan events.
+     */
+    @PostConstruct
+    public void init() {
+        if (eventBus != null) {
+            eventBus.subscribe("circulation-rollups", DomainEvent.LoanEvent.class, this::onLoanEvent,
+                    this::markRecentDaysDirty);
+        }
+    }
+    
+    /**
+     * Mark the days a loan event counts towards as dirty, and for an edit also
+     * the days it counted towards before, which lose the loan when its dates move.
+     * Called by the event bus, not through the container, so it never waits for a rebuild.
+     * @param event the loan event
+     */
+    public void onLoanEvent(DomainEvent.LoanEvent event) {
+        markDirty(event.getLoanDate());
+        markDirty(event.getReturnDate());
+        if (event instanceof DomainEvent.LoanUpdated) {
+            DomainEvent.LoanUpdated updated = (DomainEvent.LoanUpdated) event;
+            markDirty(updated.getPreviousLoanDate());
+            markDirty(updated.getPreviousReturnDate());
+        }
+    }
+    
+    /**
+     * Rebuild the dirty days every ten seconds.
+     */
+    @Schedule(hour = "*", minute = "*", second = "*/10", persistent = false)
+    public void refreshPeriodically() {
+        refresh();
+    }
+    
+    /**
+     * Rebuild the days marked dirty since the last refresh, one run of consecutive days per transaction.
+     * @return number of days rebuilt
+     */
+    public int refresh() {
+        List<LocalDate> days = new ArrayList<>();
+        LocalDate day;
+        while ((day = dirtyDays.pollFirst()) != null) {
+            days.add(day);
+        }
+        int rebuilt = 0;
+        int start = 0;
+        try {
+            for (int i = 1; i <= days.size(); i++) {
+                if (i == days.size() || !days.get(i).equals(days.get(i - 1).plusDays(1))) {
+                    circulationRollupService.rebuildRange(days.get(start), days.get(i - 1));
+                    rebuilt += i - start;
+                    start = i;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Retried on the next refresh
+            dirtyDays.addAll(days.subList(start, days.size()));
+            LOG.log(Level.SEVERE, "Error refreshing circulation rollup", e);
+        }
+        if (rebuilt > 0) {
+            LOG.log(Level.FINE, "Rebuilt circulation rollup for {0} days", rebuilt);
+        }
+        return rebuilt;
+    }
+    
+    /**
+     * Mark the days the nightly reconcile covers as dirty, after loan events were dropped.
+     */
+    private void markRecentDaysDirty() {
+        LocalDate today = LocalDate.now();
+        LocalDate first = today.minusDays(Math.max(1, Integer.getInteger(RECONCILE_DAYS_PROPERTY, 7)));
+        for (LocalDate day = first; !day.isAfter(today); day = day.plusDays(1)) {
+            dirtyDays.add(day);
+        }
+    }
+    
+    private void markDirty(LocalDate day) {
+        if (day != null) {
+            dirtyDays.add(day);
+        }
+    }
+    
+    /**
+     * Rebuild the most recent days every night.
+     */
+    @Schedule(hour = "1", minute = "0", persistent = false)
+    public void reconcileNightly() {
+        LocalDate today = LocalDate.now();
+        backfill(today.minusDays(Math.max(1, Integer.getInteger(RECONCILE_DAYS_PROPERTY, 7))), today);
+    }
+    
+    /**
+     * Rebuild the rollup for a range of days, one calendar month per transaction.
+     * @param from first day, inclusive, or null to start at the earliest loan
+     * @param to last day, inclusive
+     * @return number of rollup rows written
+     */
+    public long backfill(LocalDate from, LocalDate to) {
+        if (from == null) {
+            from = circulationRollupService.findEarliestLoanDate();
+            if (from == null) {
+                LOG.log(Level.INFO, "No loans to roll up");
+                return 0;
+            }
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        LOG.log(Level.INFO, "Backfilling circulation rollup from {0} to {1}", new Object[]{from, to});
+        long started = System.currentTimeMillis();
+        long rows = 0;
+        for (LocalDate start = from; !start.isAfter(to); start = start.withDayOfMonth(1).plusMonths(1)) {
+            LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
+            rows += circulationRollupService.rebuildRange(start, end.isAfter(to) ? to : end);
+        }
+        LOG.log(Level.INFO, "Circulation rollup backfilled: {0} rows ({1} ms)",
+                new Object[]{rows, System.currentTimeMillis() - started});
+        return rows;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,225 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.CirculationDaily;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.Query;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stateless EJB service maintaining and reading the circulation_daily rollup.
+ * A range of days is rebuilt by aggregating the checkouts and returns of those
+ * days in book_loans and book_loans_archive with a plain SELECT, then replacing
+ * the range's rollup rows with one DELETE and multi-row INSERTs, in its own
+ * transaction, so rebuilding a day is idempotent and can never count a loan
+ * twice. Reports then read only the pre-aggregated rows.
+ */
+@Stateless
+public class CirculationRollupService extends AbstractService<CirculationDaily> {
+    
+    private static final Logger LOG = Logger.getLogger(CirculationRollupService.class.getName());
+    
+    /**
+     * Length of the period one report row covers.
+     */
+    public enum Granularity {
+        DAY,
+        MONTH;
+        
+        /**
+         * Parse a granularity parameter, defaulting to DAY.
+         * @param value the raw parameter value, may be null or blank
+         * @return the granularity
+         * @throws IllegalArgumentException if the granularity is unknown
+         */
+        public static Granularity parse(String value) {
+            if (value == null || value.isBlank()) {
+                return DAY;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid granularity: " + value + ", expected day or month");
+            }
+        }
+    }
+    
+    /**
+     * Dimension a report is broken down by when it is not filtered on it.
+     */
+    public enum Breakdown {
+        NONE,
+        LIBRARY,
+        PUBLISHER;
+        
+        /**
+         * Parse a breakdown parameter, defaulting to NONE.
+         * @param value the raw parameter value, may be null or blank
+         * @return the breakdown
+         * @throws IllegalArgumentException if the breakdown is unknown
+         */
+        public static Breakdown parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NONE;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid breakdown: " + value + ", expected library or publisher");
+            }
+        }
+    }
+    
+    private static final String DELETE_SQL = "DELETE FROM circulation_daily WHERE stat_date BETWEEN ?1 AND ?2";
+    
+    // One row per checkout and per return in the range, with the book's publisher
+    private static final String EVENTS_CTE =
+        "WITH e AS (SELECT x.stat_date, x.library_id, b.publisher_id, x.checkouts, x.returned_loans, " +
+        "x.overdue_returns, x.fine_revenue FROM (" +
+        "SELECT loan_date AS stat_date, library_id, book_id, 1 AS checkouts, 0 AS returned_loans, " +
+        "0 AS overdue_returns, 0.0 AS fine_revenue FROM book_loans WHERE loan_date BETWEEN ?1 AND ?2 " +
+        "UNION ALL SELECT return_date, library_id, book_id, 0, 1, IF(return_date > due_date, 1, 0), " +
+        "COALESCE(fine_amount, 0) FROM book_loans WHERE return_date BETWEEN ?1 AND ?2 " +
+        "UNION ALL SELECT loan_date, library_id, book_id, 1, 0, 0, 0.0 " +
+        "FROM book_loans_archive WHERE loan_date BETWEEN ?1 AND ?2 " +
+        "UNION ALL SELECT return_date, library_id, book_id, 0, 1, IF(return_date > due_date, 1, 0), " +
+        "COALESCE(fine_amount, 0) FROM book_loans_archive WHERE return_date BETWEEN ?1 AND ?2" +
+        ") x LEFT JOIN books b ON b.id = x.book_id) ";
+    
+    private static final String SUMS =
+        "SUM(checkouts), SUM(returned_loans), SUM(overdue_returns), SUM(fine_revenue) FROM e ";
+    
+    // A plain SELECT is a consistent read, so it takes no locks on the loans checked out and returned today;
+    // an INSERT ... SELECT would hold shared locks on their index ranges and block the desk
+    private static final String AGGREGATE_SQL = EVENTS_CTE +
+        "SELECT stat_date, library_id, publisher_id, " + SUMS +
+        "WHERE publisher_id IS NOT NULL GROUP BY stat_date, library_id, publisher_id " +
+        "UNION ALL SELECT stat_date, library_id, 0, " + SUMS + "GROUP BY stat_date, library_id " +
+        "UNION ALL SELECT stat_date, 0, publisher_id, " + SUMS +
+        "WHERE publisher_id IS NOT NULL GROUP BY stat_date, publisher_id " +
+        "UNION ALL SELECT stat_date, 0, 0, " + SUMS + "GROUP BY stat_date";
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO circulation_daily (stat_date, library_id, publisher_id, checkouts, returned_loans, " +
+        "overdue_returns, fine_revenue) VALUES ";
+    
+    public CirculationRollupService() {
+        super(CirculationDaily.class);
+    }
+    
+    /**
+     * Recompute the rollup rows of a range of days, in its own transaction.
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @return number of rollup rows written
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int rebuildRange(LocalDate from, LocalDate to) {
+        LOG.log(Level.FINE, "Rebuilding circulation rollup from {0} to {1}", new Object[]{from, to});
+        List<?> rows = em.createNativeQuery(AGGREGATE_SQL)
+            .setParameter(1, from)
+            .setParameter(2, to)
+            .getResultList();
+        em.createNativeQuery(DELETE_SQL)
+            .setParameter(1, from)
+            .setParameter(2, to)
+            .executeUpdate();
+        for (int start = 0; start < rows.size(); start += IN_CLAUSE_CHUNK_SIZE) {
+            List<?> chunk = rows.subList(start, Math.min(start + IN_CLAUSE_CHUNK_SIZE, rows.size()));
+            StringBuilder sql = new StringBuilder(INSERT_SQL);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?)");
+            }
+            Query insert = em.createNativeQuery(sql.toString());
+            int p = 1;
+            for (Object row : chunk) {
+                for (Object column : (Object[]) row) {
+                    insert.setParameter(p++, column);
+                }
+            }
+            insert.executeUpdate();
+        }
+        return rows.size();
+    }
+    
+    /**
+     * Find the earliest loan date in book_loans and book_loans_archive.
+     * @return the date, or null if there are no loans
+     */
+    public LocalDate findEarliestLoanDate() {
+        LOG.log(Level.INFO, "Finding earliest loan date");
+        LocalDate current = em.createQuery("SELECT MIN(bl.loanDate) FROM BookLoan bl", LocalDate.class)
+            .getSingleResult();
+        LocalDate archived = em.createQuery("SELECT MIN(al.loanDate) FROM ArchivedLoan al", LocalDate.class)
+            .getSingleResult();
+        if (current == null || (archived != null && archived.isBefore(current))) {
+            return archived;
+        }
+        return current;
+    }
+    
+    /**
+     * Report circulation per period from the rollup.
+     * Without a library filter or library breakdown the rows total all libraries,
+     * and likewise for publishers. Periods without any activity are omitted.
+     * @param granularity day or month periods
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @param libraryId only this library, may be null
+     * @param publisherId only this publisher, may be null
+     * @param breakdown dimension to report each value of separately
+     * @return rows ordered by period, library and publisher
+     */
+    public List<CirculationStats> findCirculation(Granularity granularity, LocalDate from, LocalDate to,
+                                                  Long libraryId, Long publisherId, Breakdown breakdown) {
+        LOG.log(Level.INFO, "Finding {0} circulation from {1} to {2}", new Object[]{granularity, from, to});
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        String period = granularity == Granularity.MONTH
+                ? "DATE_SUB(stat_date, INTERVAL DAYOFMONTH(stat_date) - 1 DAY)" : "stat_date";
+        String sql = "SELECT " + period + " AS period, library_id, publisher_id, SUM(checkouts), " +
+            "SUM(returned_loans), SUM(overdue_returns), SUM(fine_revenue) FROM circulation_daily " +
+            "WHERE stat_date BETWEEN ?1 AND ?2 " +
+            "AND library_id " + condition(libraryId, breakdown == Breakdown.LIBRARY, 3) + " " +
+            "AND publisher_id " + condition(publisherId, breakdown == Breakdown.PUBLISHER, 4) + " " +
+            "GROUP BY period, library_id, publisher_id ORDER BY period, library_id, publisher_id";
+        Query query = em.createNativeQuery(sql)
+            .setParameter(1, from)
+            .setParameter(2, to);
+        if (libraryId != null) {
+            query.setParameter(3, libraryId);
+        }
+        if (publisherId != null) {
+            query.setParameter(4, publisherId);
+        }
+        
+        List<CirculationStats> stats = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            stats.add(new CirculationStats(toLocalDate(columns[0]),
+                ((Number) columns[1]).longValue(), ((Number) columns[2]).longValue(),
+                ((Number) columns[3]).longValue(), ((Number) columns[4]).longValue(),
+                ((Number) columns[5]).longValue(), ((Number) columns[6]).doubleValue()));
+        }
+        return stats;
+    }
+    
+    private static String condition(Long id, boolean breakdown, int parameter) {
+        if (id != null) {
+            return "= ?" + parameter;
+        }
+        return breakdown ? "<> " + CirculationDaily.ALL : "= " + CirculationDaily.ALL;
+    }
+    
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date ? ((Date) value).toLocalDate() : (LocalDate) value;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package edu.iit.itmd4515.service;
+
+import java.time.LocalDate;
+
+/**
+ * Circulation totals for one period, library and publisher.
+ * A library or publisher ID of 0 means all libraries or publishers.
+ */
+public class CirculationStats {
+    
+    private LocalDate period;
+    
+    private Long libraryId;
+    
+    private Long publisherId;
+    
+    private long checkouts;
+    
+    private long returns;
+    
+    private long overdueReturns;
+    
+    private Double overdueRate;
+    
+    private double fineRevenue;
+    
+    public CirculationStats() {
+    }
+    
+    public CirculationStats(LocalDate period, Long libraryId, Long publisherId,
+                            long checkouts, long returns, long overdueReturns, double fineRevenue) {
+        this.period = period;
+        this.libraryId = libraryId;
+        this.publisherId = publisherId;
+        this.checkouts = checkouts;
+        this.returns = returns;
+        this.overdueReturns = overdueReturns;
+        this.fineRevenue = fineRevenue;
+        // Share of the loans returned in the period that came back after their due date
+        this.overdueRate = returns == 0 ? null : (double) overdueReturns / returns;
+    }
+    
+    /**
+     * Get the period start: the day itself, or the first day of the month.
+     * @return the period start date
+     */
+    public LocalDate getPeriod() {
+        return period;
+    }
+    
+    public void setPeriod(LocalDate period) {
+        this.period = period;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public void setLibraryId(Long libraryId) {
+        this.libraryId = libraryId;
+    }
+    
+    public Long getPublisherId() {
+        return publisherId;
+    }
+    
+    public void setPublisherId(Long publisherId) {
+        this.publisherId = publisherId;
+    }
+    
+    public long getCheckouts() {
+        return checkouts;
+    }
+    
+    public void setCheckouts(long checkouts) {
+        this.checkouts = checkouts;
+    }
+    
+    public long getReturns() {
+        return returns;
+    }
+    
+    public void setReturns(long returns) {
+        this.returns = returns;
+    }
+    
+    public long getOverdueReturns() {
+        return overdueReturns;
+    }
+    
+    public void setOverdueReturns(long overdueReturns) {
+        this.overdueReturns = overdueReturns;
+    }
+    
+    public Double getOverdueRate() {
+        return overdueRate;
+    }
+    
+    public void setOverdueRate(Double overdueRate) {
+        this.overdueRate = overdueRate;
+    }
+    
+    public double getFineRevenue() {
+        return fineRevenue;
+    }
+    
+    public void setFineRevenue(double fineRevenue) {
+        this.fineRevenue = fineRevenue;
+    }
+    
+    @Override
+    public String toString() {
+        return "CirculationStats{" +
+                "period=" + period +
+                ", libraryId=" + libraryId +
+                ", publisherId=" + publisherId +
+                ", checkouts=" + checkouts +
+                ", returns=" + returns +
+                ", overdueRate=" + overdueRate +
+                ", fineRevenue=" + fineRevenue +
+                '}';
+    }
+}
\ No newline at end of file
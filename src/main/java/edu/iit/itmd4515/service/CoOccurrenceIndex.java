@@ -0,0 +1,447 @@
+package edu.iit.itmd4515.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Item-item co-occurrence index behind "borrowers who borrowed this also borrowed".
+ * Two books co-occur once for every borrower who has borrowed both. The index
+ * keeps each borrower's basket of distinct books, at most the most recent
+ * {@code maxBasket}, and for each book only its top {@code neighbours} co-occurring
+ * books with their counts, sorted by count, so a lookup reads one short array.
+ * <p>
+ * {@link #computeNeighbours} counts the full sparse matrix from the baskets on a
+ * fork-join pool, each task owning the rows of one shard of the books so no counts
+ * are ever merged, and prunes each row to its top neighbours. After that,
+ * {@link #addLoan} updates the pruned rows incrementally: counts of listed neighbours
+ * go up, and a new pair enters a row that still has room. A pair that would have
+ * displaced a listed neighbour is only picked up by the next full computation,
+ * which is why the index is rebuilt periodically.
+ * <p>
+ * All keys are primitive longs in {@link LongIntHashMap} slots. Lookups share a
+ * read lock; additions take the write lock for a few microseconds.
+ */
+public class CoOccurrenceIndex {
+    
+    private static final long[] NO_IDS = new long[0];
+    
+    private static final int[] NO_COUNTS = new int[0];
+    
+    private final int neighbours;
+    
+    private final int maxBasket;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Books of each borrower, oldest first
+    private final LongIntHashMap basketSlots = new LongIntHashMap(1024);
+    private long[][] baskets = new long[1024][];
+    private int[] basketSizes = new int[1024];
+    
+    // Top neighbours of each book, highest count first
+    private final LongIntHashMap bookSlots = new LongIntHashMap(1024);
+    private long[][] neighbourIds = new long[1024][];
+    private int[][] neighbourCounts = new int[1024][];
+    
+    /**
+     * Create an empty index.
+     * @param neighbours most related books kept per book
+     * @param maxBasket most recent distinct books kept per borrower
+     */
+    public CoOccurrenceIndex(int neighbours, int maxBasket) {
+        if (neighbours < 1 || maxBasket < 2) {
+            throw new IllegalArgumentException("neighbours must be at least 1 and maxBasket at least 2");
+        }
+        this.neighbours = neighbours;
+        this.maxBasket = maxBasket;
+    }
+    
+    /**
+     * Record a loan in the borrower's basket only, for a bulk load followed by
+     * {@link #computeNeighbours}. Loans must be given oldest first.
+     * @param borrowerId the borrower ID
+     * @param bookId the book ID
+     * @return true if the book was new to the borrower
+     */
+    public boolean load(long borrowerId, long bookId) {
+        lock.writeLock().lock();
+        try {
+            return addToBasket(borrowerId, bookId) != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Record a new loan and update the neighbours of its book and of every
+     * other book in the borrower's basket.
+     * @param borrowerId the borrower ID
+     * @param bookId the book ID
+     * @return true if the book was new to the borrower
+     */
+    public boolean addLoan(long borrowerId, long bookId) {
+        lock.writeLock().lock();
+        try {
+            long[] others = addToBasket(borrowerId, bookId);
+            if (others == null) {
+                return false;
+            }
+            for (long other : others) {
+                increment(bookId, other);
+                increment(other, bookId);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Count co-occurrences over all baskets and replace every book's neighbours
+     * with its top ones. Meant to run once after loading, before the index is shared.
+     * @param pool the pool the counting runs on
+     */
+    public void computeNeighbours(ForkJoinPool pool) {
+        lock.writeLock().lock();
+        try {
+            int shards = pool.getParallelism() * 4;
+            List<ForkJoinTask<Shard>> tasks = new ArrayList<>();
+            for (int s = 0; s < shards; s++) {
+                int shard = s;
+                tasks.add(pool.submit(() -> countShard(shard, shards)));
+            }
+            for (ForkJoinTask<Shard> task : tasks) {
+                Shard shard = task.join();
+                for (int i = 0; i < shard.books.size(); i++) {
+                    int slot = bookSlot(shard.books.get(i));
+                    neighbourIds[slot] = shard.ids.get(i);
+                    neighbourCounts[slot] = shard.counts.get(i);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the books most often borrowed by the borrowers of a book.
+     * @param bookId the book ID
+     * @param limit most books to return
+     * @return the related books, most related first; empty if the book is unknown
+     */
+    public List<RelatedBook> related(long bookId, int limit) {
+        lock.readLock().lock();
+        try {
+            int slot = bookSlots.get(bookId);
+            if (slot == LongIntHashMap.MISSING) {
+                return List.of();
+            }
+            long[] ids = neighbourIds[slot];
+            int[] counts = neighbourCounts[slot];
+            List<RelatedBook> related = new ArrayList<>(Math.min(limit, ids.length));
+            for (int i = 0; i < ids.length && i < limit; i++) {
+                related.add(new RelatedBook(ids[i], counts[i]));
+            }
+            return related;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Recommend books for a borrower: the neighbours of the borrower's most recent
+     * books, scored by their summed counts, without books the borrower already had.
+     * @param borrowerId the borrower ID
+     * @param seeds most recent books of the borrower to start from
+     * @param limit most books to return
+     * @return the recommendations, best first; empty if the borrower is unknown
+     */
+    public List<RelatedBook> recommend(long borrowerId, int seeds, int limit) {
+        lock.readLock().lock();
+        try {
+            int basketSlot = basketSlots.get(borrowerId);
+            if (basketSlot == LongIntHashMap.MISSING) {
+                return List.of();
+            }
+            long[] basket = baskets[basketSlot];
+            int size = basketSizes[basketSlot];
+            LongIntHashMap scores = new LongIntHashMap(64);
+            for (int b = Math.max(0, size - seeds); b < size; b++) {
+                int slot = bookSlots.get(basket[b]);
+                if (slot != LongIntHashMap.MISSING) {
+                    long[] ids = neighbourIds[slot];
+                    int[] counts = neighbourCounts[slot];
+                    for (int i = 0; i < ids.length; i++) {
+                        scores.addTo(ids[i], counts[i]);
+                    }
+                }
+            }
+            for (int b = 0; b < size; b++) {
+                // Already borrowed; never a positive score again
+                scores.put(basket[b], Integer.MIN_VALUE);
+            }
+            TopK top = new TopK(limit);
+            scores.forEach(top::offer);
+            long[] ids = new long[top.size];
+            int[] counts = new int[top.size];
+            top.drainDescending(ids, counts);
+            List<RelatedBook> recommended = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                recommended.add(new RelatedBook(ids[i], counts[i]));
+            }
+            return recommended;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the number of books with neighbours or borrowers.
+     * @return the book count
+     */
+    public int getBooks() {
+        lock.readLock().lock();
+        try {
+            return bookSlots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the number of borrowers with at least one loan.
+     * @return the borrower count
+     */
+    public int getBorrowers() {
+        lock.readLock().lock();
+        try {
+            return basketSlots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Returns the books already in the basket, or null if the book was in it
+    private long[] addToBasket(long borrowerId, long bookId) {
+        int slot = basketSlots.get(borrowerId);
+        if (slot == LongIntHashMap.MISSING) {
+            slot = basketSlots.size();
+            if (slot == baskets.length) {
+                baskets = Arrays.copyOf(baskets, slot * 2);
+                basketSizes = Arrays.copyOf(basketSizes, slot * 2);
+            }
+            baskets[slot] = new long[4];
+            basketSlots.put(borrowerId, slot);
+        }
+        long[] basket = baskets[slot];
+        int size = basketSizes[slot];
+        for (int i = 0; i < size; i++) {
+            if (basket[i] == bookId) {
+                return null;
+            }
+        }
+        long[] others = Arrays.copyOf(basket, size);
+        if (size == maxBasket) {
+            // Forget the oldest book
+            System.arraycopy(basket, 1, basket, 0, size - 1);
+            size--;
+        } else if (size == basket.length) {
+            basket = Arrays.copyOf(basket, Math.min(maxBasket, size * 2));
+            baskets[slot] = basket;
+        }
+        basket[size] = bookId;
+        basketSizes[slot] = size + 1;
+        bookSlot(bookId);
+        return others;
+    }
+    
+    private int bookSlot(long bookId) {
+        int slot = bookSlots.get(bookId);
+        if (slot == LongIntHashMap.MISSING) {
+            slot = bookSlots.size();
+            if (slot == neighbourIds.length) {
+                neighbourIds = Arrays.copyOf(neighbourIds, slot * 2);
+                neighbourCounts = Arrays.copyOf(neighbourCounts, slot * 2);
+            }
+            neighbourIds[slot] = NO_IDS;
+            neighbourCounts[slot] = NO_COUNTS;
+            bookSlots.put(bookId, slot);
+        }
+        return slot;
+    }
+    
+    private void increment(long bookId, long other) {
+        int slot = bookSlot(bookId);
+        long[] ids = neighbourIds[slot];
+        int[] counts = neighbourCounts[slot];
+        int i = 0;
+        while (i < ids.length && ids[i] != other) {
+            i++;
+        }
+        if (i == ids.length) {
+            if (ids.length == neighbours) {
+                return;
+            }
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            counts = Arrays.copyOf(counts, counts.length + 1);
+            ids[i] = other;
+            neighbourIds[slot] = ids;
+            neighbourCounts[slot] = counts;
+        }
+        counts[i]++;
+        // Keep the row sorted by count
+        while (i > 0 && counts[i] > counts[i - 1]) {
+            long id = ids[i];
+            ids[i] = ids[i - 1];
+            ids[i - 1] = id;
+            int count = counts[i];
+            counts[i] = counts[i - 1];
+            counts[i - 1] = count;
+            i--;
+        }
+    }
+    
+    // Counts the full rows of the books in one shard and prunes them to the top neighbours
+    private Shard countShard(int shard, int shards) {
+        LongIntHashMap rowSlots = new LongIntHashMap(1024);
+        List<LongIntHashMap> rows = new ArrayList<>();
+        List<Long> books = new ArrayList<>();
+        int borrowers = basketSlots.size();
+        for (int b = 0; b < borrowers; b++) {
+            long[] basket = baskets[b];
+            int size = basketSizes[b];
+            for (int x = 0; x < size; x++) {
+                if (Math.floorMod(basket[x], shards) != shard) {
+                    continue;
+                }
+                int rowSlot = rowSlots.get(basket[x]);
+                if (rowSlot == LongIntHashMap.MISSING) {
+                    rowSlot = rows.size();
+                    rows.add(new LongIntHashMap(16));
+                    books.add(basket[x]);
+                    rowSlots.put(basket[x], rowSlot);
+                }
+                LongIntHashMap row = rows.get(rowSlot);
+                for (int y = 0; y < size; y++) {
+                    if (y != x) {
+                        row.addTo(basket[y], 1);
+                    }
+                }
+            }
+        }
+        
+        Shard result = new Shard();
+        for (int r = 0; r < rows.size(); r++) {
+            TopK top = new TopK(neighbours);
+            rows.get(r).forEach(top::offer);
+            rows.set(r, null);
+            long[] ids = new long[top.size];
+            int[] counts = new int[top.size];
+            top.drainDescending(ids, counts);
+            result.books.add(books.get(r));
+            result.ids.add(ids);
+            result.counts.add(counts);
+        }
+        return result;
+    }
+    
+    /**
+     * Pruned rows computed by one shard.
+     */
+    private static final class Shard {
+        
+        private final List<Long> books = new ArrayList<>();
+        private final List<long[]> ids = new ArrayList<>();
+        private final List<int[]> counts = new ArrayList<>();
+    }
+    
+    /**
+     * Bounded min-heap keeping the entries with the highest positive counts,
+     * ties going to the lower ID so results are deterministic.
+     */
+    private static final class TopK {
+        
+        private final long[] ids;
+        private final int[] counts;
+        private int size;
+        
+        private TopK(int capacity) {
+            ids = new long[capacity];
+            counts = new int[capacity];
+        }
+        
+        private void offer(long id, int count) {
+            if (count <= 0) {
+                return;
+            }
+            if (size < ids.length) {
+                ids[size] = id;
+                counts[size] = count;
+                siftUp(size++);
+            } else if (ids.length > 0 && less(ids[0], counts[0], id, count)) {
+                ids[0] = id;
+                counts[0] = count;
+                siftDown(0, size);
+            }
+        }
+        
+        // Empties the heap into the arrays, highest count first
+        private void drainDescending(long[] outIds, int[] outCounts) {
+            for (int n = size; n > 0; n--) {
+                outIds[n - 1] = ids[0];
+                outCounts[n - 1] = counts[0];
+                swap(0, n - 1);
+                siftDown(0, n - 1);
+            }
+            size = 0;
+        }
+        
+        private static boolean less(long idA, int countA, long idB, int countB) {
+            return countA < countB || (countA == countB && idA > idB);
+        }
+        
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!less(ids[i], counts[i], ids[parent], counts[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+        
+        private void siftDown(int i, int n) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < n && less(ids[left], counts[left], ids[smallest], counts[smallest])) {
+                    smallest = left;
+                }
+                if (right < n && less(ids[right], counts[right], ids[smallest], counts[smallest])) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+        
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            int count = counts[a];
+            counts[a] = counts[b];
+            counts[b] = count;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package edu.iit.itmd4515.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads catalog records from RFC 4180 CSV with a header line.
+ * Columns are matched by name, ignoring case, spaces and underscores:
+ * title, author and isbn are required, publicationDate, pageCount and price
+ * are optional and any other column is ignored. Quoted values may contain
+ * commas, doubled quotes and line breaks.
+ */
+public class CsvCatalogReader implements CatalogReader {
+    
+    private static final String[] COLUMNS = {"title", "author", "isbn", "publicationdate", "pagecount", "price"};
+    
+    private final BufferedReader in;
+    
+    private final int[] positions = new int[COLUMNS.length];
+    
+    private final StringBuilder value = new StringBuilder();
+    
+    private long number;
+    
+    /**
+     * Create a reader and consume the header line.
+     * @param in the CSV text
+     * @throws IOException if the header cannot be read
+     * @throws IllegalArgumentException if the header lacks a required column
+     */
+    public CsvCatalogReader(Reader in) throws IOException {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 64 * 1024);
+        // Skip a byte order mark left by spreadsheet exports
+        this.in.mark(1);
+        if (this.in.read() != '\uFEFF') {
+            this.in.reset();
+        }
+        List<String> header = readValues();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header line is missing");
+        }
+        for (int c = 0; c < COLUMNS.length; c++) {
+            positions[c] = -1;
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).replace("_", "").replace(" ", "")
+                        .toLowerCase(Locale.ROOT);
+                if (name.equals(COLUMNS[c])) {
+                    positions[c] = i;
+                    break;
+                }
+            }
+            if (c < 3 && positions[c] < 0) {
+                throw new IllegalArgumentException("CSV header must contain a " + COLUMNS[c] + " column");
+            }
+        }
+    }
+    
+    @Override
+    public CatalogRecord next() throws IOException {
+        List<String> values = readValues();
+        while (values != null && values.size() == 1 && values.get(0).isEmpty()) {
+            // Blank line
+            values = readValues();
+        }
+        if (values == null) {
+            return null;
+        }
+        return new CatalogRecord(++number, get(values, 0), get(values, 1), get(values, 2),
+                get(values, 3), get(values, 4), get(values, 5));
+    }
+    
+    private String get(List<String> values, int column) {
+        int position = positions[column];
+        return position >= 0 && position < values.size() ? values.get(position) : null;
+    }
+    
+    /**
+     * Read one CSV record, which spans several lines when a quoted value contains line breaks.
+     * @return the values, or null at the end of the input
+     */
+    private List<String> readValues() throws IOException {
+        int c = in.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(COLUMNS.length);
+        value.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted value in CSV record " + (number + 1));
+                }
+                if (c == '"') {
+                    in.mark(1);
+                    int following = in.read();
+                    if (following == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        in.reset();
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') {
+                        in.reset();
+                    }
+                }
+                values.add(value.toString());
+                return values;
+            } else {
+                value.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package edu.iit.itmd4515.service;
 
 import edu.iit.itmd4515.domain.*;
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
 import jakarta.ejb.Singleton;
 import jakarta.ejb.Startup;
 import jakarta.inject.Inject;
@@ -18,6 +19,7 @@ import java.util.logging.Logger;
  */
 @Singleton
 @Startup
+@DependsOn({"LoanCounterService", "LoanDueDateService"})
 public class DatabaseSeedService {
     
     private static final Logger LOG = Logger.getLogger(DatabaseSeedService.class.getName());
@@ -276,11 +278,9 @@ public class DatabaseSeedService {
         
         // Display Active Loans by Library
         LOG.info("\n--- ACTIVE LOANS BY LIBRARY ---");
-        for (Library library : libraries) {
-            long activeLoans = libraryService.countActiveLoans(library.getId());
-            long totalLoans = libraryService.countTotalLoans(library.getId());
+        for (LibraryStatistics stats : libraryService.statistics(null, null)) {
             LOG.log(Level.INFO, "{0}: {1} active loans out of {2} total loans", 
-                   new Object[]{library.getName(), activeLoans, totalLoans});
+                   new Object[]{stats.getLibraryName(), stats.getActiveLoans(), stats.getTotalLoans()});
         }
         
         // Display Overdue Loans
@@ -0,0 +1,169 @@
+package edu.iit.itmd4515.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Estimated number of distinct borrowers over one period, from HyperLogLog sketches.
+ * The true count lies between the bounds with about 95% confidence.
+ */
+public class DistinctBorrowers {
+    
+    /**
+     * Length of the periods a date range is split into.
+     */
+    public enum Period {
+        DAY,
+        WEEK,
+        MONTH,
+        TOTAL;
+        
+        /**
+         * Parse a period parameter, defaulting to TOTAL, one period for the whole range.
+         * @param value the raw parameter value, may be null or blank
+         * @return the period
+         * @throws IllegalArgumentException if the period is unknown
+         */
+        public static Period parse(String value) {
+            if (value == null || value.isBlank()) {
+                return TOTAL;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid period: " + value + ", expected day, week, month or total");
+            }
+        }
+        
+        /**
+         * Get the first day of the period containing a day. Weeks start on Monday.
+         * @param day the day
+         * @param from first day of the range, where the TOTAL period starts
+         * @return the first day of the period
+         */
+        public LocalDate start(LocalDate day, LocalDate from) {
+            switch (this) {
+                case DAY:
+                    return day;
+                case WEEK:
+                    return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH:
+                    return day.withDayOfMonth(1);
+                default:
+                    return from;
+            }
+        }
+        
+        /**
+         * Get the first day of the next period.
+         * @param start first day of a period
+         * @return the first day of the following period
+         */
+        public LocalDate next(LocalDate start) {
+            switch (this) {
+                case DAY:
+                    return start.plusDays(1);
+                case WEEK:
+                    return start.plusWeeks(1);
+                case MONTH:
+                    return start.plusMonths(1);
+                default:
+                    return LocalDate.MAX;
+            }
+        }
+    }
+    
+    private LocalDate from;
+    
+    private LocalDate to;
+    
+    private long borrowers;
+    
+    private long lowerBound;
+    
+    private long upperBound;
+    
+    private double standardError;
+    
+    public DistinctBorrowers() {
+    }
+    
+    public DistinctBorrowers(LocalDate from, LocalDate to, double estimate, double standardError) {
+        this.from = from;
+        this.to = to;
+        this.borrowers = Math.round(estimate);
+        // Two standard errors either side
+        this.lowerBound = Math.max(0, (long) Math.floor(estimate * (1 - 2 * standardError)));
+        this.upperBound = (long) Math.ceil(estimate * (1 + 2 * standardError));
+        this.standardError = standardError;
+    }
+    
+    public LocalDate getFrom() {
+        return from;
+    }
+    
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+    
+    public LocalDate getTo() {
+        return to;
+    }
+    
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+    
+    /**
+     * Get the estimated number of distinct borrowers.
+     * @return the estimate
+     */
+    public long getBorrowers() {
+        return borrowers;
+    }
+    
+    public void setBorrowers(long borrowers) {
+        this.borrowers = borrowers;
+    }
+    
+    public long getLowerBound() {
+        return lowerBound;
+    }
+    
+    public void setLowerBound(long lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+    
+    public long getUpperBound() {
+        return upperBound;
+    }
+    
+    public void setUpperBound(long upperBound) {
+        this.upperBound = upperBound;
+    }
+    
+    /**
+     * Get the relative standard error of the estimate.
+     * @return the error, such as 0.01 for 1%
+     */
+    public double getStandardError() {
+        return standardError;
+    }
+    
+    public void setStandardError(double standardError) {
+        this.standardError = standardError;
+    }
+    
+    @Override
+    public String toString() {
+        return "DistinctBorrowers{" +
+                "from=" + from +
+                ", to=" + to +
+                ", borrowers=" + borrowers +
+                ", lowerBound=" + lowerBound +
+                ", upperBound=" + upperBound +
+                '}';
+    }
+}
\ No newline at end of file
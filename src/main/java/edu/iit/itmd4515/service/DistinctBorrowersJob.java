@@ -0,0 +1,177 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.inject.Inject;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup Singleton EJB building the daily distinct-borrower sketches.
+ * The borrowers of LoanCreated events on the {@link DomainEventBus} are added
+ * to in-memory {@link HyperLogLog} sketches per library and day, which are
+ * merged into borrower_sketches every minute. On start the sketches are
+ * seeded from the loan history, day by day, from the day after the last one
+ * seeded (at most {@code itmd4515.borrowers.seedDays} days back, default 365)
+ * through today, so an interrupted seed resumes and loans made while the
+ * application was down are caught up. A seed that fails is retried every
+ * minute. Because adding a borrower twice changes nothing, loans seen both by
+ * the seed and as events, seeded twice, or merged again after a failed save,
+ * are not double counted.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class DistinctBorrowersJob {
+    
+    private static final Logger LOG = Logger.getLogger(DistinctBorrowersJob.class.getName());
+    
+    /**
+     * System property setting how many days of loans the first start seeds.
+     */
+    public static final String SEED_DAYS_PROPERTY = "itmd4515.borrowers.seedDays";
+    
+    @EJB
+    public BorrowerSketchService borrowerSketchService;
+    
+    @Inject
+    public DomainEventBus eventBus;
+    
+    @Resource(lookup = "java:app/concurrent/IndexExecutor")
+    public ManagedExecutorService executor;
+    
+    // Sketches not saved yet, by day and library; guarded by this
+    private Map<LocalDate, Map<Long, HyperLogLog>> pending = new HashMap<>();
+    
+    private volatile boolean loaded;
+    
+    private final AtomicBoolean seeding = new AtomicBoolean();
+    
+    /**
+     * Subscribe to new loans and start seeding the sketches.
+     */
+    @PostConstruct
+    public void init() {
+        if (eventBus != null) {
+            eventBus.subscribe("distinct-borrowers", DomainEvent.LoanCreated.class, this::onLoanCreated,
+                    this::reseedRecent);
+        }
+        startLoad();
+    }
+    
+    /**
+     * Seed the sketches of the days not seeded yet from the loans, marking each day when done.
+     */
+    public void load() {
+        long started = System.currentTimeMillis();
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDate first = today.minusDays(Math.max(1, Integer.getInteger(SEED_DAYS_PROPERTY, 365)) - 1);
+            LocalDate seeded = borrowerSketchService.findSeededThrough();
+            if (seeded != null && !seeded.isBefore(first)) {
+                first = seeded.plusDays(1);
+            }
+            LOG.log(Level.INFO, "Seeding borrower sketches from loans since {0}", first);
+            for (LocalDate day = first; !day.isAfter(today); day = day.plusDays(1)) {
+                Map<Long, HyperLogLog> sketches = new HashMap<>();
+                for (Object[] row : borrowerSketchService.findBorrowers(day)) {
+                    sketches.computeIfAbsent(((Number) row[0]).longValue(),
+                            id -> new HyperLogLog(BorrowerSketchService.PRECISION))
+                        .add(((Number) row[1]).longValue());
+                }
+                for (Map.Entry<Long, HyperLogLog> sketch : sketches.entrySet()) {
+                    borrowerSketchService.merge(day, sketch.getKey(), sketch.getValue());
+                }
+                borrowerSketchService.markSeeded(day);
+            }
+            loaded = true;
+            LOG.log(Level.INFO, "Borrower sketches loaded ({0} ms)", System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Error seeding borrower sketches, retrying next minute", e);
+        } finally {
+            seeding.set(false);
+        }
+    }
+    
+    /**
+     * Add the borrower of a new loan.
+     * Called by the event bus, not through the container.
+     * @param event the loan event
+     */
+    public void onLoanCreated(DomainEvent.LoanCreated event) {
+        if (event.getLibraryId() == null || event.getBorrowerId() == null || event.getLoanDate() == null) {
+            return;
+        }
+        synchronized (this) {
+            pending.computeIfAbsent(event.getLoanDate(), day -> new HashMap<>())
+                .computeIfAbsent(event.getLibraryId(), id -> new HyperLogLog(BorrowerSketchService.PRECISION))
+                .add(event.getBorrowerId());
+        }
+    }
+    
+    /**
+     * Merge the pending sketches into the stored ones, one transaction per library and day,
+     * and retry the seed if it has not finished.
+     * A sketch that the seed creates at the same time fails to save and is merged next minute.
+     */
+    @Schedule(hour = "*", minute = "*", persistent = false)
+    public void persist() {
+        if (!loaded) {
+            startLoad();
+        }
+        Map<LocalDate, Map<Long, HyperLogLog>> saving;
+        synchronized (this) {
+            saving = pending;
+            pending = new HashMap<>();
+        }
+        for (Map.Entry<LocalDate, Map<Long, HyperLogLog>> day : saving.entrySet()) {
+            for (Map.Entry<Long, HyperLogLog> sketch : day.getValue().entrySet()) {
+                try {
+                    borrowerSketchService.merge(day.getKey(), sketch.getKey(), sketch.getValue());
+                } catch (RuntimeException e) {
+                    LOG.log(Level.SEVERE, "Error saving borrower sketch of library " + sketch.getKey()
+                            + " on " + day.getKey(), e);
+                    synchronized (this) {
+                        pending.computeIfAbsent(day.getKey(), d -> new HashMap<>())
+                            .computeIfAbsent(sketch.getKey(), id -> new HyperLogLog(BorrowerSketchService.PRECISION))
+                            .merge(sketch.getValue());
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Seed yesterday and today again, after new loans were dropped by a full event queue.
+     */
+    private void reseedRecent() {
+        borrowerSketchService.markSeeded(LocalDate.now().minusDays(2));
+        loaded = false;
+        startLoad();
+    }
+    
+    private void startLoad() {
+        if (seeding.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::load);
+            } catch (RuntimeException e) {
+                seeding.set(false);
+                LOG.log(Level.SEVERE, "Error starting borrower sketch seed", e);
+            }
+        }
+    }
+}
\ No newline at end of file
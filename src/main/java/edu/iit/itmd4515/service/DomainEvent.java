@@ -0,0 +1,198 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.BookLoan;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Something that happened to the domain, published on the {@link DomainEventBus}
+ * once the transaction that made it happen has committed. Events carry IDs and
+ * the values subscribers need, never managed entities, so a subscriber on
+ * another thread does not touch the publisher's persistence context.
+ */
+public abstract class DomainEvent {
+    
+    private final LocalDateTime occurredAt = LocalDateTime.now();
+    
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+    
+    /**
+     * Base of all loan lifecycle events.
+     */
+    public abstract static class LoanEvent extends DomainEvent {
+        
+        private final Long loanId;
+        private final Long bookId;
+        private final Long borrowerId;
+        private final Long libraryId;
+        private final LocalDate loanDate;
+        private final LocalDate dueDate;
+        private final LocalDate returnDate;
+        
+        protected LoanEvent(BookLoan loan) {
+            this.loanId = loan.getId();
+            this.bookId = loan.getBook() == null ? null : loan.getBook().getId();
+            this.borrowerId = loan.getBorrower() == null ? null : loan.getBorrower().getId();
+            this.libraryId = loan.getLibrary() == null ? null : loan.getLibrary().getId();
+            this.loanDate = loan.getLoanDate();
+            this.dueDate = loan.getDueDate();
+            this.returnDate = loan.getReturnDate();
+        }
+        
+        public Long getLoanId() {
+            return loanId;
+        }
+        
+        public Long getBookId() {
+            return bookId;
+        }
+        
+        public Long getBorrowerId() {
+            return borrowerId;
+        }
+        
+        public Long getLibraryId() {
+            return libraryId;
+        }
+        
+        public LocalDate getLoanDate() {
+            return loanDate;
+        }
+        
+        public LocalDate getDueDate() {
+            return dueDate;
+        }
+        
+        /**
+         * Get the return date.
+         * @return the return date, or null while the loan is out
+         */
+        public LocalDate getReturnDate() {
+            return returnDate;
+        }
+        
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "{loanId=" + loanId + ", bookId=" + bookId +
+                    ", borrowerId=" + borrowerId + ", dueDate=" + dueDate + ", returnDate=" + returnDate + '}';
+        }
+    }
+    
+    /**
+     * A loan was created, normally by checking a book out.
+     */
+    public static class LoanCreated extends LoanEvent {
+        
+        public LoanCreated(BookLoan loan) {
+            super(loan);
+        }
+    }
+    
+    /**
+     * A loan was edited without being returned, for example to change its due date.
+     */
+    public static class LoanUpdated extends LoanEvent {
+        
+        private final LocalDate previousLoanDate;
+        private final LocalDate previousReturnDate;
+        
+        public LoanUpdated(BookLoan loan, LocalDate previousLoanDate, LocalDate previousReturnDate) {
+            super(loan);
+            this.previousLoanDate = previousLoanDate;
+            this.previousReturnDate = previousReturnDate;
+        }
+        
+        /**
+         * Get the loan date stored before the edit.
+         * @return the previous loan date, or null if the loan was not stored before
+         */
+        public LocalDate getPreviousLoanDate() {
+            return previousLoanDate;
+        }
+        
+        /**
+         * Get the return date stored before the edit.
+         * @return the previous return date, or null if the loan was out or not stored before
+         */
+        public LocalDate getPreviousReturnDate() {
+            return previousReturnDate;
+        }
+    }
+    
+    /**
+     * An active loan was returned.
+     */
+    public static class LoanReturned extends LoanEvent {
+        
+        private final Double fineAmount;
+        
+        public LoanReturned(BookLoan loan) {
+            super(loan);
+            this.fineAmount = loan.getFineAmount();
+        }
+        
+        public Double getFineAmount() {
+            return fineAmount;
+        }
+    }
+    
+    /**
+     * A loan was deleted.
+     */
+    public static class LoanDeleted extends LoanEvent {
+        
+        public LoanDeleted(BookLoan loan) {
+            super(loan);
+        }
+    }
+    
+    /**
+     * A book was edited or changed availability.
+     */
+    public static class BookUpdated extends DomainEvent {
+        
+        private final Long bookId;
+        private final Boolean available;
+        
+        public BookUpdated(Long bookId, Boolean available) {
+            this.bookId = bookId;
+            this.available = available;
+        }
+        
+        public Long getBookId() {
+            return bookId;
+        }
+        
+        public Boolean getAvailable() {
+            return available;
+        }
+        
+        @Override
+        public String toString() {
+            return "BookUpdated{bookId=" + bookId + ", available=" + available + '}';
+        }
+    }
+    
+    /**
+     * A borrower's membership went from active to inactive.
+     */
+    public static class BorrowerDeactivated extends DomainEvent {
+        
+        private final Long borrowerId;
+        
+        public BorrowerDeactivated(Long borrowerId) {
+            this.borrowerId = borrowerId;
+        }
+        
+        public Long getBorrowerId() {
+            return borrowerId;
+        }
+        
+        @Override
+        public String toString() {
+            return "BorrowerDeactivated{borrowerId=" + borrowerId + '}';
+        }
+    }
+}
\ No newline at end of file
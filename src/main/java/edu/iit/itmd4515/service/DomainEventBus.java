@@ -0,0 +1,158 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup Singleton EJB dispatching {@link DomainEvent}s to in-process subscribers.
+ * Events are published from inside the writing transaction but only dispatched
+ * once it commits, so rolled back work is never announced. Each subscriber has
+ * its own {@link EventSubscription} drained on the event executor (see
+ * ConcurrencyConfig), so a slow subscriber delays neither the request that
+ * published the event nor the other subscribers. Events a subscriber kept
+ * failing on are retried every minute until they succeed. Each queue holds at
+ * most {@code itmd4515.events.queueCapacity} events (default 10000); past that
+ * events are dropped and the subscriber resyncs from the database, if it
+ * registered a way to.
+ * Queue size and retries are read from system properties such as
+ * {@code itmd4515.events.queueCapacity}.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class DomainEventBus {
+    
+    private static final Logger LOG = Logger.getLogger(DomainEventBus.class.getName());
+    
+    /**
+     * Prefix of the system properties sizing the subscriptions.
+     */
+    public static final String PROPERTY_PREFIX = "itmd4515.events.";
+    
+    @Resource(lookup = "java:app/concurrent/EventExecutor")
+    public ManagedExecutorService executor;
+    
+    @Resource
+    public TransactionSynchronizationRegistry txRegistry;
+    
+    private final List<EventSubscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Register a subscriber.
+     * @param name the subscriber name reported in metrics
+     * @param type the event type to receive, including subclasses
+     * @param handler the subscriber; must tolerate receiving an event more than once
+     * @param <E> the event type
+     * @return the subscription
+     */
+    public <E extends DomainEvent> EventSubscription<E> subscribe(String name, Class<E> type, Consumer<? super E> handler) {
+        return subscribe(name, type, handler, null);
+    }
+    
+    /**
+     * Register a subscriber that can rebuild its state after its queue overflowed.
+     * @param name the subscriber name reported in metrics
+     * @param type the event type to receive, including subclasses
+     * @param handler the subscriber; must tolerate receiving an event more than once
+     * @param resync rebuilds the subscriber's state from the database after events were dropped
+     * @param <E> the event type
+     * @return the subscription
+     */
+    public <E extends DomainEvent> EventSubscription<E> subscribe(String name, Class<E> type, Consumer<? super E> handler,
+                                                                  Runnable resync) {
+        int capacity = Integer.getInteger(PROPERTY_PREFIX + "queueCapacity", 10000);
+        int maxAttempts = Integer.getInteger(PROPERTY_PREFIX + "maxAttempts", 5);
+        LOG.log(Level.INFO, "Subscribing {0} to {1}", new Object[]{name, type.getSimpleName()});
+        EventSubscription<E> subscription = new EventSubscription<>(name, type, handler, executor, capacity, maxAttempts, 50,
+                resync);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+    
+    /**
+     * Register a subscriber called on the committing thread, right after the
+     * transaction that published the event commits, instead of on the event
+     * executor. For subscribers that must not fall behind, such as the audit
+     * journal; the handler should be fast. Failures are retried and then held
+     * for redelivery like those of any other subscriber.
+     * @param name the subscriber name reported in metrics
+     * @param type the event type to receive, including subclasses
+     * @param handler the subscriber
+     * @param <E> the event type
+     * @return the subscription
+     */
+    public <E extends DomainEvent> EventSubscription<E> subscribeOnCommit(String name, Class<E> type, Consumer<? super E> handler) {
+        int capacity = Integer.getInteger(PROPERTY_PREFIX + "queueCapacity", 10000);
+        int maxAttempts = Integer.getInteger(PROPERTY_PREFIX + "maxAttempts", 5);
+        LOG.log(Level.INFO, "Subscribing {0} to {1} on commit", new Object[]{name, type.getSimpleName()});
+        EventSubscription<E> subscription = new EventSubscription<>(name, type, handler, null, capacity, maxAttempts, 50);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+    
+    /**
+     * Publish an event once the current transaction commits.
+     * Outside a JTA transaction the event is dispatched immediately.
+     * @param event the event
+     */
+    public void publish(DomainEvent event) {
+        LOG.log(Level.FINE, "Publishing {0}", event);
+        AfterCommit.run(txRegistry, () -> dispatch(event));
+    }
+    
+    /**
+     * Publish several events, in order, once the current transaction commits.
+     * @param events the events
+     */
+    public void publishAll(List<? extends DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        LOG.log(Level.FINE, "Publishing {0} events", events.size());
+        List<DomainEvent> copy = new ArrayList<>(events);
+        AfterCommit.run(txRegistry, () -> copy.forEach(this::dispatch));
+    }
+    
+    private void dispatch(DomainEvent event) {
+        for (EventSubscription<?> subscription : subscriptions) {
+            if (subscription.accepts(event)) {
+                subscription.offer(event);
+            }
+        }
+    }
+    
+    /**
+     * Retry the events every subscriber gave up on, along with those queued behind them.
+     */
+    @Schedule(hour = "*", minute = "*", persistent = false)
+    public void redeliver() {
+        for (EventSubscription<?> subscription : subscriptions) {
+            subscription.redeliver();
+        }
+    }
+    
+    /**
+     * Get the current metrics of every subscription.
+     * @return one entry per subscriber
+     */
+    public List<EventSubscriptionStats> getStats() {
+        LOG.log(Level.INFO, "Getting event subscription statistics");
+        List<EventSubscriptionStats> stats = new ArrayList<>(subscriptions.size());
+        for (EventSubscription<?> subscription : subscriptions) {
+            stats.add(subscription.getStats());
+        }
+        return stats;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+package edu.iit.itmd4515.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress and summary of one drop-box return ingestion.
+ * Counters are updated by the ingesting thread and read by progress polls,
+ * so all accessors are synchronized.
+ */
+public class DropBoxJob {
+    
+    /**
+     * Maximum number of unmatched scans kept for the summary.
+     */
+    public static final int MAX_UNMATCHED_REPORTED = 1000;
+    
+    /**
+     * State of the ingestion.
+     */
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+    
+    private final String jobId;
+    
+    private final LocalDate returnDate;
+    
+    private final LocalDateTime startedAt;
+    
+    private LocalDateTime finishedAt;
+    
+    private Status status = Status.RUNNING;
+    
+    private long scanned;
+    
+    private long returned;
+    
+    private long unmatched;
+    
+    private long duplicates;
+    
+    private long invalid;
+    
+    private long batches;
+    
+    private double fineTotal;
+    
+    private final List<String> unmatchedScans = new ArrayList<>();
+    
+    private String error;
+    
+    public DropBoxJob(String jobId, LocalDate returnDate) {
+        this.jobId = jobId;
+        this.returnDate = returnDate;
+        this.startedAt = LocalDateTime.now();
+    }
+    
+    // Business methods
+    
+    /**
+     * Record a scan line that is not a valid ISBN.
+     * @param line the scanned line
+     */
+    public synchronized void recordInvalid(String line) {
+        scanned++;
+        invalid++;
+        addUnmatched(line);
+    }
+    
+    /**
+     * Record the outcome of one applied batch.
+     * @param results one result per scan in the batch
+     */
+    public synchronized void recordBatch(List<BatchItemResult> results) {
+        batches++;
+        for (BatchItemResult result : results) {
+            scanned++;
+            switch (result.getStatus()) {
+                case RETURNED:
+                    returned++;
+                    if (result.getFineAmount() != null) {
+                        fineTotal += result.getFineAmount();
+                    }
+                    break;
+                case DUPLICATE:
+                    duplicates++;
+                    break;
+                default:
+                    unmatched++;
+                    addUnmatched(result.getItem());
+                    break;
+            }
+        }
+    }
+    
+    public synchronized void complete() {
+        status = Status.COMPLETED;
+        finishedAt = LocalDateTime.now();
+    }
+    
+    public synchronized void fail(String error) {
+        status = Status.FAILED;
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Get the throughput so far.
+     * @return scans applied per second
+     */
+    public synchronized double getScansPerSecond() {
+        long millis = Duration.between(startedAt, finishedAt == null ? LocalDateTime.now() : finishedAt).toMillis();
+        return millis == 0 ? scanned : scanned * 1000.0 / millis;
+    }
+    
+    private void addUnmatched(String item) {
+        if (unmatchedScans.size() < MAX_UNMATCHED_REPORTED) {
+            unmatchedScans.add(item);
+        }
+    }
+    
+    // Getters
+    
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public synchronized LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public synchronized Status getStatus() {
+        return status;
+    }
+    
+    public synchronized long getScanned() {
+        return scanned;
+    }
+    
+    public synchronized long getReturned() {
+        return returned;
+    }
+    
+    public synchronized long getUnmatched() {
+        return unmatched;
+    }
+    
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+    
+    public synchronized long getInvalid() {
+        return invalid;
+    }
+    
+    public synchronized long getBatches() {
+        return batches;
+    }
+    
+    public synchronized double getFineTotal() {
+        return fineTotal;
+    }
+    
+    public synchronized List<String> getUnmatchedScans() {
+        return new ArrayList<>(unmatchedScans);
+    }
+    
+    public synchronized String getError() {
+        return error;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "DropBoxJob{" +
+                "jobId='" + jobId + '\'' +
+                ", status=" + status +
+                ", scanned=" + scanned +
+                ", returned=" + returned +
+                ", unmatched=" + unmatched +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Singleton EJB ingesting drop-box returns scanned in bulk.
+ * The scan stream is read one line per ISBN and cut into chunks; each chunk is
+ * resolved to active loans and returned in its own transaction by
+ * {@link CheckoutService#returnScanned}. The next chunk is parsed while the
+ * previous one is applied on the managed executor, so reading the stream and
+ * writing to the database overlap. Progress of each ingestion is kept in a
+ * {@link DropBoxJob} that can be polled while it runs.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class DropBoxService {
+    
+    private static final Logger LOG = Logger.getLogger(DropBoxService.class.getName());
+    
+    /**
+     * Number of scans resolved and returned per transaction.
+     */
+    public static final int CHUNK_SIZE = 500;
+    
+    /**
+     * Number of finished jobs kept for progress queries.
+     */
+    public static final int MAX_FINISHED_JOBS = 50;
+    
+    // Same format as Book.isbn once hyphens and spaces are dropped
+    private static final Pattern ISBN = Pattern.compile("\\d{10,13}");
+    
+    @EJB
+    public CheckoutService checkoutService;
+    
+    @Resource
+    public ManagedExecutorService executor;
+    
+    private final Map<String, DropBoxJob> jobs = new ConcurrentHashMap<>();
+    
+    /**
+     * Ingest a newline-delimited stream of scanned ISBNs.
+     * Blank lines are skipped and hyphens and spaces inside a scan are ignored.
+     * A failed chunk stops the ingestion; chunks applied before it stay committed.
+     * @param jobId the job ID to report progress under, or null to generate one
+     * @param scans the scan stream
+     * @param returnDate the date the books were dropped off, used for fines
+     * @return the finished job
+     */
+    public DropBoxJob ingest(String jobId, Reader scans, LocalDate returnDate) {
+        DropBoxJob job = new DropBoxJob(jobId == null || jobId.isBlank() ? UUID.randomUUID().toString() : jobId,
+                returnDate);
+        if (jobs.putIfAbsent(job.getJobId(), job) != null) {
+            throw new IllegalArgumentException("Drop-box job already exists: " + job.getJobId());
+        }
+        LOG.log(Level.INFO, "Starting drop-box ingestion {0} for {1}", new Object[]{job.getJobId(), returnDate});
+        
+        Set<String> seen = new HashSet<>();
+        Future<?> inFlight = CompletableFuture.completedFuture(null);
+        try (BufferedReader reader = new BufferedReader(scans)) {
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String isbn = line.replace("-", "").replace(" ", "").trim();
+                if (isbn.isEmpty()) {
+                    continue;
+                }
+                if (!ISBN.matcher(isbn).matches()) {
+                    job.recordInvalid(line.trim());
+                    continue;
+                }
+                if (!seen.add(isbn)) {
+                    // Same book scanned twice, possibly across chunks
+                    job.recordBatch(List.of(BatchItemResult.of(isbn, BatchItemResult.Status.DUPLICATE)));
+                    continue;
+                }
+                chunk.add(isbn);
+                if (chunk.size() == CHUNK_SIZE) {
+                    inFlight = submit(job, chunk, inFlight);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                inFlight = submit(job, chunk, inFlight);
+            }
+            await(inFlight);
+            job.complete();
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.SEVERE, "Drop-box ingestion " + job.getJobId() + " failed", e);
+            job.fail(e.getMessage());
+        } finally {
+            evictFinishedJobs();
+        }
+        LOG.log(Level.INFO, "Drop-box ingestion {0} finished: {1} scans, {2} returned, {3} unmatched ({4} scans/s)",
+                new Object[]{job.getJobId(), job.getScanned(), job.getReturned(), job.getUnmatched(),
+                    Math.round(job.getScansPerSecond())});
+        return job;
+    }
+    
+    /**
+     * Get the progress of a running or recently finished ingestion.
+     * @param jobId the job ID
+     * @return the job, or null if unknown
+     */
+    public DropBoxJob findJob(String jobId) {
+        LOG.log(Level.INFO, "Finding drop-box job: {0}", jobId);
+        return jobs.get(jobId);
+    }
+    
+    /**
+     * Wait for the previous chunk, then apply the next one.
+     * Runs on the managed executor when available so the caller can parse ahead.
+     */
+    private Future<?> submit(DropBoxJob job, List<String> chunk, Future<?> previous) {
+        await(previous);
+        Runnable apply = () -> job.recordBatch(checkoutService.returnScanned(chunk, job.getReturnDate()));
+        if (executor == null) {
+            apply.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        return executor.submit(apply);
+    }
+    
+    private void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while applying drop-box returns", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+    }
+    
+    private void evictFinishedJobs() {
+        List<DropBoxJob> finished = new ArrayList<>();
+        for (DropBoxJob job : jobs.values()) {
+            if (job.getStatus() != DropBoxJob.Status.RUNNING) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() > MAX_FINISHED_JOBS) {
+            finished.sort((a, b) -> a.getFinishedAt().compareTo(b.getFinishedAt()));
+            for (DropBoxJob job : finished.subList(0, finished.size() - MAX_FINISHED_JOBS)) {
+                jobs.remove(job.getJobId());
+            }
+        }
+    }
+}
\ No newline at end of file
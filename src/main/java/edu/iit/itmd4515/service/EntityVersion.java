@@ -0,0 +1,34 @@
+package edu.iit.itmd4515.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version and last modification time of an entity, read without loading the entity.
+ */
+public class EntityVersion {
+    
+    private final Long version;
+    
+    private final LocalDateTime lastModified;
+    
+    public EntityVersion(Long version, LocalDateTime lastModified) {
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+    
+    @Override
+    public String toString() {
+        return "EntityVersion{" +
+                "version=" + version +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
\ No newline at end of file
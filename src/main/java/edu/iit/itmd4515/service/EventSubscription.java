@@ -0,0 +1,281 @@
+package edu.iit.itmd4515.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One subscriber's queue on the {@link DomainEventBus}.
+ * Events wait in a lock-free queue and are handed to the handler one at a
+ * time, in publication order, by a drain task on the executor; at most one
+ * drain task per subscription runs at a time. A failing handler is retried with
+ * exponential backoff on the drain thread. An event that still fails after the
+ * last attempt stays at the head of the queue, holding back the events behind
+ * it, until {@link #redeliver()} is called, so delivery is at-least-once and in
+ * order and handlers must be idempotent. The queue is bounded: an event
+ * offered while it is full is dropped, counted as overflowed, rather than
+ * blocking the publisher or growing the heap, and the subscription is marked
+ * for resync. Once the queue has drained, the subscriber's resync task, if it
+ * has one, rebuilds its state from the database; a subscriber without one
+ * stays marked, which the metrics report.
+ * @param <E> the event type the subscriber receives
+ */
+public class EventSubscription<E extends DomainEvent> {
+    
+    private static final Logger LOG = Logger.getLogger(EventSubscription.class.getName());
+    
+    /**
+     * Maximum number of events one drain task handles before yielding the thread.
+     */
+    static final int DRAIN_BATCH = 256;
+    
+    private final String name;
+    
+    private final Class<E> type;
+    
+    private final Consumer<? super E> handler;
+    
+    private final Executor executor;
+    
+    private final int capacity;
+    
+    private final int maxAttempts;
+    
+    private final long baseDelayMillis;
+    
+    private final Runnable resync;
+    
+    private final ConcurrentLinkedQueue<Pending<E>> queue = new ConcurrentLinkedQueue<>();
+    
+    private final AtomicInteger depth = new AtomicInteger();
+    
+    private final AtomicBoolean draining = new AtomicBoolean();
+    
+    // Set when the head event exhausted its attempts, cleared by redeliver()
+    private final AtomicBoolean stalled = new AtomicBoolean();
+    
+    // Set when an event was dropped, cleared when the resync task starts
+    private final AtomicBoolean resyncPending = new AtomicBoolean();
+    
+    private final LongAdder published = new LongAdder();
+    
+    private final LongAdder delivered = new LongAdder();
+    
+    private final LongAdder retried = new LongAdder();
+    
+    private final LongAdder failed = new LongAdder();
+    
+    private final LongAdder overflowed = new LongAdder();
+    
+    private final LongAdder lagNanos = new LongAdder();
+    
+    /**
+     * Create a subscription.
+     * @param name the subscriber name reported in metrics
+     * @param type the event type delivered, including subclasses
+     * @param handler the subscriber
+     * @param executor the executor running the drain tasks, or null to deliver on the publishing thread
+     *                 without backoff between attempts
+     * @param capacity most events queued; further events are dropped
+     * @param maxAttempts delivery attempts per event, including the first
+     * @param baseDelayMillis backoff before the first retry, doubled on each further retry
+     */
+    public EventSubscription(String name, Class<E> type, Consumer<? super E> handler, Executor executor,
+                             int capacity, int maxAttempts, long baseDelayMillis) {
+        this(name, type, handler, executor, capacity, maxAttempts, baseDelayMillis, null);
+    }
+    
+    /**
+     * Create a subscription that can rebuild its state after dropping events.
+     * @param name the subscriber name reported in metrics
+     * @param type the event type delivered, including subclasses
+     * @param handler the subscriber
+     * @param executor the executor running the drain tasks, or null to deliver on the publishing thread
+     *                 without backoff between attempts
+     * @param capacity most events queued; further events are dropped
+     * @param maxAttempts delivery attempts per event, including the first
+     * @param baseDelayMillis backoff before the first retry, doubled on each further retry
+     * @param resync rebuilds the subscriber's state from the database after events were dropped,
+     *               run on the drain thread once the queue is empty, or null if it cannot
+     */
+    public EventSubscription(String name, Class<E> type, Consumer<? super E> handler, Executor executor,
+                             int capacity, int maxAttempts, long baseDelayMillis, Runnable resync) {
+        if (capacity < 1 || maxAttempts < 1 || baseDelayMillis < 0) {
+            throw new IllegalArgumentException("Invalid subscription settings for " + name);
+        }
+        this.name = name;
+        this.type = type;
+        this.handler = handler;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.resync = resync;
+    }
+    
+    /**
+     * Check whether the subscriber receives an event.
+     * @param event the event
+     * @return true if the event is of the subscribed type
+     */
+    public boolean accepts(DomainEvent event) {
+        return type.isInstance(event);
+    }
+    
+    /**
+     * Queue an event for delivery, or drop it if the queue is full; never blocks
+     * and never runs the handler on the calling thread unless there is no executor.
+     * @param event an event of the subscribed type
+     */
+    public void offer(DomainEvent event) {
+        E typed = type.cast(event);
+        published.increment();
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            overflowed.increment();
+            if (resyncPending.compareAndSet(false, true)) {
+                LOG.log(resync == null ? Level.SEVERE : Level.WARNING,
+                        "Subscription {0} is full at {1} events, dropping events until it resyncs",
+                        new Object[]{name, capacity});
+            }
+            return;
+        }
+        queue.offer(new Pending<>(typed, System.nanoTime()));
+        schedule();
+    }
+    
+    /**
+     * Retry the event that exhausted its attempts, and deliver the events queued behind it,
+     * or retry a resync that failed. Called periodically by the {@link DomainEventBus}.
+     */
+    public void redeliver() {
+        if (stalled.compareAndSet(true, false)) {
+            LOG.log(Level.INFO, "Redelivering {0} events of subscription {1}", new Object[]{depth.get(), name});
+            schedule();
+        } else if (resync != null && resyncPending.get()) {
+            schedule();
+        }
+    }
+    
+    private void schedule() {
+        if (stalled.get() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        if (executor == null) {
+            drain();
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // The events stay queued and the next offer schedules a drain again
+            draining.set(false);
+            LOG.log(Level.WARNING, "Event executor rejected drain of subscription {0}", name);
+        }
+    }
+    
+    private void drain() {
+        try {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Pending<E> pending = queue.peek();
+                if (pending == null) {
+                    break;
+                }
+                if (!deliver(pending.event, pending.enqueuedAt)) {
+                    stalled.set(true);
+                    break;
+                }
+                queue.poll();
+                depth.decrementAndGet();
+            }
+            if (queue.isEmpty() && !stalled.get()) {
+                resync();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // An event queued after the last poll but before the flag was cleared would otherwise wait
+        if (!queue.isEmpty()) {
+            schedule();
+        }
+    }
+    
+    private void resync() {
+        // Cleared before running, so events dropped during the resync call for another one
+        if (resync == null || !resyncPending.compareAndSet(true, false)) {
+            return;
+        }
+        LOG.log(Level.INFO, "Resyncing subscription {0} after dropped events", name);
+        try {
+            resync.run();
+        } catch (RuntimeException e) {
+            resyncPending.set(true);
+            LOG.log(Level.SEVERE, "Error resyncing subscription " + name + ", retrying next minute", e);
+        }
+    }
+    
+    private boolean deliver(E event, long enqueuedAt) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                handler.accept(event);
+                delivered.increment();
+                lagNanos.add(System.nanoTime() - enqueuedAt);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    failed.increment();
+                    LOG.log(Level.SEVERE, "Subscriber " + name + " failed on " + event + " after " + attempt
+                            + " attempts, holding it for redelivery", e);
+                    return false;
+                }
+                retried.increment();
+                LOG.log(Level.WARNING, "Subscriber {0} failed on {1}, retrying: {2}",
+                        new Object[]{name, event, e.getMessage()});
+                if (executor == null) {
+                    continue;
+                }
+                try {
+                    Thread.sleep(baseDelayMillis << (attempt - 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Take a snapshot of the subscription's gauges and counters.
+     * @return the current statistics
+     */
+    public EventSubscriptionStats getStats() {
+        Pending<E> oldest = queue.peek();
+        long done = delivered.sum();
+        return new EventSubscriptionStats(name, type.getSimpleName(), capacity, depth.get(),
+                oldest == null ? 0.0 : (System.nanoTime() - oldest.enqueuedAt) / 1_000_000.0,
+                done == 0 ? 0.0 : lagNanos.sum() / 1_000_000.0 / done,
+                published.sum(), done, retried.sum(), failed.sum(), overflowed.sum(), resyncPending.get());
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    private static final class Pending<E> {
+        
+        private final E event;
+        
+        private final long enqueuedAt;
+        
+        private Pending(E event, long enqueuedAt) {
+            this.event = event;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
\ No newline at end of file
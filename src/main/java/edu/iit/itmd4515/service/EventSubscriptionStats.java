@@ -0,0 +1,153 @@
+package edu.iit.itmd4515.service;
+
+/**
+ * Point-in-time metrics of one {@link EventSubscription}.
+ * The lag of a subscriber is its queue depth and the age of its oldest queued event.
+ */
+public class EventSubscriptionStats {
+    
+    private String name;
+    
+    private String eventType;
+    
+    private int capacity;
+    
+    private int queueDepth;
+    
+    private double oldestPendingMillis;
+    
+    private double averageLagMillis;
+    
+    private long published;
+    
+    private long delivered;
+    
+    private long retried;
+    
+    private long failed;
+    
+    private long overflowed;
+    
+    private boolean resyncPending;
+    
+    public EventSubscriptionStats() {
+    }
+    
+    public EventSubscriptionStats(String name, String eventType, int capacity, int queueDepth,
+                                  double oldestPendingMillis, double averageLagMillis, long published,
+                                  long delivered, long retried, long failed, long overflowed,
+                                  boolean resyncPending) {
+        this.name = name;
+        this.eventType = eventType;
+        this.capacity = capacity;
+        this.queueDepth = queueDepth;
+        this.oldestPendingMillis = oldestPendingMillis;
+        this.averageLagMillis = averageLagMillis;
+        this.published = published;
+        this.delivered = delivered;
+        this.retried = retried;
+        this.failed = failed;
+        this.overflowed = overflowed;
+        this.resyncPending = resyncPending;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getEventType() {
+        return eventType;
+    }
+    
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+    
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+    
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+    
+    public double getOldestPendingMillis() {
+        return oldestPendingMillis;
+    }
+    
+    public void setOldestPendingMillis(double oldestPendingMillis) {
+        this.oldestPendingMillis = oldestPendingMillis;
+    }
+    
+    public double getAverageLagMillis() {
+        return averageLagMillis;
+    }
+    
+    public void setAverageLagMillis(double averageLagMillis) {
+        this.averageLagMillis = averageLagMillis;
+    }
+    
+    public long getPublished() {
+        return published;
+    }
+    
+    public void setPublished(long published) {
+        this.published = published;
+    }
+    
+    public long getDelivered() {
+        return delivered;
+    }
+    
+    public void setDelivered(long delivered) {
+        this.delivered = delivered;
+    }
+    
+    public long getRetried() {
+        return retried;
+    }
+    
+    public void setRetried(long retried) {
+        this.retried = retried;
+    }
+    
+    public long getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+    
+    public long getOverflowed() {
+        return overflowed;
+    }
+    
+    public void setOverflowed(long overflowed) {
+        this.overflowed = overflowed;
+    }
+    
+    /**
+     * Check whether events were dropped since the subscriber last resynced.
+     * @return true while the subscriber's state may be missing dropped events
+     */
+    public boolean isResyncPending() {
+        return resyncPending;
+    }
+    
+    public void setResyncPending(boolean resyncPending) {
+        this.resyncPending = resyncPending;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.FineAccrualRun;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Singleton EJB running the nightly overdue fine accrual.
+ * The run itself holds no transaction; every ID chunk is committed separately
+ * by FineAccrualService, and the run is recorded in fine_accrual_runs.
+ * The singleton's write lock keeps a manual run from overlapping the nightly one.
+ */
+@Singleton
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class FineAccrualJob {
+    
+    private static final Logger LOG = Logger.getLogger(FineAccrualJob.class.getName());
+    
+    @EJB
+    public FineAccrualService fineAccrualService;
+    
+    /**
+     * Accrue fines every night shortly after midnight.
+     */
+    @Schedule(hour = "0", minute = "15", persistent = false)
+    public void accrueNightly() {
+        accrueFines(LocalDate.now());
+    }
+    
+    /**
+     * Accrue fines for all loans overdue on a date.
+     * @param today the accrual date
+     * @return the recorded run
+     */
+    public FineAccrualRun accrueFines(LocalDate today) {
+        LOG.log(Level.INFO, "Starting fine accrual for: {0}", today);
+        FineAccrualRun run = fineAccrualService.create(new FineAccrualRun(today, LocalDateTime.now()));
+        try {
+            long[] range = fineAccrualService.findOverdueIdRange(today);
+            if (range != null) {
+                for (long fromId = range[0]; fromId <= range[1]; fromId += FineAccrualService.CHUNK_SIZE) {
+                    long toId = Math.min(fromId + FineAccrualService.CHUNK_SIZE - 1, range[1]);
+                    run.setRowsUpdated(run.getRowsUpdated() + fineAccrualService.accrueChunk(today, fromId, toId));
+                    run.setChunks(run.getChunks() + 1);
+                }
+                fineAccrualService.evictCachedLoans();
+            }
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Error during fine accrual", e);
+            String message = String.valueOf(e.getMessage());
+            run.setError(message.length() > 500 ? message.substring(0, 500) : message);
+        }
+        run.setFinishedAt(LocalDateTime.now());
+        run = fineAccrualService.update(run);
+        LOG.log(Level.INFO, "Fine accrual finished: {0} loans updated in {1} chunks ({2} ms)",
+                new Object[]{run.getRowsUpdated(), run.getChunks(), run.getDurationMillis()});
+        return run;
+    }
+}
\ No newline at end of file
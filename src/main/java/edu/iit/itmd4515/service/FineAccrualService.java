@@ -0,0 +1,106 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.BookLoan;
+import edu.iit.itmd4515.domain.ChangeLogEntry;
+import edu.iit.itmd4515.domain.FineAccrualRun;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stateless EJB service for set-based overdue fine accrual.
+ * Fines are written with native UPDATE statements over ID ranges, one
+ * transaction per range, so row locks are only held for one chunk at a time.
+ * Loans whose fine changes are recorded in the change log in the same transaction.
+ */
+@Stateless
+public class FineAccrualService extends AbstractService<FineAccrualRun> {
+    
+    private static final Logger LOG = Logger.getLogger(FineAccrualService.class.getName());
+    
+    /**
+     * Width of the loan ID range updated in one transaction.
+     */
+    public static final int CHUNK_SIZE = 5000;
+    
+    // Mirrors Library.calculateFine; 999999.99 is the largest fine book_loans.fine_amount accepts
+    private static final String FINE_EXPR =
+        "ROUND(LEAST(COALESCE(l.fine_cap, 999999.99), " +
+        "GREATEST(0, DATEDIFF(?1, bl.due_date) - l.fine_grace_days) * l.fine_rate_per_day), 2)";
+    
+    // Only loans whose fine actually moves are written and published in the change feed
+    private static final String ACCRUE_WHERE =
+        "WHERE bl.id BETWEEN ?2 AND ?3 AND bl.return_date IS NULL AND bl.due_date < ?1 " +
+        "AND NOT (bl.fine_amount <=> " + FINE_EXPR + ")";
+    
+    private static final String ACCRUE_SQL =
+        "UPDATE book_loans bl JOIN libraries l ON l.id = bl.library_id " +
+        "SET bl.fine_amount = " + FINE_EXPR + " " + ACCRUE_WHERE;
+    
+    private static final String CHANGED_IDS_SQL =
+        "SELECT bl.id FROM book_loans bl JOIN libraries l ON l.id = bl.library_id " + ACCRUE_WHERE;
+    
+    public FineAccrualService() {
+        super(FineAccrualRun.class);
+    }
+    
+    /**
+     * Find the lowest and highest IDs of loans overdue on a date.
+     * @param today the accrual date
+     * @return two-element array of min and max ID, or null if nothing is overdue
+     */
+    public long[] findOverdueIdRange(LocalDate today) {
+        LOG.log(Level.INFO, "Finding overdue loan ID range for: {0}", today);
+        Object[] range = em.createQuery(
+            "SELECT MIN(bl.id), MAX(bl.id) FROM BookLoan bl WHERE bl.returnDate IS NULL AND bl.dueDate < :today",
+            Object[].class)
+            .setParameter("today", today)
+            .getSingleResult();
+        if (range[0] == null) {
+            return null;
+        }
+        return new long[]{((Number) range[0]).longValue(), ((Number) range[1]).longValue()};
+    }
+    
+    /**
+     * Accrue fines for the overdue loans in one ID range, in its own transaction.
+     * @param today the accrual date
+     * @param fromId first loan ID of the range, inclusive
+     * @param toId last loan ID of the range, inclusive
+     * @return number of loans whose fine changed
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int accrueChunk(LocalDate today, long fromId, long toId) {
+        LOG.log(Level.FINE, "Accruing fines for loan IDs {0} to {1}", new Object[]{fromId, toId});
+        recordChanges(BookLoan.class, ChangeLogEntry.Operation.UPDATE, CHANGED_IDS_SQL, today, fromId, toId);
+        return em.createNativeQuery(ACCRUE_SQL)
+            .setParameter(1, today)
+            .setParameter(2, fromId)
+            .setParameter(3, toId)
+            .executeUpdate();
+    }
+    
+    /**
+     * Drop cached loans after a run, since native updates bypass the shared cache.
+     */
+    public void evictCachedLoans() {
+        LOG.log(Level.INFO, "Evicting cached book loans after fine accrual");
+        em.getEntityManagerFactory().getCache().evict(BookLoan.class);
+    }
+    
+    /**
+     * Find the most recent accrual runs.
+     * @param limit maximum number of runs to return
+     * @return runs, newest first
+     */
+    public List<FineAccrualRun> findRecentRuns(int limit) {
+        LOG.log(Level.INFO, "Finding {0} most recent fine accrual runs", limit);
+        return em.createNamedQuery("FineAccrualRun.findRecent", FineAccrualRun.class)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package edu.iit.itmd4515.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * One loan transaction as stored in the {@link LoanJournal}.
+ */
+public class JournalRecord {
+    
+    /**
+     * What happened to the loan.
+     */
+    public enum Operation {
+        CREATED,
+        UPDATED,
+        RETURNED,
+        DELETED
+    }
+    
+    private final long sequence;
+    private final Instant timestamp;
+    private final Operation operation;
+    private final Long loanId;
+    private final Long bookId;
+    private final Long borrowerId;
+    private final Long libraryId;
+    private final LocalDate dueDate;
+    private final LocalDate returnDate;
+    private final Double fineAmount;
+    
+    public JournalRecord(long sequence, Instant timestamp, Operation operation, Long loanId, Long bookId,
+                         Long borrowerId, Long libraryId, LocalDate dueDate, LocalDate returnDate, Double fineAmount) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.operation = operation;
+        this.loanId = loanId;
+        this.bookId = bookId;
+        this.borrowerId = borrowerId;
+        this.libraryId = libraryId;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+        this.fineAmount = fineAmount;
+    }
+    
+    /**
+     * Build the record of a loan event; the journal assigns the sequence number on append.
+     * @param event the loan event
+     * @return the unnumbered record
+     */
+    public static JournalRecord of(DomainEvent.LoanEvent event) {
+        Operation operation;
+        Double fine = null;
+        if (event instanceof DomainEvent.LoanCreated) {
+            operation = Operation.CREATED;
+        } else if (event instanceof DomainEvent.LoanReturned) {
+            operation = Operation.RETURNED;
+            fine = ((DomainEvent.LoanReturned) event).getFineAmount();
+        } else if (event instanceof DomainEvent.LoanDeleted) {
+            operation = Operation.DELETED;
+        } else {
+            operation = Operation.UPDATED;
+        }
+        Instant occurredAt = event.getOccurredAt().atZone(ZoneId.systemDefault()).toInstant();
+        return new JournalRecord(0, occurredAt, operation, event.getLoanId(), event.getBookId(),
+                event.getBorrowerId(), event.getLibraryId(), event.getDueDate(), event.getReturnDate(), fine);
+    }
+    
+    // Getters
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+    
+    public Operation getOperation() {
+        return operation;
+    }
+    
+    public Long getLoanId() {
+        return loanId;
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public Long getBorrowerId() {
+        return borrowerId;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+    
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+    
+    public Double getFineAmount() {
+        return fineAmount;
+    }
+    
+    @Override
+    public String toString() {
+        return "JournalRecord{" +
+                "sequence=" + sequence +
+                ", operation=" + operation +
+                ", loanId=" + loanId +
+                ", bookId=" + bookId +
+                ", borrowerId=" + borrowerId +
+                ", returnDate=" + returnDate +
+                '}';
+    }
+}
\ No newline at end of file
@@ -1,7 +1,9 @@
 package edu.iit.itmd4515.service;
 
 import edu.iit.itmd4515.domain.Librarian;
+import edu.iit.itmd4515.domain.LoanCounter.Scope;
 import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
 import jakarta.persistence.TypedQuery;
 import java.util.List;
 import java.util.logging.Level;
@@ -16,10 +18,21 @@ public class LibrarianService extends AbstractService<Librarian> {
     
     private static final Logger LOG = Logger.getLogger(LibrarianService.class.getName());
     
+    @Inject
+    public LoanCounterService loanCounterService;
+    
     public LibrarianService() {
         super(Librarian.class);
     }
     
+    /**
+     * Librarian changes are published in the change feed.
+     */
+    @Override
+    protected boolean isChangeLogged() {
+        return true;
+    }
+    
     /**
      * Find librarians by last name.
      * @param lastName the last name to search for
@@ -74,9 +87,6 @@ public class LibrarianService extends AbstractService<Librarian> {
      */
     public long countProcessedLoans(Long librarianId) {
         LOG.log(Level.INFO, "Counting processed loans for librarian ID: {0}", librarianId);
-        TypedQuery<Long> query = em.createQuery(
-            "SELECT COUNT(bl) FROM BookLoan bl WHERE bl.librarian.id = :librarianId", Long.class);
-        query.setParameter("librarianId", librarianId);
-        return query.getSingleResult();
+        return loanCounterService.getTotalLoans(Scope.LIBRARIAN, librarianId);
     }
 }
\ No newline at end of file
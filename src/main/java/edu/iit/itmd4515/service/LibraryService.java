@@ -1,9 +1,15 @@
 package edu.iit.itmd4515.service;
 
 import edu.iit.itmd4515.domain.Library;
+import edu.iit.itmd4515.domain.LoanCounter.Scope;
 import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
 import jakarta.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,10 +22,21 @@ public class LibraryService extends AbstractService<Library> {
     
     private static final Logger LOG = Logger.getLogger(LibraryService.class.getName());
     
+    @Inject
+    public LoanCounterService loanCounterService;
+    
     public LibraryService() {
         super(Library.class);
     }
     
+    /**
+     * Library changes are published in the change feed.
+     */
+    @Override
+    protected boolean isChangeLogged() {
+        return true;
+    }
+    
     /**
      * Find libraries by name.
      * @param name the name to search for
@@ -63,10 +80,7 @@ public class LibraryService extends AbstractService<Library> {
      */
     public long countActiveLoans(Long libraryId) {
         LOG.log(Level.INFO, "Counting active loans for library ID: {0}", libraryId);
-        TypedQuery<Long> query = em.createQuery(
-            "SELECT COUNT(bl) FROM BookLoan bl WHERE bl.library.id = :libraryId AND bl.returnDate IS NULL", Long.class);
-        query.setParameter("libraryId", libraryId);
-        return query.getSingleResult();
+        return loanCounterService.getActiveLoans(Scope.LIBRARY, libraryId);
     }
     
     /**
@@ -76,9 +90,84 @@ public class LibraryService extends AbstractService<Library> {
      */
     public long countTotalLoans(Long libraryId) {
         LOG.log(Level.INFO, "Counting total loans for library ID: {0}", libraryId);
-        TypedQuery<Long> query = em.createQuery(
-            "SELECT COUNT(bl) FROM BookLoan bl WHERE bl.library.id = :libraryId", Long.class);
-        query.setParameter("libraryId", libraryId);
-        return query.getSingleResult();
+        return loanCounterService.getTotalLoans(Scope.LIBRARY, libraryId);
+    }
+    
+    /**
+     * Compute loan statistics for every library with one grouped query over book_loans
+     * and one over book_loans_archive, which only adds to the totals and fines.
+     * @param from earliest loan date to include, or null for no lower bound
+     * @param to latest loan date to include, or null for no upper bound
+     * @return statistics per library, ordered by library name
+     */
+    public List<LibraryStatistics> statistics(LocalDate from, LocalDate to) {
+        LOG.log(Level.INFO, "Computing library statistics from {0} to {1}", new Object[]{from, to});
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        // The date range goes in the ON clause so libraries without matching loans still appear
+        StringBuilder jpql = new StringBuilder(
+            "SELECT l.id, l.name, l.capacity, " +
+            "SUM(CASE WHEN bl.id IS NOT NULL AND bl.returnDate IS NULL THEN 1 ELSE 0 END), " +
+            "COUNT(bl.id), " +
+            "SUM(CASE WHEN bl.returnDate IS NULL AND bl.dueDate < :today THEN 1 ELSE 0 END), " +
+            "SUM(bl.fineAmount) " +
+            "FROM Library l LEFT JOIN l.bookLoans bl");
+        if (from != null && to != null) {
+            jpql.append(" ON bl.loanDate BETWEEN :from AND :to");
+        } else if (from != null) {
+            jpql.append(" ON bl.loanDate >= :from");
+        } else if (to != null) {
+            jpql.append(" ON bl.loanDate <= :to");
+        }
+        jpql.append(" GROUP BY l.id, l.name, l.capacity ORDER BY l.name");
+        
+        TypedQuery<Object[]> query = em.createQuery(jpql.toString(), Object[].class);
+        query.setParameter("today", LocalDate.now());
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        
+        StringBuilder archivedJpql = new StringBuilder(
+            "SELECT al.library.id, COUNT(al), SUM(al.fineAmount) FROM ArchivedLoan al");
+        if (from != null && to != null) {
+            archivedJpql.append(" WHERE al.loanDate BETWEEN :from AND :to");
+        } else if (from != null) {
+            archivedJpql.append(" WHERE al.loanDate >= :from");
+        } else if (to != null) {
+            archivedJpql.append(" WHERE al.loanDate <= :to");
+        }
+        archivedJpql.append(" GROUP BY al.library.id");
+        TypedQuery<Object[]> archivedQuery = em.createQuery(archivedJpql.toString(), Object[].class);
+        if (from != null) {
+            archivedQuery.setParameter("from", from);
+        }
+        if (to != null) {
+            archivedQuery.setParameter("to", to);
+        }
+        Map<Long, Object[]> archived = new HashMap<>();
+        for (Object[] row : archivedQuery.getResultList()) {
+            archived.put((Long) row[0], row);
+        }
+        
+        List<LibraryStatistics> statistics = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            Object[] archivedRow = archived.getOrDefault((Long) row[0], new Object[3]);
+            statistics.add(new LibraryStatistics((Long) row[0], (String) row[1], (Integer) row[2],
+                toLong(row[3]), toLong(row[4]) + toLong(archivedRow[1]), toLong(row[5]),
+                toDouble(row[6]) + toDouble(archivedRow[2])));
+        }
+        return statistics;
+    }
+    
+    private static long toLong(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+    
+    private static double toDouble(Object value) {
+        return value == null ? 0.0 : ((Number) value).doubleValue();
     }
 }
\ No newline at end of file
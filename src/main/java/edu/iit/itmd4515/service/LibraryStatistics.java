@@ -0,0 +1,119 @@
+package edu.iit.itmd4515.service;
+
+import java.time.LocalDate;
+
+/**
+ * Loan statistics for one library.
+ * Produced for every library at once by {@link LibraryService#statistics(LocalDate, LocalDate)}.
+ */
+public class LibraryStatistics {
+    
+    private Long libraryId;
+    
+    private String libraryName;
+    
+    private Integer capacity;
+    
+    private long activeLoans;
+    
+    private long totalLoans;
+    
+    private long overdueLoans;
+    
+    private double fineTotal;
+    
+    private Double capacityUtilization;
+    
+    public LibraryStatistics() {
+    }
+    
+    public LibraryStatistics(Long libraryId, String libraryName, Integer capacity,
+                             long activeLoans, long totalLoans, long overdueLoans, double fineTotal) {
+        this.libraryId = libraryId;
+        this.libraryName = libraryName;
+        this.capacity = capacity;
+        this.activeLoans = activeLoans;
+        this.totalLoans = totalLoans;
+        this.overdueLoans = overdueLoans;
+        this.fineTotal = fineTotal;
+        // Share of the library's capacity taken up by books currently out on loan
+        this.capacityUtilization = capacity == null || capacity == 0 ? null : (double) activeLoans / capacity;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public void setLibraryId(Long libraryId) {
+        this.libraryId = libraryId;
+    }
+    
+    public String getLibraryName() {
+        return libraryName;
+    }
+    
+    public void setLibraryName(String libraryName) {
+        this.libraryName = libraryName;
+    }
+    
+    public Integer getCapacity() {
+        return capacity;
+    }
+    
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+    
+    public long getActiveLoans() {
+        return activeLoans;
+    }
+    
+    public void setActiveLoans(long activeLoans) {
+        this.activeLoans = activeLoans;
+    }
+    
+    public long getTotalLoans() {
+        return totalLoans;
+    }
+    
+    public void setTotalLoans(long totalLoans) {
+        this.totalLoans = totalLoans;
+    }
+    
+    public long getOverdueLoans() {
+        return overdueLoans;
+    }
+    
+    public void setOverdueLoans(long overdueLoans) {
+        this.overdueLoans = overdueLoans;
+    }
+    
+    public double getFineTotal() {
+        return fineTotal;
+    }
+    
+    public void setFineTotal(double fineTotal) {
+        this.fineTotal = fineTotal;
+    }
+    
+    public Double getCapacityUtilization() {
+        return capacityUtilization;
+    }
+    
+    public void setCapacityUtilization(Double capacityUtilization) {
+        this.capacityUtilization = capacityUtilization;
+    }
+    
+    @Override
+    public String toString() {
+        return "LibraryStatistics{" +
+                "libraryId=" + libraryId +
+                ", libraryName='" + libraryName + '\'' +
+                ", activeLoans=" + activeLoans +
+                ", totalLoans=" + totalLoans +
+                ", overdueLoans=" + overdueLoans +
+                ", fineTotal=" + fineTotal +
+                ", capacityUtilization=" + capacityUtilization +
+                '}';
+    }
+}
\ No newline at end of file
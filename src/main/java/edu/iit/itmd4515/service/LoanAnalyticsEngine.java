@@ -0,0 +1,408 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.service.LoanQuery.Dimension;
+import edu.iit.itmd4515.service.LoanQuery.Measure;
+import edu.iit.itmd4515.service.LoanQuery.Status;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs {@link LoanQuery} questions over a {@link LoanColumns} snapshot.
+ * The rows are split into partitions of {@link #PARTITION_SIZE} scanned in
+ * parallel on a fork-join pool. Each partition is processed a batch of
+ * {@link #BATCH_SIZE} rows at a time, one operator per column: the loan date
+ * filter fills a selection vector of matching rows, each further filter narrows
+ * it, then the group keys and measure values of the selected rows are computed
+ * into flat arrays and folded into the partition's groups. Tight loops over one
+ * primitive array each are what the JIT unrolls and vectorizes, and a batch
+ * stays in the CPU cache from the first operator to the last. Partition results
+ * are merged pairwise as the fork-join tasks complete.
+ * Group keys pack up to two int dimension values into a long; dates are turned
+ * into years and months with integer arithmetic, so the scan allocates nothing
+ * per row.
+ */
+public class LoanAnalyticsEngine {
+    
+    /**
+     * Rows one fork-join task scans without splitting further.
+     */
+    public static final int PARTITION_SIZE = 1 << 16;
+    
+    /**
+     * Rows each operator processes per call.
+     */
+    public static final int BATCH_SIZE = 1024;
+    
+    private final ForkJoinPool pool;
+    
+    /**
+     * Create an engine.
+     * @param pool the pool partitions are scanned on
+     */
+    public LoanAnalyticsEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Run a query.
+     * @param data the rows to query
+     * @param query the query
+     * @return the groups, ordered by their dimension values
+     * @throws IllegalArgumentException if the query is invalid
+     */
+    public LoanQueryResult execute(LoanColumns.Snapshot data, LoanQuery query) {
+        query.validate();
+        long started = System.nanoTime();
+        Plan plan = new Plan(data, query);
+        Partial total = plan.empty || data.size() == 0
+                ? new Partial() : pool.invoke(new ScanTask(plan, 0, data.size()));
+        
+        List<LoanQueryResult.Group> groups = plan.finish(total);
+        List<String> dimensions = new ArrayList<>();
+        for (Dimension dimension : query.getGroupBy()) {
+            dimensions.add(dimension.name().toLowerCase(Locale.ROOT));
+        }
+        long matched = 0;
+        for (int slot = 0; slot < total.size; slot++) {
+            matched += total.rows[slot];
+        }
+        return new LoanQueryResult(dimensions, query.getMeasure().name().toLowerCase(Locale.ROOT), groups,
+                data.size(), matched, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    /**
+     * Convert an epoch day to a month index, year * 12 + month - 1,
+     * using the proleptic Gregorian calendar like LocalDate.
+     * @param epochDay the day
+     * @return the month index
+     */
+    static int monthIndex(int epochDay) {
+        // Civil-from-days over 400-year eras with years starting in March
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+    
+    /**
+     * Query resolved against one snapshot: filter values as column values and
+     * dimensions as ordinals.
+     */
+    private static final class Plan {
+        
+        private final LoanColumns.Snapshot data;
+        private final Measure measure;
+        private final Status status;
+        private final Dimension[] dimensions;
+        private final int fromDay;
+        private final int toDay;
+        private final int libraryCode;
+        private final int publisherCode;
+        private final boolean filterPublisher;
+        // A filter value no loan has, so nothing can match
+        private final boolean empty;
+        
+        private Plan(LoanColumns.Snapshot data, LoanQuery query) {
+            this.data = data;
+            this.measure = query.getMeasure();
+            this.status = query.getStatus();
+            this.dimensions = query.getGroupBy().toArray(new Dimension[0]);
+            // Removed loans have no loan date, so the lower bound always excludes them
+            this.fromDay = query.getFrom() == null ? LoanColumns.NO_DATE + 1 : (int) query.getFrom().toEpochDay();
+            this.toDay = query.getTo() == null ? Integer.MAX_VALUE : (int) query.getTo().toEpochDay();
+            this.libraryCode = query.getLibraryId() == null
+                    ? LongIntHashMap.MISSING : data.libraryCode(query.getLibraryId());
+            this.filterPublisher = query.getPublisher() != null;
+            this.publisherCode = filterPublisher ? data.publisherCode(query.getPublisher()) : LongIntHashMap.MISSING;
+            this.empty = (query.getLibraryId() != null && libraryCode == LongIntHashMap.MISSING)
+                    || (filterPublisher && publisherCode == LongIntHashMap.MISSING);
+        }
+        
+        private Partial scan(int start, int end) {
+            Partial partial = new Partial();
+            int[] selection = new int[BATCH_SIZE];
+            int[] dimensionValues = new int[BATCH_SIZE];
+            long[] keys = new long[BATCH_SIZE];
+            double[] values = measure == Measure.LOANS ? null : new double[BATCH_SIZE];
+            for (int batch = start; batch < end; batch += BATCH_SIZE) {
+                int selected = selectLoanDays(batch, Math.min(end, batch + BATCH_SIZE), selection);
+                if (libraryCode != LongIntHashMap.MISSING) {
+                    selected = selectEqual(data.getLibraryCodes(), libraryCode, selection, selected);
+                }
+                if (filterPublisher) {
+                    selected = selectEqual(data.getPublisherCodes(), publisherCode, selection, selected);
+                }
+                if (status != Status.ANY) {
+                    selected = selectStatus(selection, selected);
+                }
+                if (selected == 0) {
+                    continue;
+                }
+                Arrays.fill(keys, 0, selected, 0L);
+                for (int d = 0; d < dimensions.length; d++) {
+                    dimensionValues(dimensions[d], selection, selected, dimensionValues);
+                    int shift = d == 0 ? 32 : 0;
+                    long mask = d == 0 ? -1L : 0xFFFFFFFFL;
+                    for (int i = 0; i < selected; i++) {
+                        keys[i] |= ((long) dimensionValues[i] & mask) << shift;
+                    }
+                }
+                if (values != null) {
+                    measureValues(selection, selected, values);
+                }
+                partial.add(keys, values, selected);
+            }
+            return partial;
+        }
+        
+        private int selectLoanDays(int start, int end, int[] selection) {
+            int[] loanDays = data.getLoanDays();
+            int selected = 0;
+            for (int row = start; row < end; row++) {
+                int day = loanDays[row];
+                // Written unconditionally and kept by advancing, which compiles without a branch
+                selection[selected] = row;
+                selected += (day >= fromDay & day <= toDay & data.isVisible(row)) ? 1 : 0;
+            }
+            return selected;
+        }
+        
+        private static int selectEqual(int[] column, int value, int[] selection, int selected) {
+            int kept = 0;
+            for (int i = 0; i < selected; i++) {
+                int row = selection[i];
+                selection[kept] = row;
+                kept += column[row] == value ? 1 : 0;
+            }
+            return kept;
+        }
+        
+        private int selectStatus(int[] selection, int selected) {
+            int[] returnDays = data.getReturnDays();
+            boolean returned = status == Status.RETURNED;
+            int kept = 0;
+            for (int i = 0; i < selected; i++) {
+                int row = selection[i];
+                selection[kept] = row;
+                kept += (returnDays[row] != LoanColumns.NO_DATE) == returned ? 1 : 0;
+            }
+            return kept;
+        }
+        
+        private void dimensionValues(Dimension dimension, int[] selection, int selected, int[] out) {
+            int[] loanDays = data.getLoanDays();
+            switch (dimension) {
+                case LIBRARY -> {
+                    int[] libraryCodes = data.getLibraryCodes();
+                    for (int i = 0; i < selected; i++) {
+                        out[i] = libraryCodes[selection[i]];
+                    }
+                }
+                case PUBLISHER -> {
+                    int[] publisherCodes = data.getPublisherCodes();
+                    for (int i = 0; i < selected; i++) {
+                        out[i] = publisherCodes[selection[i]];
+                    }
+                }
+                case YEAR -> {
+                    for (int i = 0; i < selected; i++) {
+                        out[i] = Math.floorDiv(monthIndex(loanDays[selection[i]]), 12);
+                    }
+                }
+                case QUARTER -> {
+                    for (int i = 0; i < selected; i++) {
+                        out[i] = Math.floorDiv(monthIndex(loanDays[selection[i]]), 3);
+                    }
+                }
+                case MONTH -> {
+                    for (int i = 0; i < selected; i++) {
+                        out[i] = monthIndex(loanDays[selection[i]]);
+                    }
+                }
+            }
+        }
+        
+        private void measureValues(int[] selection, int selected, double[] out) {
+            int[] returnDays = data.getReturnDays();
+            switch (measure) {
+                case DURATION -> {
+                    int[] loanDays = data.getLoanDays();
+                    for (int i = 0; i < selected; i++) {
+                        int row = selection[i];
+                        int returned = returnDays[row];
+                        out[i] = returned == LoanColumns.NO_DATE ? Double.NaN : returned - loanDays[row];
+                    }
+                }
+                case DAYS_LATE -> {
+                    int[] dueDays = data.getDueDays();
+                    for (int i = 0; i < selected; i++) {
+                        int row = selection[i];
+                        int returned = returnDays[row];
+                        int due = dueDays[row];
+                        out[i] = returned == LoanColumns.NO_DATE || due == LoanColumns.NO_DATE
+                                ? Double.NaN : Math.max(0, returned - due);
+                    }
+                }
+                case FINE -> {
+                    double[] fines = data.getFines();
+                    for (int i = 0; i < selected; i++) {
+                        out[i] = fines[selection[i]];
+                    }
+                }
+                default -> throw new IllegalStateException("No values for measure " + measure);
+            }
+        }
+        
+        private List<LoanQueryResult.Group> finish(Partial total) {
+            int[][] values = new int[total.size][dimensions.length];
+            Integer[] order = new Integer[total.size];
+            for (int slot = 0; slot < total.size; slot++) {
+                long key = total.keys[slot];
+                for (int d = 0; d < dimensions.length; d++) {
+                    values[slot][d] = d == 0 ? (int) (key >> 32) : (int) key;
+                }
+                order[slot] = slot;
+            }
+            Comparator<Integer> comparator = (a, b) -> 0;
+            for (int d = 0; d < dimensions.length; d++) {
+                int dimension = d;
+                comparator = comparator.thenComparing(slot -> values[slot][dimension], compare(dimensions[d]));
+            }
+            Arrays.sort(order, comparator);
+            
+            List<LoanQueryResult.Group> groups = new ArrayList<>(total.size);
+            for (int slot : order) {
+                List<String> key = new ArrayList<>(dimensions.length);
+                for (int d = 0; d < dimensions.length; d++) {
+                    key.add(label(dimensions[d], values[slot][d]));
+                }
+                groups.add(new LoanQueryResult.Group(key, total.rows[slot], total.measured[slot],
+                        total.sums[slot], total.mins[slot], total.maxes[slot]));
+            }
+            return groups;
+        }
+        
+        private Comparator<Integer> compare(Dimension dimension) {
+            return switch (dimension) {
+                case LIBRARY -> Comparator.comparingLong(data::libraryId);
+                case PUBLISHER -> Comparator.comparing(data::publisherName,
+                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                default -> Comparator.naturalOrder();
+            };
+        }
+        
+        private String label(Dimension dimension, int value) {
+            return switch (dimension) {
+                case LIBRARY -> String.valueOf(data.libraryId(value));
+                case PUBLISHER -> data.publisherName(value);
+                case YEAR -> String.valueOf(value);
+                case QUARTER -> Math.floorDiv(value, 4) + "-Q" + (Math.floorMod(value, 4) + 1);
+                case MONTH -> String.format("%04d-%02d", Math.floorDiv(value, 12), Math.floorMod(value, 12) + 1);
+            };
+        }
+    }
+    
+    /**
+     * Groups aggregated over part of the rows, in slots indexed by group key.
+     */
+    private static final class Partial {
+        
+        private final LongIntHashMap slots = new LongIntHashMap(64);
+        private long[] keys = new long[64];
+        private long[] rows = new long[64];
+        private long[] measured = new long[64];
+        private double[] sums = new double[64];
+        private double[] mins = new double[64];
+        private double[] maxes = new double[64];
+        private int size;
+        
+        private void add(long[] batchKeys, double[] values, int count) {
+            for (int i = 0; i < count; i++) {
+                int slot = slot(batchKeys[i]);
+                rows[slot]++;
+                if (values != null && !Double.isNaN(values[i])) {
+                    double value = values[i];
+                    measured[slot]++;
+                    sums[slot] += value;
+                    mins[slot] = Math.min(mins[slot], value);
+                    maxes[slot] = Math.max(maxes[slot], value);
+                }
+            }
+        }
+        
+        private Partial merge(Partial other) {
+            for (int j = 0; j < other.size; j++) {
+                int slot = slot(other.keys[j]);
+                rows[slot] += other.rows[j];
+                measured[slot] += other.measured[j];
+                sums[slot] += other.sums[j];
+                mins[slot] = Math.min(mins[slot], other.mins[j]);
+                maxes[slot] = Math.max(maxes[slot], other.maxes[j]);
+            }
+            return this;
+        }
+        
+        private int slot(long key) {
+            int slot = slots.get(key);
+            if (slot != LongIntHashMap.MISSING) {
+                return slot;
+            }
+            slot = size++;
+            if (slot == keys.length) {
+                int capacity = slot * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                rows = Arrays.copyOf(rows, capacity);
+                measured = Arrays.copyOf(measured, capacity);
+                sums = Arrays.copyOf(sums, capacity);
+                mins = Arrays.copyOf(mins, capacity);
+                maxes = Arrays.copyOf(maxes, capacity);
+            }
+            keys[slot] = key;
+            mins[slot] = Double.POSITIVE_INFINITY;
+            maxes[slot] = Double.NEGATIVE_INFINITY;
+            slots.put(key, slot);
+            return slot;
+        }
+    }
+    
+    /**
+     * Scans a range of rows, splitting it in halves down to one partition.
+     */
+    private static final class ScanTask extends RecursiveTask<Partial> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        // Tasks never leave the pool they were forked in
+        private final transient Plan plan;
+        private final int start;
+        private final int end;
+        
+        private ScanTask(Plan plan, int start, int end) {
+            this.plan = plan;
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        protected Partial compute() {
+            if (end - start <= PARTITION_SIZE) {
+                return plan.scan(start, end);
+            }
+            int middle = start + (end - start) / 2;
+            ScanTask left = new ScanTask(plan, start, middle);
+            left.fork();
+            Partial right = new ScanTask(plan, middle, end).compute();
+            return left.join().merge(right);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.ResultSetConcurrency;
+import org.eclipse.persistence.config.ResultSetType;
+import org.eclipse.persistence.queries.ReportQueryResult;
+import org.eclipse.persistence.queries.ScrollableCursor;
+
+/**
+ * Startup Singleton EJB answering ad-hoc loan analytics from memory.
+ * At startup the whole loan history, book_loans and book_loans_archive, is
+ * streamed through read-only cursors into a {@link LoanColumns} store on a
+ * managed executor; from then on loan events on the {@link DomainEventBus}
+ * append and update rows, so queries see new loans within moments without
+ * reloading. Queries run on a dedicated fork-join pool sized by
+ * {@code itmd4515.analytics.parallelism} (default the number of processors),
+ * so a scan never competes with the common pool used by the rest of the JVM.
+ * Archiving a loan does not touch its row, since it stays in the history.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class LoanAnalyticsService {
+    
+    private static final Logger LOG = Logger.getLogger(LoanAnalyticsService.class.getName());
+    
+    /**
+     * Prefix of the system properties configuring the analytics.
+     */
+    public static final String PROPERTY_PREFIX = "itmd4515.analytics.";
+    
+    // Same columns from either table; %s is BookLoan or ArchivedLoan
+    private static final String SELECT =
+        "SELECT bl.id, b.id, bl.borrower.id, bl.library.id, p.name, bl.loanDate, bl.dueDate, " +
+        "bl.returnDate, bl.fineAmount FROM %s bl JOIN bl.book b LEFT JOIN b.publisher p";
+    
+    @PersistenceUnit(unitName = "itmd4515PU")
+    public EntityManagerFactory emf;
+    
+    @Resource(lookup = "java:app/concurrent/IndexExecutor")
+    public ManagedExecutorService executor;
+    
+    @Inject
+    public DomainEventBus eventBus;
+    
+    private LoanColumns columns;
+    
+    private ForkJoinPool pool;
+    
+    private LoanAnalyticsEngine engine;
+    
+    private volatile boolean loaded;
+    
+    /**
+     * Create the column store, subscribe to the loan events and start loading the history.
+     */
+    @PostConstruct
+    public void init() {
+        columns = new LoanColumns(Integer.getInteger(PROPERTY_PREFIX + "expectedLoans", 1_000_000));
+        pool = new ForkJoinPool(Integer.getInteger(PROPERTY_PREFIX + "parallelism",
+                Runtime.getRuntime().availableProcessors()));
+        engine = new LoanAnalyticsEngine(pool);
+        // Subscribed before loading, so no loan changed during the load is missed
+        if (eventBus != null) {
+            eventBus.subscribe("loan-analytics", DomainEvent.LoanEvent.class, this::onLoanEvent);
+        }
+        executor.execute(this::load);
+    }
+    
+    /**
+     * Load the loan history into the column store. Loans already changed by
+     * events while loading are left as the events wrote them.
+     */
+    public void load() {
+        LOG.log(Level.INFO, "Loading loan history for analytics");
+        long started = System.currentTimeMillis();
+        try {
+            long rows = load("BookLoan") + load("ArchivedLoan");
+            loaded = true;
+            LOG.log(Level.INFO, "Loan analytics loaded: {0} loans ({1} ms)",
+                    new Object[]{rows, System.currentTimeMillis() - started});
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Error loading loan history for analytics", e);
+        }
+    }
+    
+    private long load(String entity) {
+        EntityManager em = emf.createEntityManager();
+        ScrollableCursor cursor = null;
+        try {
+            cursor = (ScrollableCursor) em.createQuery(String.format(SELECT, entity))
+                    .setHint(QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE)
+                    .setHint(QueryHints.RESULT_SET_TYPE, ResultSetType.ForwardOnly)
+                    .setHint(QueryHints.RESULT_SET_CONCURRENCY, ResultSetConcurrency.ReadOnly)
+                    .setHint(QueryHints.JDBC_FETCH_SIZE, LoanExportService.FETCH_SIZE)
+                    .getSingleResult();
+            long rows = 0;
+            while (cursor.hasNext()) {
+                Object next = cursor.next();
+                Object[] row = next instanceof ReportQueryResult ? ((ReportQueryResult) next).toArray() : (Object[]) next;
+                if (columns.putIfAbsent((Long) row[0], (Long) row[1], (Long) row[2], (Long) row[3],
+                        (String) row[4], (LocalDate) row[5], (LocalDate) row[6], (LocalDate) row[7],
+                        (Double) row[8])) {
+                    rows++;
+                }
+            }
+            return rows;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            em.close();
+        }
+    }
+    
+    /**
+     * Apply a loan event to the column store.
+     * @param event the loan event
+     */
+    public void onLoanEvent(DomainEvent.LoanEvent event) {
+        if (event instanceof DomainEvent.LoanDeleted) {
+            columns.remove(event.getLoanId());
+            return;
+        }
+        if (event.getBookId() == null || event.getBorrowerId() == null || event.getLibraryId() == null) {
+            return;
+        }
+        Double fineAmount = event instanceof DomainEvent.LoanReturned
+                ? ((DomainEvent.LoanReturned) event).getFineAmount() : null;
+        columns.put(event.getLoanId(), event.getBookId(), event.getBorrowerId(), event.getLibraryId(),
+                findPublisher(event.getBookId()), event.getLoanDate(), event.getDueDate(),
+                event.getReturnDate(), fineAmount);
+    }
+    
+    private String findPublisher(Long bookId) {
+        if (columns.hasBook(bookId)) {
+            return columns.publisherOf(bookId);
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<String> names = em.createQuery(
+                    "SELECT p.name FROM Book b JOIN b.publisher p WHERE b.id = :bookId", String.class)
+                    .setParameter("bookId", bookId)
+                    .getResultList();
+            return names.isEmpty() ? null : names.get(0);
+        } finally {
+            em.close();
+        }
+    }
+    
+    /**
+     * Run an ad-hoc query over the loan history.
+     * @param query the query
+     * @return the grouped aggregates
+     * @throws IllegalArgumentException if the query is invalid
+     * @throws IllegalStateException if the history is still loading
+     */
+    public LoanQueryResult query(LoanQuery query) {
+        LOG.log(Level.INFO, "Running loan analytics query {0}", query);
+        if (!loaded) {
+            throw new IllegalStateException("Loan analytics are still loading");
+        }
+        LoanQueryResult result = engine.execute(columns.snapshot(), query);
+        LOG.log(Level.FINE, "Loan analytics query answered: {0}", result);
+        return result;
+    }
+    
+    /**
+     * Check whether the history has been loaded and queries can run.
+     * @return true once loaded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+}
\ No newline at end of file
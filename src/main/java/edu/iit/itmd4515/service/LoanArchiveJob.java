@@ -0,0 +1,81 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.time.LocalDate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Singleton EJB running the nightly loan archival.
+ * Loans returned more than {@code itmd4515.archive.retentionDays} days ago
+ * (default 365) are moved chunk by chunk by LoanArchiveService, pausing
+ * {@code itmd4515.archive.pauseMillis} (default 100) between chunks so the
+ * run does not compete with circulation for locks and I/O.
+ * The singleton's write lock keeps a manual run from overlapping the nightly one.
+ */
+@Singleton
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class LoanArchiveJob {
+    
+    private static final Logger LOG = Logger.getLogger(LoanArchiveJob.class.getName());
+    
+    /**
+     * Prefix of the system properties configuring the archival.
+     */
+    public static final String PROPERTY_PREFIX = "itmd4515.archive.";
+    
+    @EJB
+    public LoanArchiveService loanArchiveService;
+    
+    /**
+     * Archive every night after the fine accrual.
+     */
+    @Schedule(hour = "2", minute = "30", persistent = false)
+    public void archiveNightly() {
+        archive(LocalDate.now().minusDays(Integer.getInteger(PROPERTY_PREFIX + "retentionDays", 365)));
+    }
+    
+    /**
+     * Archive all loans returned before a date.
+     * @param cutoff loans returned on or after this date stay in book_loans
+     * @return the number of loans archived
+     */
+    public long archive(LocalDate cutoff) {
+        LOG.log(Level.INFO, "Starting loan archival before: {0}", cutoff);
+        long pauseMillis = Long.getLong(PROPERTY_PREFIX + "pauseMillis", 100L);
+        long started = System.currentTimeMillis();
+        long archived = 0;
+        int chunks = 0;
+        long[] range = loanArchiveService.findArchivableIdRange(cutoff);
+        if (range == null) {
+            LOG.log(Level.INFO, "No loans to archive");
+            return 0;
+        }
+        try {
+            for (long fromId = range[0]; fromId <= range[1]; fromId += LoanArchiveService.CHUNK_SIZE) {
+                long toId = Math.min(fromId + LoanArchiveService.CHUNK_SIZE - 1, range[1]);
+                int moved = loanArchiveService.archiveChunk(cutoff, fromId, toId);
+                archived += moved;
+                chunks++;
+                if (moved > 0 && pauseMillis > 0 && toId < range[1]) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.log(Level.WARNING, "Loan archival interrupted");
+        } catch (RuntimeException e) {
+            // Chunks already committed stay archived; the next run picks up the rest
+            LOG.log(Level.SEVERE, "Error during loan archival", e);
+        } finally {
+            loanArchiveService.evictCachedLoans();
+        }
+        LOG.log(Level.INFO, "Loan archival finished: {0} loans archived in {1} chunks ({2} ms)",
+                new Object[]{archived, chunks, System.currentTimeMillis() - started});
+        return archived;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.ArchivedLoan;
+import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.domain.BookLoan;
+import edu.iit.itmd4515.domain.Borrower;
+import edu.iit.itmd4515.domain.Librarian;
+import edu.iit.itmd4515.domain.Library;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.Cache;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stateless EJB service moving long-returned loans from book_loans to book_loans_archive.
+ * Each ID range is copied and deleted in its own transaction after locking its
+ * rows, so a loan is always in exactly one of the two tables and row locks are
+ * held for one chunk at a time. Archiving is not a change to the loan, so it
+ * is neither recorded in the change log nor published on the event bus.
+ */
+@Stateless
+public class LoanArchiveService extends AbstractService<ArchivedLoan> {
+    
+    private static final Logger LOG = Logger.getLogger(LoanArchiveService.class.getName());
+    
+    /**
+     * Width of the loan ID range archived in one transaction.
+     */
+    public static final int CHUNK_SIZE = 2000;
+    
+    // return_date < cutoff also excludes active loans
+    private static final String ARCHIVE_WHERE = "WHERE id BETWEEN ?2 AND ?3 AND return_date < ?1";
+    
+    private static final String LOCK_SQL = "SELECT id FROM book_loans " + ARCHIVE_WHERE + " FOR UPDATE";
+    
+    private static final String COPY_SQL =
+        "INSERT INTO book_loans_archive (id, loan_date, due_date, return_date, borrower_name, borrower_email, " +
+        "borrower_phone, fine_amount, notes, book_id, library_id, borrower_id, processed_by_id, archived_at) " +
+        "SELECT id, loan_date, due_date, return_date, borrower_name, borrower_email, " +
+        "borrower_phone, fine_amount, notes, book_id, library_id, borrower_id, processed_by_id, ?4 " +
+        "FROM book_loans " + ARCHIVE_WHERE;
+    
+    private static final String DELETE_SQL = "DELETE FROM book_loans " + ARCHIVE_WHERE;
+    
+    public LoanArchiveService() {
+        super(ArchivedLoan.class);
+    }
+    
+    /**
+     * Find the lowest and highest IDs of loans returned before a date.
+     * @param cutoff loans returned on or after this date stay in book_loans
+     * @return two-element array of min and max ID, or null if nothing is due for archiving
+     */
+    public long[] findArchivableIdRange(LocalDate cutoff) {
+        LOG.log(Level.INFO, "Finding archivable loan ID range before: {0}", cutoff);
+        Object[] range = em.createQuery(
+            "SELECT MIN(bl.id), MAX(bl.id) FROM BookLoan bl WHERE bl.returnDate < :cutoff", Object[].class)
+            .setParameter("cutoff", cutoff)
+            .getSingleResult();
+        if (range[0] == null) {
+            return null;
+        }
+        return new long[]{((Number) range[0]).longValue(), ((Number) range[1]).longValue()};
+    }
+    
+    /**
+     * Move the loans in one ID range that were returned before the cutoff, in its own transaction.
+     * @param cutoff loans returned on or after this date stay in book_loans
+     * @param fromId first loan ID of the range, inclusive
+     * @param toId last loan ID of the range, inclusive
+     * @return number of loans archived
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int archiveChunk(LocalDate cutoff, long fromId, long toId) {
+        LOG.log(Level.FINE, "Archiving loan IDs {0} to {1}", new Object[]{fromId, toId});
+        int locked = em.createNativeQuery(LOCK_SQL)
+            .setParameter(1, cutoff)
+            .setParameter(2, fromId)
+            .setParameter(3, toId)
+            .getResultList()
+            .size();
+        if (locked == 0) {
+            return 0;
+        }
+        int copied = em.createNativeQuery(COPY_SQL)
+            .setParameter(1, cutoff)
+            .setParameter(2, fromId)
+            .setParameter(3, toId)
+            .setParameter(4, LocalDateTime.now())
+            .executeUpdate();
+        int deleted = em.createNativeQuery(DELETE_SQL)
+            .setParameter(1, cutoff)
+            .setParameter(2, fromId)
+            .setParameter(3, toId)
+            .executeUpdate();
+        if (copied != locked || deleted != locked) {
+            // Rolls the chunk back rather than losing or duplicating a loan
+            throw new IllegalStateException("Archiving loan IDs " + fromId + " to " + toId + " locked " + locked
+                    + " rows but copied " + copied + " and deleted " + deleted);
+        }
+        return deleted;
+    }
+    
+    /**
+     * Drop cached loans and the cached loan collections after a run, since native statements bypass the shared cache.
+     */
+    public void evictCachedLoans() {
+        LOG.log(Level.INFO, "Evicting cached loans after archiving");
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(BookLoan.class);
+        cache.evict(Book.class);
+        cache.evict(Borrower.class);
+        cache.evict(Library.class);
+        cache.evict(Librarian.class);
+    }
+}
\ No newline at end of file
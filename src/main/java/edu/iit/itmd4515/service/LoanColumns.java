@@ -0,0 +1,456 @@
+package edu.iit.itmd4515.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column store of the loan history for {@link LoanAnalyticsEngine}.
+ * Every loan is one row across parallel primitive arrays: IDs as longs, dates
+ * as epoch days, the fine as a double, and the library and publisher as small
+ * int codes into dictionaries of library IDs and publisher names. A row costs
+ * about 80 bytes including its index entry, so 50 million loans fit in about
+ * 4 GB of heap, up to twice that while retired versions await compaction, and
+ * scanning a column touches nothing but that column.
+ * Writers are serialized; readers take a {@link #snapshot} of the array
+ * references and row count and scan it without locking. Rows a snapshot can
+ * see are never rewritten: an update appends a new version of the row and
+ * retires the old one by recording the snapshot version it stops at, so a
+ * scan sees every loan exactly as it was when the snapshot was taken. Rows
+ * appended since the last snapshot are rewritten in place, since no scan can
+ * reach them. A removed loan keeps a retired row, so a load still in progress
+ * does not add it afterwards. Once retired rows make up half the store, the
+ * current rows are copied into new arrays; old snapshots keep the old ones.
+ */
+public class LoanColumns {
+    
+    /**
+     * Epoch day stored for a missing date.
+     */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+    
+    /**
+     * Publisher code of a book without a publisher.
+     */
+    public static final int NO_PUBLISHER = -1;
+    
+    /**
+     * Retirement version of a row that is still current.
+     */
+    public static final int CURRENT = Integer.MAX_VALUE;
+    
+    private long[] loanIds;
+    private long[] bookIds;
+    private long[] borrowerIds;
+    private int[] libraryCodes;
+    private int[] publisherCodes;
+    private int[] loanDays;
+    private int[] dueDays;
+    private int[] returnDays;
+    private double[] fines;
+    private int[] retiredAt;
+    private int size;
+    
+    // Version of the next snapshot, and the row count when the last one was taken
+    private int version;
+    private int snapshotSize;
+    private int retired;
+    
+    private LongIntHashMap rowsByLoanId;
+    
+    private final LongIntHashMap libraryCodesById = new LongIntHashMap(64);
+    private long[] libraryIds = new long[64];
+    
+    private final Map<String, Integer> publisherCodesByName = new HashMap<>();
+    private final List<String> publisherNames = new ArrayList<>();
+    
+    // Publisher code of each book seen so far, so new loans need no lookup
+    private final LongIntHashMap publishersByBookId = new LongIntHashMap(1024);
+    
+    /**
+     * Create an empty column store.
+     * @param expectedRows number of loans to hold without growing
+     */
+    public LoanColumns(int expectedRows) {
+        int capacity = Math.max(16, expectedRows);
+        loanIds = new long[capacity];
+        bookIds = new long[capacity];
+        borrowerIds = new long[capacity];
+        libraryCodes = new int[capacity];
+        publisherCodes = new int[capacity];
+        loanDays = new int[capacity];
+        dueDays = new int[capacity];
+        returnDays = new int[capacity];
+        fines = new double[capacity];
+        retiredAt = new int[capacity];
+        rowsByLoanId = new LongIntHashMap(capacity);
+    }
+    
+    /**
+     * Add a loan, or overwrite it if it is already present.
+     * A null fine keeps the fine already stored, since only return events carry one.
+     * @param loanId the loan ID
+     * @param bookId the book ID
+     * @param borrowerId the borrower ID
+     * @param libraryId the library ID
+     * @param publisher the book's publisher name, may be null
+     * @param loanDate the loan date
+     * @param dueDate the due date, may be null
+     * @param returnDate the return date, null while the loan is active
+     * @param fineAmount the fine, may be null
+     */
+    public synchronized void put(long loanId, long bookId, long borrowerId, long libraryId, String publisher,
+                                 LocalDate loanDate, LocalDate dueDate, LocalDate returnDate, Double fineAmount) {
+        int row = rowsByLoanId.get(loanId);
+        Double fine = fineAmount;
+        if (row != LongIntHashMap.MISSING && fine == null && !Double.isNaN(fines[row])) {
+            fine = fines[row];
+        }
+        if (row == LongIntHashMap.MISSING || row < snapshotSize) {
+            if (row != LongIntHashMap.MISSING) {
+                retire(row);
+            }
+            row = append(loanId);
+        }
+        retiredAt[row] = CURRENT;
+        write(row, bookId, borrowerId, libraryId, publisher, loanDate, dueDate, returnDate, fine);
+        compactIfSparse();
+    }
+    
+    /**
+     * Add a loan unless it is already present or was removed.
+     * Used by the initial load, which must not overwrite newer changes.
+     * @return true if the loan was added
+     * @see #put
+     */
+    public synchronized boolean putIfAbsent(long loanId, long bookId, long borrowerId, long libraryId,
+                                            String publisher, LocalDate loanDate, LocalDate dueDate,
+                                            LocalDate returnDate, Double fineAmount) {
+        if (rowsByLoanId.get(loanId) != LongIntHashMap.MISSING) {
+            return false;
+        }
+        int row = append(loanId);
+        retiredAt[row] = CURRENT;
+        write(row, bookId, borrowerId, libraryId, publisher, loanDate, dueDate, returnDate, fineAmount);
+        return true;
+    }
+    
+    /**
+     * Remove a loan. A loan not yet present is remembered as removed,
+     * so a load still in progress does not add it afterwards.
+     * @param loanId the loan ID
+     */
+    public synchronized void remove(long loanId) {
+        int row = rowsByLoanId.get(loanId);
+        if (row == LongIntHashMap.MISSING) {
+            append(loanId);
+        } else if (retiredAt[row] == CURRENT) {
+            retiredAt[row] = version;
+        }
+    }
+    
+    /**
+     * Check whether the publisher of a book is known.
+     * @param bookId the book ID
+     * @return true if a loan of the book has been stored
+     */
+    public synchronized boolean hasBook(long bookId) {
+        return publishersByBookId.get(bookId) != LongIntHashMap.MISSING;
+    }
+    
+    /**
+     * Get the publisher of a book, as stored with its loans.
+     * @param bookId the book ID
+     * @return the publisher name, or null if the book has none or is unknown
+     */
+    public synchronized String publisherOf(long bookId) {
+        int code = publishersByBookId.get(bookId);
+        return code < 0 ? null : publisherNames.get(code);
+    }
+    
+    /**
+     * Capture the current rows for a lock-free scan.
+     * @return the snapshot
+     */
+    public synchronized Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot(this);
+        version++;
+        snapshotSize = size;
+        return snapshot;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    private int append(long loanId) {
+        if (size == loanIds.length) {
+            int capacity = size + (size >> 1);
+            loanIds = Arrays.copyOf(loanIds, capacity);
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            borrowerIds = Arrays.copyOf(borrowerIds, capacity);
+            libraryCodes = Arrays.copyOf(libraryCodes, capacity);
+            publisherCodes = Arrays.copyOf(publisherCodes, capacity);
+            loanDays = Arrays.copyOf(loanDays, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+            returnDays = Arrays.copyOf(returnDays, capacity);
+            fines = Arrays.copyOf(fines, capacity);
+            retiredAt = Arrays.copyOf(retiredAt, capacity);
+        }
+        int row = size;
+        loanIds[row] = loanId;
+        loanDays[row] = NO_DATE;
+        dueDays[row] = NO_DATE;
+        returnDays[row] = NO_DATE;
+        fines[row] = Double.NaN;
+        retiredAt[row] = version;
+        publisherCodes[row] = NO_PUBLISHER;
+        rowsByLoanId.put(loanId, row);
+        size++;
+        return row;
+    }
+    
+    private void retire(int row) {
+        // A removed loan keeps the version it was removed at
+        if (retiredAt[row] == CURRENT) {
+            retiredAt[row] = version;
+        }
+        retired++;
+    }
+    
+    /**
+     * Copy the current rows and removed loans into new arrays once retired
+     * versions make up half the rows. Snapshots already taken keep the old arrays.
+     */
+    private void compactIfSparse() {
+        if (retired < 1024 || retired < size / 2) {
+            return;
+        }
+        int capacity = Math.max(16, (size - retired) + ((size - retired) >> 1));
+        long[] newLoanIds = new long[capacity];
+        long[] newBookIds = new long[capacity];
+        long[] newBorrowerIds = new long[capacity];
+        int[] newLibraryCodes = new int[capacity];
+        int[] newPublisherCodes = new int[capacity];
+        int[] newLoanDays = new int[capacity];
+        int[] newDueDays = new int[capacity];
+        int[] newReturnDays = new int[capacity];
+        double[] newFines = new double[capacity];
+        int[] newRetiredAt = new int[capacity];
+        LongIntHashMap newRowsByLoanId = new LongIntHashMap(capacity);
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (rowsByLoanId.get(loanIds[row]) != row) {
+                continue;
+            }
+            newLoanIds[kept] = loanIds[row];
+            newBookIds[kept] = bookIds[row];
+            newBorrowerIds[kept] = borrowerIds[row];
+            newLibraryCodes[kept] = libraryCodes[row];
+            newPublisherCodes[kept] = publisherCodes[row];
+            newLoanDays[kept] = loanDays[row];
+            newDueDays[kept] = dueDays[row];
+            newReturnDays[kept] = returnDays[row];
+            newFines[kept] = fines[row];
+            newRetiredAt[kept] = retiredAt[row];
+            newRowsByLoanId.put(loanIds[row], kept);
+            kept++;
+        }
+        loanIds = newLoanIds;
+        bookIds = newBookIds;
+        borrowerIds = newBorrowerIds;
+        libraryCodes = newLibraryCodes;
+        publisherCodes = newPublisherCodes;
+        loanDays = newLoanDays;
+        dueDays = newDueDays;
+        returnDays = newReturnDays;
+        fines = newFines;
+        retiredAt = newRetiredAt;
+        rowsByLoanId = newRowsByLoanId;
+        size = kept;
+        // The new arrays are not shared with any snapshot yet
+        snapshotSize = 0;
+        retired = 0;
+    }
+    
+    private void write(int row, long bookId, long borrowerId, long libraryId, String publisher,
+                       LocalDate loanDate, LocalDate dueDate, LocalDate returnDate, Double fineAmount) {
+        int publisherCode = publisherCode(publisher);
+        publishersByBookId.put(bookId, publisherCode);
+        bookIds[row] = bookId;
+        borrowerIds[row] = borrowerId;
+        libraryCodes[row] = libraryCode(libraryId);
+        publisherCodes[row] = publisherCode;
+        dueDays[row] = toEpochDay(dueDate);
+        returnDays[row] = toEpochDay(returnDate);
+        fines[row] = fineAmount == null ? Double.NaN : fineAmount;
+        loanDays[row] = toEpochDay(loanDate);
+    }
+    
+    private int libraryCode(long libraryId) {
+        int code = libraryCodesById.get(libraryId);
+        if (code == LongIntHashMap.MISSING) {
+            code = libraryCodesById.size();
+            if (code == libraryIds.length) {
+                libraryIds = Arrays.copyOf(libraryIds, code * 2);
+            }
+            libraryIds[code] = libraryId;
+            libraryCodesById.put(libraryId, code);
+        }
+        return code;
+    }
+    
+    private int publisherCode(String publisher) {
+        if (publisher == null) {
+            return NO_PUBLISHER;
+        }
+        Integer code = publisherCodesByName.get(publisher);
+        if (code == null) {
+            code = publisherNames.size();
+            publisherNames.add(publisher);
+            publisherCodesByName.put(publisher, code);
+        }
+        return code;
+    }
+    
+    private static int toEpochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+    
+    /**
+     * Rows of the column store as of one moment. Column arrays are shared with
+     * the store and may be longer than {@link #size()}; they must not be modified.
+     * A row belongs to the snapshot only if {@link #isVisible} says so.
+     */
+    public static class Snapshot {
+        
+        private final int size;
+        private final long[] loanIds;
+        private final long[] bookIds;
+        private final long[] borrowerIds;
+        private final int[] libraryCodes;
+        private final int[] publisherCodes;
+        private final int[] loanDays;
+        private final int[] dueDays;
+        private final int[] returnDays;
+        private final double[] fines;
+        private final int[] retiredAt;
+        private final int version;
+        private final long[] libraryIds;
+        private final List<String> publisherNames;
+        private final Map<String, Integer> publisherCodesByName;
+        private final LongIntHashMap libraryCodesById;
+        
+        private Snapshot(LoanColumns columns) {
+            this.size = columns.size;
+            this.loanIds = columns.loanIds;
+            this.bookIds = columns.bookIds;
+            this.borrowerIds = columns.borrowerIds;
+            this.libraryCodes = columns.libraryCodes;
+            this.publisherCodes = columns.publisherCodes;
+            this.loanDays = columns.loanDays;
+            this.dueDays = columns.dueDays;
+            this.returnDays = columns.returnDays;
+            this.fines = columns.fines;
+            this.retiredAt = columns.retiredAt;
+            this.version = columns.version;
+            // Dictionaries are small, so they are copied rather than shared
+            this.libraryIds = Arrays.copyOf(columns.libraryIds, columns.libraryCodesById.size());
+            this.publisherNames = List.copyOf(columns.publisherNames);
+            this.publisherCodesByName = Map.copyOf(columns.publisherCodesByName);
+            this.libraryCodesById = new LongIntHashMap(libraryIds.length);
+            for (int code = 0; code < libraryIds.length; code++) {
+                libraryCodesById.put(libraryIds[code], code);
+            }
+        }
+        
+        public int size() {
+            return size;
+        }
+        
+        public long[] getLoanIds() {
+            return loanIds;
+        }
+        
+        public long[] getBookIds() {
+            return bookIds;
+        }
+        
+        public long[] getBorrowerIds() {
+            return borrowerIds;
+        }
+        
+        public int[] getLibraryCodes() {
+            return libraryCodes;
+        }
+        
+        public int[] getPublisherCodes() {
+            return publisherCodes;
+        }
+        
+        public int[] getLoanDays() {
+            return loanDays;
+        }
+        
+        public int[] getDueDays() {
+            return dueDays;
+        }
+        
+        public int[] getReturnDays() {
+            return returnDays;
+        }
+        
+        public double[] getFines() {
+            return fines;
+        }
+        
+        /**
+         * Check whether a row was current when the snapshot was taken.
+         * Rows retired later are still visible; their replacements lie beyond {@link #size()}.
+         * @param row the row
+         * @return true if the snapshot includes the row
+         */
+        public boolean isVisible(int row) {
+            return retiredAt[row] > version;
+        }
+        
+        /**
+         * Get the library ID a library code stands for.
+         * @param code the library code
+         * @return the library ID
+         */
+        public long libraryId(int code) {
+            return libraryIds[code];
+        }
+        
+        /**
+         * Get the code of a library.
+         * @param libraryId the library ID
+         * @return the code, or {@link LongIntHashMap#MISSING} if no loan has the library
+         */
+        public int libraryCode(long libraryId) {
+            return libraryCodesById.get(libraryId);
+        }
+        
+        /**
+         * Get the publisher name a publisher code stands for.
+         * @param code the publisher code
+         * @return the name, or null for {@link #NO_PUBLISHER}
+         */
+        public String publisherName(int code) {
+            return code == NO_PUBLISHER ? null : publisherNames.get(code);
+        }
+        
+        /**
+         * Get the code of a publisher.
+         * @param name the publisher name
+         * @return the code, or {@link LongIntHashMap#MISSING} if no loan has the publisher
+         */
+        public int publisherCode(String name) {
+            return publisherCodesByName.getOrDefault(name, LongIntHashMap.MISSING);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,269 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.LoanCounter;
+import edu.iit.itmd4515.domain.LoanCounter.Scope;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup Singleton EJB maintaining loan counters per library, borrower and librarian.
+ * Counters are persisted in the loan_counters summary table within the loan's own
+ * transaction and mirrored in memory once that transaction commits, so reading a
+ * count never scans book_loans.
+ * <p>
+ * Loading or rebuilding fills a fresh mirror and swaps it in while the summary
+ * rows are still locked. Each transaction adds its deltas to the mirror that was
+ * current when its upserts returned. A transaction that upserted before the locks
+ * were taken is part of what was loaded, so its deltas go to the discarded mirror.
+ * A transaction that upserted after waited for the load to commit, so its deltas
+ * go to the fresh one. Nothing is lost and nothing is counted twice. This relies on
+ * MySQL's default REPEATABLE READ isolation, whose locking reads also block
+ * inserts of new summary rows.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class LoanCounterService extends AbstractService<LoanCounter> {
+    
+    private static final Logger LOG = Logger.getLogger(LoanCounterService.class.getName());
+    
+    private static final String UPSERT_SQL =
+        "INSERT INTO loan_counters (scope, owner_id, active_loans, total_loans) VALUES (?1, ?2, ?3, ?4) " +
+        "ON DUPLICATE KEY UPDATE active_loans = active_loans + VALUES(active_loans), " +
+        "total_loans = total_loans + VALUES(total_loans)";
+    
+    private volatile Mirror mirror = new Mirror();
+    
+    public LoanCounterService() {
+        super(LoanCounter.class);
+    }
+    
+    /**
+     * Load the in-memory mirror from the summary table, rebuilding the table
+     * from book_loans when it has never been populated.
+     */
+    @PostConstruct
+    public void init() {
+        LOG.log(Level.INFO, "Loading loan counters...");
+        // The locking read waits for transactions that already upserted and holds off new ones
+        List<LoanCounter> counters = em.createNamedQuery("LoanCounter.findAll", LoanCounter.class)
+            .setLockMode(LockModeType.PESSIMISTIC_READ)
+            .getResultList();
+        if (counters.isEmpty()) {
+            rebuild();
+        } else {
+            reload(counters);
+        }
+    }
+    
+    /**
+     * Recompute every counter from book_loans and book_loans_archive and replace the summary table.
+     * Intended for first start and for repairing drift, not for regular reads.
+     * Loans changed while the rebuild runs wait for it to commit before updating their counters.
+     */
+    public void rebuild() {
+        LOG.log(Level.INFO, "Rebuilding loan counters from book_loans");
+        // Deleting every row locks the whole table before book_loans is read
+        em.createQuery("DELETE FROM LoanCounter c").executeUpdate();
+        Map<List<Object>, LoanCounter> counters = new LinkedHashMap<>();
+        addGroupedCounts(counters, Scope.LIBRARY,
+            "SELECT bl.library.id, SUM(CASE WHEN bl.returnDate IS NULL THEN 1 ELSE 0 END), COUNT(bl) " +
+            "FROM BookLoan bl GROUP BY bl.library.id");
+        addGroupedCounts(counters, Scope.BORROWER,
+            "SELECT bl.borrower.id, SUM(CASE WHEN bl.returnDate IS NULL THEN 1 ELSE 0 END), COUNT(bl) " +
+            "FROM BookLoan bl GROUP BY bl.borrower.id");
+        addGroupedCounts(counters, Scope.LIBRARIAN,
+            "SELECT bl.processedBy.id, SUM(CASE WHEN bl.returnDate IS NULL THEN 1 ELSE 0 END), COUNT(bl) " +
+            "FROM BookLoan bl WHERE bl.processedBy IS NOT NULL GROUP BY bl.processedBy.id");
+        // Archived loans are all returned, so they only add to the totals
+        addGroupedCounts(counters, Scope.LIBRARY,
+            "SELECT al.library.id, 0, COUNT(al) FROM ArchivedLoan al GROUP BY al.library.id");
+        addGroupedCounts(counters, Scope.BORROWER,
+            "SELECT al.borrower.id, 0, COUNT(al) FROM ArchivedLoan al GROUP BY al.borrower.id");
+        addGroupedCounts(counters, Scope.LIBRARIAN,
+            "SELECT al.processedBy.id, 0, COUNT(al) FROM ArchivedLoan al " +
+            "WHERE al.processedBy IS NOT NULL GROUP BY al.processedBy.id");
+        for (LoanCounter counter : counters.values()) {
+            em.persist(counter);
+        }
+        reload(new ArrayList<>(counters.values()));
+    }
+    
+    private void addGroupedCounts(Map<List<Object>, LoanCounter> counters, Scope scope, String jpql) {
+        for (Object[] row : em.createQuery(jpql, Object[].class).getResultList()) {
+            LoanCounter counter = counters.computeIfAbsent(List.of(scope, row[0]),
+                key -> new LoanCounter(scope, (Long) row[0], 0, 0));
+            counter.setActiveLoans(counter.getActiveLoans() + ((Number) row[1]).longValue());
+            counter.setTotalLoans(counter.getTotalLoans() + ((Number) row[2]).longValue());
+        }
+    }
+    
+    private void reload(List<LoanCounter> counters) {
+        Mirror loaded = new Mirror();
+        for (LoanCounter counter : counters) {
+            loaded.add(counter.getScope(), counter.getOwnerId(), counter.getActiveLoans(), counter.getTotalLoans());
+        }
+        mirror = loaded;
+        LOG.log(Level.INFO, "Loaded {0} loan counters", counters.size());
+    }
+    
+    /**
+     * Record a new loan against its library, borrower and librarian.
+     * @param libraryId the library ID
+     * @param borrowerId the borrower ID
+     * @param librarianId the processing librarian ID, may be null
+     * @param active whether the loan is still out
+     */
+    public void recordLoanCreated(Long libraryId, Long borrowerId, Long librarianId, boolean active) {
+        apply(libraryId, borrowerId, librarianId, active ? 1 : 0, 1);
+    }
+    
+    /**
+     * Record that a loan was returned.
+     * @param libraryId the library ID
+     * @param borrowerId the borrower ID
+     * @param librarianId the processing librarian ID, may be null
+     */
+    public void recordLoanReturned(Long libraryId, Long borrowerId, Long librarianId) {
+        apply(libraryId, borrowerId, librarianId, -1, 0);
+    }
+    
+    /**
+     * Record several active loans created together for one library, borrower and librarian.
+     * @param libraryId the library ID
+     * @param borrowerId the borrower ID
+     * @param librarianId the processing librarian ID, may be null
+     * @param count number of loans
+     */
+    public void recordLoansCreated(Long libraryId, Long borrowerId, Long librarianId, int count) {
+        if (count > 0) {
+            apply(libraryId, borrowerId, librarianId, count, count);
+        }
+    }
+    
+    /**
+     * Record several loans of one library, borrower and librarian returned together.
+     * @param libraryId the library ID
+     * @param borrowerId the borrower ID
+     * @param librarianId the processing librarian ID, may be null
+     * @param count number of loans
+     */
+    public void recordLoansReturned(Long libraryId, Long borrowerId, Long librarianId, int count) {
+        if (count > 0) {
+            apply(libraryId, borrowerId, librarianId, -count, 0);
+        }
+    }
+    
+    /**
+     * Record that a loan was deleted.
+     * @param libraryId the library ID
+     * @param borrowerId the borrower ID
+     * @param librarianId the processing librarian ID, may be null
+     * @param active whether the loan was still out
+     */
+    public void recordLoanDeleted(Long libraryId, Long borrowerId, Long librarianId, boolean active) {
+        apply(libraryId, borrowerId, librarianId, active ? -1 : 0, -1);
+    }
+    
+    private void apply(Long libraryId, Long borrowerId, Long librarianId, long activeDelta, long totalDelta) {
+        upsert(Scope.LIBRARY, libraryId, activeDelta, totalDelta);
+        upsert(Scope.BORROWER, borrowerId, activeDelta, totalDelta);
+        upsert(Scope.LIBRARIAN, librarianId, activeDelta, totalDelta);
+        // Read only once the upserts have returned, see the class comment
+        Mirror target = mirror;
+        AfterCommit.run(txRegistry, () -> {
+            target.add(Scope.LIBRARY, libraryId, activeDelta, totalDelta);
+            target.add(Scope.BORROWER, borrowerId, activeDelta, totalDelta);
+            target.add(Scope.LIBRARIAN, librarianId, activeDelta, totalDelta);
+        });
+    }
+    
+    private void upsert(Scope scope, Long ownerId, long activeDelta, long totalDelta) {
+        if (ownerId == null) {
+            return;
+        }
+        em.createNativeQuery(UPSERT_SQL)
+            .setParameter(1, scope.name())
+            .setParameter(2, ownerId)
+            .setParameter(3, activeDelta)
+            .setParameter(4, totalDelta)
+            .executeUpdate();
+    }
+    
+    /**
+     * Get the number of active loans for an owner.
+     * @param scope the owner kind
+     * @param ownerId the owner ID
+     * @return number of active loans
+     */
+    public long getActiveLoans(Scope scope, Long ownerId) {
+        Counts counts = mirror.counts.get(scope).get(ownerId);
+        return counts == null ? 0 : counts.active.sum();
+    }
+    
+    /**
+     * Get the total number of loans for an owner.
+     * @param scope the owner kind
+     * @param ownerId the owner ID
+     * @return total number of loans
+     */
+    public long getTotalLoans(Scope scope, Long ownerId) {
+        Counts counts = mirror.counts.get(scope).get(ownerId);
+        return counts == null ? 0 : counts.total.sum();
+    }
+    
+    /**
+     * Get a snapshot of every counter of one kind.
+     * @param scope the owner kind
+     * @return list of counters, one per owner
+     */
+    public List<LoanCounter> getCounters(Scope scope) {
+        List<LoanCounter> counters = new ArrayList<>();
+        mirror.counts.get(scope).forEach((ownerId, counts) ->
+            counters.add(new LoanCounter(scope, ownerId, counts.active.sum(), counts.total.sum())));
+        return counters;
+    }
+    
+    /**
+     * In-memory mirror of the summary table, replaced as a whole on each load.
+     */
+    private static final class Mirror {
+        private final Map<Scope, ConcurrentHashMap<Long, Counts>> counts = new EnumMap<>(Scope.class);
+        
+        private Mirror() {
+            for (Scope scope : Scope.values()) {
+                counts.put(scope, new ConcurrentHashMap<>());
+            }
+        }
+        
+        private void add(Scope scope, Long ownerId, long activeDelta, long totalDelta) {
+            if (ownerId == null) {
+                return;
+            }
+            Counts owner = counts.get(scope).computeIfAbsent(ownerId, id -> new Counts());
+            owner.active.add(activeDelta);
+            owner.total.add(totalDelta);
+        }
+    }
+    
+    /**
+     * In-memory mirror of one summary row.
+     */
+    private static final class Counts {
+        private final LongAdder active = new LongAdder();
+        private final LongAdder total = new LongAdder();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.service.LoanTimingWheel.Transition;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup Singleton EJB tracking the due dates of all active loans in a
+ * {@link LoanTimingWheel}. The wheel is rebuilt from book_loans at startup,
+ * kept current from the loan events on the {@link DomainEventBus}, and advanced once a day.
+ * Each due-soon and became-overdue transition is fired as a CDI event.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class LoanDueDateService {
+    
+    private static final Logger LOG = Logger.getLogger(LoanDueDateService.class.getName());
+    
+    /**
+     * System property listing the reminder lead times in days, e.g. "3,1".
+     */
+    public static final String REMINDER_DAYS_PROPERTY = "itmd4515.loans.reminderDays";
+    
+    @PersistenceContext(unitName = "itmd4515PU")
+    public EntityManager em;
+    
+    @Inject
+    public DomainEventBus eventBus;
+    
+    @Inject
+    public Event<Transition> transitionEvent;
+    
+    private LoanTimingWheel wheel;
+    
+    /**
+     * Build the wheel and subscribe to the loan events.
+     */
+    @PostConstruct
+    public void init() {
+        rebuild();
+        if (eventBus != null) {
+            eventBus.subscribe("loan-due-dates", DomainEvent.LoanEvent.class, this::onLoanEvent, this::rebuild);
+        }
+    }
+    
+    /**
+     * Rebuild the wheel from the active loans in the database, at startup and after loan events were dropped.
+     */
+    private void rebuild() {
+        LOG.log(Level.INFO, "Building loan timing wheel");
+        int[] reminderDays = Arrays.stream(System.getProperty(REMINDER_DAYS_PROPERTY, "3,1").split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        LoanTimingWheel rebuilt = new LoanTimingWheel(LocalDate.now(), reminderDays);
+        List<Object[]> rows = em.createQuery(
+            "SELECT bl.id, bl.borrower.id, bl.dueDate FROM BookLoan bl WHERE bl.returnDate IS NULL", Object[].class)
+            .getResultList();
+        for (Object[] row : rows) {
+            rebuilt.add((Long) row[0], (Long) row[1], (LocalDate) row[2]);
+        }
+        synchronized (this) {
+            wheel = rebuilt;
+        }
+        LOG.log(Level.INFO, "Loan timing wheel built with {0} active loans", rows.size());
+    }
+    
+    /**
+     * Advance the wheel to today just after midnight.
+     */
+    @Schedule(hour = "0", minute = "0", second = "5", persistent = false)
+    public void tick() {
+        advance();
+    }
+    
+    /**
+     * Track or untrack a loan after it was created, edited, returned or deleted.
+     * Both wheel operations are idempotent, so redelivered events do no harm.
+     * @param event the loan event
+     */
+    private void onLoanEvent(DomainEvent.LoanEvent event) {
+        boolean active = !(event instanceof DomainEvent.LoanDeleted) && event.getReturnDate() == null;
+        LOG.log(Level.FINE, "Due date wheel received {0}", event);
+        synchronized (this) {
+            if (active) {
+                wheel.add(event.getLoanId(), event.getBorrowerId(), event.getDueDate());
+            } else {
+                wheel.remove(event.getLoanId());
+            }
+        }
+    }
+    
+    /**
+     * Get the IDs of all overdue loans.
+     * @return overdue loan IDs
+     */
+    public List<Long> getOverdueLoanIds() {
+        advance();
+        synchronized (this) {
+            return wheel.getOverdueLoanIds();
+        }
+    }
+    
+    /**
+     * Get the IDs of borrowers with at least one overdue loan.
+     * @return borrower IDs
+     */
+    public List<Long> getOverdueBorrowerIds() {
+        advance();
+        synchronized (this) {
+            return wheel.getOverdueBorrowerIds();
+        }
+    }
+    
+    /**
+     * Bring the wheel up to today and publish the resulting transitions.
+     * Queries call this too, so results never lag the calendar if the timer is late.
+     */
+    private void advance() {
+        List<Transition> transitions;
+        synchronized (this) {
+            transitions = wheel.advanceTo(LocalDate.now());
+        }
+        for (Transition transition : transitions) {
+            LOG.log(Level.INFO, "Loan due date transition: {0}", transition);
+            if (transitionEvent != null) {
+                transitionEvent.fire(transition);
+            }
+        }
+    }
+}
\ No newline at end of file
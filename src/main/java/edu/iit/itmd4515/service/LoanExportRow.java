@@ -0,0 +1,118 @@
+package edu.iit.itmd4515.service;
+
+import java.time.LocalDate;
+
+/**
+ * One exported loan, flattened with its book, borrower and library.
+ * Also the row type of the loan history, where it tells whether the loan
+ * has been moved to the archive.
+ */
+public class LoanExportRow {
+    
+    private final Long loanId;
+    private final LocalDate loanDate;
+    private final LocalDate dueDate;
+    private final LocalDate returnDate;
+    private final Double fineAmount;
+    private final Long bookId;
+    private final String isbn;
+    private final String title;
+    private final Long borrowerId;
+    private final String borrowerName;
+    private final String borrowerEmail;
+    private final Long libraryId;
+    private final String libraryName;
+    private final boolean archived;
+    
+    public LoanExportRow(Long loanId, LocalDate loanDate, LocalDate dueDate, LocalDate returnDate, Double fineAmount,
+                         Long bookId, String isbn, String title,
+                         Long borrowerId, String borrowerName, String borrowerEmail,
+                         Long libraryId, String libraryName) {
+        this(loanId, loanDate, dueDate, returnDate, fineAmount, bookId, isbn, title,
+                borrowerId, borrowerName, borrowerEmail, libraryId, libraryName, false);
+    }
+    
+    public LoanExportRow(Long loanId, LocalDate loanDate, LocalDate dueDate, LocalDate returnDate, Double fineAmount,
+                         Long bookId, String isbn, String title,
+                         Long borrowerId, String borrowerName, String borrowerEmail,
+                         Long libraryId, String libraryName, boolean archived) {
+        this.loanId = loanId;
+        this.loanDate = loanDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+        this.fineAmount = fineAmount;
+        this.bookId = bookId;
+        this.isbn = isbn;
+        this.title = title;
+        this.borrowerId = borrowerId;
+        this.borrowerName = borrowerName;
+        this.borrowerEmail = borrowerEmail;
+        this.libraryId = libraryId;
+        this.libraryName = libraryName;
+        this.archived = archived;
+    }
+    
+    /**
+     * Get the loan ID, which is also the resume cursor of the export.
+     * @return the loan ID
+     */
+    public Long getLoanId() {
+        return loanId;
+    }
+    
+    public LocalDate getLoanDate() {
+        return loanDate;
+    }
+    
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+    
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+    
+    public Double getFineAmount() {
+        return fineAmount;
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public String getIsbn() {
+        return isbn;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public Long getBorrowerId() {
+        return borrowerId;
+    }
+    
+    public String getBorrowerName() {
+        return borrowerName;
+    }
+    
+    public String getBorrowerEmail() {
+        return borrowerEmail;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public String getLibraryName() {
+        return libraryName;
+    }
+    
+    /**
+     * Check whether the loan was read from book_loans_archive.
+     * @return true for an archived loan
+     */
+    public boolean isArchived() {
+        return archived;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,229 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.ResultSetConcurrency;
+import org.eclipse.persistence.config.ResultSetType;
+import org.eclipse.persistence.queries.ReportQueryResult;
+import org.eclipse.persistence.queries.ScrollableCursor;
+
+/**
+ * Stateless EJB streaming the loan history for bulk export and paging through it.
+ * The history is the union of book_loans and book_loans_archive; archived loans
+ * keep their ID, so both tables are read in ID order and merged.
+ * Loans are read through forward-only, read-only cursors of scalar columns, so
+ * no entities are built or cached and memory stays constant however many rows
+ * match. The export runs outside a transaction on its own entity manager, which
+ * keeps the cursors open for as long as the client reads. Because rows come out
+ * in ID order, the last loan ID received is a resume cursor: an interrupted
+ * export continues from it with the same filters.
+ */
+@Stateless
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class LoanExportService {
+    
+    private static final Logger LOG = Logger.getLogger(LoanExportService.class.getName());
+    
+    /**
+     * Rows fetched from the database per round trip. The data source sets
+     * {@code useCursorFetch} so MySQL serves them from a server-side cursor
+     * instead of sending the whole result at once.
+     */
+    public static final int FETCH_SIZE = 1000;
+    
+    // Same columns from either table; %s is BookLoan or ArchivedLoan
+    private static final String SELECT =
+        "SELECT bl.id, bl.loanDate, bl.dueDate, bl.returnDate, bl.fineAmount, " +
+        "b.id, b.isbn, b.title, br.id, br.firstName, br.lastName, br.email, l.id, l.name " +
+        "FROM %s bl JOIN bl.book b JOIN bl.borrower br JOIN bl.library l ";
+    
+    @PersistenceUnit(unitName = "itmd4515PU")
+    public EntityManagerFactory emf;
+    
+    /**
+     * Stream the loans matching the filters to a sink, in ascending loan ID order.
+     * @param from earliest loan date, inclusive, may be null
+     * @param to latest loan date, inclusive, may be null
+     * @param libraryId only loans of this library, may be null
+     * @param afterId only loans with a greater ID, may be null to start from the beginning
+     * @param sink receives each row as it is read
+     * @return the number of rows exported
+     */
+    public long export(LocalDate from, LocalDate to, Long libraryId, Long afterId, Consumer<LoanExportRow> sink) {
+        LOG.log(Level.INFO, "Exporting loans after ID {0}", afterId);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        StringBuilder where = new StringBuilder("WHERE bl.id > :afterId");
+        if (from != null) {
+            where.append(" AND bl.loanDate >= :from");
+        }
+        if (to != null) {
+            where.append(" AND bl.loanDate <= :to");
+        }
+        if (libraryId != null) {
+            where.append(" AND l.id = :libraryId");
+        }
+        where.append(" ORDER BY bl.id");
+        
+        EntityManager em = emf.createEntityManager();
+        ScrollableCursor hot = null;
+        ScrollableCursor archived = null;
+        try {
+            // book_loans first: a loan archived in between then shows up in both cursors, never in neither
+            hot = openCursor(em, String.format(SELECT, "BookLoan") + where, from, to, libraryId, afterId);
+            archived = openCursor(em, String.format(SELECT, "ArchivedLoan") + where, from, to, libraryId, afterId);
+            
+            long count = 0;
+            LoanExportRow nextHot = next(hot, false);
+            LoanExportRow nextArchived = next(archived, true);
+            while (nextHot != null || nextArchived != null) {
+                if (nextArchived == null || (nextHot != null && nextHot.getLoanId() < nextArchived.getLoanId())) {
+                    sink.accept(nextHot);
+                    nextHot = next(hot, false);
+                } else {
+                    if (nextHot != null && nextHot.getLoanId().equals(nextArchived.getLoanId())) {
+                        nextHot = next(hot, false);
+                    }
+                    sink.accept(nextArchived);
+                    nextArchived = next(archived, true);
+                }
+                count++;
+            }
+            LOG.log(Level.INFO, "Exported {0} loans", count);
+            return count;
+        } finally {
+            if (hot != null) {
+                hot.close();
+            }
+            if (archived != null) {
+                archived.close();
+            }
+            em.close();
+        }
+    }
+    
+    private static ScrollableCursor openCursor(EntityManager em, String jpql, LocalDate from, LocalDate to,
+                                               Long libraryId, Long afterId) {
+        Query query = em.createQuery(jpql)
+                .setParameter("afterId", afterId == null ? 0L : afterId)
+                .setHint(QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE)
+                .setHint(QueryHints.RESULT_SET_TYPE, ResultSetType.ForwardOnly)
+                .setHint(QueryHints.RESULT_SET_CONCURRENCY, ResultSetConcurrency.ReadOnly)
+                .setHint(QueryHints.JDBC_FETCH_SIZE, FETCH_SIZE);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (libraryId != null) {
+            query.setParameter("libraryId", libraryId);
+        }
+        return (ScrollableCursor) query.getSingleResult();
+    }
+    
+    private static LoanExportRow next(ScrollableCursor cursor, boolean archived) {
+        if (!cursor.hasNext()) {
+            return null;
+        }
+        Object next = cursor.next();
+        return toRow(next instanceof ReportQueryResult ? ((ReportQueryResult) next).toArray() : (Object[]) next, archived);
+    }
+    
+    private static LoanExportRow toRow(Object[] row, boolean archived) {
+        return new LoanExportRow((Long) row[0], (LocalDate) row[1], (LocalDate) row[2],
+                (LocalDate) row[3], (Double) row[4], (Long) row[5], (String) row[6], (String) row[7],
+                (Long) row[8], row[9] + " " + row[10], (String) row[11], (Long) row[12], (String) row[13], archived);
+    }
+    
+    /**
+     * Find one page of the loan history, current and archived loans alike, newest first.
+     * @param borrowerId only loans of this borrower, may be null
+     * @param bookId only loans of this book, may be null
+     * @param libraryId only loans of this library, may be null
+     * @param beforeId only loans with a smaller ID, may be null to start from the newest
+     * @param limit maximum number of loans on the page
+     * @return the page, whose next value is the beforeId of the following page
+     */
+    public LoanHistoryPage findHistory(Long borrowerId, Long bookId, Long libraryId, Long beforeId, int limit) {
+        LOG.log(Level.INFO, "Finding loan history before ID {0}", beforeId);
+        StringBuilder where = new StringBuilder("WHERE bl.id < :beforeId");
+        if (borrowerId != null) {
+            where.append(" AND br.id = :borrowerId");
+        }
+        if (bookId != null) {
+            where.append(" AND b.id = :bookId");
+        }
+        if (libraryId != null) {
+            where.append(" AND l.id = :libraryId");
+        }
+        where.append(" ORDER BY bl.id DESC");
+        
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Object[]> hot = historyQuery(em, String.format(SELECT, "BookLoan") + where,
+                    borrowerId, bookId, libraryId, beforeId, limit + 1);
+            List<Object[]> archived = historyQuery(em, String.format(SELECT, "ArchivedLoan") + where,
+                    borrowerId, bookId, libraryId, beforeId, limit + 1);
+            
+            // Merge the two descending lists, keeping one copy of a loan archived between the queries
+            List<LoanExportRow> loans = new ArrayList<>(limit);
+            int h = 0;
+            int a = 0;
+            boolean hasMore = false;
+            while (h < hot.size() || a < archived.size()) {
+                if (loans.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                Long hotId = h < hot.size() ? (Long) hot.get(h)[0] : null;
+                Long archivedId = a < archived.size() ? (Long) archived.get(a)[0] : null;
+                if (archivedId == null || (hotId != null && hotId > archivedId)) {
+                    loans.add(toRow(hot.get(h++), false));
+                } else {
+                    if (archivedId.equals(hotId)) {
+                        h++;
+                    }
+                    loans.add(toRow(archived.get(a++), true));
+                }
+            }
+            Long next = hasMore ? loans.get(loans.size() - 1).getLoanId() : null;
+            return new LoanHistoryPage(loans, next, hasMore);
+        } finally {
+            em.close();
+        }
+    }
+    
+    private static List<Object[]> historyQuery(EntityManager em, String jpql, Long borrowerId, Long bookId,
+                                               Long libraryId, Long beforeId, int maxResults) {
+        TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class)
+                .setParameter("beforeId", beforeId == null ? Long.MAX_VALUE : beforeId)
+                .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+                .setMaxResults(maxResults);
+        if (borrowerId != null) {
+            query.setParameter("borrowerId", borrowerId);
+        }
+        if (bookId != null) {
+            query.setParameter("bookId", bookId);
+        }
+        if (libraryId != null) {
+            query.setParameter("libraryId", libraryId);
+        }
+        return query.getResultList();
+    }
+}
\ No newline at end of file
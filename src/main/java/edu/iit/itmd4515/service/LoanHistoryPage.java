@@ -0,0 +1,51 @@
+package edu.iit.itmd4515.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the loan history, newest loan first.
+ * {@code next} is the loan ID to pass as {@code before} on the following
+ * request, or null on the last page.
+ */
+public class LoanHistoryPage {
+    
+    private List<LoanExportRow> loans = new ArrayList<>();
+    
+    private Long next;
+    
+    private boolean hasMore;
+    
+    public LoanHistoryPage() {
+    }
+    
+    public LoanHistoryPage(List<LoanExportRow> loans, Long next, boolean hasMore) {
+        this.loans = loans;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+    
+    public List<LoanExportRow> getLoans() {
+        return loans;
+    }
+    
+    public void setLoans(List<LoanExportRow> loans) {
+        this.loans = loans;
+    }
+    
+    public Long getNext() {
+        return next;
+    }
+    
+    public void setNext(Long next) {
+        this.next = next;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
\ No newline at end of file
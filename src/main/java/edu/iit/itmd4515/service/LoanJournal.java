@@ -0,0 +1,535 @@
+package edu.iit.itmd4515.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of loan transactions kept in memory-mapped segment files.
+ * Every record has the same {@value #RECORD_SIZE} byte layout, so an append is a
+ * few puts into the mapped page cache with no allocation and no system call;
+ * it never waits for the disk. A group-commit thread forces the pages to disk
+ * once {@code groupSize} appends are waiting, and at least every
+ * {@code groupMillis} while appends are, outside the lock appends take, so a
+ * crash loses at most the last unforced group. {@link #sync()} forces on the
+ * calling thread. Each record ends with a CRC32C over its bytes and the
+ * previous record's CRC, which chains the journal: a record damaged, lost or
+ * reordered by a crash, a bad disk or a botched copy fails verification. The
+ * CRC is not keyed, so the chain detects corruption, not deliberate edits by
+ * someone able to recompute it. A full segment rolls over into a new file named after its
+ * first sequence number. On opening, a damaged last record is taken to be an
+ * append torn by a crash and dropped, but a damaged record followed by intact
+ * ones is refused rather than truncated away. Instances are thread safe.
+ */
+public class LoanJournal implements Closeable {
+    
+    private static final Logger LOG = Logger.getLogger(LoanJournal.class.getName());
+    
+    /**
+     * Size in bytes of every record.
+     */
+    public static final int RECORD_SIZE = 80;
+    
+    /**
+     * Marker at the start of every written record; a zero marks unused space.
+     */
+    static final int MAGIC = 0x4C4A5231;
+    
+    // Record layout
+    private static final int OPERATION = 4;
+    private static final int SEQUENCE = 8;
+    private static final int TIMESTAMP = 16;
+    private static final int LOAN = 24;
+    private static final int BOOK = 32;
+    private static final int BORROWER = 40;
+    private static final int LIBRARY = 48;
+    private static final int DUE_DATE = 56;
+    private static final int RETURN_DATE = 60;
+    private static final int FINE = 64;
+    private static final int PREVIOUS_CRC = 72;
+    private static final int CRC = 76;
+    
+    private static final long NULL_ID = -1L;
+    private static final int NULL_DATE = Integer.MIN_VALUE;
+    private static final long NULL_FINE = Long.MIN_VALUE;
+    
+    private static final String PREFIX = "loans-";
+    private static final String SUFFIX = ".journal";
+    
+    private static final JournalRecord.Operation[] OPERATIONS = JournalRecord.Operation.values();
+    
+    private final Path directory;
+    
+    private final int segmentBytes;
+    
+    private final int groupSize;
+    
+    private final long groupNanos;
+    
+    private final CRC32C checksum = new CRC32C();
+    
+    // Serializes forces, which run outside the append lock
+    private final Object forceLock = new Object();
+    
+    private final Thread flusher;
+    
+    private MappedByteBuffer segment;
+    
+    private Path segmentPath;
+    
+    private int position;
+    
+    private int forcedTo;
+    
+    private int unforced;
+    
+    // A rolled over segment whose tail the flusher has not forced yet
+    private MappedByteBuffer retired;
+    
+    private int retiredFrom;
+    
+    private int retiredTo;
+    
+    private long nextSequence;
+    
+    private int lastCrc;
+    
+    private long appended;
+    
+    private boolean closed;
+    
+    private long forces;
+    
+    /**
+     * Open the journal in a directory, continuing after the last intact record.
+     * A damaged record is only dropped if no intact record follows it.
+     * @param directory the directory holding the segment files, created if missing
+     * @param recordsPerSegment the number of records in a segment file
+     * @param groupSize the number of waiting appends that wakes the group-commit thread
+     * @param groupMillis the maximum time between forces while appending
+     * @throws IOException if the directory or a segment cannot be opened, or the newest
+     *                     segment has a damaged record followed by intact ones
+     */
+    public LoanJournal(Path directory, int recordsPerSegment, int groupSize, long groupMillis) throws IOException {
+        this(directory, recordsPerSegment, groupSize, groupMillis, task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Open the journal in a directory, continuing after the last intact record,
+     * with the group-commit thread created by a thread factory.
+     * A damaged record is only dropped if no intact record follows it.
+     * @param directory the directory holding the segment files, created if missing
+     * @param recordsPerSegment the number of records in a segment file
+     * @param groupSize the number of waiting appends that wakes the group-commit thread
+     * @param groupMillis the maximum time between forces while appending
+     * @param threadFactory creates the group-commit thread
+     * @throws IOException if the directory or a segment cannot be opened, or the newest
+     *                     segment has a damaged record followed by intact ones
+     */
+    public LoanJournal(Path directory, int recordsPerSegment, int groupSize, long groupMillis,
+                       ThreadFactory threadFactory) throws IOException {
+        if (recordsPerSegment < 1 || recordsPerSegment > Integer.MAX_VALUE / RECORD_SIZE || groupSize < 1 || groupMillis < 0) {
+            throw new IllegalArgumentException("Invalid journal settings");
+        }
+        this.directory = directory;
+        this.segmentBytes = recordsPerSegment * RECORD_SIZE;
+        this.groupSize = groupSize;
+        this.groupNanos = groupMillis * 1_000_000L;
+        Files.createDirectories(directory);
+        recover();
+        flusher = threadFactory.newThread(this::flushLoop);
+        flusher.setName("loan-journal-flusher");
+        flusher.start();
+    }
+    
+    private void recover() throws IOException {
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            openSegment(1);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        segmentPath = last;
+        segment = map(last, FileChannel.MapMode.READ_WRITE);
+        Scan scan = scan(segment, firstSequence(last));
+        position = scan.records * RECORD_SIZE;
+        forcedTo = position;
+        nextSequence = firstSequence(last) + scan.records;
+        lastCrc = scan.lastCrc;
+        if (scan.records == 0 && segments.size() > 1) {
+            Path previous = segments.get(segments.size() - 2);
+            lastCrc = scan(map(previous, FileChannel.MapMode.READ_ONLY), firstSequence(previous)).lastCrc;
+        }
+        // An intact record past the first bad one means the bad one was damaged, not torn by a crash
+        for (int at = position + RECORD_SIZE; at + RECORD_SIZE <= segment.capacity(); at += RECORD_SIZE) {
+            if (segment.getInt(at) == MAGIC && segment.getInt(at + CRC) == crc(checksum, segment, at)) {
+                LOG.log(Level.SEVERE, "Loan journal record at sequence {0} in {1} is damaged but later records are intact",
+                        new Object[]{nextSequence, last});
+                segment = null;
+                throw new IOException("Corrupt journal record at sequence " + nextSequence + " in " + last
+                        + " is followed by intact records; refusing to truncate the journal");
+            }
+        }
+        // Drop a torn record and anything the OS flushed past it before the crash
+        int cleared = 0;
+        for (int at = position; at + RECORD_SIZE <= segment.capacity(); at += RECORD_SIZE) {
+            if (segment.getInt(at) != 0) {
+                segment.put(at, new byte[RECORD_SIZE]);
+                cleared++;
+            }
+        }
+        if (cleared > 0) {
+            LOG.log(Level.WARNING, "Discarded {0} unverifiable records at the end of {1}", new Object[]{cleared, last});
+            segment.force();
+        }
+        LOG.log(Level.INFO, "Opened loan journal {0} at sequence {1}", new Object[]{directory, nextSequence});
+    }
+    
+    /**
+     * Append a record; it is durable once the current group has been forced.
+     * @param record the record, whose sequence number is ignored
+     * @return the sequence number assigned to the record
+     * @throws IOException if a new segment cannot be created
+     */
+    public synchronized long append(JournalRecord record) throws IOException {
+        if (closed || segment == null) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (position + RECORD_SIZE > segment.capacity()) {
+            roll();
+        }
+        long sequence = nextSequence;
+        int at = position;
+        segment.putInt(at, MAGIC);
+        segment.putInt(at + OPERATION, record.getOperation().ordinal());
+        segment.putLong(at + SEQUENCE, sequence);
+        segment.putLong(at + TIMESTAMP, record.getTimestamp().toEpochMilli());
+        segment.putLong(at + LOAN, id(record.getLoanId()));
+        segment.putLong(at + BOOK, id(record.getBookId()));
+        segment.putLong(at + BORROWER, id(record.getBorrowerId()));
+        segment.putLong(at + LIBRARY, id(record.getLibraryId()));
+        segment.putInt(at + DUE_DATE, date(record.getDueDate()));
+        segment.putInt(at + RETURN_DATE, date(record.getReturnDate()));
+        segment.putLong(at + FINE, record.getFineAmount() == null ? NULL_FINE : Math.round(record.getFineAmount() * 100));
+        segment.putInt(at + PREVIOUS_CRC, lastCrc);
+        int crc = crc(checksum, segment, at);
+        segment.putInt(at + CRC, crc);
+        
+        nextSequence++;
+        lastCrc = crc;
+        position += RECORD_SIZE;
+        appended++;
+        if (++unforced == groupSize) {
+            notifyAll();
+        }
+        return sequence;
+    }
+    
+    /**
+     * Force every appended record to disk on the calling thread.
+     * Appends are not held up while the pages are written.
+     */
+    public void sync() {
+        MappedByteBuffer oldSegment;
+        int oldFrom;
+        int oldTo;
+        MappedByteBuffer target;
+        int from;
+        int to;
+        synchronized (this) {
+            oldSegment = retired;
+            oldFrom = retiredFrom;
+            oldTo = retiredTo;
+            retired = null;
+            target = segment;
+            from = forcedTo;
+            to = position;
+            unforced = 0;
+            if (oldSegment == null && (target == null || to <= from)) {
+                return;
+            }
+        }
+        synchronized (forceLock) {
+            if (oldSegment != null && oldTo > oldFrom) {
+                oldSegment.force(oldFrom, oldTo - oldFrom);
+            }
+            if (target != null && to > from) {
+                target.force(from, to - from);
+            }
+        }
+        synchronized (this) {
+            if (segment == target && to > forcedTo) {
+                forcedTo = to;
+            }
+            forces++;
+        }
+    }
+    
+    /**
+     * Group-commit loop: force once enough appends are waiting, or after groupMillis.
+     */
+    private void flushLoop() {
+        long waitMillis = Math.max(1, groupNanos / 1_000_000L);
+        while (true) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (unforced < groupSize && retired == null) {
+                    try {
+                        wait(waitMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                LOG.log(Level.SEVERE, "Error forcing loan journal to disk", e);
+            }
+        }
+    }
+    
+    private void roll() throws IOException {
+        if (retired != null) {
+            // The flusher has not caught up with the previous roll; rolls are a segment apart, so this is rare
+            synchronized (forceLock) {
+                retired.force(retiredFrom, retiredTo - retiredFrom);
+            }
+        }
+        retired = segment;
+        retiredFrom = forcedTo;
+        retiredTo = position;
+        LOG.log(Level.INFO, "Rolling loan journal segment {0} at sequence {1}", new Object[]{segmentPath, nextSequence});
+        openSegment(nextSequence);
+        notifyAll();
+    }
+    
+    private void openSegment(long firstSequence) throws IOException {
+        segmentPath = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        position = 0;
+        forcedTo = 0;
+    }
+    
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync();
+        synchronized (this) {
+            segment = null;
+        }
+        LOG.log(Level.INFO, "Closed loan journal {0} at sequence {1}", new Object[]{directory, nextSequence});
+    }
+    
+    /**
+     * Get the sequence number of the last appended record.
+     * @return the sequence number, or 0 if the journal is empty
+     */
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+    
+    /**
+     * Get the number of records appended since the journal was opened.
+     * @return the number of appends
+     */
+    public synchronized long getAppended() {
+        return appended;
+    }
+    
+    /**
+     * Get the number of times appended records were forced to disk since the journal was opened.
+     * @return the number of forces
+     */
+    public synchronized long getForces() {
+        return forces;
+    }
+    
+    /**
+     * Read the journal in sequence order, verifying every record and the chain between them.
+     * A damaged record at the very end of the newest segment is taken to be an
+     * append torn by a crash and ends the replay; anywhere else it is an error.
+     * @param directory the journal directory
+     * @param fromSequence the first sequence number to hand to the consumer
+     * @param consumer receives the records
+     * @return the number of records handed to the consumer
+     * @throws IOException if a segment cannot be read or fails verification
+     */
+    public static long replay(Path directory, long fromSequence, Consumer<? super JournalRecord> consumer) throws IOException {
+        List<Path> segments = segments(directory);
+        int start = 0;
+        for (int i = 1; i < segments.size(); i++) {
+            if (firstSequence(segments.get(i)) <= fromSequence) {
+                start = i;
+            }
+        }
+        CRC32C checksum = new CRC32C();
+        long replayed = 0;
+        long expected = -1;
+        int previousCrc = 0;
+        for (int i = start; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            boolean newest = i == segments.size() - 1;
+            MappedByteBuffer buffer = map(path, FileChannel.MapMode.READ_ONLY);
+            if (expected >= 0 && expected != firstSequence(path)) {
+                throw new IOException("Journal segment " + path + " does not follow sequence " + (expected - 1));
+            }
+            expected = firstSequence(path);
+            for (int at = 0; at + RECORD_SIZE <= buffer.capacity(); at += RECORD_SIZE) {
+                int magic = buffer.getInt(at);
+                if (magic == 0) {
+                    break;
+                }
+                boolean intact = magic == MAGIC && buffer.getInt(at + CRC) == crc(checksum, buffer, at)
+                        && buffer.getLong(at + SEQUENCE) == expected;
+                if (!intact) {
+                    boolean tail = at + 2 * RECORD_SIZE > buffer.capacity() || buffer.getInt(at + RECORD_SIZE) == 0;
+                    if (newest && tail) {
+                        LOG.log(Level.WARNING, "Ignoring torn record at the end of {0}", path);
+                        return replayed;
+                    }
+                    throw new IOException("Corrupt journal record at sequence " + expected + " in " + path);
+                }
+                if (expected > firstSequence(segments.get(start)) && buffer.getInt(at + PREVIOUS_CRC) != previousCrc) {
+                    throw new IOException("Journal chain broken at sequence " + expected + " in " + path);
+                }
+                previousCrc = buffer.getInt(at + CRC);
+                if (expected >= fromSequence) {
+                    consumer.accept(decode(buffer, at));
+                    replayed++;
+                }
+                expected++;
+            }
+        }
+        return replayed;
+    }
+    
+    private static JournalRecord decode(ByteBuffer buffer, int at) {
+        long fine = buffer.getLong(at + FINE);
+        return new JournalRecord(buffer.getLong(at + SEQUENCE),
+                Instant.ofEpochMilli(buffer.getLong(at + TIMESTAMP)),
+                OPERATIONS[buffer.getInt(at + OPERATION)],
+                id(buffer.getLong(at + LOAN)),
+                id(buffer.getLong(at + BOOK)),
+                id(buffer.getLong(at + BORROWER)),
+                id(buffer.getLong(at + LIBRARY)),
+                date(buffer.getInt(at + DUE_DATE)),
+                date(buffer.getInt(at + RETURN_DATE)),
+                fine == NULL_FINE ? null : fine / 100.0);
+    }
+    
+    /**
+     * Count the intact, chained records at the start of a segment.
+     */
+    private static Scan scan(ByteBuffer buffer, long firstSequence) {
+        CRC32C checksum = new CRC32C();
+        Scan scan = new Scan();
+        for (int at = 0; at + RECORD_SIZE <= buffer.capacity(); at += RECORD_SIZE) {
+            if (buffer.getInt(at) != MAGIC
+                    || buffer.getInt(at + CRC) != crc(checksum, buffer, at)
+                    || buffer.getLong(at + SEQUENCE) != firstSequence + scan.records
+                    || (scan.records > 0 && buffer.getInt(at + PREVIOUS_CRC) != scan.lastCrc)) {
+                break;
+            }
+            scan.lastCrc = buffer.getInt(at + CRC);
+            scan.records++;
+        }
+        return scan;
+    }
+    
+    private static int crc(CRC32C checksum, ByteBuffer buffer, int at) {
+        checksum.reset();
+        checksum.update(buffer.slice(at, CRC));
+        return (int) checksum.getValue();
+    }
+    
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            long size = channel.size() / RECORD_SIZE * RECORD_SIZE;
+            return channel.map(mode, 0, size);
+        }
+    }
+    
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().matches(PREFIX + "\\d{20}" + SUFFIX.replace(".", "\\.")))
+                    .sorted(Comparator.comparingLong(LoanJournal::firstSequence))
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+    
+    private static long id(Long id) {
+        return id == null ? NULL_ID : id;
+    }
+    
+    private static Long id(long id) {
+        return id == NULL_ID ? null : id;
+    }
+    
+    private static int date(LocalDate date) {
+        return date == null ? NULL_DATE : (int) date.toEpochDay();
+    }
+    
+    private static LocalDate date(int day) {
+        return day == NULL_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+    
+    private static final class Scan {
+        
+        private int records;
+        
+        private int lastCrc;
+    }
+}
\ No newline at end of file
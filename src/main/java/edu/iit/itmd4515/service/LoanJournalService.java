@@ -0,0 +1,101 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup Singleton EJB writing every loan event on the {@link DomainEventBus}
+ * to the {@link LoanJournal}, the binary circulation audit trail.
+ * Records are appended on the committing thread right after the loan's transaction
+ * commits, so journaling adds no work to the transaction itself, never falls behind
+ * a queue and is not lost with one. The append only writes to mapped memory; the
+ * journal's group-commit thread, from the container's managed thread factory,
+ * forces it to disk. The remaining gaps are a crash between the commit and the
+ * append, and appends not yet forced to disk (see {@link LoanJournal}).
+ * A failed append is retried, and held for redelivery by the bus rather than dropped.
+ * The location and sizing are read from system properties such as
+ * {@code itmd4515.journal.dir}; the journal can be read back with JournalTool.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class LoanJournalService {
+    
+    private static final Logger LOG = Logger.getLogger(LoanJournalService.class.getName());
+    
+    /**
+     * Prefix of the system properties configuring the journal.
+     */
+    public static final String PROPERTY_PREFIX = "itmd4515.journal.";
+    
+    @Inject
+    public DomainEventBus eventBus;
+    
+    @Resource
+    public ManagedThreadFactory threadFactory;
+    
+    private LoanJournal journal;
+    
+    /**
+     * Open the journal and subscribe it to the loan events.
+     */
+    @PostConstruct
+    public void init() {
+        Path directory = Paths.get(System.getProperty(PROPERTY_PREFIX + "dir",
+                Paths.get(System.getProperty("user.home"), "itmd4515", "journal").toString()));
+        int recordsPerSegment = Integer.getInteger(PROPERTY_PREFIX + "recordsPerSegment", 1_000_000);
+        int groupSize = Integer.getInteger(PROPERTY_PREFIX + "groupSize", 1000);
+        long groupMillis = Long.getLong(PROPERTY_PREFIX + "groupMillis", 100L);
+        LOG.log(Level.INFO, "Opening loan journal in {0}", directory);
+        try {
+            journal = threadFactory == null
+                    ? new LoanJournal(directory, recordsPerSegment, groupSize, groupMillis)
+                    : new LoanJournal(directory, recordsPerSegment, groupSize, groupMillis, threadFactory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open loan journal in " + directory, e);
+        }
+        if (eventBus != null) {
+            eventBus.subscribeOnCommit("loan-journal", DomainEvent.LoanEvent.class, this::onLoanEvent);
+        }
+    }
+    
+    /**
+     * Append a loan event to the journal.
+     * @param event the loan event
+     */
+    public void onLoanEvent(DomainEvent.LoanEvent event) {
+        try {
+            journal.append(JournalRecord.of(event));
+        } catch (IOException e) {
+            // Rethrown so the bus retries the event
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Get the sequence number of the last journaled loan event.
+     * @return the sequence number, or 0 if the journal is empty
+     */
+    public long getLastSequence() {
+        return journal.getLastSequence();
+    }
+    
+    @PreDestroy
+    public void close() {
+        LOG.log(Level.INFO, "Closing loan journal");
+        journal.close();
+    }
+}
\ No newline at end of file
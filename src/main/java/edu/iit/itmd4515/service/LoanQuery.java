@@ -0,0 +1,224 @@
+package edu.iit.itmd4515.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ad-hoc question over the loan history for {@link LoanAnalyticsEngine}:
+ * which loans to include, what to group them by and what to measure,
+ * e.g. the average duration of returned loans by publisher by quarter.
+ */
+public class LoanQuery {
+    
+    /**
+     * Most dimensions a query can group by.
+     */
+    public static final int MAX_DIMENSIONS = 2;
+    
+    /**
+     * Attribute loans are grouped by.
+     */
+    public enum Dimension {
+        LIBRARY,
+        PUBLISHER,
+        YEAR,
+        QUARTER,
+        MONTH;
+        
+        /**
+         * Parse a comma-separated group-by parameter.
+         * @param value the raw parameter value, may be null or blank for no grouping
+         * @return the dimensions, in order
+         * @throws IllegalArgumentException if a dimension is unknown or there are too many
+         */
+        public static List<Dimension> parseList(String value) {
+            List<Dimension> dimensions = new ArrayList<>();
+            if (value == null || value.isBlank()) {
+                return dimensions;
+            }
+            for (String name : value.split(",")) {
+                try {
+                    dimensions.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid dimension: " + name
+                            + ", expected library, publisher, year, quarter or month");
+                }
+            }
+            return dimensions;
+        }
+    }
+    
+    /**
+     * Value aggregated over each group besides the number of loans.
+     */
+    public enum Measure {
+        /** Only the number of loans. */
+        LOANS,
+        /** Days from loan to return, of returned loans. */
+        DURATION,
+        /** Days returned after the due date, 0 if on time, of returned loans. */
+        DAYS_LATE,
+        /** Fine amount, of loans with a fine. */
+        FINE;
+        
+        /**
+         * Parse a measure parameter, defaulting to LOANS.
+         * @param value the raw parameter value, may be null or blank
+         * @return the measure
+         * @throws IllegalArgumentException if the measure is unknown
+         */
+        public static Measure parse(String value) {
+            if (value == null || value.isBlank()) {
+                return LOANS;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid measure: " + value
+                        + ", expected loans, duration, days_late or fine");
+            }
+        }
+    }
+    
+    /**
+     * Loans included by whether they have been returned.
+     */
+    public enum Status {
+        ANY,
+        ACTIVE,
+        RETURNED;
+        
+        /**
+         * Parse a status parameter, defaulting to ANY.
+         * @param value the raw parameter value, may be null or blank
+         * @return the status
+         * @throws IllegalArgumentException if the status is unknown
+         */
+        public static Status parse(String value) {
+            if (value == null || value.isBlank()) {
+                return ANY;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid status: " + value + ", expected active or returned");
+            }
+        }
+    }
+    
+    private LocalDate from;
+    
+    private LocalDate to;
+    
+    private Long libraryId;
+    
+    private String publisher;
+    
+    private Status status = Status.ANY;
+    
+    private List<Dimension> groupBy = new ArrayList<>();
+    
+    private Measure measure = Measure.LOANS;
+    
+    public LoanQuery() {
+    }
+    
+    /**
+     * Check the query can be run.
+     * @throws IllegalArgumentException if it cannot
+     */
+    public void validate() {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (groupBy.size() > MAX_DIMENSIONS) {
+            throw new IllegalArgumentException("At most " + MAX_DIMENSIONS + " dimensions can be grouped by");
+        }
+        if (groupBy.size() != groupBy.stream().distinct().count()) {
+            throw new IllegalArgumentException("Duplicate dimension in " + groupBy);
+        }
+    }
+    
+    /**
+     * Get the earliest loan date included.
+     * @return the date, or null for no lower bound
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+    
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+    
+    /**
+     * Get the latest loan date included.
+     * @return the date, or null for no upper bound
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+    
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+    
+    public Long getLibraryId() {
+        return libraryId;
+    }
+    
+    public void setLibraryId(Long libraryId) {
+        this.libraryId = libraryId;
+    }
+    
+    /**
+     * Get the publisher name the loans are restricted to.
+     * @return the name, or null for all publishers
+     */
+    public String getPublisher() {
+        return publisher;
+    }
+    
+    public void setPublisher(String publisher) {
+        this.publisher = publisher;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public List<Dimension> getGroupBy() {
+        return groupBy;
+    }
+    
+    public void setGroupBy(List<Dimension> groupBy) {
+        this.groupBy = groupBy;
+    }
+    
+    public Measure getMeasure() {
+        return measure;
+    }
+    
+    public void setMeasure(Measure measure) {
+        this.measure = measure;
+    }
+    
+    @Override
+    public String toString() {
+        return "LoanQuery{" +
+                "from=" + from +
+                ", to=" + to +
+                ", libraryId=" + libraryId +
+                ", publisher='" + publisher + '\'' +
+                ", status=" + status +
+                ", groupBy=" + groupBy +
+                ", measure=" + measure +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,215 @@
+package edu.iit.itmd4515.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answer to a {@link LoanQuery}: one group per combination of dimension values
+ * with at least one loan, plus how much of the history was scanned.
+ */
+public class LoanQueryResult {
+    
+    private List<String> dimensions = new ArrayList<>();
+    
+    private String measure;
+    
+    private List<Group> groups = new ArrayList<>();
+    
+    private long scannedRows;
+    
+    private long matchedRows;
+    
+    private long elapsedMillis;
+    
+    public LoanQueryResult() {
+    }
+    
+    public LoanQueryResult(List<String> dimensions, String measure, List<Group> groups,
+                           long scannedRows, long matchedRows, long elapsedMillis) {
+        this.dimensions = dimensions;
+        this.measure = measure;
+        this.groups = groups;
+        this.scannedRows = scannedRows;
+        this.matchedRows = matchedRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public List<String> getDimensions() {
+        return dimensions;
+    }
+    
+    public void setDimensions(List<String> dimensions) {
+        this.dimensions = dimensions;
+    }
+    
+    public String getMeasure() {
+        return measure;
+    }
+    
+    public void setMeasure(String measure) {
+        this.measure = measure;
+    }
+    
+    public List<Group> getGroups() {
+        return groups;
+    }
+    
+    public void setGroups(List<Group> groups) {
+        this.groups = groups;
+    }
+    
+    /**
+     * Get the number of rows in the column store when the query ran.
+     * @return the row count
+     */
+    public long getScannedRows() {
+        return scannedRows;
+    }
+    
+    public void setScannedRows(long scannedRows) {
+        this.scannedRows = scannedRows;
+    }
+    
+    /**
+     * Get the number of loans passing the filters.
+     * @return the loan count
+     */
+    public long getMatchedRows() {
+        return matchedRows;
+    }
+    
+    public void setMatchedRows(long matchedRows) {
+        this.matchedRows = matchedRows;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "LoanQueryResult{" +
+                "dimensions=" + dimensions +
+                ", measure='" + measure + '\'' +
+                ", groups=" + groups.size() +
+                ", matchedRows=" + matchedRows +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+    
+    /**
+     * Aggregates of one group. Without a measure, or when no loan in the group
+     * has a value for it, only the loan count is set.
+     */
+    public static class Group {
+        
+        private List<String> key = new ArrayList<>();
+        
+        private long loans;
+        
+        private long measured;
+        
+        private Double sum;
+        
+        private Double average;
+        
+        private Double min;
+        
+        private Double max;
+        
+        public Group() {
+        }
+        
+        public Group(List<String> key, long loans, long measured, double sum, double min, double max) {
+            this.key = key;
+            this.loans = loans;
+            this.measured = measured;
+            if (measured > 0) {
+                this.sum = sum;
+                this.average = sum / measured;
+                this.min = min;
+                this.max = max;
+            }
+        }
+        
+        /**
+         * Get the group's value of each dimension, in the order grouped by,
+         * e.g. a publisher name and "2024-Q3". Loans of books without a
+         * publisher have a null publisher.
+         * @return the dimension values
+         */
+        public List<String> getKey() {
+            return key;
+        }
+        
+        public void setKey(List<String> key) {
+            this.key = key;
+        }
+        
+        public long getLoans() {
+            return loans;
+        }
+        
+        public void setLoans(long loans) {
+            this.loans = loans;
+        }
+        
+        /**
+         * Get the number of loans in the group with a value for the measure.
+         * @return the count the average is taken over
+         */
+        public long getMeasured() {
+            return measured;
+        }
+        
+        public void setMeasured(long measured) {
+            this.measured = measured;
+        }
+        
+        public Double getSum() {
+            return sum;
+        }
+        
+        public void setSum(Double sum) {
+            this.sum = sum;
+        }
+        
+        public Double getAverage() {
+            return average;
+        }
+        
+        public void setAverage(Double average) {
+            this.average = average;
+        }
+        
+        public Double getMin() {
+            return min;
+        }
+        
+        public void setMin(Double min) {
+            this.min = min;
+        }
+        
+        public Double getMax() {
+            return max;
+        }
+        
+        public void setMax(Double max) {
+            this.max = max;
+        }
+        
+        @Override
+        public String toString() {
+            return "Group{" +
+                    "key=" + key +
+                    ", loans=" + loans +
+                    ", measured=" + measured +
+                    ", average=" + average +
+                    '}';
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,315 @@
+package edu.iit.itmd4515.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel of active loans with a tick of one day.
+ * Each loan schedules an overdue timer for the day after its due date and one
+ * reminder timer per configured lead time. Level 0 has one slot per day, and each
+ * higher level covers 64 times the span of the one below. Timers in a higher
+ * level are moved down when the wheel reaches their slot. Adding, removing and
+ * firing a timer are O(1), and overdue loans are kept in their own set so
+ * overdue queries cost O(result).
+ * <p>
+ * Not thread-safe; callers synchronize access.
+ */
+public class LoanTimingWheel {
+    
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    
+    private final List<List<Set<Timer>>> wheel = new ArrayList<>(LEVELS);
+    
+    private final Map<Long, Entry> active = new HashMap<>();
+    
+    private final Map<Long, Entry> overdue = new LinkedHashMap<>();
+    
+    private final Map<Long, Integer> overdueByBorrower = new LinkedHashMap<>();
+    
+    private final int[] reminderDays;
+    
+    private long currentDay;
+    
+    /**
+     * Create an empty wheel.
+     * @param today the current day
+     * @param reminderDays lead times, in days before the due date, at which a due-soon transition is emitted
+     */
+    public LoanTimingWheel(LocalDate today, int... reminderDays) {
+        this.currentDay = today.toEpochDay();
+        this.reminderDays = Arrays.stream(reminderDays).filter(d -> d > 0).distinct().toArray();
+        for (int level = 0; level < LEVELS; level++) {
+            List<Set<Timer>> slots = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                slots.add(new LinkedHashSet<>());
+            }
+            wheel.add(slots);
+        }
+    }
+    
+    /**
+     * Start tracking an active loan, replacing any earlier entry for it.
+     * A loan that is already past due goes straight to the overdue set without a transition.
+     * @param loanId the loan ID
+     * @param borrowerId the borrower ID
+     * @param dueDate the due date
+     */
+    public void add(Long loanId, Long borrowerId, LocalDate dueDate) {
+        remove(loanId);
+        Entry entry = new Entry(loanId, borrowerId, dueDate.toEpochDay());
+        active.put(loanId, entry);
+        if (entry.dueDay < currentDay) {
+            markOverdue(entry);
+            return;
+        }
+        for (int days : reminderDays) {
+            if (entry.dueDay - days > currentDay) {
+                schedule(new Timer(entry, entry.dueDay - days, days));
+            }
+        }
+        schedule(new Timer(entry, entry.dueDay + 1, -1));
+    }
+    
+    /**
+     * Stop tracking a loan, for example because it was returned or deleted.
+     * @param loanId the loan ID
+     * @return true if the loan was tracked
+     */
+    public boolean remove(Long loanId) {
+        Entry entry = active.remove(loanId);
+        if (entry == null) {
+            return false;
+        }
+        for (Timer timer : entry.timers) {
+            timer.slot.remove(timer);
+        }
+        entry.timers.clear();
+        if (overdue.remove(loanId) != null) {
+            overdueByBorrower.computeIfPresent(entry.borrowerId, (id, count) -> count > 1 ? count - 1 : null);
+        }
+        return true;
+    }
+    
+    /**
+     * Advance the wheel one day at a time up to the given day.
+     * @param today the new current day
+     * @return the transitions that happened on the way, in day order
+     */
+    public List<Transition> advanceTo(LocalDate today) {
+        List<Transition> transitions = new ArrayList<>();
+        long target = today.toEpochDay();
+        while (currentDay < target) {
+            currentDay++;
+            cascade();
+            Set<Timer> slot = wheel.get(0).get((int) (currentDay & SLOT_MASK));
+            List<Timer> due = new ArrayList<>(slot);
+            slot.clear();
+            for (Timer timer : due) {
+                fire(timer, transitions);
+            }
+        }
+        return transitions;
+    }
+    
+    /**
+     * Get the current day of the wheel.
+     * @return the current day
+     */
+    public LocalDate getCurrentDay() {
+        return LocalDate.ofEpochDay(currentDay);
+    }
+    
+    /**
+     * Get the IDs of all overdue loans, in the order they became overdue.
+     * @return overdue loan IDs
+     */
+    public List<Long> getOverdueLoanIds() {
+        return new ArrayList<>(overdue.keySet());
+    }
+    
+    /**
+     * Get the IDs of borrowers with at least one overdue loan.
+     * @return borrower IDs
+     */
+    public List<Long> getOverdueBorrowerIds() {
+        return new ArrayList<>(overdueByBorrower.keySet());
+    }
+    
+    /**
+     * Check whether a loan is tracked as overdue.
+     * @param loanId the loan ID
+     * @return true if the loan is overdue
+     */
+    public boolean isOverdue(Long loanId) {
+        return overdue.containsKey(loanId);
+    }
+    
+    /**
+     * Get the number of active loans tracked.
+     * @return number of loans
+     */
+    public int size() {
+        return active.size();
+    }
+    
+    private void schedule(Timer timer) {
+        long delta = timer.fireDay - currentDay;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        // Timers beyond the top level's range wait in its furthest slot and are rescheduled on cascade
+        long slotDay = level == LEVELS - 1 && delta >= 1L << (SLOT_BITS * LEVELS)
+                ? currentDay + ((long) SLOT_MASK << (SLOT_BITS * level)) : timer.fireDay;
+        timer.slot = wheel.get(level).get((int) ((slotDay >> (SLOT_BITS * level)) & SLOT_MASK));
+        timer.slot.add(timer);
+        timer.entry.timers.add(timer);
+    }
+    
+    private void cascade() {
+        // Move timers down from every level whose slot boundary was just crossed, highest first
+        int top = 0;
+        while (top < LEVELS - 1 && (currentDay & ((1L << (SLOT_BITS * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            Set<Timer> slot = wheel.get(level).get((int) ((currentDay >> (SLOT_BITS * level)) & SLOT_MASK));
+            List<Timer> timers = new ArrayList<>(slot);
+            slot.clear();
+            for (Timer timer : timers) {
+                timer.entry.timers.remove(timer);
+                if (timer.fireDay <= currentDay) {
+                    // Due today; put it in today's level 0 slot, which is processed next
+                    timer.slot = wheel.get(0).get((int) (currentDay & SLOT_MASK));
+                    timer.slot.add(timer);
+                    timer.entry.timers.add(timer);
+                } else {
+                    schedule(timer);
+                }
+            }
+        }
+    }
+    
+    private void fire(Timer timer, List<Transition> transitions) {
+        Entry entry = timer.entry;
+        entry.timers.remove(timer);
+        if (timer.reminderDays < 0) {
+            markOverdue(entry);
+            transitions.add(new Transition(Transition.Type.BECAME_OVERDUE, entry.loanId, entry.borrowerId,
+                    LocalDate.ofEpochDay(entry.dueDay), entry.dueDay - currentDay));
+        } else {
+            transitions.add(new Transition(Transition.Type.DUE_SOON, entry.loanId, entry.borrowerId,
+                    LocalDate.ofEpochDay(entry.dueDay), timer.reminderDays));
+        }
+    }
+    
+    private void markOverdue(Entry entry) {
+        overdue.put(entry.loanId, entry);
+        overdueByBorrower.merge(entry.borrowerId, 1, Integer::sum);
+    }
+    
+    /**
+     * A tracked loan and its pending timers.
+     */
+    private static final class Entry {
+        private final Long loanId;
+        private final Long borrowerId;
+        private final long dueDay;
+        private final List<Timer> timers = new ArrayList<>(2);
+        
+        private Entry(Long loanId, Long borrowerId, long dueDay) {
+            this.loanId = loanId;
+            this.borrowerId = borrowerId;
+            this.dueDay = dueDay;
+        }
+    }
+    
+    /**
+     * A pending reminder or overdue timer.
+     */
+    private static final class Timer {
+        private final Entry entry;
+        private final long fireDay;
+        private final int reminderDays;
+        private Set<Timer> slot;
+        
+        private Timer(Entry entry, long fireDay, int reminderDays) {
+            this.entry = entry;
+            this.fireDay = fireDay;
+            this.reminderDays = reminderDays;
+        }
+    }
+    
+    /**
+     * A due-date transition of a loan.
+     */
+    public static final class Transition {
+        
+        /**
+         * Kind of transition.
+         */
+        public enum Type {
+            DUE_SOON,
+            BECAME_OVERDUE
+        }
+        
+        private final Type type;
+        private final Long loanId;
+        private final Long borrowerId;
+        private final LocalDate dueDate;
+        private final long daysUntilDue;
+        
+        public Transition(Type type, Long loanId, Long borrowerId, LocalDate dueDate, long daysUntilDue) {
+            this.type = type;
+            this.loanId = loanId;
+            this.borrowerId = borrowerId;
+            this.dueDate = dueDate;
+            this.daysUntilDue = daysUntilDue;
+        }
+        
+        public Type getType() {
+            return type;
+        }
+        
+        public Long getLoanId() {
+            return loanId;
+        }
+        
+        public Long getBorrowerId() {
+            return borrowerId;
+        }
+        
+        public LocalDate getDueDate() {
+            return dueDate;
+        }
+        
+        /**
+         * Days from the transition day to the due date; negative once overdue.
+         * @return days until due
+         */
+        public long getDaysUntilDue() {
+            return daysUntilDue;
+        }
+        
+        @Override
+        public String toString() {
+            return "Transition{" +
+                    "type=" + type +
+                    ", loanId=" + loanId +
+                    ", borrowerId=" + borrowerId +
+                    ", dueDate=" + dueDate +
+                    ", daysUntilDue=" + daysUntilDue +
+                    '}';
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,193 @@
+package edu.iit.itmd4515.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to int values without boxing.
+ * Used by the in-memory loan analytics, recommendations and popular-books sketches,
+ * where a HashMap of Long to Integer would allocate two objects per entry.
+ * Linear probing over parallel arrays kept at most half full. Not thread safe.
+ */
+public class LongIntHashMap {
+    
+    /**
+     * Value returned by {@link #get} for a missing key.
+     */
+    public static final int MISSING = -1;
+    
+    // Marks an empty slot; the one key that cannot be stored
+    private static final long FREE = Long.MIN_VALUE;
+    
+    private long[] keys;
+    
+    private int[] values;
+    
+    private int mask;
+    
+    private int size;
+    
+    /**
+     * Create a map.
+     * @param expectedSize number of entries to hold without growing
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+    
+    /**
+     * Look a key up.
+     * @param key the key
+     * @return the value, or {@link #MISSING} if the key is absent
+     */
+    public int get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == FREE) {
+                return MISSING;
+            }
+        }
+    }
+    
+    /**
+     * Associate a value with a key, replacing any previous value.
+     * @param key the key, not Long.MIN_VALUE
+     * @param value the value
+     */
+    public void put(long key, int value) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Key " + key + " is reserved");
+        }
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == FREE) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Add to the value of a key, starting from 0 if the key is absent.
+     * @param key the key, not Long.MIN_VALUE
+     * @param delta the amount to add
+     * @return the new value
+     */
+    public int addTo(long key, int delta) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Key " + key + " is reserved");
+        }
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i] += delta;
+            }
+            if (k == FREE) {
+                keys[i] = key;
+                values[i] = delta;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+                return delta;
+            }
+        }
+    }
+    
+    /**
+     * Remove a key.
+     * @param key the key
+     * @return the value it had, or {@link #MISSING} if the key was absent
+     */
+    public int remove(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == FREE) {
+                return MISSING;
+            }
+            if (k == key) {
+                int value = values[i];
+                shiftBack(i);
+                size--;
+                return value;
+            }
+        }
+    }
+    
+    /**
+     * Pass every entry to a consumer, in no particular order.
+     * @param consumer receives each key and value
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private int slot(long key) {
+        // Fibonacci hashing spreads sequential IDs across the table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+    
+    // Closes the gap at a freed slot by moving back later entries of the same probe run
+    private void shiftBack(int gap) {
+        for (int i = (gap + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            int home = slot(keys[i]);
+            // Movable unless its home lies cyclically in (gap, i]
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = FREE;
+    }
+    
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != FREE) {
+                int i = slot(key);
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+    
+    /**
+     * Receives the entries of a map without boxing.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        
+        void accept(long key, int value);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,203 @@
+package edu.iit.itmd4515.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads catalog records from MARC 21 bibliographic records in ISO 2709 transmission format.
+ * Only the fields a {@link CatalogRecord} needs are decoded:
+ * 020 $a ISBN and $c price, 100 $a author (110 or 700 $a when missing),
+ * 245 $a and $b title, 264 or 260 $c publication year (008 date 1 when missing)
+ * and 300 $a extent for the page count. Records are UTF-8 when leader
+ * position 9 is 'a'; MARC-8 records are decoded as ISO-8859-1, which keeps
+ * ASCII intact but not MARC-8 diacritics.
+ */
+public class MarcCatalogReader implements CatalogReader {
+    
+    private static final int LEADER_LENGTH = 24;
+    private static final int DIRECTORY_ENTRY_LENGTH = 12;
+    private static final byte FIELD_TERMINATOR = 0x1E;
+    private static final byte SUBFIELD_DELIMITER = 0x1F;
+    
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+    private static final Pattern PAGES = Pattern.compile("(\\d+)\\s*(?:p\\b|pages)");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    
+    private final InputStream in;
+    
+    private long number;
+    
+    public MarcCatalogReader(InputStream in) {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 64 * 1024);
+    }
+    
+    @Override
+    public CatalogRecord next() throws IOException {
+        int first = in.read();
+        // Some exports put a line break between records
+        while (first == '\n' || first == '\r') {
+            first = in.read();
+        }
+        if (first < 0) {
+            return null;
+        }
+        byte[] lengthBytes = new byte[5];
+        lengthBytes[0] = (byte) first;
+        readFully(lengthBytes, 1, 4);
+        int length = parseInt(lengthBytes, 0, 5);
+        if (length < LEADER_LENGTH + 1) {
+            throw new IOException("Malformed MARC record " + (number + 1) + ": invalid record length");
+        }
+        byte[] record = new byte[length];
+        System.arraycopy(lengthBytes, 0, record, 0, 5);
+        readFully(record, 5, length - 5);
+        number++;
+        return decode(record);
+    }
+    
+    private CatalogRecord decode(byte[] record) throws IOException {
+        Charset charset = record[9] == 'a' ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+        int baseAddress = parseInt(record, 12, 5);
+        String isbn = null;
+        String price = null;
+        String author = null;
+        String fallbackAuthor = null;
+        String title = null;
+        String year = null;
+        String fixedYear = null;
+        String extent = null;
+        for (int entry = LEADER_LENGTH; entry + DIRECTORY_ENTRY_LENGTH <= baseAddress
+                && record[entry] != FIELD_TERMINATOR; entry += DIRECTORY_ENTRY_LENGTH) {
+            String tag = new String(record, entry, 3, StandardCharsets.US_ASCII);
+            int fieldLength = parseInt(record, entry + 3, 4);
+            int start = baseAddress + parseInt(record, entry + 7, 5);
+            if (start + fieldLength > record.length) {
+                throw new IOException("Malformed MARC record " + number + ": field " + tag + " out of bounds");
+            }
+            // Drop the field terminator
+            String field = new String(record, start, Math.max(0, fieldLength - 1), charset);
+            switch (tag) {
+                case "008":
+                    if (field.length() >= 11 && YEAR.matcher(field.substring(7, 11)).matches()) {
+                        fixedYear = field.substring(7, 11);
+                    }
+                    break;
+                case "020":
+                    if (isbn == null) {
+                        String a = subfield(field, 'a');
+                        if (a != null) {
+                            // "9780132350884 (pbk.)"
+                            isbn = a.trim().split("\\s+")[0];
+                            price = subfield(field, 'c');
+                        }
+                    }
+                    break;
+                case "100":
+                    author = subfield(field, 'a');
+                    break;
+                case "110":
+                case "700":
+                    if (fallbackAuthor == null) {
+                        fallbackAuthor = subfield(field, 'a');
+                    }
+                    break;
+                case "245":
+                    String titleProper = subfield(field, 'a');
+                    String remainder = subfield(field, 'b');
+                    title = titleProper == null ? remainder
+                            : remainder == null ? titleProper : stripPunctuation(titleProper) + ": " + remainder;
+                    break;
+                case "260":
+                case "264":
+                    if (year == null) {
+                        String c = subfield(field, 'c');
+                        Matcher matcher = c == null ? null : YEAR.matcher(c);
+                        if (matcher != null && matcher.find()) {
+                            year = matcher.group();
+                        }
+                    }
+                    break;
+                case "300":
+                    extent = subfield(field, 'a');
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new CatalogRecord(number, stripPunctuation(title),
+                stripPunctuation(author != null ? author : fallbackAuthor), isbn,
+                year != null ? year : fixedYear, pageCount(extent), price);
+    }
+    
+    /**
+     * Get the first occurrence of a subfield.
+     * @return the subfield value, or null if absent
+     */
+    private static String subfield(String field, char code) {
+        int from = 0;
+        while ((from = field.indexOf(SUBFIELD_DELIMITER, from)) >= 0) {
+            if (from + 1 < field.length() && field.charAt(from + 1) == code) {
+                int end = field.indexOf(SUBFIELD_DELIMITER, from + 2);
+                return field.substring(from + 2, end < 0 ? field.length() : end);
+            }
+            from++;
+        }
+        return null;
+    }
+    
+    /**
+     * Find the page count in an extent such as "xii, 464 p. :" or "350 pages".
+     */
+    private static String pageCount(String extent) {
+        if (extent == null) {
+            return null;
+        }
+        Matcher pages = PAGES.matcher(extent);
+        if (pages.find()) {
+            return pages.group(1);
+        }
+        Matcher number = NUMBER.matcher(extent);
+        return number.find() ? number.group() : null;
+    }
+    
+    /**
+     * Remove the ISBD punctuation cataloguers leave at the end of a subfield.
+     */
+    private static String stripPunctuation(String value) {
+        if (value == null) {
+            return null;
+        }
+        int end = value.length();
+        while (end > 0 && " /:;,.=".indexOf(value.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return value.substring(0, end);
+    }
+    
+    private void readFully(byte[] buffer, int offset, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(buffer, offset + read, length - read);
+            if (n < 0) {
+                throw new IOException("Truncated MARC record " + (number + 1));
+            }
+            read += n;
+        }
+    }
+    
+    private int parseInt(byte[] bytes, int offset, int length) throws IOException {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                throw new IOException("Malformed MARC record: expected digits at offset " + i);
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+}
\ No newline at end of file
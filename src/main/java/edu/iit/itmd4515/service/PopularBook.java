@@ -0,0 +1,63 @@
+package edu.iit.itmd4515.service;
+
+/**
+ * A book on the popular-books leaderboard with its estimated number of loans.
+ */
+public class PopularBook {
+    
+    private Long bookId;
+    
+    private long loans;
+    
+    private long minLoans;
+    
+    public PopularBook() {
+    }
+    
+    public PopularBook(Long bookId, long loans, long minLoans) {
+        this.bookId = bookId;
+        this.loans = loans;
+        this.minLoans = minLoans;
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+    
+    /**
+     * Get the estimated number of loans in the window.
+     * @return the estimate
+     */
+    public long getLoans() {
+        return loans;
+    }
+    
+    public void setLoans(long loans) {
+        this.loans = loans;
+    }
+    
+    /**
+     * Get the number of loans in the window the book certainly had.
+     * @return the lower bound of the estimate
+     */
+    public long getMinLoans() {
+        return minLoans;
+    }
+    
+    public void setMinLoans(long minLoans) {
+        this.minLoans = minLoans;
+    }
+    
+    @Override
+    public String toString() {
+        return "PopularBook{" +
+                "bookId=" + bookId +
+                ", loans=" + loans +
+                ", minLoans=" + minLoans +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.PopularBookCount;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+
+/**
+ * Stateless EJB persisting the day sketches of the popular-books leaderboard
+ * in popular_book_counts and seeding them from the loan history.
+ */
+@Stateless
+public class PopularBookService extends AbstractService<PopularBookCount> {
+    
+    private static final Logger LOG = Logger.getLogger(PopularBookService.class.getName());
+    
+    // Loans of one day per library and book, from both loan tables
+    private static final String DAY_LOANS_SQL =
+        "SELECT library_id, book_id, COUNT(*) FROM book_loans WHERE loan_date = ?1 AND id <= ?2 " +
+        "GROUP BY library_id, book_id " +
+        "UNION ALL SELECT library_id, book_id, COUNT(*) FROM book_loans_archive " +
+        "WHERE loan_date = ?1 AND id <= ?2 GROUP BY library_id, book_id";
+    
+    public PopularBookService() {
+        super(PopularBookCount.class);
+    }
+    
+    /**
+     * Replace the persisted counters of a day, in its own transaction.
+     * @param day the day
+     * @param counts every counter of the day
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void replaceDay(LocalDate day, List<PopularBookCount> counts) {
+        LOG.log(Level.FINE, "Saving {0} popular book counts of {1}", new Object[]{counts.size(), day});
+        em.createQuery("DELETE FROM PopularBookCount p WHERE p.statDate = :statDate")
+            .setParameter("statDate", day)
+            .executeUpdate();
+        // The DELETE must reach the database before rows with the same keys are inserted
+        em.flush();
+        for (PopularBookCount count : counts) {
+            em.persist(count);
+        }
+    }
+    
+    /**
+     * Find the persisted counters of a day.
+     * @param day the day
+     * @return the counters
+     */
+    public List<PopularBookCount> findByDate(LocalDate day) {
+        LOG.log(Level.FINE, "Finding popular book counts of {0}", day);
+        return em.createNamedQuery("PopularBookCount.findByDate", PopularBookCount.class)
+            .setParameter("statDate", day)
+            .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+            .getResultList();
+    }
+    
+    /**
+     * Check whether any counters have been persisted since a day.
+     * @param from the first day, inclusive
+     * @return true if there are counters
+     */
+    public boolean hasCountsSince(LocalDate from) {
+        LOG.log(Level.INFO, "Checking for popular book counts since {0}", from);
+        return !em.createQuery("SELECT p.id FROM PopularBookCount p WHERE p.statDate >= :from", Long.class)
+            .setParameter("from", from)
+            .setMaxResults(1)
+            .getResultList()
+            .isEmpty();
+    }
+    
+    /**
+     * Delete the counters of days before a day.
+     * @param first the first day kept
+     * @return number of counters deleted
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int deleteBefore(LocalDate first) {
+        LOG.log(Level.INFO, "Deleting popular book counts before {0}", first);
+        return em.createQuery("DELETE FROM PopularBookCount p WHERE p.statDate < :first")
+            .setParameter("first", first)
+            .executeUpdate();
+    }
+    
+    /**
+     * Find the highest loan ID, current or archived.
+     * @return the ID, or 0 if there are no loans
+     */
+    public long findMaxLoanId() {
+        LOG.log(Level.INFO, "Finding highest loan ID");
+        Long current = em.createQuery("SELECT MAX(bl.id) FROM BookLoan bl", Long.class).getSingleResult();
+        Long archived = em.createQuery("SELECT MAX(al.id) FROM ArchivedLoan al", Long.class).getSingleResult();
+        return Math.max(current == null ? 0 : current, archived == null ? 0 : archived);
+    }
+    
+    /**
+     * Count the loans of one day per library and book, for seeding the sketches.
+     * @param day the loan date
+     * @param maxLoanId only loans up to this ID
+     * @return rows of library ID, book ID and loan count; a pair may appear twice
+     */
+    public List<Object[]> countLoans(LocalDate day, long maxLoanId) {
+        LOG.log(Level.FINE, "Counting loans of {0} per book", day);
+        List<Object[]> rows = new ArrayList<>();
+        for (Object row : em.createNativeQuery(DAY_LOANS_SQL)
+                .setParameter(1, day)
+                .setParameter(2, maxLoanId)
+                .getResultList()) {
+            rows.add((Object[]) row);
+        }
+        return rows;
+    }
+}
\ No newline at end of file
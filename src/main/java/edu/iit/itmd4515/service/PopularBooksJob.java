@@ -0,0 +1,161 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.PopularBookCount;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.inject.Inject;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Startup Singleton EJB maintaining the popular-books leaderboard.
+ * LoanCreated events on the {@link DomainEventBus} are counted into the
+ * {@link PopularBooksTracker} as they happen, so the leaderboard never queries
+ * book_loans. Changed days are saved to popular_book_counts every minute and
+ * loaded back at startup; on the very first start the last year is seeded
+ * from the loan history instead. Loans made in the last minute before a
+ * shutdown are not counted. The sketch capacity is read from
+ * {@code itmd4515.popular.capacity} (default 100 books per library per day).
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class PopularBooksJob {
+    
+    private static final Logger LOG = Logger.getLogger(PopularBooksJob.class.getName());
+    
+    /**
+     * System property setting the counters per library and day.
+     */
+    public static final String CAPACITY_PROPERTY = "itmd4515.popular.capacity";
+    
+    @EJB
+    public PopularBookService popularBookService;
+    
+    @Inject
+    public DomainEventBus eventBus;
+    
+    @Resource(lookup = "java:app/concurrent/IndexExecutor")
+    public ManagedExecutorService executor;
+    
+    private PopularBooksTracker tracker;
+    
+    // Loans up to this ID are counted by seeding, later ones by their events
+    private long seedMaxLoanId;
+    
+    private volatile boolean loaded;
+    
+    /**
+     * Subscribe to new loans and start loading the persisted counters.
+     */
+    @PostConstruct
+    public void init() {
+        tracker = new PopularBooksTracker(Math.max(1, Integer.getInteger(CAPACITY_PROPERTY, 100)));
+        seedMaxLoanId = popularBookService.findMaxLoanId();
+        if (eventBus != null) {
+            eventBus.subscribe("popular-books", DomainEvent.LoanCreated.class, this::onLoanCreated);
+        }
+        executor.execute(this::load);
+    }
+    
+    /**
+     * Load the persisted day sketches of the last year, or seed them from the loans if there are none.
+     */
+    public void load() {
+        LocalDate today = LocalDate.now();
+        LocalDate first = today.minusDays(PopularBooksTracker.MAX_DAYS - 1);
+        long started = System.currentTimeMillis();
+        try {
+            if (popularBookService.hasCountsSince(first)) {
+                LOG.log(Level.INFO, "Loading popular book counts since {0}", first);
+                for (LocalDate day = first; !day.isAfter(today); day = day.plusDays(1)) {
+                    for (PopularBookCount count : popularBookService.findByDate(day)) {
+                        tracker.restore(count);
+                    }
+                }
+            } else {
+                LOG.log(Level.INFO, "Seeding popular book counts from loans since {0}", first);
+                for (LocalDate day = first; !day.isAfter(today); day = day.plusDays(1)) {
+                    for (Object[] row : popularBookService.countLoans(day, seedMaxLoanId)) {
+                        tracker.record(((Number) row[0]).longValue(), day,
+                                ((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+                    }
+                }
+            }
+            loaded = true;
+            LOG.log(Level.INFO, "Popular book counts loaded ({0} ms)", System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Error loading popular book counts", e);
+        }
+    }
+    
+    /**
+     * Count a new loan.
+     * Called by the event bus, not through the container.
+     * @param event the loan event
+     */
+    public void onLoanCreated(DomainEvent.LoanCreated event) {
+        if (event.getLibraryId() == null || event.getBookId() == null || event.getLoanDate() == null
+                || (event.getLoanId() != null && event.getLoanId() <= seedMaxLoanId)) {
+            return;
+        }
+        tracker.record(event.getLibraryId(), event.getLoanDate(), event.getBookId(), 1);
+    }
+    
+    /**
+     * Save the days changed since the last save, one transaction per day.
+     */
+    @Schedule(hour = "*", minute = "*", persistent = false)
+    public void persist() {
+        // Saving before the load completes would overwrite the persisted days
+        if (!loaded) {
+            return;
+        }
+        for (LocalDate day : tracker.drainDirtyDays()) {
+            try {
+                popularBookService.replaceDay(day, tracker.counts(day));
+            } catch (RuntimeException e) {
+                tracker.markDirty(day);
+                LOG.log(Level.SEVERE, "Error saving popular book counts of " + day, e);
+            }
+        }
+    }
+    
+    /**
+     * Drop the day that left the longest window every night.
+     */
+    @Schedule(hour = "0", minute = "15", persistent = false)
+    public void expire() {
+        LocalDate first = tracker.expire(LocalDate.now());
+        popularBookService.deleteBefore(first);
+    }
+    
+    /**
+     * Get the most borrowed books of the last days.
+     * @param libraryId the library ID, or null for all libraries
+     * @param days window length in days, up to 365
+     * @param limit most books to return
+     * @return the books, most borrowed first
+     * @throws IllegalArgumentException if the window is out of range
+     * @throws IllegalStateException if the counters are still loading
+     */
+    public List<PopularBook> findPopular(Long libraryId, int days, int limit) {
+        LOG.log(Level.INFO, "Finding popular books of library {0} over {1} days", new Object[]{libraryId, days});
+        if (!loaded) {
+            throw new IllegalStateException("Popular books are still loading");
+        }
+        return tracker.top(libraryId == null ? PopularBookCount.ALL : libraryId, LocalDate.now(), days, limit);
+    }
+}
\ No newline at end of file
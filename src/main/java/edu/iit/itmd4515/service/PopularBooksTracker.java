@@ -0,0 +1,167 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.PopularBookCount;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Sliding-window leaderboard of the most borrowed books, per library and overall.
+ * Each library, and {@link PopularBookCount#ALL} for all libraries, has one
+ * {@link SpaceSavingSketch} per day of loans, kept for {@link #MAX_DAYS} days.
+ * A window of the last n days is answered by merging that many day sketches,
+ * so windows of any length slide a day at a time without a rescan, and the
+ * memory needed is bounded by the sketch capacity whatever the loan volume.
+ * Days changed since the last {@link #drainDirtyDays} are reported for persistence.
+ */
+public class PopularBooksTracker {
+    
+    /**
+     * Longest window, in days, and how long day sketches are kept.
+     */
+    public static final int MAX_DAYS = 365;
+    
+    private final int capacity;
+    
+    // Day sketches of each library, by epoch day
+    private final Map<Long, NavigableMap<Long, SpaceSavingSketch>> scopes = new HashMap<>();
+    
+    private final TreeSet<LocalDate> dirtyDays = new TreeSet<>();
+    
+    /**
+     * Create an empty tracker.
+     * @param capacity counters per day sketch; books lent more than 1/capacity
+     *                 of a day's loans are certain to be counted
+     */
+    public PopularBooksTracker(int capacity) {
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Count loans of a book in a library and overall.
+     * @param libraryId the library ID
+     * @param day the loan date
+     * @param bookId the book ID
+     * @param loans the number of loans
+     */
+    public synchronized void record(long libraryId, LocalDate day, long bookId, long loans) {
+        sketch(libraryId, day).offer(bookId, loans);
+        sketch(PopularBookCount.ALL, day).offer(bookId, loans);
+        dirtyDays.add(day);
+    }
+    
+    /**
+     * Add a persisted counter back into its day sketch, without marking the day dirty.
+     * @param count the persisted counter
+     */
+    public synchronized void restore(PopularBookCount count) {
+        sketch(count.getLibraryId(), count.getStatDate())
+                .offer(count.getBookId(), count.getLoans(), count.getMaxError());
+    }
+    
+    /**
+     * Get the most borrowed books of a window ending on a given day.
+     * @param libraryId the library ID, or {@link PopularBookCount#ALL}
+     * @param today last day of the window
+     * @param days window length in days, from 1 to {@link #MAX_DAYS}
+     * @param limit most books to return
+     * @return the books, most borrowed first
+     */
+    public synchronized List<PopularBook> top(long libraryId, LocalDate today, int days, int limit) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_DAYS);
+        }
+        NavigableMap<Long, SpaceSavingSketch> sketches = scopes.get(libraryId);
+        if (sketches == null) {
+            return List.of();
+        }
+        LongIntHashMap loans = new LongIntHashMap(capacity * 2);
+        LongIntHashMap minLoans = new LongIntHashMap(capacity * 2);
+        long end = today.toEpochDay();
+        for (SpaceSavingSketch sketch : sketches.subMap(end - days + 1, true, end, true).values()) {
+            sketch.forEach((bookId, count, error) -> {
+                loans.addTo(bookId, (int) count);
+                minLoans.addTo(bookId, (int) (count - error));
+            });
+        }
+        
+        Comparator<PopularBook> order = Comparator.comparingLong(PopularBook::getLoans)
+                .thenComparing(PopularBook::getBookId, Comparator.reverseOrder());
+        PriorityQueue<PopularBook> top = new PriorityQueue<>(order);
+        loans.forEach((bookId, count) -> {
+            if (top.size() < limit) {
+                top.add(new PopularBook(bookId, count, minLoans.get(bookId)));
+            } else if (count > top.peek().getLoans()
+                    || (count == top.peek().getLoans() && bookId < top.peek().getBookId())) {
+                top.poll();
+                top.add(new PopularBook(bookId, count, minLoans.get(bookId)));
+            }
+        });
+        List<PopularBook> books = new ArrayList<>(top);
+        books.sort(order.reversed());
+        return books;
+    }
+    
+    /**
+     * Drop the day sketches that have left the longest window.
+     * @param today the current day
+     * @return the first day still kept
+     */
+    public synchronized LocalDate expire(LocalDate today) {
+        LocalDate first = today.minusDays(MAX_DAYS - 1);
+        for (NavigableMap<Long, SpaceSavingSketch> sketches : scopes.values()) {
+            sketches.headMap(first.toEpochDay()).clear();
+        }
+        scopes.values().removeIf(Map::isEmpty);
+        dirtyDays.headSet(first).clear();
+        return first;
+    }
+    
+    /**
+     * Take the days recorded into since the last call.
+     * @return the days, oldest first
+     */
+    public synchronized List<LocalDate> drainDirtyDays() {
+        List<LocalDate> days = new ArrayList<>(dirtyDays);
+        dirtyDays.clear();
+        return days;
+    }
+    
+    /**
+     * Mark a day as changed again, after persisting it failed.
+     * @param day the day
+     */
+    public synchronized void markDirty(LocalDate day) {
+        dirtyDays.add(day);
+    }
+    
+    /**
+     * Get every counter of a day, in every library, for persistence.
+     * @param day the day
+     * @return the counters
+     */
+    public synchronized List<PopularBookCount> counts(LocalDate day) {
+        List<PopularBookCount> counts = new ArrayList<>();
+        for (Map.Entry<Long, NavigableMap<Long, SpaceSavingSketch>> scope : scopes.entrySet()) {
+            SpaceSavingSketch sketch = scope.getValue().get(day.toEpochDay());
+            if (sketch != null) {
+                long libraryId = scope.getKey();
+                sketch.forEach((bookId, count, error) ->
+                        counts.add(new PopularBookCount(day, libraryId, bookId, count, error)));
+            }
+        }
+        return counts;
+    }
+    
+    private SpaceSavingSketch sketch(long libraryId, LocalDate day) {
+        return scopes.computeIfAbsent(libraryId, id -> new TreeMap<>())
+                .computeIfAbsent(day.toEpochDay(), d -> new SpaceSavingSketch(capacity));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.domain.PublisherFeedSync;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Singleton EJB synchronizing a publisher's titles from a full catalog feed.
+ * The feed is read as a stream and applied in chunks by PublisherFeedService,
+ * each in its own transaction, and the sync is recorded in publisher_feed_syncs.
+ * Titles are withdrawn only after the whole feed has been read without error,
+ * so a broken upload never withdraws the rest of the catalog, and a row that
+ * fails validation still counts as listing its ISBN, so a malformed row never
+ * withdraws the title it describes.
+ * The singleton's write lock keeps two syncs from overlapping.
+ */
+@Singleton
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class PublisherFeedJob {
+    
+    private static final Logger LOG = Logger.getLogger(PublisherFeedJob.class.getName());
+    
+    @EJB
+    public PublisherFeedService publisherFeedService;
+    
+    @EJB
+    public PublisherService publisherService;
+    
+    @Resource
+    public Validator validator;
+    
+    /**
+     * Synchronize a publisher's titles with a full catalog feed.
+     * @param publisherId the publisher sending the feed
+     * @param format csv or marc
+     * @param feed the feed contents
+     * @return the recorded sync
+     * @throws IllegalArgumentException if the publisher does not exist, the format is unknown or the CSV header is unusable
+     * @throws IOException if the CSV header cannot be read
+     */
+    public PublisherFeedSync sync(Long publisherId, String format, InputStream feed) throws IOException {
+        LOG.log(Level.INFO, "Starting feed sync for publisher ID: {0}", publisherId);
+        if (publisherService.findById(publisherId) == null) {
+            throw new IllegalArgumentException("Publisher not found with ID: " + publisherId);
+        }
+        String normalized = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        CatalogReader reader = CatalogReader.open(normalized, feed);
+        PublisherFeedSync sync = publisherFeedService.create(
+                new PublisherFeedSync(publisherId, normalized, LocalDateTime.now()));
+        try {
+            List<Book> chunk = new ArrayList<>(PublisherFeedService.CHUNK_SIZE);
+            List<String> rejected = new ArrayList<>();
+            CatalogRecord record;
+            while ((record = reader.next()) != null) {
+                sync.setReceived(sync.getReceived() + 1);
+                Book title = toValidTitle(record);
+                if (title == null) {
+                    sync.setRejected(sync.getRejected() + 1);
+                    String isbn = record.getNormalizedIsbn();
+                    if (isbn != null && !isbn.isEmpty()) {
+                        rejected.add(isbn);
+                    }
+                    if (rejected.size() == PublisherFeedService.CHUNK_SIZE) {
+                        publisherFeedService.keepTitles(sync, rejected);
+                        rejected = new ArrayList<>();
+                    }
+                    continue;
+                }
+                chunk.add(title);
+                if (chunk.size() == PublisherFeedService.CHUNK_SIZE) {
+                    publisherFeedService.applyChunk(sync, chunk);
+                    sync.setChunks(sync.getChunks() + 1);
+                    chunk = new ArrayList<>(PublisherFeedService.CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                publisherFeedService.applyChunk(sync, chunk);
+                sync.setChunks(sync.getChunks() + 1);
+            }
+            if (!rejected.isEmpty()) {
+                publisherFeedService.keepTitles(sync, rejected);
+            }
+            long[] range = publisherFeedService.findBookIdRange(publisherId);
+            if (range != null) {
+                for (long fromId = range[0]; fromId <= range[1]; fromId += PublisherFeedService.WITHDRAW_CHUNK_SIZE) {
+                    long toId = Math.min(fromId + PublisherFeedService.WITHDRAW_CHUNK_SIZE - 1, range[1]);
+                    sync.setWithdrawn(sync.getWithdrawn()
+                            + publisherFeedService.withdrawChunk(publisherId, sync.getId(), fromId, toId));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.SEVERE, "Error during feed sync for publisher ID: " + publisherId, e);
+            String message = String.valueOf(e.getMessage());
+            sync.setError(message.length() > 500 ? message.substring(0, 500) : message);
+        }
+        if (sync.getChunks() > 0 || sync.getWithdrawn() > 0) {
+            publisherFeedService.evictCachedBooks();
+        }
+        sync.setFinishedAt(LocalDateTime.now());
+        sync = publisherFeedService.update(sync);
+        LOG.log(Level.INFO, "Feed sync finished: {0} received, {1} inserted, {2} updated, {3} withdrawn ({4} ms)",
+                new Object[]{sync.getReceived(), sync.getInserted(), sync.getUpdated(), sync.getWithdrawn(),
+                    sync.getDurationMillis()});
+        return sync;
+    }
+    
+    /**
+     * Convert and validate a feed record.
+     * @return the title, or null if the record is rejected
+     */
+    private Book toValidTitle(CatalogRecord record) {
+        Book title;
+        try {
+            title = record.toBook();
+        } catch (IllegalArgumentException e) {
+            LOG.log(Level.WARNING, "Feed record {0} rejected: {1}", new Object[]{record.getNumber(), e.getMessage()});
+            return null;
+        }
+        Set<ConstraintViolation<Book>> violations = validator.validate(title);
+        if (!violations.isEmpty()) {
+            LOG.log(Level.WARNING, "Feed record {0} rejected: {1}", new Object[]{record.getNumber(),
+                violations.stream().map(v -> v.getPropertyPath() + ": " + v.getMessage()).collect(Collectors.joining("; "))});
+            return null;
+        }
+        return title;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,279 @@
+package edu.iit.itmd4515.service;
+
+import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.domain.ChangeLogEntry;
+import edu.iit.itmd4515.domain.PublisherFeedSync;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.Query;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stateless EJB service for hash-based publisher feed synchronization.
+ * Each feed title gets a SHA-256 content hash that is stored on the book.
+ * A chunk of titles is compared against the stored hashes with one query, and
+ * only new or changed titles are written, with one multi-row
+ * INSERT ... ON DUPLICATE KEY UPDATE. Unchanged titles, and existing titles
+ * listed by rows that failed validation, only get the sync ID stamped on them. After the feed is complete, titles of the publisher that
+ * still carry an older sync ID are withdrawn, one ID range per transaction.
+ * Inserted, updated and withdrawn titles are recorded in the change log in the
+ * transaction that writes them.
+ * Nothing is kept in memory beyond the chunk being applied.
+ */
+@Stateless
+public class PublisherFeedService extends AbstractService<PublisherFeedSync> {
+    
+    private static final Logger LOG = Logger.getLogger(PublisherFeedService.class.getName());
+    
+    /**
+     * Number of feed titles compared and written in one transaction.
+     */
+    public static final int CHUNK_SIZE = 1000;
+    
+    /**
+     * Width of the book ID range withdrawn in one transaction.
+     */
+    public static final int WITHDRAW_CHUNK_SIZE = 5000;
+    
+    private static final String UPSERT_SQL =
+        "INSERT INTO books (title, author, isbn, publication_date, page_count, price, publisher_id, content_hash, " +
+        "feed_sync_id, last_modified, is_available, withdrawn, version) VALUES ";
+    
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, TRUE, FALSE, 1)";
+    
+    private static final String UPSERT_ON_DUPLICATE =
+        " ON DUPLICATE KEY UPDATE title = VALUES(title), author = VALUES(author), " +
+        "publication_date = VALUES(publication_date), page_count = VALUES(page_count), price = VALUES(price), " +
+        "publisher_id = VALUES(publisher_id), content_hash = VALUES(content_hash), " +
+        "feed_sync_id = VALUES(feed_sync_id), last_modified = VALUES(last_modified), " +
+        "withdrawn = FALSE, version = version + 1";
+    
+    private static final String WITHDRAW_WHERE =
+        "WHERE id BETWEEN ?1 AND ?2 AND publisher_id = ?3 AND withdrawn = FALSE " +
+        "AND (feed_sync_id IS NULL OR feed_sync_id <> ?4)";
+    
+    private static final String WITHDRAW_SQL =
+        "UPDATE books SET withdrawn = TRUE, version = version + 1, last_modified = ?5 " + WITHDRAW_WHERE;
+    
+    public PublisherFeedService() {
+        super(PublisherFeedSync.class);
+    }
+    
+    /**
+     * Compute the content hash of a feed title. The publisher is part of the
+     * hash so that a title moving to another publisher counts as changed.
+     * @param book the converted feed title
+     * @param publisherId the publisher sending the feed
+     * @return lowercase hex SHA-256
+     */
+    public static String contentHash(Book book, Long publisherId) {
+        StringBuilder content = new StringBuilder(256)
+            .append(book.getIsbn()).append('\u001F')
+            .append(book.getTitle()).append('\u001F')
+            .append(book.getAuthor()).append('\u001F')
+            .append(book.getPublicationDate()).append('\u001F')
+            .append(book.getPageCount()).append('\u001F')
+            .append(book.getPrice()).append('\u001F')
+            .append(publisherId);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    /**
+     * Apply one chunk of validated feed titles and add the outcome to the sync's counters.
+     * When the same ISBN appears twice in the chunk, the later title wins.
+     * @param sync the running sync
+     * @param titles the converted and validated feed titles
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void applyChunk(PublisherFeedSync sync, List<Book> titles) {
+        LOG.log(Level.FINE, "Applying {0} feed titles for publisher ID {1}",
+                new Object[]{titles.size(), sync.getPublisherId()});
+        Map<String, Book> byIsbn = new LinkedHashMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        for (Book title : titles) {
+            byIsbn.put(title.getIsbn(), title);
+            hashes.put(title.getIsbn(), contentHash(title, sync.getPublisherId()));
+        }
+        
+        List<Object[]> stored = em.createQuery(
+            "SELECT b.isbn, b.contentHash, b.withdrawn FROM Book b WHERE b.isbn IN :isbns", Object[].class)
+            .setParameter("isbns", new ArrayList<>(byIsbn.keySet()))
+            .getResultList();
+        Map<String, Boolean> current = new HashMap<>();
+        for (Object[] row : stored) {
+            // Withdrawn titles that come back are rewritten even if unchanged
+            current.put((String) row[0], hashes.get(row[0]).equals(row[1]) && !Boolean.TRUE.equals(row[2]));
+        }
+        
+        List<Book> writes = new ArrayList<>();
+        List<String> inserted = new ArrayList<>();
+        List<String> updated = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+        for (Book title : byIsbn.values()) {
+            Boolean same = current.get(title.getIsbn());
+            if (same == null) {
+                inserted.add(title.getIsbn());
+                writes.add(title);
+            } else if (same) {
+                unchanged.add(title.getIsbn());
+            } else {
+                updated.add(title.getIsbn());
+                writes.add(title);
+            }
+        }
+        
+        if (!writes.isEmpty()) {
+            upsert(writes, hashes, sync);
+            recordBookChanges(ChangeLogEntry.Operation.INSERT, inserted);
+            recordBookChanges(ChangeLogEntry.Operation.UPDATE, updated);
+        }
+        stampSync(sync, unchanged);
+        
+        sync.setInserted(sync.getInserted() + inserted.size());
+        sync.setUpdated(sync.getUpdated() + updated.size());
+        sync.setUnchanged(sync.getUnchanged() + unchanged.size());
+    }
+    
+    /**
+     * Keep the publisher's titles listed by rejected feed rows from being
+     * withdrawn, by stamping the sync ID on them without changing anything else.
+     * @param sync the running sync
+     * @param isbns the ISBNs of the rejected rows
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void keepTitles(PublisherFeedSync sync, List<String> isbns) {
+        LOG.log(Level.FINE, "Keeping {0} titles of rejected feed rows for publisher ID {1}",
+                new Object[]{isbns.size(), sync.getPublisherId()});
+        stampSync(sync, isbns);
+    }
+    
+    private void stampSync(PublisherFeedSync sync, List<String> isbns) {
+        if (isbns.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(isbns.size(), "?"));
+        Query stamp = em.createNativeQuery(
+            "UPDATE books SET feed_sync_id = ? WHERE publisher_id = ? AND isbn IN (" + placeholders + ")");
+        stamp.setParameter(1, sync.getId());
+        stamp.setParameter(2, sync.getPublisherId());
+        for (int i = 0; i < isbns.size(); i++) {
+            stamp.setParameter(i + 3, isbns.get(i));
+        }
+        stamp.executeUpdate();
+    }
+    
+    private void recordBookChanges(ChangeLogEntry.Operation operation, List<String> isbns) {
+        if (!isbns.isEmpty()) {
+            recordChanges(Book.class, operation, "SELECT id FROM books WHERE isbn IN (" +
+                String.join(", ", Collections.nCopies(isbns.size(), "?")) + ")", isbns.toArray());
+        }
+    }
+    
+    private void upsert(List<Book> writes, Map<String, String> hashes, PublisherFeedSync sync) {
+        StringBuilder sql = new StringBuilder(UPSERT_SQL);
+        for (int i = 0; i < writes.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(UPSERT_ROW);
+        }
+        sql.append(UPSERT_ON_DUPLICATE);
+        Query upsert = em.createNativeQuery(sql.toString());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        int p = 1;
+        for (Book book : writes) {
+            upsert.setParameter(p++, book.getTitle());
+            upsert.setParameter(p++, book.getAuthor());
+            upsert.setParameter(p++, book.getIsbn());
+            upsert.setParameter(p++, book.getPublicationDate());
+            upsert.setParameter(p++, book.getPageCount());
+            upsert.setParameter(p++, book.getPrice());
+            upsert.setParameter(p++, sync.getPublisherId());
+            upsert.setParameter(p++, hashes.get(book.getIsbn()));
+            upsert.setParameter(p++, sync.getId());
+            upsert.setParameter(p++, now);
+        }
+        upsert.executeUpdate();
+    }
+    
+    /**
+     * Find the lowest and highest IDs of a publisher's books.
+     * @param publisherId the publisher ID
+     * @return two-element array of min and max ID, or null if the publisher has no books
+     */
+    public long[] findBookIdRange(Long publisherId) {
+        LOG.log(Level.INFO, "Finding book ID range of publisher ID: {0}", publisherId);
+        Object[] row = em.createQuery(
+            "SELECT MIN(b.id), MAX(b.id) FROM Book b WHERE b.publisher.id = :publisherId", Object[].class)
+            .setParameter("publisherId", publisherId)
+            .getSingleResult();
+        if (row[0] == null) {
+            return null;
+        }
+        return new long[]{(Long) row[0], (Long) row[1]};
+    }
+    
+    /**
+     * Withdraw the publisher's titles in an ID range that the sync did not list.
+     * @param publisherId the publisher ID
+     * @param syncId the completed sync
+     * @param fromId first book ID of the range, inclusive
+     * @param toId last book ID of the range, inclusive
+     * @return number of titles withdrawn
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int withdrawChunk(Long publisherId, Long syncId, long fromId, long toId) {
+        LOG.log(Level.FINE, "Withdrawing unlisted titles with IDs {0} to {1}", new Object[]{fromId, toId});
+        recordChanges(Book.class, ChangeLogEntry.Operation.UPDATE, "SELECT id FROM books " + WITHDRAW_WHERE,
+                fromId, toId, publisherId, syncId);
+        return em.createNativeQuery(WITHDRAW_SQL)
+            .setParameter(1, fromId)
+            .setParameter(2, toId)
+            .setParameter(3, publisherId)
+            .setParameter(4, syncId)
+            .setParameter(5, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
+            .executeUpdate();
+    }
+    
+    /**
+     * Drop cached books after a sync, since native writes bypass the shared cache.
+     */
+    public void evictCachedBooks() {
+        LOG.log(Level.INFO, "Evicting cached books after publisher feed sync");
+        em.getEntityManagerFactory().getCache().evict(Book.class);
+    }
+    
+    /**
+     * Find the most recent syncs of a publisher.
+     * @param publisherId the publisher ID
+     * @param limit maximum number of syncs to return
+     * @return syncs, newest first
+     */
+    public List<PublisherFeedSync> findRecentSyncs(Long publisherId, int limit) {
+        LOG.log(Level.INFO, "Finding {0} most recent feed syncs of publisher ID: {1}", new Object[]{limit, publisherId});
+        return em.createNamedQuery("PublisherFeedSync.findRecentByPublisher", PublisherFeedSync.class)
+            .setParameter("publisherId", publisherId)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+}
\ No newline at end of file
@@ -20,6 +20,14 @@ public class PublisherService extends AbstractService<Publisher> {
         super(Publisher.class);
     }
     
+    /**
+     * Publisher changes are published in the change feed.
+     */
+    @Override
+    protected boolean isChangeLogged() {
+        return true;
+    }
+    
     /**
      * Find publishers by name.
      * @param name the name to search for
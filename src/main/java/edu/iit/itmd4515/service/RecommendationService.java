@@ -0,0 +1,224 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.ResultSetConcurrency;
+import org.eclipse.persistence.config.ResultSetType;
+import org.eclipse.persistence.queries.ReportQueryResult;
+import org.eclipse.persistence.queries.ScrollableCursor;
+
+/**
+ * Startup Singleton EJB serving "borrowers who borrowed this also borrowed"
+ * recommendations from an in-memory {@link CoOccurrenceIndex}.
+ * The index is built from the whole loan history, archived loans included, at
+ * startup and again every night, on a managed executor, and swapped in when
+ * complete; new loans on the {@link DomainEventBus} update the live index in
+ * between, and are replayed into an index being built so none is lost in the swap.
+ * Sizing is read from system properties such as
+ * {@code itmd4515.recommendations.neighbours} (default 50 related books per book).
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class RecommendationService {
+    
+    private static final Logger LOG = Logger.getLogger(RecommendationService.class.getName());
+    
+    /**
+     * Prefix of the system properties configuring the recommendations.
+     */
+    public static final String PROPERTY_PREFIX = "itmd4515.recommendations.";
+    
+    // Oldest first, so each basket keeps the borrower's most recent books
+    private static final String SELECT = "SELECT bl.borrower.id, bl.book.id FROM %s bl ORDER BY bl.id";
+    
+    @PersistenceUnit(unitName = "itmd4515PU")
+    public EntityManagerFactory emf;
+    
+    @Resource(lookup = "java:app/concurrent/IndexExecutor")
+    public ManagedExecutorService executor;
+    
+    @Inject
+    public DomainEventBus eventBus;
+    
+    private volatile CoOccurrenceIndex index;
+    
+    private ForkJoinPool pool;
+    
+    private int neighbours;
+    
+    private int maxBasket;
+    
+    private int seeds;
+    
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    
+    // Loans seen while a rebuild runs, replayed into the new index before it is swapped in
+    private final List<long[]> pending = new ArrayList<>();
+    
+    /**
+     * Subscribe to new loans and start building the index.
+     */
+    @PostConstruct
+    public void init() {
+        neighbours = Integer.getInteger(PROPERTY_PREFIX + "neighbours", 50);
+        maxBasket = Integer.getInteger(PROPERTY_PREFIX + "maxBasket", 500);
+        seeds = Integer.getInteger(PROPERTY_PREFIX + "seeds", 20);
+        pool = new ForkJoinPool(Integer.getInteger(PROPERTY_PREFIX + "parallelism",
+                Runtime.getRuntime().availableProcessors()));
+        if (eventBus != null) {
+            // Loans dropped by a full event queue are picked up by rebuilding from the history
+            eventBus.subscribe("recommendations", DomainEvent.LoanCreated.class, this::onLoanCreated,
+                    () -> executor.execute(this::rebuild));
+        }
+        executor.execute(this::rebuild);
+    }
+    
+    /**
+     * Rebuild the index every night, picking up pairs the incremental updates could not rank.
+     */
+    @Schedule(hour = "3", minute = "30", persistent = false)
+    public void rebuildNightly() {
+        rebuild();
+    }
+    
+    /**
+     * Build a new index from the loan history and swap it in.
+     * @return true if rebuilt, false if a rebuild was already running
+     */
+    public boolean rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            LOG.log(Level.INFO, "Recommendation index rebuild already running");
+            return false;
+        }
+        LOG.log(Level.INFO, "Rebuilding recommendation index");
+        long started = System.currentTimeMillis();
+        try {
+            CoOccurrenceIndex built = new CoOccurrenceIndex(neighbours, maxBasket);
+            long loans = load(built, "ArchivedLoan") + load(built, "BookLoan");
+            built.computeNeighbours(pool);
+            synchronized (pending) {
+                for (long[] loan : pending) {
+                    built.addLoan(loan[0], loan[1]);
+                }
+                pending.clear();
+                index = built;
+                rebuilding.set(false);
+            }
+            LOG.log(Level.INFO, "Recommendation index rebuilt: {0} loans, {1} books, {2} borrowers ({3} ms)",
+                    new Object[]{loans, built.getBooks(), built.getBorrowers(), System.currentTimeMillis() - started});
+            return true;
+        } catch (RuntimeException e) {
+            synchronized (pending) {
+                pending.clear();
+                rebuilding.set(false);
+            }
+            LOG.log(Level.SEVERE, "Error rebuilding recommendation index", e);
+            return false;
+        }
+    }
+    
+    private long load(CoOccurrenceIndex built, String entity) {
+        EntityManager em = emf.createEntityManager();
+        ScrollableCursor cursor = null;
+        try {
+            cursor = (ScrollableCursor) em.createQuery(String.format(SELECT, entity))
+                    .setHint(QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE)
+                    .setHint(QueryHints.RESULT_SET_TYPE, ResultSetType.ForwardOnly)
+                    .setHint(QueryHints.RESULT_SET_CONCURRENCY, ResultSetConcurrency.ReadOnly)
+                    .setHint(QueryHints.JDBC_FETCH_SIZE, LoanExportService.FETCH_SIZE)
+                    .getSingleResult();
+            long loans = 0;
+            while (cursor.hasNext()) {
+                Object next = cursor.next();
+                Object[] row = next instanceof ReportQueryResult ? ((ReportQueryResult) next).toArray() : (Object[]) next;
+                built.load((Long) row[0], (Long) row[1]);
+                loans++;
+            }
+            return loans;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            em.close();
+        }
+    }
+    
+    /**
+     * Add a new loan to the index.
+     * @param event the loan event
+     */
+    public void onLoanCreated(DomainEvent.LoanCreated event) {
+        if (event.getBorrowerId() == null || event.getBookId() == null) {
+            return;
+        }
+        synchronized (pending) {
+            CoOccurrenceIndex current = index;
+            if (current != null) {
+                current.addLoan(event.getBorrowerId(), event.getBookId());
+            }
+            if (rebuilding.get()) {
+                pending.add(new long[]{event.getBorrowerId(), event.getBookId()});
+            }
+        }
+    }
+    
+    /**
+     * Find the books most often borrowed by the borrowers of a book.
+     * @param bookId the book ID
+     * @param limit most books to return
+     * @return the related books, most related first; empty if the book was never borrowed
+     * @throws IllegalStateException if the index is still being built
+     */
+    public List<RelatedBook> findRelated(Long bookId, int limit) {
+        LOG.log(Level.INFO, "Finding books related to book {0}", bookId);
+        return current().related(bookId, limit);
+    }
+    
+    /**
+     * Recommend books for a borrower from the books related to the borrower's recent loans.
+     * @param borrowerId the borrower ID
+     * @param limit most books to return
+     * @return the recommendations, best first; empty if the borrower never borrowed
+     * @throws IllegalStateException if the index is still being built
+     */
+    public List<RelatedBook> findRecommendations(Long borrowerId, int limit) {
+        LOG.log(Level.INFO, "Finding recommendations for borrower {0}", borrowerId);
+        return current().recommend(borrowerId, seeds, limit);
+    }
+    
+    private CoOccurrenceIndex current() {
+        CoOccurrenceIndex current = index;
+        if (current == null) {
+            throw new IllegalStateException("Recommendations are still being built");
+        }
+        return current;
+    }
+    
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package edu.iit.itmd4515.service;
+
+/**
+ * A book recommended alongside another book or for a borrower.
+ * Details of the books can be fetched in one batch with GET /books?ids=...
+ */
+public class RelatedBook {
+    
+    private Long bookId;
+    
+    private long score;
+    
+    public RelatedBook() {
+    }
+    
+    public RelatedBook(Long bookId, long score) {
+        this.bookId = bookId;
+        this.score = score;
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+    
+    /**
+     * Get the number of borrowers who borrowed both books, or for a borrower's
+     * recommendations, the sum of that number over the borrower's recent books.
+     * @return the score, higher is more related
+     */
+    public long getScore() {
+        return score;
+    }
+    
+    public void setScore(long score) {
+        this.score = score;
+    }
+    
+    @Override
+    public String toString() {
+        return "RelatedBook{" +
+                "bookId=" + bookId +
+                ", score=" + score +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Retries the annotated method when it fails with an optimistic locking or
+ * lock contention error. The method must start its own transaction on each
+ * attempt, so it should run with no transaction of its own (NOT_SUPPORTED)
+ * and call a REQUIRED method for the work.
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RetryOnConflict {
+    
+    /**
+     * Maximum number of attempts, including the first.
+     * @return attempt limit
+     */
+    @Nonbinding
+    int maxAttempts() default 5;
+    
+    /**
+     * Upper bound of the backoff before the first retry, doubled on each further retry.
+     * @return base delay in milliseconds
+     */
+    @Nonbinding
+    long baseDelayMillis() default 10;
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package edu.iit.itmd4515.service;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Interceptor for {@link RetryOnConflict}.
+ * Waits a random time between zero and an exponentially growing bound before
+ * each retry (full jitter), so contending callers spread out instead of
+ * colliding again in lockstep.
+ */
+@RetryOnConflict
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class RetryOnConflictInterceptor {
+    
+    private static final Logger LOG = Logger.getLogger(RetryOnConflictInterceptor.class.getName());
+    
+    private static final long MAX_DELAY_MILLIS = 1000;
+    
+    @AroundInvoke
+    public Object retry(InvocationContext context) throws Exception {
+        RetryOnConflict config = context.getMethod().getAnnotation(RetryOnConflict.class);
+        if (config == null) {
+            config = context.getTarget().getClass().getAnnotation(RetryOnConflict.class);
+        }
+        int maxAttempts = config == null ? 5 : Math.max(1, config.maxAttempts());
+        long baseDelay = config == null ? 10 : Math.max(1, config.baseDelayMillis());
+        
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return context.proceed();
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !isConflict(e)) {
+                    throw e;
+                }
+                long bound = Math.min(MAX_DELAY_MILLIS, baseDelay << (attempt - 1));
+                long delay = ThreadLocalRandom.current().nextLong(bound + 1);
+                LOG.log(Level.INFO, "Conflict in {0}, retry {1} of {2} after {3} ms",
+                        new Object[]{context.getMethod().getName(), attempt, maxAttempts - 1, delay});
+                Thread.sleep(delay);
+            }
+        }
+    }
+    
+    /**
+     * Check whether an exception, or any of its causes, is a retryable concurrency conflict.
+     * @param e the exception
+     * @return true for optimistic lock failures, lock timeouts and deadlocks
+     */
+    public static boolean isConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockException
+                    || t instanceof PessimisticLockException
+                    || t instanceof LockTimeoutException
+                    || t instanceof SQLTransactionRollbackException
+                    || t instanceof org.eclipse.persistence.exceptions.OptimisticLockException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
\ No newline at end of file
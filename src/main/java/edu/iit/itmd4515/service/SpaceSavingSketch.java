@@ -0,0 +1,157 @@
+package edu.iit.itmd4515.service;
+
+/**
+ * Space-Saving heavy-hitters sketch over a stream of book IDs.
+ * At most {@code capacity} counters are kept. An item without a counter
+ * takes over the counter with the smallest count, inheriting that count as
+ * its possible overcount, so every estimate lies between count - error and
+ * count, and any item occurring more than total / capacity times is sure to
+ * have a counter. The counters sit in a min-heap indexed by a
+ * {@link LongIntHashMap}, so an update costs O(log capacity). Not thread safe.
+ */
+public class SpaceSavingSketch {
+    
+    private final long[] items;
+    
+    private final long[] counts;
+    
+    private final long[] errors;
+    
+    // Counter slots as a min-heap on count, and each slot's position in it
+    private final int[] heap;
+    
+    private final int[] positions;
+    
+    private final LongIntHashMap slots;
+    
+    private int size;
+    
+    /**
+     * Receives the counters of a sketch.
+     */
+    @FunctionalInterface
+    public interface CounterConsumer {
+        
+        void accept(long item, long count, long error);
+    }
+    
+    /**
+     * Create an empty sketch.
+     * @param capacity number of counters
+     */
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        items = new long[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        positions = new int[capacity];
+        slots = new LongIntHashMap(capacity);
+    }
+    
+    /**
+     * Count occurrences of an item.
+     * @param item the item
+     * @param count number of occurrences, positive
+     */
+    public void offer(long item, long count) {
+        offer(item, count, 0);
+    }
+    
+    /**
+     * Count occurrences of an item that may already be overcounted,
+     * as when restoring or merging another sketch's counter.
+     * @param item the item
+     * @param count estimated number of occurrences, positive
+     * @param error how much of the count may be overcounted
+     */
+    public void offer(long item, long count, long error) {
+        int slot = slots.get(item);
+        if (slot == LongIntHashMap.MISSING) {
+            if (size < items.length) {
+                // A fresh counter starts at 0, the smallest count, so it rises to the top
+                slot = size;
+                heap[size] = slot;
+                positions[slot] = size;
+                size++;
+                siftUp(positions[slot]);
+            } else {
+                // Evict the smallest counter; the newcomer may have occurred that often unseen
+                slot = heap[0];
+                slots.remove(items[slot]);
+                errors[slot] = counts[slot];
+            }
+            items[slot] = item;
+            slots.put(item, slot);
+        }
+        counts[slot] += count;
+        errors[slot] += error;
+        siftDown(positions[slot]);
+    }
+    
+    /**
+     * Get the smallest count, the most any item without a counter can have occurred.
+     * @return the smallest count, or 0 while not every counter is in use
+     */
+    public long getMinCount() {
+        return size < items.length ? 0 : counts[heap[0]];
+    }
+    
+    /**
+     * Pass every counter to a consumer, in no particular order.
+     * @param consumer receives each item, count and error
+     */
+    public void forEach(CounterConsumer consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            consumer.accept(items[slot], counts[slot], errors[slot]);
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return items.length;
+    }
+    
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[heap[parent]] <= counts[heap[position]]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+    
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && counts[heap[left]] < counts[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < size && counts[heap[right]] < counts[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+    
+    private void swap(int a, int b) {
+        int slot = heap[a];
+        heap[a] = heap[b];
+        heap[b] = slot;
+        positions[heap[a]] = a;
+        positions[heap[b]] = b;
+    }
+}
\ No newline at end of file
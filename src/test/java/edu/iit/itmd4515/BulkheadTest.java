@@ -0,0 +1,86 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.service.Bulkhead;
+import edu.iit.itmd4515.service.BulkheadStats;
+import org.junit.jupiter.api.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadTest {
+    
+    private ExecutorService reportingPool;
+    
+    private ExecutorService deskPool;
+    
+    @BeforeEach
+    public void setUp() {
+        reportingPool = Executors.newFixedThreadPool(2);
+        deskPool = Executors.newFixedThreadPool(2);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        reportingPool.shutdownNow();
+        deskPool.shutdownNow();
+    }
+    
+    @Test
+    @DisplayName("Test Full Bulkhead Rejects Instead Of Queueing")
+    public void testRejectsWhenFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("reporting", reportingPool, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> running = bulkhead.submit(() -> await(release)).toCompletableFuture();
+        while (bulkhead.getStats().getActive() == 0) {
+            Thread.sleep(1);
+        }
+        CompletableFuture<Integer> queued = bulkhead.submit(() -> await(release)).toCompletableFuture();
+        CompletableFuture<Integer> rejected = bulkhead.submit(() -> 3).toCompletableFuture();
+        
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        BulkheadStats stats = bulkhead.getStats();
+        assertEquals(1, stats.getActive());
+        assertEquals(1, stats.getQueueDepth());
+        assertEquals(1, stats.getRejected());
+        
+        release.countDown();
+        assertEquals(1, running.get(5, TimeUnit.SECONDS));
+        assertEquals(1, queued.get(5, TimeUnit.SECONDS));
+        stats = bulkhead.getStats();
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(2, stats.getCompleted());
+        assertEquals(1, stats.getPeakQueueDepth());
+    }
+    
+    @Test
+    @DisplayName("Test Saturated Reporting Bulkhead Does Not Delay Desk Traffic")
+    public void testIsolation() throws Exception {
+        Bulkhead reporting = new Bulkhead("reporting", reportingPool, 2, 8);
+        Bulkhead desk = new Bulkhead("desk", deskPool, 2, 8);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 20; i++) {
+            reporting.submit(() -> await(release));
+        }
+        
+        long start = System.nanoTime();
+        assertEquals(42, desk.submit(() -> 42).toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(10, reporting.getStats().getRejected());
+        release.countDown();
+    }
+    
+    private static int await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 1;
+    }
+}
\ No newline at end of file
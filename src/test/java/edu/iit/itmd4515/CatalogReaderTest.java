@@ -0,0 +1,133 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.service.CatalogRecord;
+import edu.iit.itmd4515.service.CsvCatalogReader;
+import edu.iit.itmd4515.service.MarcCatalogReader;
+import org.junit.jupiter.api.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogReaderTest {
+    
+    @Test
+    @DisplayName("Test CSV Columns Are Matched By Name And Quoted Values Are Unescaped")
+    public void testCsv() throws Exception {
+        String csv = "\uFEFFISBN,Title,Author,Page_Count,Publication Date,Shelf\r\n"
+                + "978-0-13-235088-4,\"Clean Code, \"\"2nd\"\"\nEdition\",Robert C. Martin,464,2008-08-01,A1\r\n"
+                + "\r\n"
+                + "0201633612,Design Patterns,Gamma,,1994\n";
+        CsvCatalogReader reader = new CsvCatalogReader(new StringReader(csv));
+        
+        CatalogRecord first = reader.next();
+        assertEquals(1, first.getNumber());
+        assertEquals("Clean Code, \"2nd\"\nEdition", first.getTitle());
+        assertEquals("Robert C. Martin", first.getAuthor());
+        assertEquals("464", first.getPageCount());
+        assertNull(first.getPrice());
+        
+        CatalogRecord second = reader.next();
+        assertEquals(2, second.getNumber());
+        assertEquals("0201633612", second.getIsbn());
+        assertEquals("1994", second.getPublicationDate());
+        assertNull(reader.next());
+    }
+    
+    @Test
+    @DisplayName("Test CSV Without Required Column Is Rejected")
+    public void testCsvMissingColumn() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CsvCatalogReader(new StringReader("title,author\nA,B\n")));
+    }
+    
+    @Test
+    @DisplayName("Test MARC Record Fields Are Decoded")
+    public void testMarc() throws Exception {
+        byte[] file = concat(
+                marc("008", "080801s2008    nju           001 0 eng d",
+                        "020", sub('a', "9780132350884 (pbk.)") + sub('c', "$42.50"),
+                        "100", sub('a', "Martin, Robert C."),
+                        "245", sub('a', "Clean code :") + sub('b', "a handbook of agile software craftsmanship /"),
+                        "264", sub('a', "Upper Saddle River, NJ :") + sub('c', "[2009]"),
+                        "300", sub('a', "xxix, 431 p. :")),
+                "\n".getBytes(StandardCharsets.US_ASCII),
+                marc("008", "940101s1994    mau           001 0 eng d",
+                        "020", sub('a', "0201633612"),
+                        "700", sub('a', "Gamma, Erich."),
+                        "245", sub('a', "Design patterns"),
+                        "300", sub('a', "395 pages")));
+        MarcCatalogReader reader = new MarcCatalogReader(new ByteArrayInputStream(file));
+        
+        CatalogRecord first = reader.next();
+        assertEquals("9780132350884", first.getIsbn());
+        assertEquals("Clean code: a handbook of agile software craftsmanship", first.getTitle());
+        assertEquals("Martin, Robert C", first.getAuthor());
+        assertEquals("2009", first.getPublicationDate());
+        assertEquals("431", first.getPageCount());
+        assertEquals("$42.50", first.getPrice());
+        
+        CatalogRecord second = reader.next();
+        assertEquals(2, second.getNumber());
+        assertEquals("Gamma, Erich", second.getAuthor());
+        assertEquals("1994", second.getPublicationDate());
+        assertEquals("395", second.getPageCount());
+        assertNull(reader.next());
+    }
+    
+    @Test
+    @DisplayName("Test Record Converts To Book")
+    public void testToBook() {
+        Book book = new CatalogRecord(1, " Clean Code ", "Robert C. Martin", "978-0-13-235088-4",
+                "2008", "464", "$42.50").toBook();
+        assertEquals("Clean Code", book.getTitle());
+        assertEquals("9780132350884", book.getIsbn());
+        assertEquals(LocalDate.of(2008, 1, 1), book.getPublicationDate());
+        assertEquals(464, book.getPageCount());
+        assertEquals(42.50, book.getPrice());
+        assertTrue(book.getIsAvailable());
+        
+        assertThrows(IllegalArgumentException.class,
+                () -> new CatalogRecord(2, "T", "A", "0201633612", null, "many", null).toBook());
+    }
+    
+    private static String sub(char code, String value) {
+        return "\u001F" + code + value;
+    }
+    
+    /**
+     * Build one ISO 2709 record from tag and field data pairs.
+     */
+    private static byte[] marc(String... tagsAndData) {
+        ByteArrayOutputStream directory = new ByteArrayOutputStream();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (int i = 0; i < tagsAndData.length; i += 2) {
+            String indicators = tagsAndData[i].startsWith("00") ? "" : "  ";
+            byte[] field = (indicators + tagsAndData[i + 1] + "\u001E").getBytes(StandardCharsets.UTF_8);
+            directory.writeBytes(String.format("%s%04d%05d", tagsAndData[i], field.length, data.size())
+                    .getBytes(StandardCharsets.US_ASCII));
+            data.writeBytes(field);
+        }
+        directory.write(0x1E);
+        int base = 24 + directory.size();
+        int length = base + data.size() + 1;
+        String leader = String.format("%05dnam a22%05d   4500", length, base);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.writeBytes(leader.getBytes(StandardCharsets.US_ASCII));
+        record.writeBytes(directory.toByteArray());
+        record.writeBytes(data.toByteArray());
+        record.write(0x1D);
+        return record.toByteArray();
+    }
+    
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
\ No newline at end of file
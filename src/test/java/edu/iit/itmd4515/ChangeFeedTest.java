@@ -0,0 +1,304 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.domain.ChangeLogEntry;
+import edu.iit.itmd4515.service.AbstractService;
+import edu.iit.itmd4515.service.BookService;
+import edu.iit.itmd4515.service.ChangeFeedPage;
+import edu.iit.itmd4515.service.ChangeLogService;
+import edu.iit.itmd4515.service.ChangeSequencer;
+import edu.iit.itmd4515.service.ChangeTokenExpiredException;
+import edu.iit.itmd4515.service.DomainEventBus;
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.*;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+public class ChangeFeedTest {
+    
+    private static final Logger LOG = Logger.getLogger(ChangeFeedTest.class.getName());
+    
+    private static EntityManagerFactory emf;
+    
+    private EntityManager em;
+    
+    private BookService bookService;
+    
+    private ChangeLogService changeLogService;
+    
+    private ChangeSequencer sequencer;
+    
+    @BeforeAll
+    public static void setUpClass() {
+        LOG.info("Creating EntityManagerFactory...");
+        emf = Persistence.createEntityManagerFactory("itmd4515testPU");
+    }
+    
+    @AfterAll
+    public static void tearDownClass() {
+        LOG.info("Closing EntityManagerFactory...");
+        if (emf != null) {
+            emf.close();
+        }
+    }
+    
+    @BeforeEach
+    public void setUp() {
+        em = emf.createEntityManager();
+        bookService = new BookService();
+        bookService.em = em;
+        bookService.eventBus = new DomainEventBus();
+        changeLogService = new ChangeLogService();
+        changeLogService.em = em;
+        sequencer = new ChangeSequencer();
+        sequencer.changeLogService = changeLogService;
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        if (em.getTransaction().isActive()) {
+            em.getTransaction().rollback();
+        }
+        em.close();
+    }
+    
+    @Test
+    @DisplayName("Test Changes Become Visible In Write Order Once Numbered And Tokens Resume After Them")
+    public void testTokenContract() {
+        long suffix = System.currentTimeMillis() % 1000000000L;
+        sequence();
+        long start = changeLogService.findLastSequence();
+        
+        em.getTransaction().begin();
+        Book first = bookService.create(book("First Fed Title", 9785000000000L + suffix * 2));
+        Book second = bookService.create(book("Second Fed Title", 9785000000000L + suffix * 2 + 1));
+        first.setPrice(12.50);
+        bookService.update(first);
+        em.getTransaction().commit();
+        
+        ChangeFeedPage unnumbered = changeLogService.findSince(start, 100, null);
+        assertTrue(unnumbered.getChanges().isEmpty(), "Entries are only readable once numbered");
+        assertEquals(start, unnumbered.getNext());
+        
+        assertTrue(sequence() >= 3);
+        ChangeFeedPage page = changeLogService.findSince(start, 100, List.of("Book"));
+        assertFalse(page.isHasMore());
+        List<String> ours = page.getChanges().stream()
+                .filter(c -> c.getEntityId().equals(first.getId()) || c.getEntityId().equals(second.getId()))
+                .map(c -> c.getOperation() + ":" + (c.getEntityId().equals(first.getId()) ? "first" : "second"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("INSERT:first", "INSERT:second", "UPDATE:first"), ours);
+        long previous = start;
+        for (ChangeLogEntry change : page.getChanges()) {
+            assertTrue(change.getSeq() > previous, "Sequence numbers grow in feed order");
+            previous = change.getSeq();
+        }
+        assertEquals(changeLogService.findLastSequence(), page.getNext());
+        
+        // Paging hands out a token that resumes right after the last change read
+        ChangeFeedPage one = changeLogService.findSince(start, 1, null);
+        assertEquals(1, one.getChanges().size());
+        assertTrue(one.isHasMore());
+        assertEquals(one.getChanges().get(0).getSeq(), one.getNext());
+        ChangeFeedPage rest = changeLogService.findSince(one.getNext(), 100, null);
+        assertTrue(rest.getChanges().stream().allMatch(c -> c.getSeq() > one.getNext()));
+        
+        ChangeFeedPage caughtUp = changeLogService.findSince(page.getNext(), 100, null);
+        assertTrue(caughtUp.getChanges().isEmpty());
+        assertEquals(page.getNext(), caughtUp.getNext());
+    }
+    
+    @Test
+    @DisplayName("Test Tokens Before The Oldest Kept Change Expire After A Purge")
+    public void testExpiredToken() throws InterruptedException {
+        long suffix = System.currentTimeMillis() % 1000000000L;
+        sequence();
+        long start = changeLogService.findLastSequence();
+        em.getTransaction().begin();
+        bookService.create(book("Purged Title", 9786000000000L + suffix * 2));
+        bookService.create(book("Kept Title", 9786000000000L + suffix * 2 + 1));
+        em.getTransaction().commit();
+        sequence();
+        long last = changeLogService.findLastSequence();
+        
+        // Entries are stamped in whole seconds, so wait until they are strictly older than now
+        Thread.sleep(1100);
+        em.getTransaction().begin();
+        assertTrue(sequencer.purge(0) >= 1);
+        em.getTransaction().commit();
+        
+        assertThrows(ChangeTokenExpiredException.class, () -> changeLogService.findSince(start, 100, null));
+        ChangeFeedPage page = changeLogService.findSince(last - 1, 100, null);
+        assertEquals(1, page.getChanges().size(), "The newest change is always kept");
+        assertEquals(last, page.getNext());
+    }
+    
+    @Test
+    @DisplayName("Test Changes Queued In A Transaction Are Written In Order When The Business Method Returns")
+    public void testQueuedChanges() throws Exception {
+        long suffix = System.currentTimeMillis() % 1000000000L;
+        bookService.txRegistry = new StubRegistry();
+        
+        em.getTransaction().begin();
+        Book[] books = new Book[2];
+        invoke(bookService, () -> {
+            books[0] = bookService.create(book("First Queued Title", 9787000000000L + suffix * 2));
+            books[1] = bookService.create(book("Second Queued Title", 9787000000000L + suffix * 2 + 1));
+            books[0].setPrice(14.25);
+            bookService.update(books[0]);
+            assertEquals(0, countChanges(books), "Entries wait for the business method to return");
+        });
+        assertEquals(3, countChanges(books));
+        em.getTransaction().commit();
+        
+        List<String> ours = em.createQuery("select c from ChangeLogEntry c where c.entityType = 'Book' "
+                + "and c.entityId in :ids order by c.id", ChangeLogEntry.class)
+                .setParameter("ids", List.of(books[0].getId(), books[1].getId()))
+                .getResultList().stream()
+                .map(c -> c.getOperation() + ":" + (c.getEntityId().equals(books[0].getId()) ? "first" : "second"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("INSERT:first", "INSERT:second", "UPDATE:first"), ours);
+        
+        // A failed business method writes nothing
+        em.getTransaction().begin();
+        assertThrows(IllegalStateException.class, () -> invoke(bookService, () -> {
+            bookService.delete(books[1]);
+            throw new IllegalStateException("Business method failed");
+        }));
+        assertEquals(3, countChanges(books));
+        em.getTransaction().rollback();
+    }
+    
+    private int sequence() {
+        em.getTransaction().begin();
+        int numbered = sequencer.sequence();
+        em.getTransaction().commit();
+        return numbered;
+    }
+    
+    private static Book book(String title, long isbn) {
+        Book book = new Book(title, "Feed Author", String.valueOf(isbn));
+        book.setIsAvailable(true);
+        return book;
+    }
+    
+    private long countChanges(Book[] books) {
+        return ((Number) em.createNativeQuery("SELECT COUNT(*) FROM change_log WHERE entity_type = 'Book' "
+                + "AND entity_id IN (?1, ?2)")
+                .setParameter(1, books[0].getId())
+                .setParameter(2, books[1].getId())
+                .getSingleResult()).longValue();
+    }
+    
+    /**
+     * Run a business method the way the container does, through the
+     * service's own around-invoke method.
+     */
+    private static void invoke(AbstractService<?> service, Runnable body) throws Exception {
+        Method aroundInvoke = AbstractService.class.getDeclaredMethod("writePendingChanges", InvocationContext.class);
+        aroundInvoke.setAccessible(true);
+        InvocationContext context = new InvocationContext() {
+            private Map<String, Object> contextData = new HashMap<>();
+            
+            @Override
+            public Object getTarget() {
+                return service;
+            }
+            
+            @Override
+            public Object getTimer() {
+                return null;
+            }
+            
+            @Override
+            public Method getMethod() {
+                return null;
+            }
+            
+            @Override
+            public Constructor<?> getConstructor() {
+                return null;
+            }
+            
+            @Override
+            public Object[] getParameters() {
+                return new Object[0];
+            }
+            
+            @Override
+            public void setParameters(Object[] params) {
+            }
+            
+            @Override
+            public Map<String, Object> getContextData() {
+                return contextData;
+            }
+            
+            @Override
+            public Object proceed() {
+                body.run();
+                return null;
+            }
+        };
+        try {
+            aroundInvoke.invoke(service, context);
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+    
+    /**
+     * A registry for one open transaction that only keeps resources.
+     */
+    private static class StubRegistry implements TransactionSynchronizationRegistry {
+        
+        private final Object key = new Object();
+        
+        private final Map<Object, Object> resources = new HashMap<>();
+        
+        @Override
+        public Object getTransactionKey() {
+            return key;
+        }
+        
+        @Override
+        public void putResource(Object resourceKey, Object value) {
+            resources.put(resourceKey, value);
+        }
+        
+        @Override
+        public Object getResource(Object resourceKey) {
+            return resources.get(resourceKey);
+        }
+        
+        @Override
+        public void registerInterposedSynchronization(Synchronization sync) {
+            fail("Entries should not wait for the transaction to complete");
+        }
+        
+        @Override
+        public int getTransactionStatus() {
+            return Status.STATUS_ACTIVE;
+        }
+        
+        @Override
+        public void setRollbackOnly() {
+        }
+        
+        @Override
+        public boolean getRollbackOnly() {
+            return false;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,339 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.domain.Borrower;
+import edu.iit.itmd4515.domain.BookLoan;
+import edu.iit.itmd4515.domain.Library;
+import edu.iit.itmd4515.domain.LoanCounter;
+import edu.iit.itmd4515.service.BookLoanService;
+import edu.iit.itmd4515.service.CheckoutException;
+import edu.iit.itmd4515.service.CheckoutService;
+import edu.iit.itmd4515.service.DomainEventBus;
+import edu.iit.itmd4515.service.LoanCounterService;
+import edu.iit.itmd4515.service.LoanDueDateService;
+import edu.iit.itmd4515.service.RetryOnConflictInterceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.*;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class CheckoutConcurrencyTest {
+    
+    private static final Logger LOG = Logger.getLogger(CheckoutConcurrencyTest.class.getName());
+    
+    private static final int THREADS = 64;
+    
+    // Each attempt can only lose to another desk's commit, so 4 desks need at most 4 of the 5 attempts
+    private static final int SAME_BORROWER_THREADS = 4;
+    
+    private static EntityManagerFactory emf;
+    
+    @BeforeAll
+    public static void setUpClass() {
+        LOG.info("Creating EntityManagerFactory...");
+        emf = Persistence.createEntityManagerFactory("itmd4515testPU");
+    }
+    
+    @AfterAll
+    public static void tearDownClass() {
+        LOG.info("Closing EntityManagerFactory...");
+        if (emf != null) {
+            emf.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Test 64 Concurrent Checkouts Of One Book - Exactly One Wins")
+    public void testConcurrentCheckoutOfOneBook() throws Exception {
+        LOG.info("Testing concurrent checkout of a single book...");
+        long suffix = System.currentTimeMillis();
+        
+        // One book and library, and one borrower per desk so the book is the only contended row
+        EntityManager setupEm = emf.createEntityManager();
+        Book book = new Book("Contended Title", "Popular Author", String.valueOf(9780000000000L + suffix % 1000000000L));
+        book.setIsAvailable(true);
+        Library library = new Library("Stress Test Library " + suffix, "1 Test Way", "Chicago", "IL", "60601",
+                LocalTime.of(9, 0), LocalTime.of(17, 0), 100);
+        List<Long> borrowerIds = new ArrayList<>();
+        setupEm.getTransaction().begin();
+        setupEm.persist(book);
+        setupEm.persist(library);
+        List<Borrower> borrowers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Borrower borrower = new Borrower("Desk", "Borrower" + i, "desk" + i + "." + suffix + "@test.edu", "15550000000");
+            borrower.setAddress("1 Test Way");
+            borrower.setCity("Chicago");
+            borrower.setState("IL");
+            borrower.setZipCode("60601");
+            setupEm.persist(borrower);
+            borrowers.add(borrower);
+        }
+        setupEm.getTransaction().commit();
+        borrowers.forEach(b -> borrowerIds.add(b.getId()));
+        Long bookId = book.getId();
+        Long libraryId = library.getId();
+        setupEm.close();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger refusals = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Long borrowerId = borrowerIds.get(i);
+            futures.add(pool.submit(() -> {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    BookLoanService service = wire(em);
+                    start.await();
+                    em.getTransaction().begin();
+                    service.checkout(bookId, borrowerId, libraryId, null, LocalDate.now().plusDays(14));
+                    em.getTransaction().commit();
+                    successes.incrementAndGet();
+                } catch (CheckoutException e) {
+                    assertEquals(CheckoutException.Reason.BOOK_UNAVAILABLE, e.getReason());
+                    refusals.incrementAndGet();
+                } finally {
+                    if (em.getTransaction().isActive()) {
+                        em.getTransaction().rollback();
+                    }
+                    em.close();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        
+        LOG.log(Level.INFO, "Checkouts: {0} succeeded, {1} refused",
+                new Object[]{successes.get(), refusals.get()});
+        assertEquals(1, successes.get(), "Exactly one checkout should succeed");
+        assertEquals(THREADS - 1, refusals.get(), "All other checkouts should be refused");
+        
+        EntityManager em = emf.createEntityManager();
+        Book foundBook = em.find(Book.class, bookId);
+        em.refresh(foundBook);
+        assertFalse(foundBook.getIsAvailable(), "Book should no longer be available");
+        long loans = em.createQuery("SELECT COUNT(bl) FROM BookLoan bl WHERE bl.book.id = :bookId", Long.class)
+                .setParameter("bookId", bookId)
+                .getSingleResult();
+        assertEquals(1L, loans, "Exactly one loan should exist for the book");
+        em.close();
+    }
+    
+    @Test
+    @DisplayName("Test Concurrent Checkouts For One Borrower Conflict And Are Retried Until All Succeed")
+    public void testConcurrentCheckoutsForOneBorrower() throws Exception {
+        LOG.info("Testing concurrent checkouts for a single borrower through the retrying service...");
+        long suffix = System.currentTimeMillis();
+        
+        // One book per desk and a single borrower, so the borrower's version is the only contended row
+        EntityManager setupEm = emf.createEntityManager();
+        List<Book> books = new ArrayList<>();
+        Library library = new Library("Retry Test Library " + suffix, "1 Test Way", "Chicago", "IL", "60601",
+                LocalTime.of(9, 0), LocalTime.of(17, 0), 100);
+        Borrower borrower = new Borrower("Busy", "Borrower", "busy." + suffix + "@test.edu", "15550000000");
+        borrower.setAddress("1 Test Way");
+        borrower.setCity("Chicago");
+        borrower.setState("IL");
+        borrower.setZipCode("60601");
+        setupEm.getTransaction().begin();
+        for (int i = 0; i < SAME_BORROWER_THREADS; i++) {
+            Book book = new Book("Retried Title " + i, "Popular Author",
+                    String.valueOf(9781000000000L + (suffix % 100000000L) * 10 + i));
+            book.setIsAvailable(true);
+            setupEm.persist(book);
+            books.add(book);
+        }
+        setupEm.persist(library);
+        setupEm.persist(borrower);
+        setupEm.getTransaction().commit();
+        Long borrowerId = borrower.getId();
+        Long libraryId = library.getId();
+        Long initialVersion = borrower.getVersion();
+        setupEm.close();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(SAME_BORROWER_THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        List<Future<BookLoan>> futures = new ArrayList<>();
+        for (Book book : books) {
+            Long bookId = book.getId();
+            futures.add(pool.submit(() -> {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    CheckoutService checkoutService = new CheckoutService();
+                    checkoutService.bookLoanService = wire(em);
+                    Method method = CheckoutService.class.getMethod("checkout",
+                            Long.class, Long.class, Long.class, Long.class, LocalDate.class);
+                    Object[] parameters = {bookId, borrowerId, libraryId, null, null};
+                    start.await();
+                    // Each attempt commits or rolls back on its own, as the container does around CheckoutService
+                    return (BookLoan) new RetryOnConflictInterceptor().retry(
+                            invocation(checkoutService, method, parameters, () -> {
+                                attempts.incrementAndGet();
+                                em.getTransaction().begin();
+                                try {
+                                    BookLoan loan = checkoutService.checkout(bookId, borrowerId, libraryId, null, null);
+                                    em.getTransaction().commit();
+                                    return loan;
+                                } finally {
+                                    if (em.getTransaction().isActive()) {
+                                        em.getTransaction().rollback();
+                                    }
+                                    em.clear();
+                                }
+                            }));
+                } finally {
+                    em.close();
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<BookLoan> future : futures) {
+            assertNotNull(future.get(60, TimeUnit.SECONDS).getId());
+        }
+        pool.shutdown();
+        
+        LOG.log(Level.INFO, "{0} checkouts took {1} attempts", new Object[]{SAME_BORROWER_THREADS, attempts.get()});
+        EntityManager em = emf.createEntityManager();
+        long loans = em.createQuery("SELECT COUNT(bl) FROM BookLoan bl WHERE bl.borrower.id = :borrowerId", Long.class)
+                .setParameter("borrowerId", borrowerId)
+                .getSingleResult();
+        assertEquals(SAME_BORROWER_THREADS, loans, "Every checkout should succeed after retrying");
+        Borrower found = em.find(Borrower.class, borrowerId);
+        em.refresh(found);
+        assertEquals(initialVersion + SAME_BORROWER_THREADS, found.getVersion(),
+                "Each checkout should bump the borrower's version once");
+        em.close();
+    }
+    
+    @Test
+    @DisplayName("Test Returning A Loan Changed While Managed Decrements The Counters")
+    public void testReturnOfManagedLoanUpdatesCounters() {
+        LOG.info("Testing the counters after returning a managed loan...");
+        long suffix = System.currentTimeMillis();
+        EntityManager em = emf.createEntityManager();
+        try {
+            Book book = new Book("Counted Title", "Popular Author",
+                    String.valueOf(9784000000000L + suffix % 1000000000L));
+            book.setIsAvailable(true);
+            Library library = new Library("Counter Test Library " + suffix, "1 Test Way", "Chicago", "IL", "60601",
+                    LocalTime.of(9, 0), LocalTime.of(17, 0), 100);
+            Borrower borrower = new Borrower("Counted", "Borrower", "counted." + suffix + "@test.edu", "15550000000");
+            borrower.setAddress("1 Test Way");
+            borrower.setCity("Chicago");
+            borrower.setState("IL");
+            borrower.setZipCode("60601");
+            em.getTransaction().begin();
+            em.persist(book);
+            em.persist(library);
+            em.persist(borrower);
+            em.getTransaction().commit();
+            
+            BookLoanService service = wire(em);
+            em.getTransaction().begin();
+            BookLoan loan = service.checkout(book.getId(), borrower.getId(), library.getId(), null,
+                    LocalDate.now().plusDays(14));
+            em.getTransaction().commit();
+            assertEquals(1, service.loanCounterService.getActiveLoans(LoanCounter.Scope.BORROWER, borrower.getId()));
+            
+            // The loan is still managed, so the change would be flushed before a JPQL read under AUTO
+            em.getTransaction().begin();
+            loan.setReturnDate(LocalDate.now());
+            service.update(loan);
+            em.getTransaction().commit();
+            assertEquals(0, service.loanCounterService.getActiveLoans(LoanCounter.Scope.BORROWER, borrower.getId()),
+                    "The return should be counted");
+            assertEquals(1, service.loanCounterService.getTotalLoans(LoanCounter.Scope.BORROWER, borrower.getId()));
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+    
+    private static InvocationContext invocation(Object target, Method method, Object[] parameters,
+                                                Callable<Object> proceed) {
+        return new InvocationContext() {
+            private final Map<String, Object> contextData = new HashMap<>();
+            
+            @Override
+            public Object getTarget() {
+                return target;
+            }
+            
+            @Override
+            public Object getTimer() {
+                return null;
+            }
+            
+            @Override
+            public Method getMethod() {
+                return method;
+            }
+            
+            @Override
+            public Constructor<?> getConstructor() {
+                return null;
+            }
+            
+            @Override
+            public Object[] getParameters() {
+                return parameters;
+            }
+            
+            @Override
+            public void setParameters(Object[] params) {
+                throw new UnsupportedOperationException();
+            }
+            
+            @Override
+            public Map<String, Object> getContextData() {
+                return contextData;
+            }
+            
+            @Override
+            public Object proceed() throws Exception {
+                return proceed.call();
+            }
+        };
+    }
+    
+    private static BookLoanService wire(EntityManager em) {
+        LoanCounterService loanCounterService = new LoanCounterService();
+        loanCounterService.em = em;
+        DomainEventBus eventBus = new DomainEventBus();
+        LoanDueDateService loanDueDateService = new LoanDueDateService();
+        loanDueDateService.em = em;
+        loanDueDateService.eventBus = eventBus;
+        loanDueDateService.init();
+        BookLoanService service = new BookLoanService();
+        service.em = em;
+        service.loanCounterService = loanCounterService;
+        service.loanDueDateService = loanDueDateService;
+        service.eventBus = eventBus;
+        return service;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,189 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.domain.BookLoan;
+import edu.iit.itmd4515.domain.Borrower;
+import edu.iit.itmd4515.domain.Library;
+import edu.iit.itmd4515.domain.Publisher;
+import edu.iit.itmd4515.service.CirculationRollupJob;
+import edu.iit.itmd4515.service.CirculationRollupService;
+import edu.iit.itmd4515.service.CirculationRollupService.Breakdown;
+import edu.iit.itmd4515.service.CirculationRollupService.Granularity;
+import edu.iit.itmd4515.service.CirculationStats;
+import edu.iit.itmd4515.service.DomainEvent;
+import jakarta.persistence.*;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+public class CirculationRollupTest {
+    
+    private static final Logger LOG = Logger.getLogger(CirculationRollupTest.class.getName());
+    
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 4);
+    
+    private static EntityManagerFactory emf;
+    
+    private EntityManager em;
+    
+    @BeforeAll
+    public static void setUpClass() {
+        LOG.info("Creating EntityManagerFactory...");
+        emf = Persistence.createEntityManagerFactory("itmd4515testPU");
+    }
+    
+    @AfterAll
+    public static void tearDownClass() {
+        LOG.info("Closing EntityManagerFactory...");
+        if (emf != null) {
+            emf.close();
+        }
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        if (em == null) {
+            return;
+        }
+        if (em.getTransaction().isActive()) {
+            em.getTransaction().rollback();
+        }
+        em.close();
+    }
+    
+    @Test
+    @DisplayName("Test Dirty Days Include The Dates An Edited Loan Moved Away From")
+    public void testDirtyDays() {
+        List<LocalDate[]> rebuilt = new ArrayList<>();
+        CirculationRollupJob job = new CirculationRollupJob();
+        job.circulationRollupService = new CirculationRollupService() {
+            @Override
+            public int rebuildRange(LocalDate from, LocalDate to) {
+                rebuilt.add(new LocalDate[]{from, to});
+                return 0;
+            }
+        };
+        
+        BookLoan loan = new BookLoan(DAY.plusDays(5), DAY.plusDays(19), "Dirty Borrower");
+        loan.setReturnDate(DAY.plusDays(20));
+        job.onLoanEvent(new DomainEvent.LoanUpdated(loan, DAY, DAY.plusDays(21)));
+        job.onLoanEvent(new DomainEvent.LoanCreated(new BookLoan(DAY.plusDays(1), DAY.plusDays(15), "Dirty Borrower")));
+        
+        // Consecutive days are rebuilt together, gaps split the runs
+        assertEquals(5, job.refresh());
+        assertEquals(3, rebuilt.size());
+        assertArrayEquals(new LocalDate[]{DAY, DAY.plusDays(1)}, rebuilt.get(0));
+        assertArrayEquals(new LocalDate[]{DAY.plusDays(5), DAY.plusDays(5)}, rebuilt.get(1));
+        assertArrayEquals(new LocalDate[]{DAY.plusDays(20), DAY.plusDays(21)}, rebuilt.get(2));
+        assertEquals(0, job.refresh(), "Rebuilt days are no longer dirty");
+        
+        // A failed rebuild keeps its days dirty for the next refresh
+        CirculationRollupService recording = job.circulationRollupService;
+        job.circulationRollupService = new CirculationRollupService() {
+            @Override
+            public int rebuildRange(LocalDate from, LocalDate to) {
+                throw new IllegalStateException("Database unavailable");
+            }
+        };
+        job.onLoanEvent(new DomainEvent.LoanUpdated(new BookLoan(DAY, DAY.plusDays(14), "Dirty Borrower"), null, null));
+        assertEquals(0, job.refresh());
+        job.circulationRollupService = recording;
+        rebuilt.clear();
+        assertEquals(1, job.refresh());
+        assertArrayEquals(new LocalDate[]{DAY, DAY}, rebuilt.get(0));
+    }
+    
+    @Test
+    @DisplayName("Test Rebuilt Rollup Counts Checkouts, Returns, Overdue Returns And Fines Per Day")
+    public void testRebuildRange() {
+        em = emf.createEntityManager();
+        long suffix = System.currentTimeMillis() % 1000000000L;
+        // A day of its own per run, so rows from earlier runs do not add up
+        LocalDate day = LocalDate.of(1990, 1, 1).plusDays(suffix % 2000 * 12);
+        CirculationRollupService service = new CirculationRollupService();
+        service.em = em;
+        
+        Publisher publisher = new Publisher("Rollup Publisher " + suffix, "1 Rollup Way", "Chicago", "USA");
+        Book book = new Book("Rollup Title", "Rollup Author", String.valueOf(9784000000000L + suffix));
+        book.setPublisher(publisher);
+        book.setIsAvailable(true);
+        Library library = new Library("Rollup Library " + suffix, "1 Test Way", "Chicago", "IL", "60601",
+                LocalTime.of(9, 0), LocalTime.of(17, 0), 100);
+        Borrower borrower = new Borrower("Rollup", "Borrower", "rollup." + suffix + "@test.edu", "15550000000");
+        borrower.setAddress("1 Test Way");
+        borrower.setCity("Chicago");
+        borrower.setState("IL");
+        borrower.setZipCode("60601");
+        BookLoan late = loan(book, library, borrower, day, day.plusDays(7), day.plusDays(10), 1.50);
+        BookLoan onTime = loan(book, library, borrower, day, day.plusDays(14), day.plusDays(3), 0.0);
+        em.getTransaction().begin();
+        em.persist(publisher);
+        em.persist(book);
+        em.persist(library);
+        em.persist(borrower);
+        em.persist(late);
+        em.persist(onTime);
+        em.getTransaction().commit();
+        
+        em.getTransaction().begin();
+        int rows = service.rebuildRange(day, day.plusDays(10));
+        em.getTransaction().commit();
+        // Each active day has a row per library and publisher, per library, per publisher and in total
+        assertEquals(12, rows);
+        
+        List<CirculationStats> stats = service.findCirculation(Granularity.DAY, day, day.plusDays(10),
+                library.getId(), null, Breakdown.NONE);
+        assertEquals(3, stats.size());
+        assertStats(stats.get(0), day, 2, 0, 0, 0.0);
+        assertStats(stats.get(1), day.plusDays(3), 0, 1, 0, 0.0);
+        assertStats(stats.get(2), day.plusDays(10), 0, 1, 1, 1.50);
+        assertEquals(1.0, stats.get(2).getOverdueRate(), 0.0001);
+        
+        List<CirculationStats> byPublisher = service.findCirculation(Granularity.MONTH, day, day.plusDays(10),
+                library.getId(), null, Breakdown.PUBLISHER);
+        assertFalse(byPublisher.isEmpty());
+        assertTrue(byPublisher.stream().allMatch(s -> s.getPublisherId().equals(publisher.getId())));
+        assertEquals(2, byPublisher.stream().mapToLong(CirculationStats::getCheckouts).sum());
+        assertEquals(2, byPublisher.stream().mapToLong(CirculationStats::getReturns).sum());
+        
+        em.getTransaction().begin();
+        assertEquals(rows, service.rebuildRange(day, day.plusDays(10)), "Rebuilding again should not double count");
+        em.getTransaction().commit();
+        
+        // Moving a loan to another day needs both days rebuilt, as the job does for an edited loan
+        em.getTransaction().begin();
+        onTime.setLoanDate(day.plusDays(1));
+        em.getTransaction().commit();
+        em.getTransaction().begin();
+        service.rebuildRange(day, day);
+        service.rebuildRange(day.plusDays(1), day.plusDays(1));
+        em.getTransaction().commit();
+        stats = service.findCirculation(Granularity.DAY, day, day.plusDays(1), library.getId(), null, Breakdown.NONE);
+        assertEquals(2, stats.size());
+        assertStats(stats.get(0), day, 1, 0, 0, 0.0);
+        assertStats(stats.get(1), day.plusDays(1), 1, 0, 0, 0.0);
+    }
+    
+    private static BookLoan loan(Book book, Library library, Borrower borrower, LocalDate loanDate,
+                                 LocalDate dueDate, LocalDate returnDate, double fine) {
+        BookLoan loan = new BookLoan(loanDate, dueDate, borrower);
+        loan.setBook(book);
+        loan.setLibrary(library);
+        loan.setReturnDate(returnDate);
+        loan.setFineAmount(fine);
+        return loan;
+    }
+    
+    private static void assertStats(CirculationStats stats, LocalDate period, long checkouts, long returns,
+                                    long overdueReturns, double fineRevenue) {
+        assertEquals(period, stats.getPeriod());
+        assertEquals(checkouts, stats.getCheckouts());
+        assertEquals(returns, stats.getReturns());
+        assertEquals(overdueReturns, stats.getOverdueReturns());
+        assertEquals(fineRevenue, stats.getFineRevenue(), 0.001);
+    }
+}
\ No newline at end of file
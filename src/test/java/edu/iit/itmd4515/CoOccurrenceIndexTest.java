@@ -0,0 +1,128 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.service.CoOccurrenceIndex;
+import edu.iit.itmd4515.service.RelatedBook;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoOccurrenceIndexTest {
+    
+    private static ForkJoinPool pool;
+    
+    @BeforeAll
+    public static void startPool() {
+        pool = new ForkJoinPool(3);
+    }
+    
+    @AfterAll
+    public static void stopPool() {
+        pool.shutdown();
+    }
+    
+    @Test
+    @DisplayName("Test Parallel Counts Match A Naive Count Of Every Pair")
+    public void testComputeNeighbours() {
+        Random random = new Random(7);
+        Map<Long, Set<Long>> baskets = new HashMap<>();
+        CoOccurrenceIndex index = new CoOccurrenceIndex(5, 1000);
+        for (int i = 0; i < 20_000; i++) {
+            long borrower = random.nextInt(500);
+            // Skewed so some books are far more popular than others
+            long book = (long) Math.abs(random.nextGaussian() * 40);
+            index.load(borrower, book);
+            baskets.computeIfAbsent(borrower, b -> new LinkedHashSet<>()).add(book);
+        }
+        index.computeNeighbours(pool);
+        
+        Map<Long, Map<Long, Integer>> counts = new HashMap<>();
+        for (Set<Long> basket : baskets.values()) {
+            for (long x : basket) {
+                for (long y : basket) {
+                    if (x != y) {
+                        counts.computeIfAbsent(x, k -> new HashMap<>()).merge(y, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Long, Map<Long, Integer>> row : counts.entrySet()) {
+            List<String> expected = row.getValue().entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(5)
+                    .map(e -> e.getKey() + ":" + e.getValue())
+                    .collect(Collectors.toList());
+            List<String> actual = index.related(row.getKey(), 10).stream()
+                    .map(r -> r.getBookId() + ":" + r.getScore())
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual, "neighbours of book " + row.getKey());
+        }
+    }
+    
+    @Test
+    @DisplayName("Test New Loans Update Neighbours Incrementally")
+    public void testAddLoan() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(3, 10);
+        index.load(1, 100);
+        index.load(1, 200);
+        index.load(2, 100);
+        index.load(2, 300);
+        index.computeNeighbours(pool);
+        assertEquals(List.of(200L, 300L), ids(index.related(100, 10)));
+        
+        assertTrue(index.addLoan(3, 100));
+        assertTrue(index.addLoan(3, 300));
+        assertFalse(index.addLoan(3, 300), "A second loan of the same book does not count again");
+        assertEquals(List.of(300L, 200L), ids(index.related(100, 10)));
+        assertEquals(2, index.related(100, 1).get(0).getScore());
+        assertEquals(List.of(100L), ids(index.related(300, 10)));
+        assertTrue(index.related(999, 10).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Test Recommendations Skip Books The Borrower Already Had")
+    public void testRecommend() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10, 10);
+        // Borrowers 1 and 2 both read 100 with 200; borrower 3 read 100 with 300
+        long[][] loans = {{1, 100}, {1, 200}, {2, 100}, {2, 200}, {3, 100}, {3, 300}, {4, 100}};
+        for (long[] loan : loans) {
+            index.load(loan[0], loan[1]);
+        }
+        index.computeNeighbours(pool);
+        
+        List<RelatedBook> recommended = index.recommend(4, 20, 10);
+        assertEquals(List.of(200L, 300L), ids(recommended));
+        assertEquals(2, recommended.get(0).getScore());
+        assertEquals(List.of(300L), ids(index.recommend(1, 20, 10)));
+        assertEquals(List.of(200L), ids(index.recommend(4, 20, 1)));
+        assertTrue(index.recommend(999, 20, 10).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Test Basket Keeps Only The Most Recent Books")
+    public void testMaxBasket() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10, 2);
+        index.load(1, 100);
+        index.load(1, 200);
+        index.load(1, 300);
+        index.computeNeighbours(pool);
+        assertEquals(List.of(300L), ids(index.related(200, 10)));
+        assertTrue(index.related(100, 10).isEmpty(), "The oldest book left the basket");
+    }
+    
+    private static List<Long> ids(List<RelatedBook> books) {
+        List<Long> ids = new ArrayList<>();
+        for (RelatedBook book : books) {
+            ids.add(book.getBookId());
+        }
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.service.DomainEvent;
+import edu.iit.itmd4515.service.EventSubscription;
+import edu.iit.itmd4515.service.EventSubscriptionStats;
+import org.junit.jupiter.api.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventSubscriptionTest {
+    
+    private ExecutorService pool;
+    
+    @BeforeEach
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(2);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+    
+    @Test
+    @DisplayName("Test Events Are Delivered Off The Publishing Thread In Order")
+    public void testOrderedDelivery() throws Exception {
+        List<Long> received = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1000);
+        EventSubscription<DomainEvent.BookUpdated> subscription = new EventSubscription<>("books",
+                DomainEvent.BookUpdated.class, e -> {
+                    received.add(e.getBookId());
+                    threads.add(Thread.currentThread());
+                    done.countDown();
+                }, pool, 10000, 3, 1);
+        
+        assertFalse(subscription.accepts(new DomainEvent.BorrowerDeactivated(1L)));
+        for (long id = 0; id < 1000; id++) {
+            subscription.offer(new DomainEvent.BookUpdated(id, true));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        while (subscription.getStats().getQueueDepth() > 0) {
+            Thread.sleep(1);
+        }
+        
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, received.get(i));
+        }
+        assertFalse(threads.contains(Thread.currentThread()));
+        EventSubscriptionStats stats = subscription.getStats();
+        assertEquals(1000, stats.getPublished());
+        assertEquals(1000, stats.getDelivered());
+        assertEquals(0, stats.getOverflowed());
+    }
+    
+    @Test
+    @DisplayName("Test Failing Handler Is Retried And Held For Redelivery Instead Of Dropped")
+    public void testRetry() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        EventSubscription<DomainEvent> flaky = new EventSubscription<>("flaky", DomainEvent.class, e -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IllegalStateException("not yet");
+            }
+        }, null, 10, 5, 1);
+        flaky.offer(new DomainEvent.BorrowerDeactivated(7L));
+        assertEquals(3, calls.get());
+        assertEquals(1, flaky.getStats().getDelivered());
+        assertEquals(2, flaky.getStats().getRetried());
+        
+        AtomicBoolean broken = new AtomicBoolean(true);
+        List<Long> received = new CopyOnWriteArrayList<>();
+        EventSubscription<DomainEvent.BorrowerDeactivated> held = new EventSubscription<>("held",
+                DomainEvent.BorrowerDeactivated.class, e -> {
+                    if (broken.get()) {
+                        throw new IllegalStateException("always");
+                    }
+                    received.add(e.getBorrowerId());
+                }, null, 10, 2, 1);
+        held.offer(new DomainEvent.BorrowerDeactivated(7L));
+        held.offer(new DomainEvent.BorrowerDeactivated(8L));
+        assertEquals(0, held.getStats().getDelivered());
+        assertEquals(1, held.getStats().getFailed());
+        assertEquals(2, held.getStats().getQueueDepth());
+        
+        // Still stalled: nothing is attempted until the redelivery
+        broken.set(false);
+        held.offer(new DomainEvent.BorrowerDeactivated(9L));
+        assertTrue(received.isEmpty());
+        held.redeliver();
+        assertEquals(List.of(7L, 8L, 9L), received);
+        assertEquals(0, held.getStats().getQueueDepth());
+    }
+    
+    @Test
+    @DisplayName("Test Full Queue Drops Events Without Blocking And Resyncs Once Drained")
+    public void testOverflow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch resynced = new CountDownLatch(1);
+        List<Long> received = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        AtomicInteger resyncs = new AtomicInteger();
+        EventSubscription<DomainEvent.BookUpdated> subscription = new EventSubscription<>("slow",
+                DomainEvent.BookUpdated.class, e -> {
+                    if (e.getBookId() == 1L) {
+                        await(release);
+                    }
+                    received.add(e.getBookId());
+                    threads.add(Thread.currentThread());
+                }, pool, 2, 1, 0, () -> {
+                    resyncs.incrementAndGet();
+                    resynced.countDown();
+                });
+        
+        subscription.offer(new DomainEvent.BookUpdated(1L, false));
+        subscription.offer(new DomainEvent.BookUpdated(2L, false));
+        subscription.offer(new DomainEvent.BookUpdated(3L, false));
+        assertTrue(received.isEmpty());
+        EventSubscriptionStats stats = subscription.getStats();
+        assertEquals(1, stats.getOverflowed());
+        assertEquals(2, stats.getQueueDepth(), "The queue never grows past its capacity");
+        assertTrue(stats.isResyncPending());
+        assertEquals(3, stats.getPublished());
+        
+        release.countDown();
+        assertTrue(resynced.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 2L), received);
+        assertFalse(threads.contains(Thread.currentThread()));
+        assertEquals(2, subscription.getStats().getDelivered());
+        assertFalse(subscription.getStats().isResyncPending());
+        
+        subscription.redeliver();
+        subscription.offer(new DomainEvent.BookUpdated(4L, false));
+        while (subscription.getStats().getQueueDepth() > 0) {
+            Thread.sleep(1);
+        }
+        assertEquals(List.of(1L, 2L, 4L), received);
+        assertEquals(1, resyncs.get(), "Only dropped events call for a resync");
+    }
+    
+    @Test
+    @DisplayName("Test Failed Resync Is Retried On Redelivery And Subscribers Without One Stay Marked")
+    public void testResyncRetry() {
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean broken = new AtomicBoolean(true);
+        AtomicBoolean blocked = new AtomicBoolean(true);
+        EventSubscription<DomainEvent> stuck = new EventSubscription<>("stuck", DomainEvent.class, e -> {
+            if (blocked.get()) {
+                throw new IllegalStateException("down");
+            }
+        }, null, 1, 1, 0, () -> {
+            attempts.incrementAndGet();
+            if (broken.get()) {
+                throw new IllegalStateException("still down");
+            }
+        });
+        stuck.offer(new DomainEvent.BorrowerDeactivated(1L));
+        stuck.offer(new DomainEvent.BorrowerDeactivated(2L));
+        assertEquals(1, stuck.getStats().getQueueDepth());
+        assertEquals(1, stuck.getStats().getOverflowed());
+        assertEquals(0, attempts.get(), "No resync while the held event is still queued");
+        
+        blocked.set(false);
+        stuck.redeliver();
+        assertEquals(0, stuck.getStats().getQueueDepth());
+        assertEquals(1, attempts.get());
+        assertTrue(stuck.getStats().isResyncPending());
+        broken.set(false);
+        stuck.redeliver();
+        assertEquals(2, attempts.get());
+        assertFalse(stuck.getStats().isResyncPending());
+        
+        EventSubscription<DomainEvent> plain = new EventSubscription<>("plain", DomainEvent.class, e -> {
+            throw new IllegalStateException("down");
+        }, null, 1, 1, 0);
+        plain.offer(new DomainEvent.BorrowerDeactivated(1L));
+        plain.offer(new DomainEvent.BorrowerDeactivated(2L));
+        assertTrue(plain.getStats().isResyncPending());
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
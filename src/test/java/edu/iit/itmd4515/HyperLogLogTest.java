@@ -0,0 +1,107 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.service.DistinctBorrowers;
+import edu.iit.itmd4515.service.HyperLogLog;
+import org.junit.jupiter.api.*;
+import java.time.LocalDate;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogTest {
+
+    @Test
+    @DisplayName("Test Estimates Stay Within The Standard Error From Few To Many IDs")
+    public void testAccuracy() {
+        for (int n : new int[]{0, 1, 10, 1_000, 20_000, 60_000, 500_000}) {
+            HyperLogLog sketch = new HyperLogLog(14);
+            for (long id = 1; id <= n; id++) {
+                sketch.add(id);
+                // Repeated borrowers are counted once
+                sketch.add(id);
+            }
+            double tolerance = Math.max(1, 4 * sketch.getStandardError() * n);
+            assertEquals(n, sketch.estimate(), tolerance, "estimate of " + n + " borrowers");
+        }
+    }
+
+    @Test
+    @DisplayName("Test Merging Day Sketches Counts Shared Borrowers Once")
+    public void testMerge() {
+        HyperLogLog monday = new HyperLogLog(14);
+        HyperLogLog tuesday = new HyperLogLog(14);
+        HyperLogLog week = new HyperLogLog(14);
+        for (long id = 0; id < 30_000; id++) {
+            monday.add(id);
+            week.add(id);
+        }
+        for (long id = 20_000; id < 50_000; id++) {
+            tuesday.add(id);
+            week.add(id);
+        }
+        HyperLogLog merged = new HyperLogLog(14);
+        merged.merge(monday);
+        merged.merge(tuesday);
+        merged.merge(tuesday);
+        assertEquals(week.estimate(), merged.estimate());
+        assertEquals(50_000, merged.estimate(), 4 * merged.getStandardError() * 50_000);
+    }
+
+    @Test
+    @DisplayName("Test Folding Equals Building At The Lower Precision")
+    public void testFold() {
+        HyperLogLog fine = new HyperLogLog(14);
+        HyperLogLog coarse = new HyperLogLog(10);
+        for (long id = 0; id < 100_000; id += 3) {
+            fine.add(id);
+            coarse.add(id);
+        }
+        HyperLogLog folded = fine.fold(10);
+        assertEquals(coarse.estimate(), folded.estimate());
+        assertArrayEquals(coarse.toBytes(), folded.toBytes());
+        assertThrows(IllegalArgumentException.class, () -> coarse.merge(fine.fold(8)));
+        assertEquals(10, HyperLogLog.precisionFor(0.033, 14));
+        assertEquals(14, HyperLogLog.precisionFor(0.01, 14));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.precisionFor(0.005, 14));
+    }
+
+    @Test
+    @DisplayName("Test Sparse And Dense Serialization Round Trip")
+    public void testSerialization() {
+        HyperLogLog small = new HyperLogLog(14);
+        for (long id = 0; id < 200; id++) {
+            small.add(id);
+        }
+        byte[] sparse = small.toBytes();
+        assertTrue(sparse.length < 1_000, "few borrowers need few bytes");
+        assertEquals(small.estimate(), HyperLogLog.fromBytes(sparse).estimate());
+        assertTrue(new HyperLogLog(14).isEmpty());
+        assertEquals(0, HyperLogLog.fromBytes(new HyperLogLog(14).toBytes()).estimate());
+
+        HyperLogLog large = new HyperLogLog(14);
+        for (long id = 0; id < 100_000; id++) {
+            large.add(id);
+        }
+        byte[] dense = large.toBytes();
+        assertEquals(2 + 16384 * 6 / 8, dense.length);
+        assertArrayEquals(dense, HyperLogLog.fromBytes(dense).toBytes());
+        assertEquals(large.estimate(), HyperLogLog.fromBytes(dense).estimate());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{2, 14, 0}));
+    }
+
+    @Test
+    @DisplayName("Test Periods Start On The Day, Monday Or First Of The Month")
+    public void testPeriods() {
+        LocalDate from = LocalDate.of(2024, 3, 13);
+        LocalDate day = LocalDate.of(2024, 3, 14);
+        assertEquals(day, DistinctBorrowers.Period.DAY.start(day, from));
+        assertEquals(LocalDate.of(2024, 3, 11), DistinctBorrowers.Period.WEEK.start(day, from));
+        assertEquals(LocalDate.of(2024, 3, 1), DistinctBorrowers.Period.MONTH.start(day, from));
+        assertEquals(from, DistinctBorrowers.Period.parse(null).start(day, from));
+        assertEquals(LocalDate.of(2024, 4, 1), DistinctBorrowers.Period.parse("month").next(LocalDate.of(2024, 3, 1)));
+        assertThrows(IllegalArgumentException.class, () -> DistinctBorrowers.Period.parse("year"));
+
+        DistinctBorrowers count = new DistinctBorrowers(from, day, 1000, 0.01);
+        assertEquals(1000, count.getBorrowers());
+        assertEquals(980, count.getLowerBound());
+        assertEquals(1020, count.getUpperBound());
+    }
+}
@@ -0,0 +1,256 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.service.LoanAnalyticsEngine;
+import edu.iit.itmd4515.service.LoanColumns;
+import edu.iit.itmd4515.service.LoanQuery;
+import edu.iit.itmd4515.service.LoanQuery.Dimension;
+import edu.iit.itmd4515.service.LoanQuery.Measure;
+import edu.iit.itmd4515.service.LoanQuery.Status;
+import edu.iit.itmd4515.service.LoanQueryResult;
+import edu.iit.itmd4515.service.LongIntHashMap;
+import org.junit.jupiter.api.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanAnalyticsTest {
+    
+    private static final LocalDate START = LocalDate.of(1999, 11, 1);
+    
+    private static final String[] PUBLISHERS = {"Penguin", "Harper", "Wiley", null};
+    
+    private static ForkJoinPool pool;
+    
+    private LoanColumns columns;
+    
+    private LoanAnalyticsEngine engine;
+    
+    // Same loans as the column store, for computing expected results the slow way
+    private List<Object[]> loans;
+    
+    @BeforeAll
+    public static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+    
+    @AfterAll
+    public static void stopPool() {
+        pool.shutdown();
+    }
+    
+    @BeforeEach
+    public void setUp() {
+        columns = new LoanColumns(1000);
+        engine = new LoanAnalyticsEngine(pool);
+        loans = new ArrayList<>();
+        Random random = new Random(42);
+        // Several partitions, and dates spanning leap years and the turn of the century
+        for (long id = 1; id <= 200_000; id++) {
+            long libraryId = 1 + random.nextInt(3);
+            String publisher = PUBLISHERS[random.nextInt(PUBLISHERS.length)];
+            LocalDate loanDate = START.plusDays(random.nextInt(3000));
+            LocalDate dueDate = loanDate.plusDays(14);
+            LocalDate returnDate = random.nextInt(4) == 0 ? null : loanDate.plusDays(random.nextInt(30));
+            Double fine = returnDate != null && returnDate.isAfter(dueDate) ? random.nextInt(500) / 100.0 : null;
+            columns.put(id, id % 97, id % 13, libraryId, publisher, loanDate, dueDate, returnDate, fine);
+            loans.add(new Object[]{id, libraryId, publisher, loanDate, dueDate, returnDate, fine});
+        }
+    }
+    
+    @Test
+    @DisplayName("Test Average Duration By Publisher By Quarter Matches A Row-By-Row Computation")
+    public void testGroupByPublisherAndQuarter() {
+        LoanQuery query = new LoanQuery();
+        query.setGroupBy(List.of(Dimension.PUBLISHER, Dimension.QUARTER));
+        query.setMeasure(Measure.DURATION);
+        LoanQueryResult result = engine.execute(columns.snapshot(), query);
+        
+        Map<List<String>, double[]> expected = new TreeMap<>(LoanAnalyticsTest::compareKeys);
+        for (Object[] loan : loans) {
+            LocalDate loanDate = (LocalDate) loan[3];
+            List<String> key = new ArrayList<>();
+            key.add((String) loan[2]);
+            key.add(loanDate.getYear() + "-Q" + ((loanDate.getMonthValue() - 1) / 3 + 1));
+            double[] totals = expected.computeIfAbsent(key, k -> new double[3]);
+            totals[0]++;
+            if (loan[5] != null) {
+                totals[1]++;
+                totals[2] += ((LocalDate) loan[5]).toEpochDay() - loanDate.toEpochDay();
+            }
+        }
+        
+        assertEquals(200_000, result.getMatchedRows());
+        assertEquals(new ArrayList<>(expected.keySet()), groupKeys(result));
+        for (LoanQueryResult.Group group : result.getGroups()) {
+            double[] totals = expected.get(group.getKey());
+            assertEquals((long) totals[0], group.getLoans(), "loans of " + group.getKey());
+            assertEquals((long) totals[1], group.getMeasured(), "returned loans of " + group.getKey());
+            assertEquals(totals[2] / totals[1], group.getAverage(), 1e-9, "average of " + group.getKey());
+        }
+    }
+    
+    @Test
+    @DisplayName("Test Filters Narrow The Loans Counted")
+    public void testFilters() {
+        LoanQuery query = new LoanQuery();
+        query.setFrom(LocalDate.of(2000, 2, 29));
+        query.setTo(LocalDate.of(2001, 12, 31));
+        query.setLibraryId(2L);
+        query.setPublisher("Wiley");
+        query.setStatus(Status.RETURNED);
+        query.setMeasure(Measure.FINE);
+        query.setGroupBy(List.of(Dimension.MONTH));
+        LoanQueryResult result = engine.execute(columns.snapshot(), query);
+        
+        long count = 0;
+        double fines = 0;
+        for (Object[] loan : loans) {
+            LocalDate loanDate = (LocalDate) loan[3];
+            if (!loanDate.isBefore(query.getFrom()) && !loanDate.isAfter(query.getTo())
+                    && loan[1].equals(2L) && "Wiley".equals(loan[2]) && loan[5] != null) {
+                count++;
+                fines += loan[6] == null ? 0 : (Double) loan[6];
+            }
+        }
+        assertEquals(count, result.getMatchedRows());
+        assertEquals(fines, result.getGroups().stream()
+                .mapToDouble(g -> g.getSum() == null ? 0 : g.getSum()).sum(), 1e-6);
+        assertEquals("2000-02", result.getGroups().get(0).getKey().get(0));
+        assertEquals(23, result.getGroups().size(), "March 2000 to December 2001 plus February 2000");
+    }
+    
+    @Test
+    @DisplayName("Test Updates And Removals Are Seen By The Next Query")
+    public void testUpdateAndRemove() {
+        LoanQuery query = new LoanQuery();
+        query.setStatus(Status.ACTIVE);
+        long active = engine.execute(columns.snapshot(), query).getMatchedRows();
+        
+        Object[] loan = loans.stream().filter(l -> l[5] == null).findFirst().orElseThrow();
+        LocalDate loanDate = (LocalDate) loan[3];
+        columns.put((Long) loan[0], 1L, 1L, (Long) loan[1], (String) loan[2],
+                loanDate, (LocalDate) loan[4], loanDate.plusDays(3), null);
+        assertEquals(active - 1, engine.execute(columns.snapshot(), query).getMatchedRows());
+        
+        columns.remove(1L);
+        columns.remove(500_000L);
+        query.setStatus(Status.ANY);
+        assertEquals(199_999, engine.execute(columns.snapshot(), query).getMatchedRows());
+        
+        // A removed loan is not brought back by the initial load
+        assertFalse(columns.putIfAbsent(500_000L, 1L, 1L, 1L, null, START, null, null, null));
+        assertTrue(columns.putIfAbsent(500_001L, 1L, 1L, 1L, null, START, null, null, null));
+        assertEquals(200_000, engine.execute(columns.snapshot(), query).getMatchedRows());
+    }
+    
+    @Test
+    @DisplayName("Test A Snapshot Keeps Seeing Rows As They Were When It Was Taken")
+    public void testSnapshotIsolation() {
+        LoanQuery query = new LoanQuery();
+        query.setStatus(Status.ACTIVE);
+        LoanColumns.Snapshot before = columns.snapshot();
+        long active = engine.execute(before, query).getMatchedRows();
+        
+        // Return every active loan, remove one and add one, taking snapshots in between
+        List<LoanColumns.Snapshot> between = new ArrayList<>();
+        for (Object[] loan : loans) {
+            if (loan[5] == null) {
+                LocalDate loanDate = (LocalDate) loan[3];
+                columns.put((Long) loan[0], 1L, 1L, (Long) loan[1], (String) loan[2],
+                        loanDate, (LocalDate) loan[4], loanDate.plusDays(3), null);
+                if ((Long) loan[0] % 1000 == 0) {
+                    between.add(columns.snapshot());
+                }
+            }
+        }
+        columns.remove(2L);
+        columns.put(600_000L, 1L, 1L, 1L, null, START, START.plusDays(14), null, null);
+        
+        assertEquals(active, engine.execute(before, query).getMatchedRows(), "Later writes are not seen");
+        query.setStatus(Status.ANY);
+        assertEquals(200_000, engine.execute(before, query).getMatchedRows());
+        long previous = active;
+        query.setStatus(Status.ACTIVE);
+        for (LoanColumns.Snapshot snapshot : between) {
+            long matched = engine.execute(snapshot, query).getMatchedRows();
+            assertTrue(matched < previous, "Each snapshot sees the returns made before it");
+            previous = matched;
+        }
+        
+        // Writing every loan after the removed one again retires enough rows to compact the store
+        LoanColumns.Snapshot beforeCompaction = columns.snapshot();
+        for (Object[] loan : loans.subList(2, loans.size())) {
+            LocalDate loanDate = (LocalDate) loan[3];
+            LocalDate returnDate = loan[5] == null ? loanDate.plusDays(3) : (LocalDate) loan[5];
+            columns.put((Long) loan[0], 1L, 1L, (Long) loan[1], (String) loan[2],
+                    loanDate, (LocalDate) loan[4], returnDate, (Double) loan[6]);
+        }
+        assertTrue(columns.size() < 250_000, "Retired rows are dropped once they make up half the store");
+        assertEquals(1, engine.execute(beforeCompaction, query).getMatchedRows());
+        
+        assertEquals(1, engine.execute(columns.snapshot(), query).getMatchedRows());
+        query.setStatus(Status.ANY);
+        assertEquals(200_000, engine.execute(columns.snapshot(), query).getMatchedRows(),
+                "Retired versions are not counted twice");
+        
+        // A removed loan that comes back is seen only by later snapshots
+        LoanColumns.Snapshot removed = columns.snapshot();
+        columns.put(2L, 1L, 1L, 1L, null, START, null, null, null);
+        assertEquals(200_000, engine.execute(removed, query).getMatchedRows());
+        assertEquals(200_001, engine.execute(columns.snapshot(), query).getMatchedRows());
+    }
+    
+    @Test
+    @DisplayName("Test Unknown Filter Values Match Nothing")
+    public void testUnknownFilterValue() {
+        LoanQuery query = new LoanQuery();
+        query.setPublisher("Nobody");
+        LoanQueryResult result = engine.execute(columns.snapshot(), query);
+        assertEquals(0, result.getMatchedRows());
+        assertTrue(result.getGroups().isEmpty());
+        
+        query.setPublisher(null);
+        query.setGroupBy(List.of(Dimension.YEAR, Dimension.YEAR));
+        assertThrows(IllegalArgumentException.class, () -> engine.execute(columns.snapshot(), query));
+    }
+    
+    @Test
+    @DisplayName("Test LongIntHashMap Keeps Every Entry While Growing")
+    public void testLongIntHashMap() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i * 31L - 50_000, i);
+        }
+        map.put(-50_000, -7);
+        assertEquals(100_000, map.size());
+        assertEquals(-7, map.get(-50_000));
+        assertEquals(99_999, map.get(99_999 * 31L - 50_000));
+        assertEquals(LongIntHashMap.MISSING, map.get(1));
+        assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, 1));
+    }
+    
+    private static List<List<String>> groupKeys(LoanQueryResult result) {
+        List<List<String>> keys = new ArrayList<>();
+        for (LoanQueryResult.Group group : result.getGroups()) {
+            keys.add(group.getKey());
+        }
+        return keys;
+    }
+    
+    // Publisher name with books without a publisher last, then quarter
+    private static int compareKeys(List<String> a, List<String> b) {
+        if (a.get(0) == null || b.get(0) == null) {
+            if (a.get(0) != b.get(0)) {
+                return a.get(0) == null ? 1 : -1;
+            }
+        } else if (!a.get(0).equals(b.get(0))) {
+            return a.get(0).compareToIgnoreCase(b.get(0));
+        }
+        return a.get(1).compareTo(b.get(1));
+    }
+}
\ No newline at end of file
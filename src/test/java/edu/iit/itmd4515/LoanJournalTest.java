@@ -0,0 +1,158 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.service.JournalRecord;
+import edu.iit.itmd4515.service.LoanJournal;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanJournalTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("Test Records Roll Across Segments And Replay In Order")
+    public void testAppendRollAndReplay() throws Exception {
+        try (LoanJournal journal = new LoanJournal(directory, 100, 10, 1000)) {
+            for (long i = 1; i <= 250; i++) {
+                assertEquals(i, journal.append(record(i)));
+            }
+            assertEquals(250, journal.getLastSequence());
+        }
+        assertEquals(3, segmentFiles().size());
+        
+        List<JournalRecord> replayed = new ArrayList<>();
+        assertEquals(250, LoanJournal.replay(directory, 1, replayed::add));
+        for (int i = 0; i < 250; i++) {
+            JournalRecord record = replayed.get(i);
+            assertEquals(i + 1, record.getSequence());
+            assertEquals(i + 1, record.getLoanId());
+        }
+        JournalRecord returned = replayed.get(2);
+        assertEquals(JournalRecord.Operation.RETURNED, returned.getOperation());
+        assertEquals(LocalDate.of(2025, 1, 4), returned.getReturnDate());
+        assertEquals(1.5, returned.getFineAmount());
+        JournalRecord created = replayed.get(0);
+        assertEquals(JournalRecord.Operation.CREATED, created.getOperation());
+        assertNull(created.getReturnDate());
+        assertNull(created.getFineAmount());
+        assertNull(created.getLibraryId());
+        
+        List<JournalRecord> tail = new ArrayList<>();
+        assertEquals(131, LoanJournal.replay(directory, 120, tail::add));
+        assertEquals(120, tail.get(0).getSequence());
+    }
+    
+    @Test
+    @DisplayName("Test Group Commit Thread Forces Appends Without Sync")
+    public void testGroupCommit() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        try (LoanJournal journal = new LoanJournal(directory, 100, 1000, 10, task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            threads.add(thread);
+            return thread;
+        })) {
+            assertEquals(1, threads.size());
+            journal.append(record(1));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (journal.getForces() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(journal.getForces() > 0, "The group-commit thread forces after groupMillis");
+            assertEquals(2, journal.append(record(2)));
+        }
+        threads.get(0).join(5000);
+        assertFalse(threads.get(0).isAlive(), "Closing stops the group-commit thread");
+        assertEquals(2, LoanJournal.replay(directory, 1, r -> { }));
+        
+        try (LoanJournal journal = new LoanJournal(directory, 100, 10, 1000)) {
+            journal.close();
+            assertThrows(IllegalStateException.class, () -> journal.append(record(3)));
+        }
+    }
+    
+    @Test
+    @DisplayName("Test Reopened Journal Continues The Sequence And Chain")
+    public void testReopen() throws Exception {
+        try (LoanJournal journal = new LoanJournal(directory, 100, 10, 1000)) {
+            for (long i = 1; i <= 5; i++) {
+                journal.append(record(i));
+            }
+        }
+        try (LoanJournal journal = new LoanJournal(directory, 100, 10, 1000)) {
+            assertEquals(5, journal.getLastSequence());
+            assertEquals(6, journal.append(record(6)));
+        }
+        assertEquals(6, LoanJournal.replay(directory, 1, r -> { }));
+    }
+    
+    @Test
+    @DisplayName("Test Torn Tail Is Dropped And Damaged Records Are Detected")
+    public void testCorruption() throws Exception {
+        try (LoanJournal journal = new LoanJournal(directory, 100, 10, 1000)) {
+            for (long i = 1; i <= 10; i++) {
+                journal.append(record(i));
+            }
+        }
+        Path segment = segmentFiles().get(0);
+        
+        // A half-written last record ends the replay
+        flipByte(segment, 9 * LoanJournal.RECORD_SIZE + 30);
+        assertEquals(9, LoanJournal.replay(directory, 1, r -> { }));
+        try (LoanJournal journal = new LoanJournal(directory, 100, 10, 1000)) {
+            assertEquals(9, journal.getLastSequence());
+            assertEquals(10, journal.append(record(10)));
+        }
+        assertEquals(10, LoanJournal.replay(directory, 1, r -> { }));
+        
+        // A damaged record in the middle is an error
+        flipByte(segment, 4 * LoanJournal.RECORD_SIZE + 30);
+        IOException e = assertThrows(IOException.class, () -> LoanJournal.replay(directory, 1, r -> { }));
+        assertTrue(e.getMessage().contains("sequence 5"));
+        
+        // Reopening refuses to truncate the intact records after it
+        byte[] before = Files.readAllBytes(segment);
+        e = assertThrows(IOException.class, () -> new LoanJournal(directory, 100, 10, 1000));
+        assertTrue(e.getMessage().contains("sequence 5"));
+        assertArrayEquals(before, Files.readAllBytes(segment));
+    }
+    
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+    
+    private static void flipByte(Path file, int offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, offset);
+            b.put(0, (byte) (b.get(0) ^ 0x5A));
+            b.rewind();
+            channel.write(b, offset);
+        }
+    }
+    
+    private static JournalRecord record(long loanId) {
+        boolean returned = loanId % 3 == 0;
+        return new JournalRecord(0, Instant.now(),
+                returned ? JournalRecord.Operation.RETURNED : JournalRecord.Operation.CREATED,
+                loanId, loanId * 10, loanId % 7, loanId % 2 == 0 ? 1L : null,
+                LocalDate.of(2025, 1, 1).plusDays(loanId % 20),
+                returned ? LocalDate.of(2025, 1, (int) (loanId % 28) + 1) : null,
+                returned ? 1.5 : null);
+    }
+}
\ No newline at end of file
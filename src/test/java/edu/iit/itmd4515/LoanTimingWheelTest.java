@@ -0,0 +1,110 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.service.LoanTimingWheel;
+import edu.iit.itmd4515.service.LoanTimingWheel.Transition;
+import org.junit.jupiter.api.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanTimingWheelTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 10);
+    
+    private LoanTimingWheel wheel;
+    
+    @BeforeEach
+    public void setUp() {
+        wheel = new LoanTimingWheel(TODAY, 3, 1);
+    }
+    
+    @Test
+    @DisplayName("Test Loan Becomes Overdue The Day After Its Due Date")
+    public void testBecomesOverdue() {
+        wheel.add(1L, 100L, TODAY.plusDays(2));
+        
+        List<Transition> transitions = wheel.advanceTo(TODAY.plusDays(2));
+        assertTrue(wheel.getOverdueLoanIds().isEmpty(), "Loan due today should not be overdue");
+        assertEquals(1, transitions.size());
+        assertEquals(Transition.Type.DUE_SOON, transitions.get(0).getType());
+        assertEquals(1, transitions.get(0).getDaysUntilDue());
+        
+        transitions = wheel.advanceTo(TODAY.plusDays(3));
+        assertEquals(1, transitions.size());
+        assertEquals(Transition.Type.BECAME_OVERDUE, transitions.get(0).getType());
+        assertEquals(List.of(1L), wheel.getOverdueLoanIds());
+        assertEquals(List.of(100L), wheel.getOverdueBorrowerIds());
+    }
+    
+    @Test
+    @DisplayName("Test Reminders Fire At Each Lead Time")
+    public void testReminders() {
+        wheel.add(1L, 100L, TODAY.plusDays(10));
+        
+        List<Transition> transitions = wheel.advanceTo(TODAY.plusDays(11));
+        List<String> fired = transitions.stream()
+                .map(t -> t.getType() + ":" + t.getDaysUntilDue())
+                .collect(Collectors.toList());
+        assertEquals(List.of("DUE_SOON:3", "DUE_SOON:1", "BECAME_OVERDUE:-1"), fired);
+    }
+    
+    @Test
+    @DisplayName("Test Already Overdue Loan Is Tracked Without Transition")
+    public void testAlreadyOverdue() {
+        wheel.add(1L, 100L, TODAY.minusDays(5));
+        
+        assertEquals(List.of(1L), wheel.getOverdueLoanIds());
+        assertTrue(wheel.advanceTo(TODAY.plusDays(1)).isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Test Returned Loan Stops Firing")
+    public void testRemove() {
+        wheel.add(1L, 100L, TODAY.plusDays(5));
+        wheel.add(2L, 100L, TODAY.minusDays(1));
+        
+        assertTrue(wheel.remove(1L));
+        assertTrue(wheel.remove(2L));
+        assertFalse(wheel.remove(2L));
+        assertTrue(wheel.advanceTo(TODAY.plusDays(30)).isEmpty());
+        assertTrue(wheel.getOverdueLoanIds().isEmpty());
+        assertTrue(wheel.getOverdueBorrowerIds().isEmpty());
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    @DisplayName("Test Borrower Stays Overdue Until Last Overdue Loan Is Returned")
+    public void testBorrowerCount() {
+        wheel.add(1L, 100L, TODAY.minusDays(1));
+        wheel.add(2L, 100L, TODAY.minusDays(2));
+        
+        wheel.remove(1L);
+        assertEquals(List.of(100L), wheel.getOverdueBorrowerIds());
+        wheel.remove(2L);
+        assertTrue(wheel.getOverdueBorrowerIds().isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Test Far Due Dates Cascade Through Higher Levels")
+    public void testCascade() {
+        // Due dates spread across levels 0 to 2 of the wheel
+        long[] offsets = {1, 63, 64, 65, 200, 4095, 4096, 5000};
+        for (int i = 0; i < offsets.length; i++) {
+            wheel.add((long) i, (long) i, TODAY.plusDays(offsets[i]));
+        }
+        
+        for (int i = 0; i < offsets.length; i++) {
+            LocalDate dueDate = TODAY.plusDays(offsets[i]);
+            wheel.advanceTo(dueDate);
+            assertFalse(wheel.isOverdue((long) i), "Loan " + i + " should not be overdue on its due date");
+            List<Transition> transitions = wheel.advanceTo(dueDate.plusDays(1));
+            assertTrue(wheel.isOverdue((long) i), "Loan " + i + " should be overdue after its due date");
+            long becameOverdue = transitions.stream()
+                    .filter(t -> t.getType() == Transition.Type.BECAME_OVERDUE)
+                    .count();
+            assertEquals(1, becameOverdue);
+        }
+        assertEquals(offsets.length, wheel.getOverdueLoanIds().size());
+    }
+}
\ No newline at end of file
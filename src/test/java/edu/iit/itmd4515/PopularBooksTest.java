@@ -0,0 +1,128 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.domain.PopularBookCount;
+import edu.iit.itmd4515.service.LongIntHashMap;
+import edu.iit.itmd4515.service.PopularBook;
+import edu.iit.itmd4515.service.PopularBooksTracker;
+import edu.iit.itmd4515.service.SpaceSavingSketch;
+import org.junit.jupiter.api.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopularBooksTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 31);
+    
+    @Test
+    @DisplayName("Test Space-Saving Bounds Every Estimate And Keeps The Heavy Hitters")
+    public void testSketchGuarantees() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(20);
+        Map<Long, Long> actual = new HashMap<>();
+        Random random = new Random(3);
+        int total = 50_000;
+        for (int i = 0; i < total; i++) {
+            // Books 0 to 4 take about half the loans, the rest spread over 2000 books
+            long book = random.nextBoolean() ? random.nextInt(5) : 5 + random.nextInt(2000);
+            sketch.offer(book, 1);
+            actual.merge(book, 1L, Long::sum);
+        }
+        
+        assertEquals(20, sketch.size());
+        Map<Long, long[]> counters = new HashMap<>();
+        sketch.forEach((book, count, error) -> counters.put(book, new long[]{count, error}));
+        for (Map.Entry<Long, long[]> counter : counters.entrySet()) {
+            long count = counter.getValue()[0];
+            long error = counter.getValue()[1];
+            long truth = actual.getOrDefault(counter.getKey(), 0L);
+            assertTrue(count - error <= truth && truth <= count, "bounds of book " + counter.getKey());
+        }
+        for (long book = 0; book < 5; book++) {
+            assertTrue(counters.containsKey(book), "heavy hitter " + book + " must have a counter");
+        }
+        // Any book without a counter occurred at most min count times
+        assertTrue(sketch.getMinCount() <= total / 20);
+        for (Map.Entry<Long, Long> book : actual.entrySet()) {
+            if (!counters.containsKey(book.getKey())) {
+                assertTrue(book.getValue() <= sketch.getMinCount());
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Test Windows Count Only Their Days And Libraries")
+    public void testWindows() {
+        PopularBooksTracker tracker = new PopularBooksTracker(10);
+        tracker.record(1, TODAY, 100, 3);
+        tracker.record(1, TODAY.minusDays(6), 200, 5);
+        tracker.record(2, TODAY.minusDays(20), 200, 4);
+        tracker.record(1, TODAY.minusDays(100), 300, 50);
+        
+        assertEquals(List.of("200:5", "100:3"), format(tracker.top(1, TODAY, 7, 10)));
+        assertEquals(List.of("100:3"), format(tracker.top(1, TODAY, 6, 10)));
+        assertEquals(List.of("200:9", "100:3"), format(tracker.top(PopularBookCount.ALL, TODAY, 30, 10)));
+        assertEquals(List.of("300:50"), format(tracker.top(PopularBookCount.ALL, TODAY, 365, 1)));
+        assertTrue(tracker.top(3, TODAY, 30, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> tracker.top(1, TODAY, 366, 10));
+        
+        tracker.expire(TODAY.plusDays(300));
+        assertEquals(List.of("200:9", "100:3"), format(tracker.top(PopularBookCount.ALL, TODAY, 365, 10)));
+    }
+    
+    @Test
+    @DisplayName("Test Persisted Counts Restore The Same Leaderboard")
+    public void testPersistAndRestore() {
+        PopularBooksTracker tracker = new PopularBooksTracker(2);
+        tracker.record(1, TODAY, 100, 1);
+        tracker.record(1, TODAY, 200, 2);
+        tracker.record(1, TODAY, 300, 1);
+        tracker.record(1, TODAY.minusDays(1), 100, 4);
+        List<LocalDate> dirty = tracker.drainDirtyDays();
+        assertEquals(List.of(TODAY.minusDays(1), TODAY), dirty);
+        assertTrue(tracker.drainDirtyDays().isEmpty());
+        
+        PopularBooksTracker restored = new PopularBooksTracker(2);
+        for (LocalDate day : dirty) {
+            for (PopularBookCount count : tracker.counts(day)) {
+                restored.restore(count);
+            }
+        }
+        assertTrue(restored.drainDirtyDays().isEmpty(), "Restoring does not need saving again");
+        List<PopularBook> top = restored.top(1, TODAY, 2, 10);
+        assertEquals(format(tracker.top(1, TODAY, 2, 10)), format(top));
+        // Book 300 took over book 100's counter today, so it may be overcounted by one
+        PopularBook book300 = top.stream().filter(b -> b.getBookId() == 300).findFirst().orElseThrow();
+        assertEquals(2, book300.getLoans());
+        assertEquals(1, book300.getMinLoans());
+    }
+    
+    @Test
+    @DisplayName("Test LongIntHashMap Remove Keeps Colliding Keys Reachable")
+    public void testLongIntHashMapRemove() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        Random random = new Random(11);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.containsKey(key) ? expected.remove(key) : LongIntHashMap.MISSING,
+                        map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 500; key++) {
+            assertEquals(expected.getOrDefault(key, LongIntHashMap.MISSING), map.get(key));
+        }
+    }
+    
+    private static List<String> format(List<PopularBook> books) {
+        return books.stream().map(b -> b.getBookId() + ":" + b.getLoans()).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,264 @@
+package edu.iit.itmd4515;
+
+import edu.iit.itmd4515.domain.Book;
+import edu.iit.itmd4515.domain.Borrower;
+import edu.iit.itmd4515.domain.Library;
+import edu.iit.itmd4515.domain.Publisher;
+import edu.iit.itmd4515.domain.PublisherFeedSync;
+import edu.iit.itmd4515.service.BookLoanService;
+import edu.iit.itmd4515.service.BookService;
+import edu.iit.itmd4515.service.CheckoutException;
+import edu.iit.itmd4515.service.DomainEventBus;
+import edu.iit.itmd4515.service.LoanCounterService;
+import edu.iit.itmd4515.service.LoanDueDateService;
+import edu.iit.itmd4515.service.PublisherFeedService;
+import jakarta.persistence.*;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.logging.Logger;
+
+public class PublisherFeedTest {
+    
+    private static final Logger LOG = Logger.getLogger(PublisherFeedTest.class.getName());
+    
+    private static EntityManagerFactory emf;
+    
+    private EntityManager em;
+    
+    @BeforeAll
+    public static void setUpClass() {
+        LOG.info("Creating EntityManagerFactory...");
+        emf = Persistence.createEntityManagerFactory("itmd4515testPU");
+    }
+    
+    @AfterAll
+    public static void tearDownClass() {
+        LOG.info("Closing EntityManagerFactory...");
+        if (emf != null) {
+            emf.close();
+        }
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        if (em == null) {
+            return;
+        }
+        if (em.getTransaction().isActive()) {
+            em.getTransaction().rollback();
+        }
+        em.close();
+    }
+    
+    @Test
+    @DisplayName("Test Content Hash Covers Every Feed Field And The Publisher")
+    public void testContentHash() {
+        Book title = title("Feed Title", "9780000000001");
+        String hash = PublisherFeedService.contentHash(title, 7L);
+        
+        assertTrue(hash.matches("[0-9a-f]{64}"), "Hash should be lowercase hex SHA-256");
+        assertEquals(hash, PublisherFeedService.contentHash(title("Feed Title", "9780000000001"), 7L));
+        assertNotEquals(hash, PublisherFeedService.contentHash(title, 8L), "Moving publisher is a change");
+        
+        Book renamed = title("Feed Title, Revised", "9780000000001");
+        assertNotEquals(hash, PublisherFeedService.contentHash(renamed, 7L));
+        Book repriced = title("Feed Title", "9780000000001");
+        repriced.setPrice(21.99);
+        assertNotEquals(hash, PublisherFeedService.contentHash(repriced, 7L));
+        Book repaginated = title("Feed Title", "9780000000001");
+        repaginated.setPageCount(321);
+        assertNotEquals(hash, PublisherFeedService.contentHash(repaginated, 7L));
+        
+        // The separator keeps neighbouring fields from running into each other
+        assertNotEquals(PublisherFeedService.contentHash(new Book("AB", "C", "1"), 7L),
+                PublisherFeedService.contentHash(new Book("A", "BC", "1"), 7L));
+    }
+    
+    @Test
+    @DisplayName("Test Apply Chunk Counts Inserted, Updated And Unchanged Titles")
+    public void testApplyChunk() {
+        em = emf.createEntityManager();
+        long suffix = System.currentTimeMillis() % 1000000000L;
+        String firstIsbn = String.valueOf(9782000000000L + suffix * 2);
+        String secondIsbn = String.valueOf(9782000000000L + suffix * 2 + 1);
+        Long publisherId = persistPublisher("Chunk Publisher " + suffix);
+        PublisherFeedService feedService = feedService();
+        
+        PublisherFeedSync first = persistSync(publisherId);
+        em.getTransaction().begin();
+        feedService.applyChunk(first, List.of(title("First Title", firstIsbn), title("Second Title", secondIsbn)));
+        em.getTransaction().commit();
+        assertEquals(2, first.getInserted());
+        assertEquals(0, first.getUpdated());
+        assertEquals(0, first.getUnchanged());
+        
+        PublisherFeedSync second = persistSync(publisherId);
+        em.getTransaction().begin();
+        feedService.applyChunk(second, List.of(title("First Title", firstIsbn),
+                title("Second Title, Revised", secondIsbn)));
+        em.getTransaction().commit();
+        assertEquals(0, second.getInserted());
+        assertEquals(1, second.getUpdated());
+        assertEquals(1, second.getUnchanged());
+        
+        em.clear();
+        Book revised = findByIsbn(secondIsbn);
+        assertEquals("Second Title, Revised", revised.getTitle());
+        assertEquals(PublisherFeedService.contentHash(title("Second Title, Revised", secondIsbn), publisherId),
+                revised.getContentHash());
+        assertFalse(revised.getWithdrawn());
+        assertTrue(revised.getIsAvailable());
+    }
+    
+    @Test
+    @DisplayName("Test Withdrawn Titles Are Hidden From Search And Refused At Checkout")
+    public void testWithdraw() {
+        em = emf.createEntityManager();
+        long suffix = System.currentTimeMillis() % 1000000000L;
+        String keptIsbn = String.valueOf(9783000000000L + suffix * 2);
+        String droppedIsbn = String.valueOf(9783000000000L + suffix * 2 + 1);
+        String droppedTitle = "Dropped Title " + suffix;
+        Long publisherId = persistPublisher("Withdraw Publisher " + suffix);
+        PublisherFeedService feedService = feedService();
+        
+        PublisherFeedSync first = persistSync(publisherId);
+        em.getTransaction().begin();
+        feedService.applyChunk(first, List.of(title("Kept Title " + suffix, keptIsbn), title(droppedTitle, droppedIsbn)));
+        em.getTransaction().commit();
+        
+        // The next feed no longer lists the dropped title
+        PublisherFeedSync second = persistSync(publisherId);
+        em.getTransaction().begin();
+        feedService.applyChunk(second, List.of(title("Kept Title " + suffix, keptIsbn)));
+        em.getTransaction().commit();
+        long[] range = feedService.findBookIdRange(publisherId);
+        assertNotNull(range);
+        em.getTransaction().begin();
+        assertEquals(1, feedService.withdrawChunk(publisherId, second.getId(), range[0], range[1]));
+        em.getTransaction().commit();
+        em.getTransaction().begin();
+        assertEquals(0, feedService.withdrawChunk(publisherId, second.getId(), range[0], range[1]),
+                "Withdrawing again should change nothing");
+        em.getTransaction().commit();
+        
+        em.clear();
+        Book dropped = findByIsbn(droppedIsbn);
+        assertTrue(dropped.getWithdrawn());
+        assertFalse(findByIsbn(keptIsbn).getWithdrawn());
+        
+        BookService bookService = new BookService();
+        bookService.em = em;
+        assertTrue(bookService.findByTitle(droppedTitle).isEmpty(), "Search should leave out withdrawn titles");
+        assertEquals(1, bookService.findByTitle("Kept Title " + suffix).size());
+        assertTrue(bookService.findAvailableBooks().stream().noneMatch(b -> b.getId().equals(dropped.getId())),
+                "Availability should leave out withdrawn titles");
+        
+        Library library = new Library("Withdraw Test Library " + suffix, "1 Test Way", "Chicago", "IL", "60601",
+                LocalTime.of(9, 0), LocalTime.of(17, 0), 100);
+        Borrower borrower = new Borrower("Feed", "Borrower", "feed." + suffix + "@test.edu", "15550000000");
+        borrower.setAddress("1 Test Way");
+        borrower.setCity("Chicago");
+        borrower.setState("IL");
+        borrower.setZipCode("60601");
+        em.getTransaction().begin();
+        em.persist(library);
+        em.persist(borrower);
+        em.getTransaction().commit();
+        
+        BookLoanService loanService = loanService();
+        em.getTransaction().begin();
+        CheckoutException refused = assertThrows(CheckoutException.class, () -> loanService.checkout(
+                dropped.getId(), borrower.getId(), library.getId(), null, LocalDate.now().plusDays(14)));
+        assertEquals(CheckoutException.Reason.BOOK_UNAVAILABLE, refused.getReason());
+        em.getTransaction().rollback();
+        em.clear();
+        assertTrue(findByIsbn(droppedIsbn).getIsAvailable(), "A refused checkout should not claim the book");
+    }
+    
+    @Test
+    @DisplayName("Test Titles Listed By Rejected Feed Rows Are Not Withdrawn")
+    public void testKeepRejectedTitles() {
+        em = emf.createEntityManager();
+        long suffix = System.currentTimeMillis() % 1000000000L;
+        String validIsbn = String.valueOf(9788000000000L + suffix * 2);
+        String malformedIsbn = String.valueOf(9788000000000L + suffix * 2 + 1);
+        Long publisherId = persistPublisher("Rejected Row Publisher " + suffix);
+        PublisherFeedService feedService = feedService();
+        
+        PublisherFeedSync first = persistSync(publisherId);
+        em.getTransaction().begin();
+        feedService.applyChunk(first, List.of(title("Valid Title", validIsbn), title("Malformed Title", malformedIsbn)));
+        em.getTransaction().commit();
+        
+        // The next feed still lists the second title, but its row fails validation
+        PublisherFeedSync second = persistSync(publisherId);
+        em.getTransaction().begin();
+        feedService.applyChunk(second, List.of(title("Valid Title", validIsbn)));
+        feedService.keepTitles(second, List.of(malformedIsbn));
+        em.getTransaction().commit();
+        long[] range = feedService.findBookIdRange(publisherId);
+        em.getTransaction().begin();
+        assertEquals(0, feedService.withdrawChunk(publisherId, second.getId(), range[0], range[1]));
+        em.getTransaction().commit();
+        
+        em.clear();
+        assertFalse(findByIsbn(malformedIsbn).getWithdrawn());
+        assertEquals("Malformed Title", findByIsbn(malformedIsbn).getTitle(), "A rejected row changes nothing");
+    }
+    
+    private Long persistPublisher(String name) {
+        Publisher publisher = new Publisher(name, "1 Feed Way", "Chicago", "USA");
+        em.getTransaction().begin();
+        em.persist(publisher);
+        em.getTransaction().commit();
+        return publisher.getId();
+    }
+    
+    private PublisherFeedSync persistSync(Long publisherId) {
+        PublisherFeedSync sync = new PublisherFeedSync(publisherId, "csv", LocalDateTime.now());
+        em.getTransaction().begin();
+        em.persist(sync);
+        em.getTransaction().commit();
+        return sync;
+    }
+    
+    private Book findByIsbn(String isbn) {
+        return em.createQuery("SELECT b FROM Book b WHERE b.isbn = :isbn", Book.class)
+                .setParameter("isbn", isbn)
+                .getSingleResult();
+    }
+    
+    private PublisherFeedService feedService() {
+        PublisherFeedService feedService = new PublisherFeedService();
+        feedService.em = em;
+        return feedService;
+    }
+    
+    private BookLoanService loanService() {
+        LoanCounterService loanCounterService = new LoanCounterService();
+        loanCounterService.em = em;
+        DomainEventBus eventBus = new DomainEventBus();
+        LoanDueDateService loanDueDateService = new LoanDueDateService();
+        loanDueDateService.em = em;
+        loanDueDateService.eventBus = eventBus;
+        loanDueDateService.init();
+        BookLoanService service = new BookLoanService();
+        service.em = em;
+        service.loanCounterService = loanCounterService;
+        service.loanDueDateService = loanDueDateService;
+        service.eventBus = eventBus;
+        return service;
+    }
+    
+    private static Book title(String name, String isbn) {
+        Book title = new Book(name, "Feed Author", isbn);
+        title.setPublicationDate(LocalDate.of(2020, 5, 1));
+        title.setPageCount(240);
+        title.setPrice(19.99);
+        return title;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package edu.iit.itmd4515.rest;
+
+import org.junit.jupiter.api.*;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CborGeneratorTest {
+    
+    @Test
+    @DisplayName("Test Integers Use The Shortest Encoding")
+    public void testIntegers() {
+        assertArrayEquals(bytes(0x00), encode(g -> g.write(0)));
+        assertArrayEquals(bytes(0x17), encode(g -> g.write(23)));
+        assertArrayEquals(bytes(0x18, 0x18), encode(g -> g.write(24)));
+        assertArrayEquals(bytes(0x19, 0x03, 0xe8), encode(g -> g.write(1000)));
+        assertArrayEquals(bytes(0x1a, 0x00, 0x0f, 0x42, 0x40), encode(g -> g.write(1000000)));
+        assertArrayEquals(bytes(0x20), encode(g -> g.write(-1)));
+        assertArrayEquals(bytes(0x38, 0x63), encode(g -> g.write(-100)));
+        assertArrayEquals(bytes(0xc2, 0x49, 0x01, 0, 0, 0, 0, 0, 0, 0, 0),
+                encode(g -> g.write(BigInteger.ONE.shiftLeft(64))));
+    }
+    
+    @Test
+    @DisplayName("Test Simple Values, Floats And Text")
+    public void testScalars() {
+        assertArrayEquals(bytes(0xf5), encode(g -> g.write(true)));
+        assertArrayEquals(bytes(0xf4), encode(g -> g.write(false)));
+        assertArrayEquals(bytes(0xf6), encode(g -> g.writeNull()));
+        assertArrayEquals(bytes(0xfa, 0x3f, 0xc0, 0x00, 0x00), encode(g -> g.write(1.5)));
+        assertArrayEquals(bytes(0xfb, 0x3f, 0xf1, 0x99, 0x99, 0x99, 0x99, 0x99, 0x9a),
+                encode(g -> g.write(1.1)));
+        assertArrayEquals(bytes(0x64, 'I', 'E', 'T', 'F'), encode(g -> g.write("IETF")));
+        assertArrayEquals(bytes(0x62, 0xc3, 0xbc), encode(g -> g.write("\u00fc")));
+    }
+    
+    @Test
+    @DisplayName("Test BigDecimals Keep Their Digits As Decimal Fractions")
+    public void testBigDecimals() {
+        // The decimal fraction example of RFC 8949, section 3.4.4
+        assertArrayEquals(bytes(0xc4, 0x82, 0x21, 0x19, 0x6a, 0xb3), encode(g -> g.write(new BigDecimal("273.15"))));
+        assertArrayEquals(bytes(0xfa, 0x3f, 0xc0, 0x00, 0x00), encode(g -> g.write(new BigDecimal("1.50"))),
+                "Values a float holds exactly stay floats");
+        BigDecimal precise = new BigDecimal("-12345678901234567890.0123456789");
+        assertEquals(precise, new Decoder(encode(g -> g.write(precise))).next());
+        assertEquals(new BigDecimal("19.99"), new Decoder(encode(g -> g.write(new BigDecimal("19.99")))).next());
+    }
+    
+    @Test
+    @DisplayName("Test Nested Objects Round Trip")
+    public void testRoundTrip() {
+        byte[] cbor = encode(g -> g.writeStartArray()
+                .writeStartObject()
+                .write("id", 42L)
+                .write("title", "Clean Code")
+                .write("price", 29.99)
+                .writeNull("returnDate")
+                .writeStartArray("tags").write("java").write("craft").writeEnd()
+                .writeEnd()
+                .writeEnd());
+        
+        Object decoded = new Decoder(cbor).next();
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("id", 42L);
+        expected.put("title", "Clean Code");
+        expected.put("price", 29.99);
+        expected.put("returnDate", null);
+        expected.put("tags", List.of("java", "craft"));
+        assertEquals(List.of(expected), decoded);
+    }
+    
+    @Test
+    @DisplayName("Test Unbalanced writeEnd Is Rejected")
+    public void testUnbalanced() {
+        CborGenerator generator = new CborGenerator(new ByteArrayOutputStream());
+        assertThrows(jakarta.json.stream.JsonGenerationException.class, generator::writeEnd);
+        generator.writeStartObject();
+        assertThrows(jakarta.json.stream.JsonGenerationException.class, generator::close);
+    }
+    
+    @Test
+    @DisplayName("Test Accept-Encoding Negotiation")
+    public void testNegotiate() {
+        assertNull(CompressionInterceptor.negotiate(null));
+        assertNull(CompressionInterceptor.negotiate("identity"));
+        assertEquals("gzip", CompressionInterceptor.negotiate("gzip, deflate, br"));
+        assertEquals("deflate", CompressionInterceptor.negotiate("deflate"));
+        assertEquals("deflate", CompressionInterceptor.negotiate("gzip;q=0.5, deflate;q=0.8"));
+        assertEquals("gzip", CompressionInterceptor.negotiate("*"));
+        assertNull(CompressionInterceptor.negotiate("gzip;q=0, deflate;q=0"));
+        assertEquals("deflate", CompressionInterceptor.negotiate("gzip;q=0, *"));
+    }
+    
+    @Test
+    @DisplayName("Test Conditional Headers Compare Tags Without Their Content Coding")
+    public void testStripCoding() {
+        assertEquals("\"5\"", RepresentationFilter.stripCoding("\"5-gzip\""));
+        assertEquals("\"5+cbor\", W/\"4\"", RepresentationFilter.stripCoding("\"5+cbor-deflate\", W/\"4\""));
+        assertEquals("\"5;id,title\"", RepresentationFilter.stripCoding("\"5;id,title\""));
+        assertEquals("*", RepresentationFilter.stripCoding("*"));
+    }
+    
+    @Test
+    @DisplayName("Test The JSON-P Provider Generates CBOR On Byte Streams")
+    public void testProviderGeneratesCbor() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jakarta.json.stream.JsonGenerator generator = new CborJsonProvider().createGeneratorFactory(null)
+                .createGenerator(out, StandardCharsets.UTF_8);
+        generator.writeStartObject().write("id", 42L).writeEnd().close();
+        assertEquals(Map.of("id", 42L), new Decoder(out.toByteArray()).next());
+        assertThrows(UnsupportedOperationException.class,
+                () -> new CborJsonProvider().createGenerator(new java.io.StringWriter()));
+    }
+    
+    private interface Writes {
+        void to(CborGenerator generator);
+    }
+    
+    private static byte[] encode(Writes writes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CborGenerator generator = new CborGenerator(out);
+        writes.to(generator);
+        generator.flush();
+        return out.toByteArray();
+    }
+    
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+    
+    /**
+     * Minimal decoder for the subset of CBOR written by CborGenerator.
+     */
+    static final class Decoder {
+        
+        private static final Object BREAK = new Object();
+        
+        private final ByteBuffer in;
+        
+        Decoder(byte[] bytes) {
+            this.in = ByteBuffer.wrap(bytes);
+        }
+        
+        Object next() {
+            int initial = in.get() & 0xff;
+            int major = initial >>> 5;
+            int info = initial & 0x1f;
+            switch (major) {
+                case 0:
+                    return argument(info);
+                case 1:
+                    return -1 - argument(info);
+                case 2: {
+                    byte[] bytes = new byte[(int) argument(info)];
+                    in.get(bytes);
+                    return bytes;
+                }
+                case 3: {
+                    byte[] bytes = new byte[(int) argument(info)];
+                    in.get(bytes);
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+                case 4: {
+                    List<Object> list = new ArrayList<>();
+                    if (info != 31) {
+                        for (long i = argument(info); i > 0; i--) {
+                            list.add(next());
+                        }
+                        return list;
+                    }
+                    for (Object item = next(); item != BREAK; item = next()) {
+                        list.add(item);
+                    }
+                    return list;
+                }
+                case 5: {
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (Object key = next(); key != BREAK; key = next()) {
+                        map.put((String) key, next());
+                    }
+                    return map;
+                }
+                case 6: {
+                    long tag = argument(info);
+                    if (tag == 4) {
+                        List<?> fraction = (List<?>) next();
+                        Object mantissa = fraction.get(1);
+                        BigInteger unscaled = mantissa instanceof BigInteger
+                                ? (BigInteger) mantissa : BigInteger.valueOf((Long) mantissa);
+                        return new BigDecimal(unscaled, (int) -(Long) fraction.get(0));
+                    }
+                    BigInteger magnitude = new BigInteger(1, (byte[]) next());
+                    return tag == 2 ? magnitude : BigInteger.ONE.negate().subtract(magnitude);
+                }
+                default:
+                    switch (info) {
+                        case 20: return false;
+                        case 21: return true;
+                        case 22: return null;
+                        case 26: return (double) in.getFloat();
+                        case 27: return in.getDouble();
+                        case 31: return BREAK;
+                        default: throw new IllegalStateException("Unsupported simple value " + info);
+                    }
+            }
+        }
+        
+        private long argument(int info) {
+            if (info < 24) {
+                return info;
+            }
+            switch (info) {
+                case 24: return in.get() & 0xffL;
+                case 25: return in.getShort() & 0xffffL;
+                case 26: return in.getInt() & 0xffffffffL;
+                default: return in.getLong();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package edu.iit.itmd4515.rest;
+
+import edu.iit.itmd4515.service.LoanExportRow;
+import org.junit.jupiter.api.*;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanExportWriterTest {
+    
+    private static final LoanExportRow ROW = new LoanExportRow(42L, LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 16),
+            null, 1.5, 7L, "9780132350884", "Clean Code, \"2nd\"\nEdition", 3L, "Ada Lovelace", "ada@test.edu",
+            1L, "Main\\Branch");
+    
+    @Test
+    @DisplayName("Test CSV Quotes Fields With Commas, Quotes And Newlines")
+    public void testCsv() throws Exception {
+        StringWriter out = new StringWriter();
+        LoanExportWriter writer = new LoanExportWriter(LoanExportWriter.Format.CSV, out);
+        writer.writeHeader();
+        writer.accept(ROW);
+        
+        String[] lines = out.toString().split("\r\n");
+        assertTrue(lines[0].startsWith("loanId,loanDate,dueDate,returnDate,"));
+        assertEquals("42,2024-01-02,2024-01-16,,1.5,7,9780132350884,\"Clean Code, \"\"2nd\"\"\nEdition\","
+                + "3,Ada Lovelace,ada@test.edu,1,Main\\Branch", lines[1]);
+    }
+    
+    @Test
+    @DisplayName("Test NDJSON Writes One Escaped Object Per Line")
+    public void testNdjson() throws Exception {
+        StringWriter out = new StringWriter();
+        LoanExportWriter writer = new LoanExportWriter(LoanExportWriter.Format.NDJSON, out);
+        writer.writeHeader();
+        writer.accept(ROW);
+        writer.accept(ROW);
+        
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"loanId\":42,\"loanDate\":\"2024-01-02\""));
+        assertTrue(lines[0].contains("\"returnDate\":null,\"fineAmount\":1.5"));
+        assertTrue(lines[0].contains("\"title\":\"Clean Code, \\\"2nd\\\"\\nEdition\""));
+        assertTrue(lines[0].endsWith("\"libraryName\":\"Main\\\\Branch\"}"));
+    }
+    
+    @Test
+    @DisplayName("Test Unknown Format Is Rejected")
+    public void testParseFormat() {
+        assertEquals(LoanExportWriter.Format.NDJSON, LoanExportWriter.Format.parse(null));
+        assertEquals(LoanExportWriter.Format.CSV, LoanExportWriter.Format.parse("csv"));
+        assertThrows(IllegalArgumentException.class, () -> LoanExportWriter.Format.parse("xml"));
+    }
+}
\ No newline at end of file
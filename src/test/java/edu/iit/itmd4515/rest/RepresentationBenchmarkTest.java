@@ -0,0 +1,163 @@
+package edu.iit.itmd4515.rest;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import org.junit.jupiter.api.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares payload size and serialization time of JSON and CBOR, each with
+ * and without gzip, for a response of 100k loans shaped like GET /api/loans.
+ * The size comparison always runs, with JSON text rendered from the decoded
+ * CBOR so no JSON-P implementation is needed. The timed benchmark runs with
+ * {@code mvn test -Dtest=RepresentationBenchmarkTest -Dbenchmark=true} and
+ * needs a JSON-P implementation on the test classpath for the JSON baseline.
+ */
+public class RepresentationBenchmarkTest {
+    
+    private static final Logger LOG = Logger.getLogger(RepresentationBenchmarkTest.class.getName());
+    
+    private static final int LOANS = 100_000;
+    
+    private static final int ROUNDS = 5;
+    
+    private static final int SIZE_CHECK_LOANS = 10_000;
+    
+    @Test
+    @DisplayName("Test CBOR Is Smaller Than JSON With And Without Gzip")
+    public void testCborIsSmallerThanJson() throws IOException {
+        ByteArrayOutputStream cbor = new ByteArrayOutputStream();
+        CborGenerator generator = new CborGenerator(cbor);
+        writeLoans(generator, SIZE_CHECK_LOANS);
+        generator.flush();
+        StringBuilder json = new StringBuilder();
+        appendJson(json, new CborGeneratorTest.Decoder(cbor.toByteArray()).next());
+        byte[] jsonBytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        
+        long cborGzip = gzipSize(cbor.toByteArray());
+        long jsonGzip = gzipSize(jsonBytes);
+        LOG.log(Level.INFO, "json: {0} bytes, cbor: {1} bytes, json+gzip: {2} bytes, cbor+gzip: {3} bytes",
+                new Object[]{jsonBytes.length, cbor.size(), jsonGzip, cborGzip});
+        assertTrue(cbor.size() < jsonBytes.length * 0.85, "CBOR should be at least 15% smaller than JSON");
+        assertTrue(cborGzip < jsonGzip, "CBOR should stay smaller than JSON once both are gzipped");
+        assertTrue(jsonGzip < jsonBytes.length && cborGzip < cbor.size(), "gzip should shrink both representations");
+    }
+    
+    @Test
+    @DisplayName("Benchmark JSON And CBOR With And Without Gzip On 100k Loans")
+    public void benchmarkRepresentations() {
+        Assumptions.assumeTrue(Boolean.getBoolean("benchmark"), "Set -Dbenchmark=true to run");
+        Assumptions.assumeTrue(jsonAvailable(), "No JSON-P implementation on the classpath");
+        
+        long json = measure("json", out -> Json.createGenerator(out), false);
+        long jsonGzip = measure("json+gzip", out -> Json.createGenerator(out), true);
+        long cbor = measure("cbor", CborGenerator::new, false);
+        long cborGzip = measure("cbor+gzip", CborGenerator::new, true);
+        
+        assertTrue(cbor < json, "CBOR should be smaller than JSON");
+        assertTrue(jsonGzip < json && cborGzip < cbor, "gzip should shrink both representations");
+    }
+    
+    private long measure(String name, Function<OutputStream, JsonGenerator> factory, boolean gzip) {
+        long size = 0;
+        long bestNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 << 20);
+            long start = System.nanoTime();
+            try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 8192) : bytes) {
+                JsonGenerator generator = factory.apply(out);
+                writeLoans(generator, LOANS);
+                generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            size = bytes.size();
+        }
+        LOG.log(Level.INFO, "{0}: {1} bytes, {2} ms", new Object[]{name, size, bestNanos / 1_000_000});
+        return size;
+    }
+    
+    private static void writeLoans(JsonGenerator generator, int loans) {
+        LocalDate base = LocalDate.of(2024, 1, 1);
+        generator.writeStartArray();
+        for (int i = 0; i < loans; i++) {
+            LocalDate loanDate = base.plusDays(i % 365);
+            generator.writeStartObject()
+                    .write("id", i + 1L)
+                    .write("version", 1L)
+                    .write("loanDate", loanDate.toString())
+                    .write("dueDate", loanDate.plusDays(14).toString());
+            if (i % 3 == 0) {
+                generator.writeNull("returnDate");
+            } else {
+                generator.write("returnDate", loanDate.plusDays(10).toString());
+            }
+            generator.write("borrowerName", "Borrower " + (i % 5000))
+                    .write("borrowerEmail", "borrower" + (i % 5000) + "@example.edu")
+                    .write("borrowerPhone", "1555" + (1000000 + i % 5000))
+                    .write("fineAmount", (i % 7) * 0.25)
+                    .write("notes", "")
+                    .writeEnd();
+        }
+        generator.writeEnd();
+    }
+    
+    private static long gzipSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed, 8192)) {
+            out.write(bytes);
+        }
+        return compressed.size();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void appendJson(StringBuilder json, Object value) {
+        if (value instanceof Map) {
+            json.append('{');
+            String separator = "";
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                json.append(separator);
+                appendJson(json, entry.getKey());
+                json.append(':');
+                appendJson(json, entry.getValue());
+                separator = ",";
+            }
+            json.append('}');
+        } else if (value instanceof List) {
+            json.append('[');
+            String separator = "";
+            for (Object item : (List<Object>) value) {
+                json.append(separator);
+                appendJson(json, item);
+                separator = ",";
+            }
+            json.append(']');
+        } else if (value instanceof String) {
+            json.append('"').append(((String) value).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        } else {
+            json.append(value);
+        }
+    }
+    
+    private static boolean jsonAvailable() {
+        try {
+            Json.createGenerator(new ByteArrayOutputStream()).close();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
\ No newline at end of file